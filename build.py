@@ -255,6 +255,7 @@ CTX.INPUT['common'] = """
  SerializableEEException.cpp
  SQLException.cpp
  InterruptException.cpp
+ LargePageAllocator.cpp
  StringRef.cpp
  tabletuple.cpp
  TupleSchema.cpp
@@ -496,7 +497,9 @@ if whichtests in ("${eetestsuite}", "execution"):
 if whichtests in ("${eetestsuite}", "executors"):
     CTX.TESTS['executors'] = """
     OptimizedProjectorTest
+    IndexScanCoveringTest
     MergeReceiveExecutorTest
+    NestLoopSemiJoinTest
     TestGeneratedPlans
     TestWindowedRank
     TestWindowedCount
@@ -528,6 +531,7 @@ if whichtests in ("${eetestsuite}", "storage"):
      DRBinaryLog_test
      DRTupleStream_test
      ExportTupleStream_test
+     LargePageTableBenchmark
      PersistentTableMemStatsTest
      StreamedTable_test
      TempTableLimitsTest
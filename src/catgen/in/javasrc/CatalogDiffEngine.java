@@ -935,7 +935,10 @@ public class CatalogDiffEngine {
             return null;
         if (suspect instanceof Table) {
             if (field.equals("signature") ||
-                field.equals("tuplelimit"))
+                field.equals("tuplelimit") ||
+                field.equals("ttlcolumn") ||
+                field.equals("ttlseconds") ||
+                field.equals("ttlbatchsize"))
                 return null;
 
             // Always allow disabling DR on table
@@ -972,6 +975,10 @@ public class CatalogDiffEngine {
             if (field.equals("defaulttype")) {
                 return null;
             }
+            // The EE rebuilds the table when its columns change storage.
+            if (field.equals("dictionary")) {
+                return null;
+            }
             if (field.equals("nullable")) {
                 Boolean nullable = (Boolean) suspect.getField(field);
                 assert(nullable != null);
@@ -0,0 +1,130 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2017 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+#ifndef BLOOMFILTER_HPP_
+#define BLOOMFILTER_HPP_
+
+#include <algorithm>
+#include <cstddef>
+#include <stdint.h>
+#include <vector>
+
+namespace voltdb {
+
+/**
+ * A Bloom filter over hash values.  The caller hashes its keys, for
+ * example with NValue::hashCombine, and the filter answers whether a
+ * hash may have been added.  There are no false negatives, and with
+ * about 16 bits per expected entry and 3 probes there are well under
+ * 1% false positives.
+ */
+class BloomFilter {
+public:
+    BloomFilter() : m_mask(0) { }
+
+    /**
+     * The bytes of memory init() allocates for the expected number of
+     * entries, at most 16MB.
+     */
+    static int32_t allocationSize(int64_t expectedEntries) {
+        return static_cast<int32_t>(bitsFor(expectedEntries) / 8);
+    }
+
+    /**
+     * Size the filter for the expected number of entries and clear it.
+     * The memory of the filter is reused if it already has that size.
+     */
+    void init(int64_t expectedEntries) {
+        uint64_t nBits = bitsFor(expectedEntries);
+        if (m_words.size() == nBits / 64) {
+            std::fill(m_words.begin(), m_words.end(), 0);
+        }
+        else {
+            std::vector<uint64_t>(nBits / 64, 0).swap(m_words);
+        }
+        m_mask = nBits - 1;
+    }
+
+    /**
+     * Free the memory of the filter.  It has to be initialized again
+     * before it is used.
+     */
+    void release() {
+        std::vector<uint64_t>().swap(m_words);
+        m_mask = 0;
+    }
+
+    void add(std::size_t hash) {
+        uint64_t mixed = mix(hash);
+        uint64_t probe = mixed & 0xFFFFFFFF;
+        uint64_t step = (mixed >> 32) | 1;
+        for (int ii = 0; ii < NUM_PROBES; ++ii) {
+            uint64_t bit = probe & m_mask;
+            m_words[bit >> 6] |= (1ULL << (bit & 63));
+            probe += step;
+        }
+    }
+
+    bool mayContain(std::size_t hash) const {
+        uint64_t mixed = mix(hash);
+        uint64_t probe = mixed & 0xFFFFFFFF;
+        uint64_t step = (mixed >> 32) | 1;
+        for (int ii = 0; ii < NUM_PROBES; ++ii) {
+            uint64_t bit = probe & m_mask;
+            if ((m_words[bit >> 6] & (1ULL << (bit & 63))) == 0) {
+                return false;
+            }
+            probe += step;
+        }
+        return true;
+    }
+
+private:
+    static uint64_t bitsFor(int64_t expectedEntries) {
+        uint64_t nBits = MIN_BITS;
+        while (nBits < MAX_BITS && nBits < static_cast<uint64_t>(expectedEntries) * BITS_PER_ENTRY) {
+            nBits <<= 1;
+        }
+        return nBits;
+    }
+
+    /**
+     * Spread the bits of a hash value.  Hashes of small integers
+     * are not very random, and the probes need all 64 bits.
+     */
+    static uint64_t mix(uint64_t hash) {
+        hash ^= hash >> 33;
+        hash *= 0xff51afd7ed558ccdULL;
+        hash ^= hash >> 33;
+        hash *= 0xc4ceb9fe1a85ec53ULL;
+        hash ^= hash >> 33;
+        return hash;
+    }
+
+    static const int NUM_PROBES = 3;
+    static const uint64_t BITS_PER_ENTRY = 16;
+    static const uint64_t MIN_BITS = 64;
+    // 16MB of bits at most.
+    static const uint64_t MAX_BITS = 1ULL << 27;
+
+    std::vector<uint64_t> m_words;
+    uint64_t m_mask;
+};
+
+} // namespace voltdb
+
+#endif /* BLOOMFILTER_HPP_ */
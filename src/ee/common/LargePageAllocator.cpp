@@ -0,0 +1,129 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2017 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+#include "common/LargePageAllocator.h"
+#include "common/FatalException.hpp"
+
+#include <cstdlib>
+#include <cstring>
+#include <errno.h>
+#include <stdint.h>
+#include <sys/mman.h>
+#ifdef LINUX
+#include <sys/syscall.h>
+#include <unistd.h>
+#endif // LINUX
+
+namespace voltdb {
+
+bool LargePageAllocator::s_adviceEnabled = true;
+
+#ifdef LINUX
+// From linux/mempolicy.h, which is not always installed.
+static const int VOLT_MPOL_PREFERRED = 1;
+
+/**
+ * Prefer the NUMA node of the calling thread for the pages of the block.
+ * The kernel falls back to other nodes when that one is full, and any
+ * failure here (e.g. no NUMA support) leaves the default policy.
+ */
+static void preferLocalNode(void* memory, size_t size) {
+    unsigned int cpu;
+    unsigned int node;
+    if (syscall(SYS_getcpu, &cpu, &node, NULL) != 0) {
+        return;
+    }
+    unsigned long nodeMask = 0;
+    if (node >= sizeof(nodeMask) * 8) {
+        return;
+    }
+    nodeMask = 1UL << node;
+    syscall(SYS_mbind, memory, size, VOLT_MPOL_PREFERRED, &nodeMask, sizeof(nodeMask) * 8 + 1, 0);
+}
+#endif // LINUX
+
+static size_t roundUpToLargePages(size_t size) {
+    const size_t pageSize = LargePageAllocator::LARGE_PAGE_SIZE;
+    return (size + pageSize - 1) / pageSize * pageSize;
+}
+
+void* LargePageAllocator::allocate(size_t size) {
+    if (size < LARGE_PAGE_SIZE) {
+        void* memory = ::malloc(size);
+        if (memory == NULL) {
+            throwFatalException("Failed to allocate %lu bytes", static_cast<unsigned long>(size));
+        }
+        return memory;
+    }
+
+    size = roundUpToLargePages(size);
+    if ( ! s_adviceEnabled) {
+        void* memory = ::mmap(0, size, PROT_READ | PROT_WRITE, MAP_PRIVATE | MAP_ANON, -1, 0);
+        if (memory == MAP_FAILED) {
+            throwFatalException("Failed mmap: %s", strerror(errno));
+        }
+        return memory;
+    }
+
+    // Over-map by one large page, then unmap the unaligned head and the
+    // tail so that the block starts on a large page boundary.
+    char* mapped = static_cast<char*>(::mmap(0, size + LARGE_PAGE_SIZE,
+                                             PROT_READ | PROT_WRITE, MAP_PRIVATE | MAP_ANON, -1, 0));
+    if (mapped == MAP_FAILED) {
+        throwFatalException("Failed mmap: %s", strerror(errno));
+    }
+    size_t head = (LARGE_PAGE_SIZE - reinterpret_cast<uintptr_t>(mapped) % LARGE_PAGE_SIZE) % LARGE_PAGE_SIZE;
+    if (head > 0) {
+        ::munmap(mapped, head);
+    }
+    char* memory = mapped + head;
+    size_t tail = LARGE_PAGE_SIZE - head;
+    if (tail > 0) {
+        ::munmap(memory + size, tail);
+    }
+
+#ifdef MADV_HUGEPAGE
+    ::madvise(memory, size, MADV_HUGEPAGE);
+#endif
+#ifdef LINUX
+    preferLocalNode(memory, size);
+#endif // LINUX
+    return memory;
+}
+
+void LargePageAllocator::free(void* memory, size_t size) {
+    if (memory == NULL) {
+        return;
+    }
+    if (size < LARGE_PAGE_SIZE) {
+        ::free(memory);
+        return;
+    }
+    if (::munmap(memory, roundUpToLargePages(size)) != 0) {
+        throwFatalException("Failed munmap: %s", strerror(errno));
+    }
+}
+
+void LargePageAllocator::setAdviceEnabled(bool enabled) {
+    s_adviceEnabled = enabled;
+}
+
+bool LargePageAllocator::isAdviceEnabled() {
+    return s_adviceEnabled;
+}
+
+} // namespace voltdb
@@ -0,0 +1,58 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2017 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+#ifndef LARGEPAGEALLOCATOR_H_
+#define LARGEPAGEALLOCATOR_H_
+
+#include <cstddef>
+
+namespace voltdb {
+
+/**
+ * Allocator for the big, long-lived blocks of table and index storage.
+ *
+ * Blocks of at least LARGE_PAGE_SIZE bytes are mapped directly, aligned
+ * to LARGE_PAGE_SIZE, and on Linux are advised to be backed by
+ * transparent huge pages and preferably placed on the NUMA node of the
+ * allocating (site) thread.  Where the system does not support either,
+ * the advice is ignored and the block is backed by regular pages.
+ * Smaller blocks come from malloc.
+ *
+ * A block must be freed with the same size it was allocated with.
+ */
+class LargePageAllocator {
+public:
+    static const size_t LARGE_PAGE_SIZE = 2 * 1024 * 1024;
+
+    static void* allocate(size_t size);
+    static void free(void* memory, size_t size);
+
+    /**
+     * Huge page and NUMA advice is on by default.  Turning it off only
+     * affects blocks allocated afterwards, which is useful to compare
+     * the two in benchmarks.
+     */
+    static void setAdviceEnabled(bool enabled);
+    static bool isAdviceEnabled();
+
+private:
+    static bool s_adviceEnabled;
+};
+
+} // namespace voltdb
+
+#endif // LARGEPAGEALLOCATOR_H_
@@ -285,9 +285,12 @@ class NValue {
         there is no pre-existing persistent or temp object to share with
         the temp target tuple. If "isInlined = false" indicates that the
         temp tuple requires an object, one must be allocated from the temp
-        data Pool provided. **/
+        data Pool provided.
+        In the first case, without a temp Pool, "shareObjects = true" (for
+        DICTIONARY columns) takes a reference to a shared copy of the object
+        instead, see StringRef::createShared. **/
     void serializeToTupleStorage(void *storage, bool isInlined, int32_t maxLength, bool isInBytes,
-                                 bool allocateObjects, Pool* tempPool) const;
+                                 bool allocateObjects, Pool* tempPool, bool shareObjects = false) const;
 
     /* Deserialize a scalar value of the specified type from the
        SerializeInput directly into the tuple storage area
@@ -732,6 +735,18 @@ class NValue {
         return sref->getAllocatedSize();
     }
 
+    // The StringRef of a value that is shared with other tuples (of a
+    // DICTIONARY column, see StringRef::createShared), or NULL.
+    const StringRef* getSharedObject() const
+    {
+        if (isNull()) {
+            return NULL;
+        }
+        assert( ! m_sourceInlined);
+        const StringRef* sref = getObjectPointer();
+        return sref->isShared() ? sref : NULL;
+    }
+
 private:
     /*
      * Private methods are private for a reason. Don't expose the raw
@@ -845,6 +860,14 @@ private:
     const StringRef* getObjectPointer() const
     { return *reinterpret_cast<const StringRef* const*>(m_data); }
 
+    // True if both values refer to the same storage, as the values of
+    // DICTIONARY columns do when they are equal.
+    bool isSameObject(const NValue& rhs) const
+    {
+        return m_sourceInlined == rhs.m_sourceInlined &&
+               getObjectPointer() == rhs.getObjectPointer();
+    }
+
     const char* getObjectValue_withoutNull() const
     {
         if (m_sourceInlined) {
@@ -1968,6 +1991,10 @@ private:
 
         assert(m_valueType == VALUE_TYPE_VARCHAR);
 
+        if (isSameObject(rhs)) {
+            return VALUE_COMPARE_EQUAL;
+        }
+
         int32_t leftLength;
         const char* left = getObject_withoutNull(&leftLength);
         int32_t rightLength;
@@ -1999,6 +2026,9 @@ private:
                                data_exception_most_specific_type_mismatch,
                                message);
         }
+        if (isSameObject(rhs)) {
+            return VALUE_COMPARE_EQUAL;
+        }
         int32_t leftLength;
         const char* left = getObject_withoutNull(&leftLength);
         int32_t rightLength;
@@ -2805,7 +2835,8 @@ inline NValue NValue::initFromTupleStorage(const void *storage, ValueType type,
 
 inline void NValue::serializeToTupleStorage(void *storage, bool isInlined,
                                             int32_t maxLength, bool isInBytes,
-                                            bool allocateObjects, Pool* tempPool) const
+                                            bool allocateObjects, Pool* tempPool,
+                                            bool shareObjects) const
 {
     const ValueType type = getValueType();
     switch (type) {
@@ -2853,7 +2884,12 @@ inline void NValue::serializeToTupleStorage(void *storage, bool isInlined,
         const StringRef* sref;
         if (allocateObjects) {
             // Need to copy a StringRef pointer.
-            sref = StringRef::create(length, buf, tempPool);
+            if (shareObjects && tempPool == NULL) {
+                sref = StringRef::createShared(length, buf);
+            }
+            else {
+                sref = StringRef::create(length, buf, tempPool);
+            }
         }
         else if (m_sourceInlined) {
             sref = StringRef::create(length, buf, getTempStringPool());
@@ -0,0 +1,85 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2017 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+#ifndef SHAREDSTRINGDICTIONARY_H
+#define SHAREDSTRINGDICTIONARY_H
+
+#include "common/StringRef.h"
+
+#include "boost/unordered_map.hpp"
+
+#include <cassert>
+#include <string>
+
+namespace voltdb
+{
+
+/// The persistent strings of DICTIONARY columns, which are shared by all
+/// of the tuples of a thread that have the same value, and are counted
+/// by reference.  There is one dictionary per thread, kept with the
+/// thread's memory pools; see ThreadLocalPool::getSharedStringDictionary.
+class SharedStringDictionary
+{
+public:
+    /// Return the shared StringRef with the given value, creating it
+    /// if needed, and count one more reference to it.
+    StringRef* acquire(int32_t size, const char* bytes)
+    {
+        std::string value(bytes, size);
+        boost::unordered_map<std::string, StringRef*>::iterator found = m_byValue.find(value);
+        if (found != m_byValue.end()) {
+            ++m_refCounts[found->second];
+            return found->second;
+        }
+        StringRef* sref = StringRef::create(size, bytes, NULL);
+        sref->markShared();
+        m_byValue[value] = sref;
+        m_refCounts[sref] = 1;
+        return sref;
+    }
+
+    /// Count one less reference to a shared StringRef.
+    /// Return true if it is still referenced, so must not be destroyed.
+    /// Return false if it was the last reference, in which case it is
+    /// no longer in the dictionary.
+    bool release(StringRef* sref)
+    {
+        assert(sref->isShared());
+        boost::unordered_map<StringRef*, int32_t>::iterator found = m_refCounts.find(sref);
+        if (found == m_refCounts.end()) {
+            return false;
+        }
+        if (--(found->second) > 0) {
+            return true;
+        }
+        m_refCounts.erase(found);
+        int32_t size;
+        const char* bytes = sref->getObject(&size);
+        m_byValue.erase(std::string(bytes, size));
+        return false;
+    }
+
+    size_t size() const { return m_byValue.size(); }
+
+private:
+    boost::unordered_map<std::string, StringRef*> m_byValue;
+    boost::unordered_map<StringRef*, int32_t> m_refCounts;
+};
+
+} // namespace voltdb
+
+#endif // SHAREDSTRINGDICTIONARY_H
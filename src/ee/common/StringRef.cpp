@@ -18,6 +18,7 @@
 #include "StringRef.h"
 
 #include "Pool.hpp"
+#include "SharedStringDictionary.h"
 #include "ThreadLocalPool.h"
 
 using namespace voltdb;
@@ -26,30 +27,30 @@ inline ThreadLocalPool::Sized* asSizedObject(char* stringPtr)
 { return reinterpret_cast<ThreadLocalPool::Sized*>(stringPtr); }
 
 char* StringRef::getObjectValue()
-{ return asSizedObject(m_stringPtr)->m_data; }
+{ return asSizedObject(stringPtr())->m_data; }
 
 const char* StringRef::getObjectValue() const
-{ return asSizedObject(m_stringPtr)->m_data; }
+{ return asSizedObject(stringPtr())->m_data; }
 
 int32_t StringRef::getObjectLength() const
-{ return asSizedObject(m_stringPtr)->m_size; }
+{ return asSizedObject(stringPtr())->m_size; }
 
 const char* StringRef::getObject(int32_t* lengthOut) const
 {
     /*/ enable to debug
-    std::cout << this << " DEBUG: getting [" << asSizedObject(m_stringPtr)->m_size << "]"
-              << std::string(asSizedObject(m_stringPtr)->m_data,
-                             asSizedObject(m_stringPtr)->m_size)
+    std::cout << this << " DEBUG: getting [" << asSizedObject(stringPtr())->m_size << "]"
+              << std::string(asSizedObject(stringPtr())->m_data,
+                             asSizedObject(stringPtr())->m_size)
               << std::endl;
     // */
-    *lengthOut = asSizedObject(m_stringPtr)->m_size;
-    return asSizedObject(m_stringPtr)->m_data;
+    *lengthOut = asSizedObject(stringPtr())->m_size;
+    return asSizedObject(stringPtr())->m_data;
 }
 
 int32_t StringRef::getAllocatedSize() const
 {
     // The CompactingPool allocated a chunk of this size for storage.
-    int32_t alloc_size = ThreadLocalPool::getAllocationSizeForRelocatable(asSizedObject(m_stringPtr));
+    int32_t alloc_size = ThreadLocalPool::getAllocationSizeForRelocatable(asSizedObject(stringPtr()));
     //cout << "Pool allocation size: " << alloc_size << endl;
     // One of these was allocated in the thread local pool for the string
     alloc_size += static_cast<int32_t>(sizeof(StringRef));
@@ -88,7 +89,7 @@ inline StringRef::StringRef(Pool* unused, int32_t sz)
 // The destroy method keeps this from getting run on temporary strings.
 inline StringRef::~StringRef()
 {
-    ThreadLocalPool::freeRelocatable(asSizedObject(m_stringPtr));
+    ThreadLocalPool::freeRelocatable(asSizedObject(stringPtr()));
 }
 
 StringRef* StringRef::create(int32_t sz, const char* source, Pool* tempPool)
@@ -118,6 +119,11 @@ StringRef* StringRef::create(int32_t sz, const char* source, Pool* tempPool)
     return result;
 }
 
+StringRef* StringRef::createShared(int32_t sz, const char* source)
+{
+    return ThreadLocalPool::getSharedStringDictionary().acquire(sz, source);
+}
+
 // The destroy method keeps this from getting run on temporary strings.
 void StringRef::operator delete(void* sref)
 {
@@ -145,5 +151,9 @@ StringRef::destroy(StringRef* sref)
     if (sref->m_stringPtr == reinterpret_cast<char*>(sref+1)) {
         return;
     }
+    // A shared string stays alive while other tuples still refer to it.
+    if (sref->isShared() && ThreadLocalPool::getSharedStringDictionary().release(sref)) {
+        return;
+    }
     delete sref;
 }
@@ -48,6 +48,14 @@ public:
     /// allocated out of the ThreadLocalPool's persistent storage.
     static StringRef* create(int32_t size, const char* bytes, Pool* tempPool);
 
+    /// Return a persistent StringRef for the given bytes which is
+    /// shared with every other StringRef returned for the same bytes
+    /// on this thread, as used for DICTIONARY columns.  Each call
+    /// counts one reference, which destroy() gives back.  The string
+    /// is only freed when its last reference is destroyed, so its
+    /// value must never be changed in place.
+    static StringRef* createShared(int32_t size, const char* bytes);
+
     /// Destroy the given StringRef object and free any memory
     /// allocated from persistent pools to store the object.
     /// sref must have been allocated and returned by a call to
@@ -58,8 +66,14 @@ public:
     /// Currently, the StringRefs for persistent strings are permanently
     /// allocated into a memory pool which is reserved for future reuse
     /// specifically as persistent StringRef memory.
+    /// A StringRef from createShared() is only freed along with its
+    /// last reference.
     static void destroy(StringRef* sref);
 
+    /// True for a StringRef from createShared().
+    bool isShared() const
+    { return (reinterpret_cast<uintptr_t>(m_stringPtr) & SHARED_FLAG) != 0; }
+
     char* getObjectValue();
     const char* getObjectValue() const;
 
@@ -68,6 +82,19 @@ public:
     const char* getObject(int32_t* lengthOut) const;
 
 private:
+    friend class SharedStringDictionary;
+
+    // The low bit of m_stringPtr marks a shared StringRef.  The string
+    // storage is aligned, and relocation moves m_stringPtr by the distance
+    // the storage moved, which keeps the bit.
+    static const uintptr_t SHARED_FLAG = 1;
+
+    char* stringPtr() const
+    { return reinterpret_cast<char*>(reinterpret_cast<uintptr_t>(m_stringPtr) & ~SHARED_FLAG); }
+
+    void markShared()
+    { m_stringPtr = reinterpret_cast<char*>(reinterpret_cast<uintptr_t>(m_stringPtr) | SHARED_FLAG); }
+
     // Signature used internally for persistent strings
     StringRef(int32_t size);
     // Signature used internally for temporary strings
@@ -17,6 +17,7 @@
 #include "common/ThreadLocalPool.h"
 
 #include "common/FatalException.hpp"
+#include "common/SharedStringDictionary.h"
 #include "common/SQLException.h"
 
 #include "structures/CompactingPool.h"
@@ -43,6 +44,7 @@ struct voltdb_pool_allocator_new_delete
  */
 static pthread_key_t m_key;
 static pthread_key_t m_stringKey;
+static pthread_key_t m_sharedStringKey;
 /**
  * Thread local key for storing integer value of amount of memory allocated
  */
@@ -61,6 +63,7 @@ typedef boost::unordered_map<int32_t, boost::shared_ptr<CompactingPool> > Compac
 static void createThreadLocalKey() {
     (void)pthread_key_create( &m_key, NULL);
     (void)pthread_key_create( &m_stringKey, NULL);
+    (void)pthread_key_create( &m_sharedStringKey, NULL);
     (void)pthread_key_create( &m_keyAllocated, NULL);
 }
 
@@ -72,6 +75,7 @@ ThreadLocalPool::ThreadLocalPool() {
                 new PairType(
                         1, new PoolsByObjectSize())));
         pthread_setspecific(m_stringKey, static_cast<const void*>(new CompactingStringStorage()));
+        pthread_setspecific(m_sharedStringKey, static_cast<const void*>(new SharedStringDictionary()));
     } else {
         PairTypePtr p =
                 static_cast<PairTypePtr>(pthread_getspecific(m_key));
@@ -88,6 +92,8 @@ ThreadLocalPool::~ThreadLocalPool() {
         if (p->first == 1) {
             delete p->second;
             pthread_setspecific( m_key, NULL);
+            delete static_cast<SharedStringDictionary*>(pthread_getspecific(m_sharedStringKey));
+            pthread_setspecific(m_sharedStringKey, NULL);
             delete static_cast<CompactingStringStorage*>(pthread_getspecific(m_stringKey));
             pthread_setspecific(m_stringKey, NULL);
             delete static_cast<std::size_t*>(pthread_getspecific(m_keyAllocated));
@@ -190,9 +196,9 @@ ThreadLocalPool::Sized* ThreadLocalPool::allocateRelocatable(char** referrer, in
     void* allocation;
     if (iter == poolMap.end()) {
         // There is no pool yet for objects of this size, so create one.
-        // Compute num_elements to be the largest multiple of alloc_size
-        // to fit in a 2MB buffer.
-        int32_t num_elements = ((2 * 1024 * 1024 - 1) / alloc_size) + 1;
+        // Compute num_elements so that each buffer, with its per-element
+        // and per-buffer overhead, fits in one 2MB large page.
+        int32_t num_elements = CompactingPool::elementsPerLargePage(alloc_size);
         boost::shared_ptr<CompactingPool> pool(new CompactingPool(alloc_size, num_elements));
         poolMap.insert(std::pair<int32_t, boost::shared_ptr<CompactingPool> >(alloc_size, pool));
         allocation = pool->malloc(referrer);
@@ -310,6 +316,11 @@ std::size_t ThreadLocalPool::getPoolAllocationSize() {
     return bytes_allocated;
 }
 
+SharedStringDictionary& ThreadLocalPool::getSharedStringDictionary()
+{
+    return *static_cast<SharedStringDictionary*>(pthread_getspecific(m_sharedStringKey));
+}
+
 char * voltdb_pool_allocator_new_delete::malloc(const size_type bytes) {
     (*static_cast< std::size_t* >(pthread_getspecific(m_keyAllocated))) += bytes + sizeof(std::size_t);
     //std::cout << "Pooled memory is " << ((*static_cast< std::size_t* >(pthread_getspecific(m_keyAllocated))) / (1024 * 1024)) << " after requested allocation " << (bytes / (1024 * 1024)) <<  std::endl;
@@ -23,6 +23,8 @@
 
 namespace voltdb {
 
+class SharedStringDictionary;
+
 /**
  * A wrapper around a set of pools that are local to the current thread.
  * An instance of the thread local pool must be maintained somewhere in the thread to ensure initialization
@@ -78,6 +80,14 @@ public:
 
     static std::size_t getPoolAllocationSize();
 
+    /**
+     * Return the dictionary of the persistent strings of the thread that
+     * are shared by reference counting (see StringRef::createShared).
+     * Its strings are allocated from the thread's pools, so it lives and
+     * dies with them.
+     */
+    static SharedStringDictionary& getSharedStringDictionary();
+
     /**
      * Allocate space from a page of objects of approximately the requested
      * size. There will be relatively small gaps of unused space between the
@@ -267,6 +267,7 @@ void TupleSchema::setColumnMetaData(uint16_t index, ValueType type, const int32_
     columnInfo->allowNull = (char)(allowNull ? 1 : 0);
     columnInfo->length = length;
     columnInfo->inBytes = inBytes;
+    columnInfo->dictionary = false;
 
     if (isVariableLengthType(type)) {
         if (length == 0) {
@@ -311,7 +312,8 @@ std::string TupleSchema::ColumnInfo::debug() const {
            << "offset = " << offset << ", "
            << "length = " << length << ", "
            << "nullable = " << (allowNull ? "true" : "false") << ", "
-           << "isInlined = " << inlined;
+           << "isInlined = " << inlined
+           << (dictionary ? ", dictionary" : "");
     return buffer.str();
 }
 
@@ -402,7 +404,8 @@ bool TupleSchema::equals(const TupleSchema *other) const
         // The declared column length for an out-of-line object is a behavior difference
         // that has no effect on tuple format.
         if (( ! columnInfo->inlined) &&
-                (columnInfo->length != ocolumnInfo->length)) {
+                (columnInfo->length != ocolumnInfo->length ||
+                 columnInfo->dictionary != ocolumnInfo->dictionary)) {
             return false;
         }
     }
@@ -55,6 +55,10 @@ public:
 
         bool inBytes;
 
+        // Persistent out-of-line values are shared by all of the tuples
+        // with the same value (see StringRef::createShared).
+        bool dictionary;
+
         const ValueType getVoltType() const {
             return static_cast<ValueType>(type);
         }
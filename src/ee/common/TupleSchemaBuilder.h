@@ -45,6 +45,7 @@ public:
         , m_sizes(numCols)
         , m_allowNullFlags(numCols)
         , m_inBytesFlags(numCols)
+        , m_dictionaryFlags(numCols)
         , m_hiddenTypes(0)
         , m_hiddenSizes(0)
         , m_hiddenAllowNullFlags(0)
@@ -59,6 +60,7 @@ public:
         , m_sizes(numCols)
         , m_allowNullFlags(numCols)
         , m_inBytesFlags(numCols)
+        , m_dictionaryFlags(numCols)
         , m_hiddenTypes(numHiddenCols)
         , m_hiddenSizes(numHiddenCols)
         , m_hiddenAllowNullFlags(numHiddenCols)
@@ -81,6 +83,15 @@ public:
         m_inBytesFlags[index] = inBytes;
     }
 
+    /** Share the persistent out-of-line values of the index-th
+     *  column between equal values.  This has no effect on an
+     *  inlined column. */
+    void setColumnDictionaryAtIndex(size_t index)
+    {
+        assert(index < m_dictionaryFlags.size());
+        m_dictionaryFlags[index] = true;
+    }
+
     /** Set the attributes of the index-th hidden column for the
      *  schema to be built. */
     void setHiddenColumnAtIndex(size_t index,
@@ -99,14 +110,21 @@ public:
     /** Finally, build the schema with the attributes specified. */
     TupleSchema* build() const
     {
-        return TupleSchema::createTupleSchema(m_types,
-                                              m_sizes,
-                                              m_allowNullFlags,
-                                              m_inBytesFlags,
-                                              m_hiddenTypes,
-                                              m_hiddenSizes,
-                                              m_hiddenAllowNullFlags,
-                                              m_hiddenInBytesFlags);
+        TupleSchema* schema = TupleSchema::createTupleSchema(m_types,
+                                                             m_sizes,
+                                                             m_allowNullFlags,
+                                                             m_inBytesFlags,
+                                                             m_hiddenTypes,
+                                                             m_hiddenSizes,
+                                                             m_hiddenAllowNullFlags,
+                                                             m_hiddenInBytesFlags);
+        for (size_t ii = 0; ii < m_dictionaryFlags.size(); ++ii) {
+            TupleSchema::ColumnInfo* columnInfo = schema->getColumnInfo(static_cast<int>(ii));
+            if (m_dictionaryFlags[ii] && ! columnInfo->inlined) {
+                columnInfo->dictionary = true;
+            }
+        }
+        return schema;
     }
 
     /* Below are convenience methods for setting column attributes,
@@ -194,6 +212,7 @@ private:
     std::vector<int32_t> m_sizes;
     std::vector<bool> m_allowNullFlags;
     std::vector<bool> m_inBytesFlags;
+    std::vector<bool> m_dictionaryFlags;
 
     std::vector<ValueType> m_hiddenTypes;
     std::vector<int32_t> m_hiddenSizes;
@@ -100,7 +100,8 @@ ExecutorContext::ExecutorContext(int64_t siteId,
     m_hostname(hostname),
     m_hostId(hostId),
     m_drClusterId(drClusterId),
-    m_progressStats()
+    m_progressStats(),
+    m_compactionBudgetMicros(0)
 {
     (void)pthread_once(&static_keyOnce, globalInitOrCreateOncePerProcess);
     bindToThread();
@@ -204,6 +204,18 @@ class ExecutorContext {
         return m_drClusterId;
     }
 
+    /**
+     * Longest time in microseconds a table may spend compacting after a
+     * transaction or in a tick, 0 for no limit.
+     */
+    int64_t compactionBudgetMicros() {
+        return m_compactionBudgetMicros;
+    }
+
+    void setCompactionBudgetMicros(int64_t budgetMicros) {
+        m_compactionBudgetMicros = budgetMicros;
+    }
+
     /** Last committed transaction known to this EE */
     int64_t lastCommittedSpHandle() {
         return m_lastCommittedSpHandle;
@@ -416,6 +428,7 @@ class ExecutorContext {
     CatalogId m_hostId;
     CatalogId m_drClusterId;
     ProgressStats m_progressStats;
+    int64_t m_compactionBudgetMicros;
 };
 
 }
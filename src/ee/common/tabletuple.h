@@ -65,6 +65,7 @@
 #endif /* !define(NDEBUG) */
 
 class CopyOnWriteTest_TestTableTupleFlags;
+class IndexScanCoveringTest;
 
 namespace voltdb {
 
@@ -91,6 +92,7 @@ class TableTuple {
     friend class CopyOnWriteIterator;
     friend class CopyOnWriteContext;
     friend class ::CopyOnWriteTest_TestTableTupleFlags;
+    friend class ::IndexScanCoveringTest;
     friend class StandAloneTupleStorage; // ... OK, this friend can also update m_schema.
     friend class SetAndRestorePendingDeleteFlag;
 
@@ -186,7 +188,9 @@ public:
         return bytes;
     }
 
-    // Return the amount of memory allocated for non-inlined objects
+    // Return the amount of memory allocated for non-inlined objects,
+    // apart from the shared objects of DICTIONARY columns, whose memory
+    // belongs to all of the tuples that share them.
     size_t getNonInlinedMemorySize() const
     {
         // fast-path for no inlined cols
@@ -201,7 +205,10 @@ public:
             const TupleSchema::ColumnInfo *columnInfo = m_schema->getColumnInfo(i);
             voltdb::ValueType columnType = columnInfo->getVoltType();
             if (isVariableLengthType(columnType) && !columnInfo->inlined) {
-                bytes += getNValue(i).getAllocationSizeForObject();
+                const NValue value = getNValue(i);
+                if ( ! columnInfo->dictionary || value.getSharedObject() == NULL) {
+                    bytes += value.getAllocationSizeForObject();
+                }
             }
         }
         return bytes;
@@ -589,7 +596,7 @@ private:
         char *dataPtr = getWritableDataPtr(columnInfo);
         int32_t columnLength = columnInfo->length;
         value.serializeToTupleStorage(dataPtr, isInlined, columnLength, isInBytes,
-                                      allocateObjects, tempPool);
+                                      allocateObjects, tempPool, columnInfo->dictionary);
     }
 };
 
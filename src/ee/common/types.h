@@ -363,7 +363,8 @@ enum TableIndexType {
     BALANCED_TREE_INDEX     = 1,
     HASH_TABLE_INDEX        = 2,
     BTREE_INDEX             = 3, // unused
-    COVERING_CELL_INDEX     = 4
+    COVERING_CELL_INDEX     = 4,
+    ADAPTIVE_RADIX_TREE_INDEX = 5
 };
 
 // ------------------------------------------------------------------
@@ -499,6 +500,7 @@ enum TaskType {
     TASK_TYPE_RESET_DR_APPLIED_TRACKER = 7,      // not supported in EE
     TASK_TYPE_SET_MERGED_DRID_TRACKER = 8,       // not supported in EE
     TASK_TYPE_INIT_DRID_TRACKER = 9,             // not supported in EE
+    TASK_TYPE_EXPIRE_ROWS = 10,
 };
 
 // ------------------------------------------------------------------
@@ -71,6 +71,7 @@
 #include "common/SerializableEEException.h"
 #include "common/TupleOutputStream.h"
 #include "common/TupleOutputStreamProcessor.h"
+#include "common/UniqueId.hpp"
 
 #include "executors/abstractexecutor.h"
 
@@ -173,7 +174,8 @@ void VoltDBEngine::initialize(int32_t clusterIndex,
                               int32_t defaultDrBufferSize,
                               int64_t tempTableMemoryLimit,
                               bool createDrReplicatedStream,
-                              int32_t compactionThreshold) {
+                              int32_t compactionThreshold,
+                              int64_t compactionBudgetMicros) {
     m_clusterIndex = clusterIndex;
     m_siteId = siteId;
     m_partitionId = partitionId;
@@ -232,6 +234,7 @@ void VoltDBEngine::initialize(int32_t clusterIndex,
                                             m_drStream,
                                             m_drReplicatedStream,
                                             drClusterId);
+    m_executorContext->setCompactionBudgetMicros(compactionBudgetMicros);
 }
 
 VoltDBEngine::~VoltDBEngine() {
@@ -741,6 +744,11 @@ static bool haveDifferentSchema(catalog::Table* t1, voltdb::PersistentTable* t2)
                 assert(type == VALUE_TYPE_VARCHAR);
                 return true;
             }
+            // Only out-of-line columns are kept in the dictionary.
+            bool dictionary = outerIter->second->dictionary() && ! columnInfo->inlined;
+            if (columnInfo->dictionary != dictionary) {
+                return true;
+            }
         }
     }
 
@@ -918,6 +926,11 @@ bool VoltDBEngine::processCatalogAdditions(int64_t timestamp) {
             //
             persistentTable->setTupleLimit(catalogTable->tuplelimit());
 
+            // The time to live may be declared, changed or disabled as well.
+            catalog::Column const* ttlColumn = catalogTable->ttlcolumn();
+            persistentTable->setTimeToLive(ttlColumn == NULL ? -1 : ttlColumn->index(),
+                                           catalogTable->ttlseconds(), catalogTable->ttlbatchsize());
+
             //////////////////////////////////////////
             // find all of the indexes to add
             //////////////////////////////////////////
@@ -1452,6 +1465,17 @@ void VoltDBEngine::tick(int64_t timeInMillis, int64_t lastCommittedSpHandle) {
     if (m_executorContext->drReplicatedStream()) {
         m_executorContext->drReplicatedStream()->periodicFlush(timeInMillis, lastCommittedSpHandle);
     }
+    // With a compaction budget, transactions leave compaction unfinished,
+    // so carry on with it here, one budgeted slice per table and tick.
+    int64_t compactionBudgetMicros = m_executorContext->compactionBudgetMicros();
+    if (compactionBudgetMicros > 0) {
+        BOOST_FOREACH (LabeledTCD cd, m_catalogDelegates) {
+            PersistentTable* table = cd.second->getPersistentTable();
+            if (table) {
+                table->doBudgetedCompaction(compactionBudgetMicros);
+            }
+        }
+    }
 }
 
 /** Bring the Export and DR system to a steady state with no pending committed data */
@@ -1837,6 +1861,36 @@ size_t VoltDBEngine::tableHashCode(int32_t tableId) {
     return table->hashCode();
 }
 
+int64_t VoltDBEngine::tableChangeStamp(int32_t tableId) {
+    Table* found = getTableById(tableId);
+    if (! found) {
+        throwFatalException("Tried to get the change stamp of a table that doesn't exist with id %d\n", tableId);
+    }
+
+    PersistentTable *table = dynamic_cast<PersistentTable*>(found);
+    if (table == NULL) {
+        throwFatalException(
+                "Tried to get the change stamp of a table that is not a persistent table id %d\n",
+                tableId);
+    }
+    return table->changeStamp();
+}
+
+int64_t VoltDBEngine::tableContentDigest(int32_t tableId) {
+    Table* found = getTableById(tableId);
+    if (! found) {
+        throwFatalException("Tried to get the content digest of a table that doesn't exist with id %d\n", tableId);
+    }
+
+    PersistentTable *table = dynamic_cast<PersistentTable*>(found);
+    if (table == NULL) {
+        throwFatalException(
+                "Tried to get the content digest of a table that is not a persistent table id %d\n",
+                tableId);
+    }
+    return table->contentDigest();
+}
+
 void VoltDBEngine::setHashinator(TheHashinator* hashinator) {
     m_hashinator.reset(hashinator);
 }
@@ -1939,6 +1993,33 @@ int64_t VoltDBEngine::applyBinaryLog(int64_t txnId,
     return rowCount;
 }
 
+int64_t VoltDBEngine::expireRows(int64_t txnId,
+                                 int64_t spHandle,
+                                 int64_t lastCommittedSpHandle,
+                                 int64_t uniqueId,
+                                 int64_t undoToken,
+                                 bool replicated) {
+    setUndoToken(undoToken);
+    m_executorContext->setupForPlanFragments(getCurrentUndoQuantum(),
+                                             txnId,
+                                             spHandle,
+                                             lastCommittedSpHandle,
+                                             uniqueId);
+
+    // Expire as of the transaction's unique id so that every replica,
+    // and command log replay, deletes the same rows.
+    int64_t nowMicros = UniqueId::timestampSinceUnixEpoch(uniqueId);
+    int64_t rowsExpired = 0;
+    typedef std::pair<CatalogId, Table*> TablePair;
+    BOOST_FOREACH (TablePair tablePair, m_tables) {
+        PersistentTable* table = dynamic_cast<PersistentTable*>(tablePair.second);
+        if (table != NULL && table->hasTimeToLive() && table->isReplicatedTable() == replicated) {
+            rowsExpired += table->expireRows(nowMicros);
+        }
+    }
+    return rowsExpired;
+}
+
 void VoltDBEngine::executeTask(TaskType taskType, ReferenceSerializeInputBE &taskInfo) {
     switch (taskType) {
     case TASK_TYPE_VALIDATE_PARTITIONING:
@@ -1983,6 +2064,18 @@ void VoltDBEngine::executeTask(TaskType taskType, ReferenceSerializeInputBE &tas
         }
         break;
     }
+    case TASK_TYPE_EXPIRE_ROWS: {
+        int64_t txnId = taskInfo.readLong();
+        int64_t spHandle = taskInfo.readLong();
+        int64_t lastCommittedSpHandle = taskInfo.readLong();
+        int64_t uniqueId = taskInfo.readLong();
+        int64_t undoToken = taskInfo.readLong();
+        bool replicated = taskInfo.readByte() != 0;
+        m_resultOutput.writeInt(sizeof(int64_t));
+        m_resultOutput.writeLong(expireRows(txnId, spHandle, lastCommittedSpHandle, uniqueId,
+                                            undoToken, replicated));
+        break;
+    }
     default:
         throwFatalException("Unknown task type %d", taskType);
     }
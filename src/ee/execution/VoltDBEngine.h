@@ -130,7 +130,8 @@ class __attribute__((visibility("default"))) VoltDBEngine {
                         int32_t defaultDrBufferSize,
                         int64_t tempTableMemoryLimit,
                         bool createDrReplicatedStream,
-                        int32_t compactionThreshold = 95);
+                        int32_t compactionThreshold = 95,
+                        int64_t compactionBudgetMicros = 0);
         virtual ~VoltDBEngine();
 
         // ------------------------------------------------------------------
@@ -420,6 +421,16 @@ class __attribute__((visibility("default"))) VoltDBEngine {
          */
         size_t tableHashCode(int32_t tableId);
 
+        /**
+         * Retrieve the change stamp of the specified table
+         */
+        int64_t tableChangeStamp(int32_t tableId);
+
+        /**
+         * Retrieve the order independent content digest of the specified table
+         */
+        int64_t tableContentDigest(int32_t tableId);
+
         void updateHashinator(HashinatorType type, char const* config,
                               int32_t* configPtr, uint32_t numTokens);
 
@@ -431,6 +442,18 @@ class __attribute__((visibility("default"))) VoltDBEngine {
                             int64_t undoToken,
                             char const* log);
 
+        /**
+         * Delete a batch of expired rows from each table with a time to live,
+         * either the partitioned or the replicated ones, as of the time of
+         * uniqueId.  Returns the number of rows deleted.
+         */
+        int64_t expireRows(int64_t txnId,
+                           int64_t spHandle,
+                           int64_t lastCommittedSpHandle,
+                           int64_t uniqueId,
+                           int64_t undoToken,
+                           bool replicated);
+
         /*
          * Execute an arbitrary task represented by the task id and serialized parameters.
          * Returns serialized representation of the results
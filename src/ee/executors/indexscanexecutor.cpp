@@ -141,7 +141,16 @@ bool IndexScanExecutor::p_init(AbstractPlanNode *abstractNode,
     m_lookupType = m_node->getLookupType();
     m_sortDirection = m_node->getSortDirection();
 
-    VOLT_DEBUG("IndexScan: %s.%s\n", targetTable->name().c_str(), tableIndex->getName().c_str());
+    //
+    // INDEX-ONLY SCAN
+    //
+    m_covering = m_node->isCovering() && tableIndex->canCoverIndexedColumns();
+    if (m_covering) {
+        m_coveredTupleStorage.init(targetTable->schema());
+    }
+
+    VOLT_DEBUG("IndexScan: %s.%s%s\n", targetTable->name().c_str(), tableIndex->getName().c_str(),
+               m_covering ? " (index only)" : "");
 
     return true;
 }
@@ -374,6 +383,15 @@ bool IndexScanExecutor::p_execute(const NValueArray &params)
     //
 
     TableTuple tuple;
+    // For an index-only scan, everything is evaluated on the key values
+    // copied into coveredTuple.  The planner has made sure that nothing
+    // reads any other column.  The table may have been truncated and
+    // replaced since p_init, so check that the index still qualifies.
+    bool covering = m_covering && tableIndex->canCoverIndexedColumns();
+    TableTuple coveredTuple;
+    if (covering) {
+        coveredTuple = m_coveredTupleStorage.tuple();
+    }
     if (activeNumOfSearchKeys > 0) {
         VOLT_TRACE("INDEX_LOOKUP_TYPE(%d) m_numSearchkeys(%d) key:%s",
                 localLookupType, activeNumOfSearchKeys, searchKey.debugNoHeader().c_str());
@@ -399,8 +417,12 @@ bool IndexScanExecutor::p_execute(const NValueArray &params)
                 tableIndex->moveToEnd(false, indexCursor);
             }
             else {
-                while (!(tuple = tableIndex->nextValue(indexCursor)).isNullTuple()) {
+                while (!(tuple = (covering ? tableIndex->nextCoveredValue(indexCursor, coveredTuple)
+                                           : tableIndex->nextValue(indexCursor))).isNullTuple()) {
                     pmp.countdownProgress();
+                    if (covering) {
+                        tuple = coveredTuple;
+                    }
                     if (initial_expression != NULL && !initial_expression->eval(&tuple, NULL).isTrue()) {
                         // just passed the first failed entry, so move 2 backward
                         tableIndex->moveToBeforePriorEntry(indexCursor);
@@ -428,14 +450,27 @@ bool IndexScanExecutor::p_execute(const NValueArray &params)
     // We have to different nextValue() methods for different lookup types
     //
     while (postfilter.isUnderLimit() &&
-           getNextTuple(localLookupType,
-                        &tuple,
-                        tableIndex,
-                        &indexCursor,
-                        activeNumOfSearchKeys)) {
+           (covering ?
+            getNextCoveredTuple(localLookupType,
+                                &tuple,
+                                coveredTuple,
+                                tableIndex,
+                                &indexCursor,
+                                activeNumOfSearchKeys) :
+            getNextTuple(localLookupType,
+                         &tuple,
+                         tableIndex,
+                         &indexCursor,
+                         activeNumOfSearchKeys))) {
+        // An update leaves the entries of the indexes whose keys do not
+        // change while the old tuple is pending delete for view maintenance,
+        // so even an index-only scan reads the header of the table tuple.
         if (tuple.isPendingDelete()) {
             continue;
         }
+        if (covering) {
+            tuple = coveredTuple;
+        }
         VOLT_TRACE("LOOPING in indexscan: tuple: '%s'\n", tuple.debug("tablename").c_str());
 
         pmp.countdownProgress();
@@ -77,6 +77,8 @@ public:
     IndexScanExecutor(VoltDBEngine* engine, AbstractPlanNode* abstractNode)
         : AbstractExecutor(engine, abstractNode)
         , m_projector()
+        , m_covering(false)
+        , m_coveredTupleStorage()
         , m_searchKeyBackingStore(NULL)
         , m_aggExec(NULL)
     {}
@@ -107,6 +109,28 @@ public:
         return ! tuple->isNullTuple();
     }
 
+    /** Just like getNextTuple, but for an index-only scan.  This
+     *   copies the key values of the next entry into coveredTuple. */
+    static inline bool getNextCoveredTuple(IndexLookupType lookupType,
+                                           TableTuple* tuple,
+                                           TableTuple &coveredTuple,
+                                           TableIndex* index,
+                                           IndexCursor* cursor,
+                                           int activeNumOfSearchKeys) {
+        if (lookupType == INDEX_LOOKUP_TYPE_EQ) {
+            *tuple = index->nextCoveredValueAtKey(*cursor, coveredTuple);
+            if (! tuple->isNullTuple()) {
+                return true;
+            }
+        }
+
+        if (lookupType != INDEX_LOOKUP_TYPE_EQ || activeNumOfSearchKeys == 0) {
+            *tuple = index->nextCoveredValue(*cursor, coveredTuple);
+        }
+
+        return ! tuple->isNullTuple();
+    }
+
 private:
     bool p_init(AbstractPlanNode*,
                 TempTableLimits* limits);
@@ -124,6 +148,11 @@ private:
     ProjectionPlanNode* m_projectionNode;
     OptimizedProjector m_projector;
 
+    // Index-only scan: the indexed columns of each entry are copied
+    // into this table-schema tuple instead of reading the table's tuple.
+    bool m_covering;
+    StandAloneTupleStorage m_coveredTupleStorage;
+
     // Search key
     AbstractExpression** m_searchKeyArray;
 
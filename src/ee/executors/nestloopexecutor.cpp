@@ -53,11 +53,15 @@
 #include "execution/ProgressMonitorProxy.h"
 #include "expressions/abstractexpression.h"
 #include "expressions/tuplevalueexpression.h"
+#include "storage/persistenttable.h"
 #include "storage/table.h"
+#include "storage/TempTableLimits.h"
 #include "storage/temptable.h"
 #include "storage/tableiterator.h"
 #include "storage/tabletuplefilter.h"
 #include "plannodes/nestloopnode.h"
+#include "plannodes/projectionnode.h"
+#include "plannodes/seqscannode.h"
 #include "plannodes/limitnode.h"
 #include "plannodes/aggregatenode.h"
 
@@ -77,6 +81,28 @@ using namespace voltdb;
 const static int8_t UNMATCHED_TUPLE(TableTupleFilter::ACTIVE_TUPLE);
 const static int8_t MATCHED_TUPLE(TableTupleFilter::ACTIVE_TUPLE + 1);
 
+/**
+ * Hash the values of the semi-join keys of a tuple.  Exactly one of
+ * outer_tuple and inner_tuple is given, depending on which side the
+ * keys come from.  Return false if any key value is null, since a null
+ * key can't satisfy an equality, so the tuple can't join.
+ */
+static inline bool hashSemiJoinKeys(const AbstractPlanNode::OwningExpressionVector &keys,
+                                    const TableTuple *outer_tuple,
+                                    const TableTuple *inner_tuple,
+                                    std::size_t &hash)
+{
+    hash = 0;
+    for (int ii = 0; ii < keys.size(); ++ii) {
+        NValue value = keys[ii]->eval(outer_tuple, inner_tuple);
+        if (value.isNull()) {
+            return false;
+        }
+        value.hashCombine(hash);
+    }
+    return true;
+}
+
 bool NestLoopExecutor::p_init(AbstractPlanNode* abstractNode,
                                    TempTableLimits* limits)
 {
@@ -94,9 +120,109 @@ bool NestLoopExecutor::p_init(AbstractPlanNode* abstractNode,
     // NULL tuples for left and full joins
     p_init_null_tuples(node->getInputTable(), node->getInputTable(1));
 
+    m_limits = limits;
+    m_semiJoinInnerScan = semiJoinFilterSource(node);
+
     return true;
 }
 
+NestLoopExecutor::~NestLoopExecutor() {
+    if (m_limits != NULL) {
+        m_limits->reduceAllocated(m_semiJoinFilterBytes);
+    }
+}
+
+/**
+ * The scan producing the inner table if the semi-join filter of the node only
+ * depends on the rows of the scanned persistent table, or NULL.  That is the
+ * case for a sequential scan of a table without a predicate, whose inline
+ * projection if any only copies columns, with columns as inner keys.
+ */
+const AbstractScanPlanNode* NestLoopExecutor::semiJoinFilterSource(const NestLoopPlanNode* node)
+{
+    const AbstractPlanNode::OwningExpressionVector &innerSemiJoinKeys = node->getInnerSemiJoinKeys();
+    if (innerSemiJoinKeys.empty() || node->getChildren().size() != 2) {
+        return NULL;
+    }
+    for (int ii = 0; ii < innerSemiJoinKeys.size(); ++ii) {
+        if (dynamic_cast<const TupleValueExpression*>(innerSemiJoinKeys[ii]) == NULL) {
+            return NULL;
+        }
+    }
+
+    const AbstractPlanNode* innerNode = node->getChildren()[1];
+    if (innerNode->getPlanNodeType() != PLAN_NODE_TYPE_SEQSCAN) {
+        return NULL;
+    }
+    const AbstractScanPlanNode* scan = static_cast<const AbstractScanPlanNode*>(innerNode);
+    if (scan->isSubQuery() || scan->isEmptyScan() || scan->getPredicate() != NULL) {
+        return NULL;
+    }
+    const std::map<PlanNodeType, AbstractPlanNode*>& inlineNodes = scan->getInlinePlanNodes();
+    for (std::map<PlanNodeType, AbstractPlanNode*>::const_iterator it = inlineNodes.begin();
+         it != inlineNodes.end(); ++it) {
+        if (it->first != PLAN_NODE_TYPE_PROJECTION) {
+            return NULL;
+        }
+        const std::vector<AbstractExpression*>& columns =
+            static_cast<const ProjectionPlanNode*>(it->second)->getOutputColumnExpressions();
+        for (int ii = 0; ii < columns.size(); ++ii) {
+            if (dynamic_cast<const TupleValueExpression*>(columns[ii]) == NULL) {
+                return NULL;
+            }
+        }
+    }
+    return scan;
+}
+
+/**
+ * Hash the semi-join keys of every inner tuple into the Bloom filter.
+ * If the inner table is a plain scan of a persistent table, the filter is
+ * kept until that table changes, which its change stamp tells.  Stamps are
+ * never repeated by another table, so a new table at the address of a
+ * dropped or truncated one is not mistaken for it.
+ */
+void NestLoopExecutor::buildSemiJoinFilter(const NestLoopPlanNode* node, Table* inner_table,
+                                           TableTuple& inner_tuple, ProgressMonitorProxy& pmp)
+{
+    const PersistentTable* source = NULL;
+    if (m_semiJoinInnerScan != NULL) {
+        source = dynamic_cast<const PersistentTable*>(m_semiJoinInnerScan->getTargetTable());
+    }
+    if (source != NULL && source == m_semiJoinFilterTable &&
+            source->changeStamp() == m_semiJoinFilterChangeStamp) {
+        return;
+    }
+    m_semiJoinFilterTable = NULL;
+
+    int64_t expectedEntries = inner_table->activeTupleCount();
+    int32_t bytes = BloomFilter::allocationSize(expectedEntries);
+    if (bytes != m_semiJoinFilterBytes) {
+        m_semiJoinFilter.release();
+        m_limits->reduceAllocated(m_semiJoinFilterBytes);
+        // This counts the bytes even if it throws for going over the limit,
+        // so they are given back along with the others.
+        m_semiJoinFilterBytes = bytes;
+        m_limits->increaseAllocated(bytes);
+    }
+    m_semiJoinFilter.init(expectedEntries);
+
+    const AbstractPlanNode::OwningExpressionVector &innerSemiJoinKeys = node->getInnerSemiJoinKeys();
+    TableIterator keyIterator = inner_table->iterator();
+    std::size_t hash;
+    while (keyIterator.next(inner_tuple)) {
+        pmp.countdownProgress();
+        if (hashSemiJoinKeys(innerSemiJoinKeys, NULL, &inner_tuple, hash)) {
+            m_semiJoinFilter.add(hash);
+        }
+    }
+
+    if (source != NULL) {
+        m_semiJoinFilterTable = source;
+        m_semiJoinFilterChangeStamp = source->changeStamp();
+    }
+}
+
 bool NestLoopExecutor::p_execute(const NValueArray &params) {
     VOLT_DEBUG("executing NestLoop...");
 
@@ -175,6 +301,20 @@ bool NestLoopExecutor::p_execute(const NValueArray &params) {
         join_tuple = m_tmpOutputTable->tempTuple();
     }
 
+    //
+    // Semi-join filter
+    //
+    // If the join predicate has outer = inner equalities, remember
+    // the inner tuples' keys in a Bloom filter, so that the inner scan
+    // can be skipped for outer tuples which have no possible match.
+    // No matches are lost, since the filter has no false negatives.
+    const AbstractPlanNode::OwningExpressionVector &outerSemiJoinKeys = node->getOuterSemiJoinKeys();
+    bool useSemiJoinFilter = ! outerSemiJoinKeys.empty();
+    if (useSemiJoinFilter) {
+        buildSemiJoinFilter(node, inner_table, inner_tuple, pmp);
+    }
+    int64_t skippedInnerScans = 0;
+
     while (postfilter.isUnderLimit() && iterator0.next(outer_tuple)) {
         pmp.countdownProgress();
 
@@ -188,7 +328,16 @@ bool NestLoopExecutor::p_execute(const NValueArray &params) {
         // For outer joins if outer tuple fails pre-join predicate
         // (join expression based on the outer table only)
         // it can't match any of inner tuples
-        if (preJoinPredicate == NULL || preJoinPredicate->eval(&outer_tuple, NULL).isTrue()) {
+        bool mayMatch = (preJoinPredicate == NULL || preJoinPredicate->eval(&outer_tuple, NULL).isTrue());
+        if (mayMatch && useSemiJoinFilter) {
+            std::size_t hash;
+            mayMatch = hashSemiJoinKeys(outerSemiJoinKeys, &outer_tuple, NULL, hash) &&
+                       m_semiJoinFilter.mayContain(hash);
+            if ( ! mayMatch) {
+                ++skippedInnerScans;
+            }
+        }
+        if (mayMatch) {
 
             // By default, the delete as we go flag is false.
             TableIterator iterator1 = inner_table->iterator();
@@ -211,7 +360,7 @@ bool NestLoopExecutor::p_execute(const NValueArray &params) {
                     }
                 }
             } // END INNER WHILE LOOP
-        } // END IF PRE JOIN CONDITION
+        } // END IF PRE JOIN CONDITION OR SEMI-JOIN FILTER
 
         //
         // Left Outer Join
@@ -250,6 +399,10 @@ bool NestLoopExecutor::p_execute(const NValueArray &params) {
         }
    }
 
+    if (useSemiJoinFilter) {
+        VOLT_DEBUG("NestLoop semi-join filter skipped %jd inner table scans", (intmax_t)skippedInnerScans);
+    }
+
     if (m_aggExec != NULL) {
         m_aggExec->p_execute_finish();
     }
@@ -46,24 +46,53 @@
 #ifndef HSTORENESTLOOPEXECUTOR_H
 #define HSTORENESTLOOPEXECUTOR_H
 
+#include "common/BloomFilter.hpp"
 #include "common/common.h"
 #include "common/valuevector.h"
 #include "executors/abstractjoinexecutor.h"
 
 namespace voltdb {
 
+class AbstractScanPlanNode;
+class NestLoopPlanNode;
+class PersistentTable;
+
 /**
  *
  */
 class NestLoopExecutor : public AbstractJoinExecutor {
     public:
         NestLoopExecutor(VoltDBEngine *engine, AbstractPlanNode* abstract_node) :
-            AbstractJoinExecutor(engine, abstract_node) { }
+            AbstractJoinExecutor(engine, abstract_node),
+            m_limits(NULL),
+            m_semiJoinFilterBytes(0),
+            m_semiJoinInnerScan(NULL),
+            m_semiJoinFilterTable(NULL),
+            m_semiJoinFilterChangeStamp(0) { }
+        ~NestLoopExecutor();
     private:
 
         bool p_init(AbstractPlanNode*, TempTableLimits* limits);
         bool p_execute(const NValueArray &params);
 
+        static const AbstractScanPlanNode* semiJoinFilterSource(const NestLoopPlanNode* node);
+        void buildSemiJoinFilter(const NestLoopPlanNode* node, Table* inner_table,
+                                 TableTuple& inner_tuple, ProgressMonitorProxy& pmp);
+
+        TempTableLimits* m_limits;
+
+        // The Bloom filter of the inner side semi-join keys.  It is kept with
+        // the executor, so with the cached plan fragment, and its memory counts
+        // against the fragment's temp table limit for as long as it is kept.
+        BloomFilter m_semiJoinFilter;
+        int32_t m_semiJoinFilterBytes;
+        // The scan of the persistent table the filter only depends on, or NULL
+        // if the filter has to be rebuilt on every execution.
+        const AbstractScanPlanNode* m_semiJoinInnerScan;
+        // The persistent table the filter was built from and its change stamp
+        // at the time, or NULL if the filter has to be rebuilt.
+        const PersistentTable* m_semiJoinFilterTable;
+        int64_t m_semiJoinFilterChangeStamp;
 };
 
 }
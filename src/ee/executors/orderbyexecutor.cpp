@@ -136,24 +136,56 @@ OrderByExecutor::p_execute(const NValueArray &params)
     if (limit != 0) {
         vector<TableTuple> xs;
         ProgressMonitorProxy pmp(m_engine->getExecutorContext(), this);
-        while (iterator.next(tuple))
-        {
-            pmp.countdownProgress();
-            assert(tuple.isActive());
-            xs.push_back(tuple);
+        AbstractExecutor::TupleComparer comp(node->getSortExpressions(), node->getSortDirections());
+
+        if (node->isTopN() && limit > 0) {
+            //
+            // OPTIMIZATION: TOP-N
+            // Only the first limit + offset tuples can ever be emitted, so keep
+            // them in a bounded max-heap (by sort order) while scanning, instead
+            // of collecting every input tuple and sorting afterwards.
+            //
+            size_t heapSize = static_cast<size_t>(limit) + max(offset, 0);
+            int64_t scanned = 0;
+            xs.reserve(heapSize);
+            while (iterator.next(tuple))
+            {
+                pmp.countdownProgress();
+                assert(tuple.isActive());
+                ++scanned;
+                if (xs.size() < heapSize) {
+                    xs.push_back(tuple);
+                    push_heap(xs.begin(), xs.end(), comp);
+                }
+                else if (comp(tuple, xs.front())) {
+                    // The new tuple sorts ahead of the worst retained one.
+                    pop_heap(xs.begin(), xs.end(), comp);
+                    xs.back() = tuple;
+                    push_heap(xs.begin(), xs.end(), comp);
+                }
+            }
+            sort_heap(xs.begin(), xs.end(), comp);
+            VOLT_DEBUG("Top-N OrderBy retained %d of %jd input tuples, saving %jd bytes of sort buffer",
+                       static_cast<int>(xs.size()), (intmax_t)scanned,
+                       (intmax_t)((scanned - static_cast<int64_t>(xs.size())) * sizeof(TableTuple)));
         }
-        VOLT_TRACE("\n***** Input Table PreSort:\n '%s'",
-                   input_table->debug().c_str());
-
-
-        if (limit >= 0 && xs.begin() + limit + offset < xs.end()) {
-            // partial sort
-            partial_sort(xs.begin(), xs.begin() + limit + offset, xs.end(),
-                    AbstractExecutor::TupleComparer(node->getSortExpressions(), node->getSortDirections()));
-        } else {
-            // full sort
-            sort(xs.begin(), xs.end(),
-                    AbstractExecutor::TupleComparer(node->getSortExpressions(), node->getSortDirections()));
+        else {
+            while (iterator.next(tuple))
+            {
+                pmp.countdownProgress();
+                assert(tuple.isActive());
+                xs.push_back(tuple);
+            }
+            VOLT_TRACE("\n***** Input Table PreSort:\n '%s'",
+                       input_table->debug().c_str());
+
+            if (limit >= 0 && xs.begin() + limit + offset < xs.end()) {
+                // partial sort
+                partial_sort(xs.begin(), xs.begin() + limit + offset, xs.end(), comp);
+            } else {
+                // full sort
+                sort(xs.begin(), xs.end(), comp);
+            }
         }
 
         int tuple_ctr = 0;
@@ -68,6 +68,100 @@ struct TableWindow {
     size_t m_orderByGroupSize;
 };
 
+/**
+ * This is a double ended queue of values, used by aggregates
+ * to remember the values in a sliding ROWS frame.  Each entry
+ * remembers the index of its row in the partition, so that
+ * it can be expired when the row leaves the frame.  The
+ * storage comes from the executor's pool and is released
+ * wholesale with the pool, so this never frees anything.
+ */
+class WindowFrameBuffer {
+public:
+    struct Entry {
+        int64_t m_rowIdx;
+        NValue  m_value;
+    };
+
+    WindowFrameBuffer(Pool &pool)
+      : m_pool(pool),
+        m_entries(NULL),
+        m_capacity(0),
+        m_head(0),
+        m_size(0) {
+    }
+
+    void clear() {
+        m_head = 0;
+        m_size = 0;
+    }
+
+    bool empty() const {
+        return m_size == 0;
+    }
+
+    size_t size() const {
+        return m_size;
+    }
+
+    Entry &front() {
+        assert( ! empty());
+        return m_entries[m_head];
+    }
+
+    Entry &back() {
+        assert( ! empty());
+        return m_entries[(m_head + m_size - 1) % m_capacity];
+    }
+
+    void popFront() {
+        assert( ! empty());
+        m_head = (m_head + 1) % m_capacity;
+        m_size -= 1;
+    }
+
+    void popBack() {
+        assert( ! empty());
+        m_size -= 1;
+    }
+
+    void pushBack(int64_t rowIdx, const NValue &value) {
+        if (m_size == m_capacity) {
+            grow();
+        }
+        Entry &entry = m_entries[(m_head + m_size) % m_capacity];
+        entry.m_rowIdx = rowIdx;
+        entry.m_value = value;
+        m_size += 1;
+    }
+
+private:
+    /**
+     * Double the capacity.  A bounded frame never holds more
+     * than its frame size, so this happens at most a
+     * logarithmic number of times per execution.
+     */
+    void grow() {
+        size_t newCapacity = (m_capacity == 0) ? 16 : (2 * m_capacity);
+        Entry *newEntries = static_cast<Entry *>(m_pool.allocate(sizeof(Entry) * newCapacity));
+        for (size_t idx = 0; idx < m_size; idx += 1) {
+            new (&newEntries[idx]) Entry(m_entries[(m_head + idx) % m_capacity]);
+        }
+        for (size_t idx = m_size; idx < newCapacity; idx += 1) {
+            new (&newEntries[idx]) Entry();
+        }
+        m_entries = newEntries;
+        m_capacity = newCapacity;
+        m_head = 0;
+    }
+
+    Pool   &m_pool;
+    Entry  *m_entries;
+    size_t  m_capacity;
+    size_t  m_head;
+    size_t  m_size;
+};
+
 /**
  * A WindowAggregate is the base class of aggregate calculations.
  * In the algorithm for calculating window function values we are
@@ -143,6 +237,24 @@ struct WindowAggregate {
         return m_value;
     }
 
+    /**
+     * Add the row with index rowIdx in its partition to a ROWS
+     * frame which holds the current row and rowsPreceding rows
+     * before it, expiring the row which falls out of the frame.
+     * After this, m_value is the value for the current row.  If
+     * rowsPreceding is negative the frame is unbounded, and this is
+     * just like looking ahead one row.
+     */
+    virtual void advanceRowsFrame(TableWindow &window,
+                                  int64_t rowIdx,
+                                  int64_t rowsPreceding,
+                                  NValueArray &argVals) {
+        char message[128];
+        snprintf(message, sizeof(message),
+                 "Windowed %s does not support a ROWS window frame", getAggName());
+        throw SerializableEEException(VOLT_EE_EXCEPTION_TYPE_EEEXCEPTION, message);
+    }
+
     /**
      * Initialize the aggregate.  This is called at the
      * beginning of each partition by group.
@@ -225,6 +337,11 @@ public:
  */
 class WindowedCountAgg : public WindowAggregate {
 public:
+    WindowedCountAgg(Pool &pool)
+        : WindowAggregate(),
+          m_frame(pool) {
+    }
+
     virtual ~WindowedCountAgg() {
     }
 
@@ -241,10 +358,38 @@ public:
         }
     }
 
+    /**
+     * Count the rows entering the frame, and uncount the ones
+     * leaving it.  The frame remembers the counted value of
+     * each row, one or zero.
+     */
+    virtual void advanceRowsFrame(TableWindow &window,
+                                  int64_t rowIdx,
+                                  int64_t rowsPreceding,
+                                  NValueArray &argVals) {
+        if (rowsPreceding < 0) {
+            lookaheadOneRow(window, argVals);
+            return;
+        }
+        bool counted = (argVals.size() == 0 || ! argVals[0].isNull());
+        if (counted) {
+            m_value = m_value.op_add(m_one);
+        }
+        m_frame.pushBack(rowIdx, counted ? m_one : m_zero);
+        if (static_cast<int64_t>(m_frame.size()) > rowsPreceding + 1) {
+            m_value = m_value.op_subtract(m_frame.front().m_value);
+            m_frame.popFront();
+        }
+    }
+
     virtual void resetAgg() {
         WindowAggregate::resetAgg();
         m_value = m_zero;
+        m_frame.clear();
     }
+
+private:
+    WindowFrameBuffer m_frame;
 };
 
 /*
@@ -260,7 +405,8 @@ public:
     WindowedMinAgg(Pool &pool)
         : WindowAggregate(),
           m_isEmpty(true),
-          m_pool(pool) {
+          m_pool(pool),
+          m_frame(pool) {
     }
 
     ~WindowedMinAgg() {
@@ -271,6 +417,7 @@ public:
     virtual void resetAgg() {
         WindowAggregate::resetAgg();
         m_isEmpty = true;
+        m_frame.clear();
     }
     virtual NValue finalize(ValueType type)
     {
@@ -300,13 +447,47 @@ public:
             }
         }
     }
+    /**
+     * Keep the values of the frame which may still become the
+     * minimum in an ascending queue.  A value is dropped from the
+     * back when a smaller or equal value arrives after it, and from
+     * the front when its row leaves the frame.  The front is always
+     * the minimum, and each row is pushed and popped at most once.
+     */
+    virtual void advanceRowsFrame(TableWindow &window,
+                                  int64_t rowIdx,
+                                  int64_t rowsPreceding,
+                                  NValueArray &argVals) {
+        assert(argVals.size() == 1);
+        if (rowsPreceding < 0) {
+            lookaheadOneRow(window, argVals);
+            return;
+        }
+        if ( ! argVals[0].isNull()) {
+            while ( ! m_frame.empty()
+                    && ! m_frame.back().m_value.op_lessThan(argVals[0]).isTrue()) {
+                m_frame.popBack();
+            }
+            m_frame.pushBack(rowIdx, argVals[0]);
+        }
+        while ( ! m_frame.empty() && m_frame.front().m_rowIdx < rowIdx - rowsPreceding) {
+            m_frame.popFront();
+        }
+        m_isEmpty = m_frame.empty();
+        if ( ! m_isEmpty) {
+            m_value = m_frame.front().m_value;
+            m_inlineCopiedToOutline = false;
+        }
+    }
     bool m_isEmpty;
     Pool &m_pool;
+private:
+    WindowFrameBuffer m_frame;
 };
 
 class WindowedMaxAgg : public WindowAggregate {
 public:
-    WindowedMaxAgg(Pool &pool) : WindowAggregate(), m_isEmpty(true), m_pool(pool) {
+    WindowedMaxAgg(Pool &pool) : WindowAggregate(), m_isEmpty(true), m_pool(pool), m_frame(pool) {
     }
     ~WindowedMaxAgg() {
     }
@@ -316,6 +497,7 @@ public:
     virtual void resetAgg() {
         WindowAggregate::resetAgg();
         m_isEmpty = true;
+        m_frame.clear();
     }
     virtual NValue finalize(ValueType type)
     {
@@ -345,13 +527,46 @@ public:
             }
         }
     }
+    /**
+     * This is just like WindowedMinAgg::advanceRowsFrame, but
+     * the queue is descending, so the front is the maximum.
+     */
+    virtual void advanceRowsFrame(TableWindow &window,
+                                  int64_t rowIdx,
+                                  int64_t rowsPreceding,
+                                  NValueArray &argVals) {
+        assert(argVals.size() == 1);
+        if (rowsPreceding < 0) {
+            lookaheadOneRow(window, argVals);
+            return;
+        }
+        if ( ! argVals[0].isNull()) {
+            while ( ! m_frame.empty()
+                    && ! m_frame.back().m_value.op_greaterThan(argVals[0]).isTrue()) {
+                m_frame.popBack();
+            }
+            m_frame.pushBack(rowIdx, argVals[0]);
+        }
+        while ( ! m_frame.empty() && m_frame.front().m_rowIdx < rowIdx - rowsPreceding) {
+            m_frame.popFront();
+        }
+        m_isEmpty = m_frame.empty();
+        if ( ! m_isEmpty) {
+            m_value = m_frame.front().m_value;
+            m_inlineCopiedToOutline = false;
+        }
+    }
     bool m_isEmpty;
     Pool &m_pool;
+private:
+    WindowFrameBuffer m_frame;
 };
 
 class WindowedSumAgg : public WindowAggregate {
 public:
-    WindowedSumAgg() {
+    WindowedSumAgg(Pool &pool)
+        : m_nonNullCount(0),
+          m_frame(pool) {
     }
     ~WindowedSumAgg() {
     }
@@ -360,6 +575,8 @@ public:
     }
     virtual void resetAgg() {
         WindowAggregate::resetAgg();
+        m_nonNullCount = 0;
+        m_frame.clear();
     }
     /**
      * Calculate the min by looking ahead in the
@@ -375,6 +592,46 @@ public:
             }
         }
     }
+    /**
+     * Add the value entering the frame to the running sum, and
+     * subtract the value leaving it, so each row costs the same
+     * no matter how wide the frame is.  When the frame holds no
+     * non-null values the sum is null.
+     */
+    virtual void advanceRowsFrame(TableWindow &window,
+                                  int64_t rowIdx,
+                                  int64_t rowsPreceding,
+                                  NValueArray &argVals) {
+        assert(argVals.size() == 1);
+        if (rowsPreceding < 0) {
+            lookaheadOneRow(window, argVals);
+            return;
+        }
+        if ( ! argVals[0].isNull()) {
+            m_nonNullCount += 1;
+            if (m_value.isNull()) {
+                m_value = argVals[0];
+            } else {
+                m_value = m_value.op_add(argVals[0]);
+            }
+        }
+        m_frame.pushBack(rowIdx, argVals[0]);
+        if (static_cast<int64_t>(m_frame.size()) > rowsPreceding + 1) {
+            const NValue &expired = m_frame.front().m_value;
+            if ( ! expired.isNull()) {
+                m_nonNullCount -= 1;
+                if (m_nonNullCount == 0) {
+                    m_value.setNull();
+                } else {
+                    m_value = m_value.op_subtract(expired);
+                }
+            }
+            m_frame.popFront();
+        }
+    }
+private:
+    int64_t           m_nonNullCount;
+    WindowFrameBuffer m_frame;
 };
 
 /**
@@ -474,7 +731,7 @@ inline WindowAggregate* getWindowedAggInstance(Pool& memoryPool,
         answer = new (memoryPool) WindowedDenseRankAgg();
         break;
     case EXPRESSION_TYPE_AGGREGATE_WINDOWED_COUNT:
-        answer = new (memoryPool) WindowedCountAgg();
+        answer = new (memoryPool) WindowedCountAgg(memoryPool);
         break;
     case EXPRESSION_TYPE_AGGREGATE_WINDOWED_MAX:
         answer = new (memoryPool) WindowedMaxAgg(memoryPool);
@@ -483,7 +740,7 @@ inline WindowAggregate* getWindowedAggInstance(Pool& memoryPool,
         answer = new (memoryPool) WindowedMinAgg(memoryPool);
         break;
     case EXPRESSION_TYPE_AGGREGATE_WINDOWED_SUM:
-        answer = new (memoryPool) WindowedSumAgg();
+        answer = new (memoryPool) WindowedSumAgg(memoryPool);
         break;
     default:
         {
@@ -538,6 +795,22 @@ inline void WindowFunctionExecutor::endGroupForAggs(TableWindow &tableWindow, Ed
     }
 }
 
+inline void WindowFunctionExecutor::advanceRowsFrameForAggs(const TableTuple &tuple,
+                                                            TableWindow &tableWindow,
+                                                            int64_t rowIdx,
+                                                            int64_t rowsPreceding) {
+    WindowAggregate **aggs = m_aggregateRow->getAggregates();
+    for (int ii = 0; ii < m_aggTypes.size(); ii++) {
+        const AbstractPlanNode::OwningExpressionVector &inputExprs
+            = getAggregateInputExpressions()[ii];
+        NValueArray vals(inputExprs.size());
+        for (int idx = 0; idx < inputExprs.size(); idx += 1) {
+            vals[idx] = inputExprs[idx]->eval(&tuple);
+        }
+        aggs[ii]->advanceRowsFrame(tableWindow, rowIdx, rowsPreceding, vals);
+    }
+}
+
 /*
  *
  * Helper method responsible for inserting the results of the
@@ -636,6 +909,14 @@ bool WindowFunctionExecutor::p_execute(const NValueArray& params) {
      * Force a call p_execute_finish when this is all over.
      */
     EnsureCleanupOnExit finishCleanup(this);
+    WindowFunctionPlanNode* node = dynamic_cast<WindowFunctionPlanNode*>(m_abstractNode);
+    assert(node);
+    if (node->hasRowsFrame()) {
+        executeOverRowsFrame(tableWindow, node->getRowsFramePreceding());
+        cleanupInputTempTable(input_table);
+        VOLT_TRACE("WindowFunctionExecutor::p_execute(end)\n");
+        return true;
+    }
     for (EdgeType etype = START_OF_INPUT,
                   nextEtype = INVALID_EDGE_TYPE;
          etype != END_OF_INPUT;
@@ -671,6 +952,29 @@ bool WindowFunctionExecutor::p_execute(const NValueArray& params) {
     return true;
 }
 
+void WindowFunctionExecutor::executeOverRowsFrame(TableWindow &tableWindow, int64_t rowsPreceding)
+{
+    TableTuple &nextTuple = getBufferedInputTuple();
+    int64_t rowIdx = 0;
+    bool isFirstRow = true;
+    while (tableWindow.m_leadingEdge.next(nextTuple)) {
+        m_pmp->countdownProgress();
+        initPartitionByKeyTuple(nextTuple);
+        if (isFirstRow
+                || compareTuples(getInProgressPartitionByKeyTuple(),
+                                 getLastPartitionByKeyTuple()) != 0) {
+            VOLT_TRACE("executeOverRowsFrame(Partition): row %jd", (intmax_t)rowIdx);
+            m_aggregateRow->resetAggs();
+            rowIdx = 0;
+            isFirstRow = false;
+        }
+        advanceRowsFrameForAggs(nextTuple, tableWindow, rowIdx, rowsPreceding);
+        m_aggregateRow->recordPassThroughTuple(nextTuple);
+        insertOutputTuple();
+        rowIdx += 1;
+    }
+}
+
 WindowFunctionExecutor::EdgeType WindowFunctionExecutor::findNextEdge(EdgeType     edgeType, TableWindow &tableWindow)
 {
     // This is just an alias for the buffered input tuple.
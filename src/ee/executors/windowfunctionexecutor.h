@@ -200,6 +200,24 @@ private:
      * for each group and cannot be disabled.
      */
     void endGroupForAggs(TableWindow &tableWindow, EdgeType edgeType);
+
+    /**
+     * Call advanceRowsFrame for each aggregate.  This
+     * happens once for each row when the window has a
+     * ROWS frame.
+     */
+    void advanceRowsFrameForAggs(const TableTuple &tuple,
+                                 TableWindow &tableWindow,
+                                 int64_t rowIdx,
+                                 int64_t rowsPreceding);
+
+    /**
+     * Calculate the aggregates over a ROWS frame.  There is
+     * no need to look ahead for order by groups here, since
+     * every row has its own frame, so this just makes one
+     * pass over the input.
+     */
+    void executeOverRowsFrame(TableWindow &tableWindow, int64_t rowsPreceding);
     /**
      * Insert the output tuple.
      */
@@ -0,0 +1,460 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2017 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+#ifndef ADAPTIVERADIXTREEINDEX_H_
+#define ADAPTIVERADIXTREEINDEX_H_
+
+#include <iostream>
+#include <cassert>
+#include "indexes/tableindex.h"
+#include "indexes/indexkey.h"
+#include "common/tabletuple.h"
+#include "structures/AdaptiveRadixTree.h"
+
+namespace voltdb {
+
+/**
+ * Ordered index on integer keys implemented as an adaptive radix tree.
+ *
+ * The words of an IntsKey already compare as unsigned integers, so their
+ * big-endian bytes are binary-comparable and serve directly as radix tree
+ * keys.  A non-unique index appends the tuple address to the key, just
+ * like the tree multimap index does, so that each entry can be found and
+ * deleted by its tuple.
+ *
+ * A cursor holds the current leaf in m_keyIter and, for a non-unique
+ * index, the leaf after the matching entries in m_keyEndIter.
+ * @see TableIndex
+ */
+template<std::size_t KeySize, bool isUnique>
+class AdaptiveRadixTreeIndex : public TableIndex
+{
+    typedef IntsKey<KeySize> KeyType;
+    typedef typename KeyType::KeyComparator KeyComparator;
+
+    // the bytes of the indexed values, and of the key with the tuple address
+    static const int DATA_LENGTH = static_cast<int>(KeySize * sizeof(uint64_t));
+    static const int KEY_LENGTH = DATA_LENGTH + (isUnique ? 0 : static_cast<int>(sizeof(uintptr_t)));
+
+    typedef AdaptiveRadixTree<KEY_LENGTH> TreeType;
+    typedef typename TreeType::Leaf Leaf;
+
+    ~AdaptiveRadixTreeIndex() {};
+
+    static Leaf*& castToIter(IndexCursor& cursor) {
+        return *reinterpret_cast<Leaf**> (cursor.m_keyIter);
+    }
+
+    static Leaf*& castToEndIter(IndexCursor& cursor) {
+        return *reinterpret_cast<Leaf**> (cursor.m_keyEndIter);
+    }
+
+    static void encodeWord(uint64_t word, uint8_t* bytes) {
+        for (int ii = 0; ii < 8; ++ii) {
+            bytes[ii] = static_cast<uint8_t>(word >> (56 - ii * 8));
+        }
+    }
+
+    /**
+     * Encode the key followed, for a non-unique index, by the tuple address.
+     */
+    static void encodeKey(const KeyType& key, const void* address, uint8_t* bytes) {
+        for (std::size_t ii = 0; ii < KeySize; ++ii) {
+            encodeWord(key.data[ii], bytes + ii * sizeof(uint64_t));
+        }
+        if ( ! isUnique) {
+            encodeWord(reinterpret_cast<uintptr_t>(address), bytes + DATA_LENGTH);
+        }
+    }
+
+    /**
+     * The first entry whose indexed values are not less than the given ones.
+     */
+    Leaf* dataLowerBound(const uint8_t* data) const {
+        uint8_t bytes[KEY_LENGTH];
+        ::memcpy(bytes, data, DATA_LENGTH);
+        ::memset(bytes + DATA_LENGTH, 0, KEY_LENGTH - DATA_LENGTH);
+        return m_entries.lowerBound(bytes);
+    }
+
+    /**
+     * The first entry whose indexed values are greater than the given ones.
+     */
+    Leaf* dataUpperBound(const uint8_t* data) const {
+        uint8_t bytes[KEY_LENGTH];
+        ::memcpy(bytes, data, DATA_LENGTH);
+        ::memset(bytes + DATA_LENGTH, 0xFF, KEY_LENGTH - DATA_LENGTH);
+        return m_entries.upperBound(bytes);
+    }
+
+    /**
+     * The 1-based position of the first entry with the given indexed values,
+     * or with isUpper on a non-unique index, of the last one.
+     */
+    int64_t rankOf(const uint8_t* data, bool isUpper) const {
+        uint8_t bytes[KEY_LENGTH];
+        ::memcpy(bytes, data, DATA_LENGTH);
+        if (isUpper && ! isUnique) {
+            ::memset(bytes + DATA_LENGTH, 0xFF, KEY_LENGTH - DATA_LENGTH);
+            return m_entries.countLess(bytes);
+        }
+        ::memset(bytes + DATA_LENGTH, 0, KEY_LENGTH - DATA_LENGTH);
+        return m_entries.countLess(bytes) + 1;
+    }
+
+    static bool sameData(const Leaf* leaf, const uint8_t* data) {
+        return ::memcmp(leaf->key, data, DATA_LENGTH) == 0;
+    }
+
+    void addEntryDo(const TableTuple *tuple, TableTuple *conflictTuple)
+    {
+        ++m_inserts;
+        uint8_t bytes[KEY_LENGTH];
+        encodeKey(setKeyFromTuple(tuple), tuple->address(), bytes);
+        Leaf* conflict = m_entries.insert(bytes, tuple->address());
+        if (conflict != NULL && conflictTuple != NULL) {
+            conflictTuple->move(const_cast<void*>(conflict->value));
+        }
+    }
+
+    bool deleteEntryDo(const TableTuple *tuple)
+    {
+        ++m_deletes;
+        uint8_t bytes[KEY_LENGTH];
+        encodeKey(setKeyFromTuple(tuple), tuple->address(), bytes);
+        return m_entries.erase(bytes);
+    }
+
+    /**
+     * Update in place an index entry with a new tuple address
+     * (e.g., due to table compaction)
+     */
+    bool replaceEntryNoKeyChangeDo(const TableTuple &destinationTuple, const TableTuple &originalTuple)
+    {
+        assert(originalTuple.address() != destinationTuple.address());
+        if ( ! isUnique) {
+            // The tuple address is part of the key.
+            if ( ! AdaptiveRadixTreeIndex::deleteEntry(&originalTuple)) {
+                return false;
+            }
+            AdaptiveRadixTreeIndex::addEntry(&destinationTuple, NULL);
+            return true;
+        }
+        Leaf* leaf = findTuple(originalTuple);
+        if (leaf == NULL) {
+            return false;
+        }
+        leaf->value = destinationTuple.address();
+        m_updates++;
+        return true;
+    }
+
+    bool keyUsesNonInlinedMemory() const { return KeyType::keyUsesNonInlinedMemory(); }
+
+    bool checkForIndexChangeDo(const TableTuple *lhs, const TableTuple *rhs) const
+    {
+        return 0 != m_cmp(setKeyFromTuple(lhs), setKeyFromTuple(rhs));
+    }
+
+    bool existsDo(const TableTuple *persistentTuple) const
+    {
+        return findTuple(*persistentTuple) != NULL;
+    }
+
+    bool moveToKey(const TableTuple *searchKey, IndexCursor& cursor) const
+    {
+        uint8_t data[KEY_LENGTH];
+        encodeKey(KeyType(searchKey), NULL, data);
+        return moveToData(data, cursor);
+    }
+
+    bool moveToKeyByTuple(const TableTuple *persistentTuple, IndexCursor &cursor) const
+    {
+        if (isUnique) {
+            cursor.m_forward = true;
+            Leaf* &leaf = castToIter(cursor);
+            leaf = findTuple(*persistentTuple);
+            if (leaf == NULL) {
+                cursor.m_match.move(NULL);
+                return false;
+            }
+            cursor.m_match.move(const_cast<void*>(leaf->value));
+            return true;
+        }
+        uint8_t data[KEY_LENGTH];
+        encodeKey(setKeyFromTuple(persistentTuple), NULL, data);
+        return moveToData(data, cursor);
+    }
+
+    bool moveToData(const uint8_t* data, IndexCursor& cursor) const
+    {
+        cursor.m_forward = true;
+        Leaf* &leaf = castToIter(cursor);
+        leaf = dataLowerBound(data);
+        if (leaf == NULL || ! sameData(leaf, data)) {
+            leaf = NULL;
+            castToEndIter(cursor) = NULL;
+            cursor.m_match.move(NULL);
+            return false;
+        }
+        if ( ! isUnique) {
+            castToEndIter(cursor) = dataUpperBound(data);
+        }
+        cursor.m_match.move(const_cast<void*>(leaf->value));
+        return true;
+    }
+
+    void moveToKeyOrGreater(const TableTuple *searchKey, IndexCursor& cursor) const
+    {
+        cursor.m_forward = true;
+        uint8_t data[KEY_LENGTH];
+        encodeKey(KeyType(searchKey), NULL, data);
+        castToIter(cursor) = dataLowerBound(data);
+    }
+
+    bool moveToGreaterThanKey(const TableTuple *searchKey, IndexCursor& cursor) const
+    {
+        cursor.m_forward = true;
+        uint8_t data[KEY_LENGTH];
+        encodeKey(KeyType(searchKey), NULL, data);
+        Leaf* &leaf = castToIter(cursor);
+        leaf = dataUpperBound(data);
+        return leaf == NULL;
+    }
+
+    void moveToLessThanKey(const TableTuple *searchKey, IndexCursor& cursor) const
+    {
+        // do moveToKeyOrGreater()
+        uint8_t data[KEY_LENGTH];
+        encodeKey(KeyType(searchKey), NULL, data);
+        Leaf* &leaf = castToIter(cursor);
+        leaf = dataLowerBound(data);
+        // find prev entry
+        if (leaf == NULL) {
+            moveToEnd(false, cursor);
+        } else {
+            cursor.m_forward = false;
+            leaf = leaf->prev;
+        }
+    }
+
+    // only be called after moveToGreaterThanKey() for LTE case
+    void moveToBeforePriorEntry(IndexCursor& cursor) const
+    {
+        assert(cursor.m_forward);
+        cursor.m_forward = false;
+        Leaf* &leaf = castToIter(cursor);
+
+        if (leaf == NULL) {
+            leaf = m_entries.last();
+        } else {
+            // go back 2 entries, see CompactingTreeMultiMapIndex
+            leaf = leaf->prev;
+        }
+        if (leaf != NULL) {
+            leaf = leaf->prev;
+        }
+    }
+
+    void moveToPriorEntry(IndexCursor& cursor) const
+    {
+        assert(cursor.m_forward);
+        cursor.m_forward = false;
+        Leaf* &leaf = castToIter(cursor);
+
+        if (leaf == NULL) {
+            leaf = m_entries.last();
+        } else {
+            leaf = leaf->prev;
+        }
+    }
+
+    void moveToEnd(bool begin, IndexCursor& cursor) const
+    {
+        cursor.m_forward = begin;
+        castToIter(cursor) = begin ? m_entries.first() : m_entries.last();
+    }
+
+    TableTuple nextValue(IndexCursor& cursor) const
+    {
+        TableTuple retval(getTupleSchema());
+        Leaf* &leaf = castToIter(cursor);
+
+        if (leaf != NULL) {
+            retval.move(const_cast<void*>(leaf->value));
+            leaf = cursor.m_forward ? leaf->next : leaf->prev;
+        }
+
+        return retval;
+    }
+
+    TableTuple nextValueAtKey(IndexCursor& cursor) const
+    {
+        TableTuple retval = cursor.m_match;
+        if (isUnique || retval.isNullTuple()) {
+            cursor.m_match.move(NULL);
+            return retval;
+        }
+        Leaf* &leaf = castToIter(cursor);
+        leaf = leaf->next;
+        if (leaf == castToEndIter(cursor)) {
+            cursor.m_match.move(NULL);
+        } else {
+            cursor.m_match.move(const_cast<void*>(leaf->value));
+        }
+        return retval;
+    }
+
+    bool advanceToNextKey(IndexCursor& cursor) const
+    {
+        Leaf* &leaf = castToIter(cursor);
+        if (isUnique) {
+            if (leaf != NULL) {
+                leaf = cursor.m_forward ? leaf->next : leaf->prev;
+            }
+        } else {
+            Leaf* &endLeaf = castToEndIter(cursor);
+            if (endLeaf == NULL) {
+                return false;
+            }
+            cursor.m_forward = true;
+            leaf = endLeaf;
+            endLeaf = dataUpperBound(leaf->key);
+        }
+        if (leaf == NULL) {
+            cursor.m_match.move(NULL);
+            return false;
+        }
+        cursor.m_match.move(const_cast<void*>(leaf->value));
+        return true;
+    }
+
+    TableTuple uniqueMatchingTuple(const TableTuple &searchTuple) const
+    {
+        if ( ! isUnique) {
+            return TableIndex::uniqueMatchingTuple(searchTuple);
+        }
+        TableTuple retval(getTupleSchema());
+        const Leaf* leaf = findTuple(searchTuple);
+        if (leaf != NULL) {
+            retval.move(const_cast<void*>(leaf->value));
+        }
+        return retval;
+    }
+
+    bool hasKey(const TableTuple *searchKey) const
+    {
+        uint8_t data[KEY_LENGTH];
+        encodeKey(KeyType(searchKey), NULL, data);
+        const Leaf* leaf = dataLowerBound(data);
+        return leaf != NULL && sameData(leaf, data);
+    }
+
+    /**
+     * @See comments in parent class TableIndex
+     */
+    int64_t getCounterGET(const TableTuple* searchKey, bool isUpper, IndexCursor& cursor) const {
+        if ( ! isCountableIndex()) {
+            return -1;
+        }
+        AdaptiveRadixTreeIndex::moveToKeyOrGreater(searchKey, cursor);
+        const Leaf* leaf = castToIter(cursor);
+
+        if (leaf == NULL) {
+            return m_entries.size() + 1;
+        }
+        return rankOf(leaf->key, isUpper);
+    }
+
+    /**
+     * @See comments in parent class TableIndex
+     */
+    int64_t getCounterLET(const TableTuple* searchKey, bool isUpper, IndexCursor& cursor) const {
+        if ( ! isCountableIndex()) {
+            return -1;
+        }
+        uint8_t data[KEY_LENGTH];
+        encodeKey(KeyType(searchKey), NULL, data);
+        const Leaf* leaf = dataLowerBound(data);
+        if (leaf == NULL) {
+            return m_entries.size();
+        }
+        if ( ! sameData(leaf, data)) {
+            leaf = leaf->prev;
+            if (leaf == NULL) {
+                // we can not find a previous key
+                return 0;
+            }
+        }
+        return rankOf(leaf->key, isUpper);
+    }
+
+    size_t getSize() const { return static_cast<size_t>(m_entries.size()); }
+
+    int64_t getMemoryEstimate() const
+    {
+        return m_entries.bytesAllocated();
+    }
+
+    std::string debug() const
+    {
+        std::ostringstream buffer;
+        buffer << TableIndex::debug() << std::endl;
+        for (const Leaf* leaf = m_entries.first(); leaf != NULL; leaf = leaf->next) {
+            TableTuple retval(getTupleSchema());
+            retval.move(const_cast<void*>(leaf->value));
+            buffer << retval.debugNoHeader() << std::endl;
+        }
+        std::string ret(buffer.str());
+        return (ret);
+    }
+
+    std::string getTypeName() const { return "AdaptiveRadixTreeIndex"; };
+
+    virtual TableIndex *cloneEmptyNonCountingTreeIndex() const
+    {
+        return new AdaptiveRadixTreeIndex<KeySize, isUnique>(TupleSchema::createTupleSchema(getKeySchema()), m_scheme);
+    }
+
+    Leaf* findTuple(const TableTuple &originalTuple) const
+    {
+        uint8_t bytes[KEY_LENGTH];
+        encodeKey(setKeyFromTuple(&originalTuple), originalTuple.address(), bytes);
+        return m_entries.find(bytes);
+    }
+
+    const KeyType setKeyFromTuple(const TableTuple *tuple) const
+    {
+        KeyType result(tuple, m_scheme.columnIndices, m_scheme.indexedExpressions, m_keySchema);
+        return result;
+    }
+
+    TreeType m_entries;
+
+    // comparison stuff
+    KeyComparator m_cmp;
+
+public:
+    AdaptiveRadixTreeIndex(const TupleSchema *keySchema, const TableIndexScheme &scheme) :
+        TableIndex(keySchema, scheme),
+        m_cmp(keySchema)
+    {}
+};
+
+}
+
+#endif // ADAPTIVERADIXTREEINDEX_H_
@@ -0,0 +1,184 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2017 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+#ifndef BULKINDEXBUILDER_H_
+#define BULKINDEXBUILDER_H_
+
+#include <algorithm>
+#include <vector>
+#include <pthread.h>
+#include <unistd.h>
+
+#include "indexes/tableindex.h"
+
+namespace voltdb {
+
+/**
+ * Turns the tuples of a populated table into the sorted entries that
+ * CompactingMap::insertSorted builds a tree from.  Large inputs are split
+ * into runs, each extracted and sorted by its own helper thread, and the
+ * sorted runs are merged on the calling thread.  Only indexes on plain
+ * columns are built this way, since evaluating indexed expressions may
+ * allocate from the calling thread's pools.
+ */
+template<typename KeyValuePair, typename KeyComparator>
+class BulkIndexBuilder
+{
+    typedef typename KeyValuePair::first_type KeyType;
+
+    // Fewer tuples than this per run are not worth starting a thread for.
+    static const int64_t MIN_TUPLES_PER_RUN = 256 * 1024;
+    static const int64_t MAX_RUNS = 8;
+
+    struct EntryLess {
+        EntryLess(const KeyComparator &cmp) : m_cmp(cmp) {}
+        bool operator()(const KeyValuePair &lhs, const KeyValuePair &rhs) const {
+            return m_cmp(lhs.getKey(), rhs.getKey()) < 0;
+        }
+        KeyComparator m_cmp;
+    };
+
+    struct EntryEqual {
+        EntryEqual(const KeyComparator &cmp) : m_cmp(cmp) {}
+        bool operator()(const KeyValuePair &lhs, const KeyValuePair &rhs) const {
+            return m_cmp(lhs.getKey(), rhs.getKey()) == 0;
+        }
+        KeyComparator m_cmp;
+    };
+
+    struct Run {
+        const BulkIndexBuilder *m_builder;
+        const std::vector<void*> *m_tupleAddresses;
+        std::vector<KeyValuePair> *m_entries;
+        int64_t m_begin;
+        int64_t m_end;
+    };
+
+public:
+    BulkIndexBuilder(const TableIndexScheme &scheme, const TupleSchema *keySchema,
+                     const KeyComparator &cmp, bool unique)
+      : m_scheme(scheme)
+      , m_keySchema(keySchema)
+      , m_cmp(cmp)
+      , m_unique(unique)
+    { }
+
+    /**
+     * Can the index be built from sorted entries at all?
+     */
+    static bool canBuild(const TableIndexScheme &scheme)
+    {
+        return scheme.indexedExpressions.empty();
+    }
+
+    /**
+     * Fill entries with one entry per tuple, sorted by key.  For a unique
+     * index, only the first tuple (in tupleAddresses order) of each key is
+     * kept, as repeated inserts would do.
+     */
+    void build(const std::vector<void*> &tupleAddresses, std::vector<KeyValuePair> &entries) const
+    {
+        const int64_t count = static_cast<int64_t>(tupleAddresses.size());
+        entries.resize(count);
+
+        int64_t runCount = count / MIN_TUPLES_PER_RUN;
+        if (runCount > MAX_RUNS) {
+            runCount = MAX_RUNS;
+        }
+        long cpus = sysconf(_SC_NPROCESSORS_ONLN);
+        if (cpus > 0 && runCount > cpus) {
+            runCount = cpus;
+        }
+        if (runCount < 2) {
+            runCount = 1;
+        }
+
+        std::vector<Run> runs(runCount);
+        std::vector<pthread_t> threads(runCount);
+        std::vector<bool> started(runCount, false);
+        for (int64_t ii = 0; ii < runCount; ++ii) {
+            Run &run = runs[ii];
+            run.m_builder = this;
+            run.m_tupleAddresses = &tupleAddresses;
+            run.m_entries = &entries;
+            run.m_begin = count * ii / runCount;
+            run.m_end = count * (ii + 1) / runCount;
+            // The calling thread takes the first run itself.
+            if (ii > 0) {
+                started[ii] = (pthread_create(&threads[ii], NULL, extractRunInThread, &run) == 0);
+            }
+        }
+        for (int64_t ii = 0; ii < runCount; ++ii) {
+            if (ii > 0 && started[ii]) {
+                continue;
+            }
+            extractRun(runs[ii]);
+        }
+        for (int64_t ii = 1; ii < runCount; ++ii) {
+            if (started[ii]) {
+                pthread_join(threads[ii], NULL);
+            }
+        }
+
+        // Merge neighbouring runs until one is left.  The merge is stable,
+        // so equal keys stay in tuple order.
+        EntryLess less(m_cmp);
+        for (int64_t width = 1; width < runCount; width *= 2) {
+            for (int64_t ii = 0; ii + width < runCount; ii += 2 * width) {
+                int64_t last = std::min(ii + 2 * width, runCount) - 1;
+                std::inplace_merge(entries.begin() + runs[ii].m_begin,
+                                   entries.begin() + runs[ii + width].m_begin,
+                                   entries.begin() + runs[last].m_end,
+                                   less);
+            }
+        }
+
+        if (m_unique) {
+            entries.erase(std::unique(entries.begin(), entries.end(), EntryEqual(m_cmp)), entries.end());
+        }
+    }
+
+private:
+    static void *extractRunInThread(void *arg)
+    {
+        Run *run = static_cast<Run*>(arg);
+        run->m_builder->extractRun(*run);
+        return NULL;
+    }
+
+    void extractRun(const Run &run) const
+    {
+        TableTuple tuple(m_scheme.tupleSchema);
+        std::vector<KeyValuePair> &entries = *run.m_entries;
+        for (int64_t ii = run.m_begin; ii < run.m_end; ++ii) {
+            void *address = (*run.m_tupleAddresses)[ii];
+            tuple.move(address);
+            KeyType key(&tuple, m_scheme.columnIndices, m_scheme.indexedExpressions, m_keySchema);
+            entries[ii].setKeyValuePair(key, address);
+        }
+        std::stable_sort(entries.begin() + run.m_begin, entries.begin() + run.m_end, EntryLess(m_cmp));
+    }
+
+    const TableIndexScheme &m_scheme;
+    const TupleSchema *m_keySchema;
+    const KeyComparator &m_cmp;
+    const bool m_unique;
+};
+
+}
+
+#endif // BULKINDEXBUILDER_H_
@@ -51,6 +51,7 @@
 #include "indexes/tableindex.h"
 #include "common/tabletuple.h"
 #include "structures/CompactingMap.h"
+#include "indexes/BulkIndexBuilder.h"
 
 namespace voltdb {
 
@@ -83,6 +84,45 @@ class CompactingTreeMultiMapIndex : public TableIndex
         m_entries.insert(setKeyFromTuple(tuple), tuple->address());
     }
 
+    void addEntriesInBulkDo(const std::vector<void*> &tupleAddresses)
+    {
+        if ( ! BulkIndexBuilder<KeyValuePair, KeyComparator>::canBuild(m_scheme)) {
+            TableIndex::addEntriesInBulkDo(tupleAddresses);
+            return;
+        }
+        m_inserts += static_cast<int>(tupleAddresses.size());
+        std::vector<KeyValuePair> entries;
+        BulkIndexBuilder<KeyValuePair, KeyComparator> builder(m_scheme, m_keySchema, m_cmp, false);
+        builder.build(tupleAddresses, entries);
+        if (entries.empty()) {
+            return;
+        }
+        if (shouldMergeInBulk(static_cast<int64_t>(entries.size()))) {
+            m_entries.mergeSorted(&entries[0], static_cast<int64_t>(entries.size()));
+            return;
+        }
+        // A small batch goes into a large tree one entry at a time, in key
+        // order so that consecutive inserts descend along neighbouring paths.
+        for (typename std::vector<KeyValuePair>::const_iterator it = entries.begin(); it != entries.end(); ++it) {
+            m_entries.insert(it->getKey(), it->getValue());
+        }
+    }
+
+    /*
+     * Merging rebuilds the whole tree, which costs about as much as
+     * log2(size) inserts per existing entry would save, so it only pays
+     * off once the batch is that large next to the tree.
+     */
+    bool shouldMergeInBulk(int64_t batchSize) const
+    {
+        int64_t treeSize = m_entries.size();
+        int64_t treeDepth = 1;
+        for (int64_t n = treeSize; n > 1; n >>= 1) {
+            ++treeDepth;
+        }
+        return batchSize * treeDepth >= treeSize;
+    }
+
     bool deleteEntryDo(const TableTuple *tuple)
     {
         ++m_deletes;
@@ -268,6 +308,49 @@ class CompactingTreeMultiMapIndex : public TableIndex
         return retval;
     }
 
+    bool canCoverIndexedColumns() const
+    {
+        return KeyType::keyHoldsColumnValues() && getIndexedExpressions().size() == 0;
+    }
+
+    TableTuple nextCoveredValue(IndexCursor& cursor, TableTuple &coveredTuple) const
+    {
+        TableTuple retval(getTupleSchema());
+        MapIterator &mapIter = castToIter(cursor);
+
+        if (! mapIter.isEnd()) {
+            retval.move(const_cast<void*>(mapIter.value()));
+            mapIter.key().copyColumnValues(getKeySchema(), getColumnIndices(), coveredTuple);
+            if (cursor.m_forward) {
+                mapIter.moveNext();
+            } else {
+                mapIter.movePrev();
+            }
+        }
+
+        return retval;
+    }
+
+    TableTuple nextCoveredValueAtKey(IndexCursor& cursor, TableTuple &coveredTuple) const
+    {
+        if (cursor.m_match.isNullTuple()) {
+            return cursor.m_match;
+        }
+        TableTuple retval = cursor.m_match;
+        MapIterator &mapIter = castToIter(cursor);
+        MapIterator &mapEndIter = castToEndIter(cursor);
+
+        // The iterator is still at the entry of m_match.
+        mapIter.key().copyColumnValues(getKeySchema(), getColumnIndices(), coveredTuple);
+        mapIter.moveNext();
+        if (mapIter.equals(mapEndIter)) {
+            cursor.m_match.move(NULL);
+        } else {
+            cursor.m_match.move(const_cast<void*>(mapIter.value()));
+        }
+        return retval;
+    }
+
     bool advanceToNextKey(IndexCursor& cursor) const
     {
         MapIterator &mapEndIter = castToEndIter(cursor);
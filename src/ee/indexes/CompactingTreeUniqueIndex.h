@@ -51,6 +51,7 @@
 
 #include "common/debuglog.h"
 #include "common/tabletuple.h"
+#include "indexes/BulkIndexBuilder.h"
 #include "indexes/tableindex.h"
 #include "structures/CompactingMap.h"
 
@@ -83,6 +84,21 @@ class CompactingTreeUniqueIndex : public TableIndex
         }
     }
 
+    void addEntriesInBulkDo(const std::vector<void*> &tupleAddresses)
+    {
+        if (m_entries.size() != 0 || ! BulkIndexBuilder<KeyValuePair, KeyComparator>::canBuild(m_scheme)) {
+            TableIndex::addEntriesInBulkDo(tupleAddresses);
+            return;
+        }
+        m_inserts += static_cast<int>(tupleAddresses.size());
+        std::vector<KeyValuePair> entries;
+        BulkIndexBuilder<KeyValuePair, KeyComparator> builder(m_scheme, m_keySchema, m_cmp, true);
+        builder.build(tupleAddresses, entries);
+        if ( ! entries.empty()) {
+            m_entries.insertSorted(&entries[0], static_cast<int64_t>(entries.size()));
+        }
+    }
+
     bool deleteEntryDo(const TableTuple *tuple)
     {
         ++m_deletes;
@@ -255,6 +271,41 @@ class CompactingTreeUniqueIndex : public TableIndex
         return retval;
     }
 
+    bool canCoverIndexedColumns() const
+    {
+        return KeyType::keyHoldsColumnValues() && getIndexedExpressions().size() == 0;
+    }
+
+    TableTuple nextCoveredValue(IndexCursor& cursor, TableTuple &coveredTuple) const
+    {
+        TableTuple retval(getTupleSchema());
+
+        MapIterator &mapIter = castToIter(cursor);
+
+        if (! mapIter.isEnd()) {
+            retval.move(const_cast<void*>(mapIter.value()));
+            mapIter.key().copyColumnValues(getKeySchema(), getColumnIndices(), coveredTuple);
+            if (cursor.m_forward) {
+                mapIter.moveNext();
+            } else {
+                mapIter.movePrev();
+            }
+        }
+
+        return retval;
+    }
+
+    TableTuple nextCoveredValueAtKey(IndexCursor& cursor, TableTuple &coveredTuple) const
+    {
+        TableTuple retval = cursor.m_match;
+        if ( ! retval.isNullTuple()) {
+            // moveToKey left the iterator at the matching entry.
+            castToIter(cursor).key().copyColumnValues(getKeySchema(), getColumnIndices(), coveredTuple);
+        }
+        cursor.m_match.move(NULL);
+        return retval;
+    }
+
     bool advanceToNextKey(IndexCursor& cursor) const
     {
         MapIterator &mapIter = castToIter(cursor);
@@ -0,0 +1,205 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2017 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+#ifndef OPENADDRESSINGHASHUNIQUEINDEX_H_
+#define OPENADDRESSINGHASHUNIQUEINDEX_H_
+
+#include <iostream>
+#include <cassert>
+
+#include "indexes/tableindex.h"
+#include "indexes/CompactingTreeUniqueIndex.h"
+#include "structures/OpenAddressingHashTable.h"
+
+namespace voltdb {
+
+/**
+ * Hashes the words of an IntsKey in one pass, instead of mixing the
+ * result of IntsHasher again.
+ */
+template <std::size_t keySize>
+struct OpenAddressingIntsHasher
+{
+    OpenAddressingIntsHasher(const TupleSchema *unused_keySchema) {}
+
+    inline uint64_t operator()(IntsKey<keySize> const& p) const
+    {
+        uint64_t hash = 0;
+        for (int ii = 0; ii < keySize; ii++) {
+            hash = openAddressingMix(hash ^ p.data[ii]);
+        }
+        return hash;
+    }
+};
+
+/**
+ * Unique hash index on integer keys, whose entries are stored inline in an
+ * open-addressing table instead of in the chained buckets of
+ * CompactingHashUniqueIndex.  A cursor holds a pointer to the value of
+ * the matching entry.  Inserts are faster but lookups slower than in
+ * CompactingHashUniqueIndex, so it is only used for indexes whose name
+ * has "openhash" in it.
+ * @see TableIndex
+ */
+template<std::size_t keySize>
+class OpenAddressingHashUniqueIndex : public TableIndex
+{
+    typedef IntsKey<keySize> KeyType;
+    typedef typename KeyType::KeyEqualityChecker KeyEqualityChecker;
+    typedef OpenAddressingIntsHasher<keySize> KeyHasher;
+    typedef OpenAddressingHashTable<KeyType, const void*, KeyHasher, KeyEqualityChecker> MapType;
+
+    ~OpenAddressingHashUniqueIndex() {};
+
+    static const void**& castToIter(IndexCursor& cursor) {
+        return *reinterpret_cast<const void***> (cursor.m_keyIter);
+    }
+
+    void addEntryDo(const TableTuple *tuple, TableTuple *conflictTuple) {
+        ++m_inserts;
+        const void* const* conflictEntry = m_entries.insert(setKeyFromTuple(tuple), tuple->address());
+        if (conflictEntry != NULL && conflictTuple != NULL) {
+            conflictTuple->move(const_cast<void*>(*conflictEntry));
+        }
+    }
+
+    bool deleteEntryDo(const TableTuple *tuple) {
+        ++m_deletes;
+        return m_entries.erase(setKeyFromTuple(tuple));
+    }
+
+    /**
+     * Update in place an index entry with a new tuple address
+     */
+    bool replaceEntryNoKeyChangeDo(const TableTuple &destinationTuple, const TableTuple &originalTuple)
+    {
+        assert(originalTuple.address() != destinationTuple.address());
+
+        const void** value = findTuple(originalTuple);
+        if (value == NULL) {
+            return false;
+        }
+        *value = destinationTuple.address();
+        m_updates++;
+        return true;
+    }
+
+    bool keyUsesNonInlinedMemory() const { return KeyType::keyUsesNonInlinedMemory(); }
+
+    bool checkForIndexChangeDo(const TableTuple *lhs, const TableTuple *rhs) const {
+        return !(m_eq(setKeyFromTuple(lhs), setKeyFromTuple(rhs)));
+    }
+
+    bool existsDo(const TableTuple *persistentTuple) const
+    {
+        return findTuple(*persistentTuple) != NULL;
+    }
+
+    bool moveToKey(const TableTuple *searchKey, IndexCursor& cursor) const {
+        const void** &value = castToIter(cursor);
+        value = findKey(searchKey);
+
+        if (value == NULL) {
+            cursor.m_match.move(NULL);
+            return false;
+        }
+        cursor.m_match.move(const_cast<void*>(*value));
+
+        return true;
+    }
+
+    bool moveToKeyByTuple(const TableTuple *persistentTuple, IndexCursor &cursor) const
+    {
+        const void** &value = castToIter(cursor);
+        value = findTuple(*persistentTuple);
+
+        if (value == NULL) {
+            cursor.m_match.move(NULL);
+            return false;
+        }
+        cursor.m_match.move(const_cast<void*>(*value));
+
+        return true;
+    }
+
+    TableTuple nextValueAtKey(IndexCursor& cursor) const {
+        TableTuple retval = cursor.m_match;
+        cursor.m_match.move(NULL);
+        return retval;
+    }
+
+    TableTuple uniqueMatchingTuple(const TableTuple &searchTuple) const
+    {
+        TableTuple retval(getTupleSchema());
+        const void** value = findTuple(searchTuple);
+        if (value != NULL) {
+            retval.move(const_cast<void*>(*value));
+        }
+        return retval;
+    }
+
+    bool hasKey(const TableTuple *searchKey) const {
+        return findKey(searchKey) != NULL;
+    }
+
+    size_t getSize() const { return m_entries.size(); }
+
+    int64_t getMemoryEstimate() const
+    {
+        return m_entries.bytesAllocated();
+    }
+
+    std::string getTypeName() const { return "OpenAddressingHashUniqueIndex"; };
+
+    TableIndex *cloneEmptyNonCountingTreeIndex() const
+    {
+        return new CompactingTreeUniqueIndex<NormalKeyValuePair<KeyType, void const *>, false >(TupleSchema::createTupleSchema(getKeySchema()), m_scheme);
+    }
+
+    // Non-virtual (so "really-private") helper methods.
+    const void** findKey(const TableTuple *searchKey) const
+    {
+        return m_entries.find(KeyType(searchKey));
+    }
+
+    const void** findTuple(const TableTuple &originalTuple) const
+    {
+        return m_entries.find(setKeyFromTuple(&originalTuple));
+    }
+
+    const KeyType setKeyFromTuple(const TableTuple *tuple) const
+    {
+        KeyType result(tuple, m_scheme.columnIndices, m_scheme.indexedExpressions, m_keySchema);
+        return result;
+    }
+
+    MapType m_entries;
+
+    // comparison stuff
+    KeyEqualityChecker m_eq;
+
+public:
+    OpenAddressingHashUniqueIndex(const TupleSchema *keySchema, const TableIndexScheme &scheme) :
+        TableIndex(keySchema, scheme),
+        m_entries(KeyHasher(keySchema), KeyEqualityChecker(keySchema)),
+        m_eq(keySchema)
+    {}
+};
+
+}
+
+#endif // OPENADDRESSINGHASHUNIQUEINDEX_H_
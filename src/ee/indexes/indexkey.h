@@ -46,6 +46,7 @@
 #ifndef INDEXKEY_H
 #define INDEXKEY_H
 
+#include "common/ValueFactory.hpp"
 #include "common/ValuePeeker.hpp"
 #include "common/tabletuple.h"
 
@@ -132,6 +133,7 @@ struct IntsKey
 
     static inline bool keyDependsOnTupleAddress() { return false; }
     static inline bool keyUsesNonInlinedMemory() { return false; }
+    static inline bool keyHoldsColumnValues() { return true; }
 
     /*
      * Take a value that is part of the key (already converted to a uint64_t) and inserts it into the
@@ -225,6 +227,51 @@ struct IntsKey
         return std::string(buffer.str());
     }
 
+    /*
+     * Decode the key and copy its values into the indexed columns of
+     * a table-schema tuple.  This is how an index-only scan reads the
+     * indexed columns without dereferencing the indexed tuple.
+     */
+    void copyColumnValues(const TupleSchema *keySchema,
+                          const std::vector<int> &columnIndices,
+                          TableTuple &coveredTuple) const {
+        int keyOffset = 0;
+        int intraKeyOffset = static_cast<int>(sizeof(uint64_t) - 1);
+        const int columnCount = keySchema->columnCount();
+        for (int ii = 0; ii < columnCount; ii++) {
+            switch(keySchema->columnType(ii)) {
+            case voltdb::VALUE_TYPE_BIGINT: {
+                const uint64_t keyValue = extractKeyValue<uint64_t>(keyOffset, intraKeyOffset);
+                coveredTuple.setNValue(columnIndices[ii], ValueFactory::getBigIntValue(
+                        convertUnsignedValueToSignedValue< int64_t, INT64_MAX>(keyValue)));
+                break;
+            }
+            case voltdb::VALUE_TYPE_INTEGER: {
+                const uint64_t keyValue = extractKeyValue<uint32_t>(keyOffset, intraKeyOffset);
+                coveredTuple.setNValue(columnIndices[ii], ValueFactory::getIntegerValue(
+                        convertUnsignedValueToSignedValue< int32_t, INT32_MAX>(keyValue)));
+                break;
+            }
+            case voltdb::VALUE_TYPE_SMALLINT: {
+                const uint64_t keyValue = extractKeyValue<uint16_t>(keyOffset, intraKeyOffset);
+                coveredTuple.setNValue(columnIndices[ii], ValueFactory::getSmallIntValue(
+                        convertUnsignedValueToSignedValue< int16_t, INT16_MAX>(keyValue)));
+                break;
+            }
+            case voltdb::VALUE_TYPE_TINYINT: {
+                const uint64_t keyValue = extractKeyValue<uint8_t>(keyOffset, intraKeyOffset);
+                coveredTuple.setNValue(columnIndices[ii], ValueFactory::getTinyIntValue(
+                        convertUnsignedValueToSignedValue< int8_t, INT8_MAX>(keyValue)));
+                break;
+            }
+            default:
+                throwFatalException("We currently only support a specific set of column index types/sizes for IntsKeys [%s]",
+                                    getTypeName(keySchema->columnType(ii)).c_str());
+                break;
+            }
+        }
+    }
+
     IntsKey() {
         ::memset(data, 0, keySize * sizeof(uint64_t));
     }
@@ -431,6 +478,22 @@ struct GenericKey
 
     static inline bool keyDependsOnTupleAddress() { return false; }
     static inline bool keyUsesNonInlinedMemory() { return true; } // maybe
+    static inline bool keyHoldsColumnValues() { return true; }
+
+    /*
+     * Copy the key values into the indexed columns of a table-schema tuple.
+     * Non-inlined values still reference the indexed tuple's object storage.
+     */
+    void copyColumnValues(const TupleSchema *keySchema,
+                          const std::vector<int> &columnIndices,
+                          TableTuple &coveredTuple) const {
+        TableTuple keyTuple(keySchema);
+        keyTuple.moveToReadOnlyTuple(reinterpret_cast<const void*>(data));
+        const int columnCount = keySchema->columnCount();
+        for (int ii = 0; ii < columnCount; ++ii) {
+            coveredTuple.setNValue(columnIndices[ii], keyTuple.getNValue(ii));
+        }
+    }
 
     GenericKey() {
         ::memset(data, 0, keySize * sizeof(char));
@@ -683,6 +746,14 @@ struct TupleKey
 
     static inline bool keyDependsOnTupleAddress() { return true; }
     static inline bool keyUsesNonInlinedMemory() { return true; } // maybe
+    // The key is just the tuple address, so reading it means reading the tuple.
+    static inline bool keyHoldsColumnValues() { return false; }
+
+    void copyColumnValues(const TupleSchema *keySchema,
+                          const std::vector<int> &columnIndices,
+                          TableTuple &coveredTuple) const {
+        throwFatalException("Invoked TupleKey method copyColumnValues, but TupleKeys do not hold column values");
+    }
 
     // Set a key from a key-schema tuple.
     TupleKey(const TableTuple *tuple) {
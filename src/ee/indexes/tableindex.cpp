@@ -44,6 +44,7 @@
  */
 
 #include <iostream>
+#include "boost/foreach.hpp"
 #include "indexes/tableindex.h"
 #include "expressions/abstractexpression.h"
 #include "expressions/expressionutil.h"
@@ -173,6 +174,31 @@ void TableIndex::addEntry(const TableTuple *tuple, TableTuple *conflictTuple)
     addEntryDo(tuple, conflictTuple);
 }
 
+void TableIndex::addEntriesInBulk(std::vector<void*> &tupleAddresses)
+{
+    if (isPartialIndex()) {
+        TableTuple tuple(getTupleSchema());
+        std::vector<void*>::iterator kept = tupleAddresses.begin();
+        BOOST_FOREACH (void* address, tupleAddresses) {
+            tuple.move(address);
+            if (getPredicate()->eval(&tuple, NULL).isTrue()) {
+                *kept++ = address;
+            }
+        }
+        tupleAddresses.erase(kept, tupleAddresses.end());
+    }
+    addEntriesInBulkDo(tupleAddresses);
+}
+
+void TableIndex::addEntriesInBulkDo(const std::vector<void*> &tupleAddresses)
+{
+    TableTuple tuple(getTupleSchema());
+    BOOST_FOREACH (void* address, tupleAddresses) {
+        tuple.move(address);
+        addEntryDo(&tuple, NULL);
+    }
+}
+
 bool TableIndex::deleteEntry(const TableTuple *tuple)
 {
     if (isPartialIndex() && !getPredicate()->eval(tuple, NULL).isTrue()) {
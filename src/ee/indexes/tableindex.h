@@ -222,6 +222,13 @@ public:
      */
     void addEntry(const TableTuple *tuple, TableTuple *conflictTuple);
 
+    /**
+     * adds an index entry for each of the given tuples, as when an index
+     * is created on a populated table. Tuples that fail a partial index's
+     * predicate are removed from tupleAddresses.
+     */
+    void addEntriesInBulk(std::vector<void*> &tupleAddresses);
+
     /**
      * removes the index entry linked to given value (and tuple
      * pointer, if it's non-unique index).
@@ -358,6 +365,38 @@ public:
      */
     virtual TableTuple nextValueAtKey(IndexCursor& cursor) const = 0;
 
+    /**
+     * @return true if the entries of this index hold the values of
+     * the indexed columns, so that nextCoveredValue and
+     * nextCoveredValueAtKey can be used.  This is false for indexes
+     * on expressions and for indexes whose keys are tuple addresses.
+     */
+    virtual bool canCoverIndexedColumns() const
+    {
+        return false;
+    }
+
+    /**
+     * Just like nextValue, but also copy the key values of the entry
+     * into the indexed columns of coveredTuple, which has the table's
+     * schema.  The returned tuple is only meant to be tested with
+     * isNullTuple and isPendingDelete, so an index-only scan need not
+     * read the columns of the table's tuple storage.
+     */
+    virtual TableTuple nextCoveredValue(IndexCursor& cursor, TableTuple &coveredTuple) const
+    {
+        throwFatalException("Invoked TableIndex virtual method nextCoveredValue which has no implementation");
+    };
+
+    /**
+     * Just like nextValueAtKey, but also copy the key values of the
+     * entry into coveredTuple, as nextCoveredValue does.
+     */
+    virtual TableTuple nextCoveredValueAtKey(IndexCursor& cursor, TableTuple &coveredTuple) const
+    {
+        throwFatalException("Invoked TableIndex virtual method nextCoveredValueAtKey which has no implementation");
+    };
+
     /**
      * sets the tuple to point the entry next to the one found by
      * moveToKey().  calls this repeatedly to get all entries
@@ -408,6 +447,15 @@ public:
         return m_scheme.countable;
     }
 
+    /**
+     * Return TRUE if nextValue() after moveToEnd(true) returns the
+     * entries in ascending key order.
+     */
+    bool isOrderedIndex() const
+    {
+        return m_scheme.type == BALANCED_TREE_INDEX || m_scheme.type == ADAPTIVE_RADIX_TREE_INDEX;
+    }
+
     /**
      * Return TRUE if the index has a predicate.
      */
@@ -545,6 +593,8 @@ protected:
 protected:
     // Index specific implementations
     virtual void addEntryDo(const TableTuple *tuple, TableTuple *conflictTuple) = 0;
+    // Inserts one tuple at a time unless the index knows a faster way.
+    virtual void addEntriesInBulkDo(const std::vector<void*> &tupleAddresses);
     virtual bool deleteEntryDo(const TableTuple *tuple) = 0;
     virtual bool replaceEntryNoKeyChangeDo(const TableTuple &destinationTuple,
                                          const TableTuple &originalTuple) = 0;
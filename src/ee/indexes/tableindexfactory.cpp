@@ -43,7 +43,9 @@
  * OTHER DEALINGS IN THE SOFTWARE.
  */
 
+#include <algorithm>
 #include <cassert>
+#include <cctype>
 #include <iostream>
 #include "indexes/tableindexfactory.h"
 #include "common/SerializableEEException.h"
@@ -58,6 +60,8 @@
 #include "indexes/CompactingHashUniqueIndex.h"
 #include "indexes/CompactingHashMultiMapIndex.h"
 #include "indexes/CoveringCellIndex.h"
+#include "indexes/AdaptiveRadixTreeIndex.h"
+#include "indexes/OpenAddressingHashUniqueIndex.h"
 
 namespace voltdb {
 
@@ -85,6 +89,13 @@ class TableIndexPicker
         }
     }
 
+    static bool isOpenHashName(const std::string &name)
+    {
+        std::string lowerName(name);
+        std::transform(lowerName.begin(), lowerName.end(), lowerName.begin(), ::tolower);
+        return lowerName.find("openhash") != std::string::npos;
+    }
+
     template <std::size_t KeySize>
     TableIndex *getInstanceIfKeyFits()
     {
@@ -92,11 +103,25 @@ class TableIndexPicker
             return NULL;
         }
         if (m_intsOnly) {
+            if (m_type == ADAPTIVE_RADIX_TREE_INDEX) {
+                return getRadixTreeInstance<(KeySize-1)/8 + 1>();
+            }
+            // Unique integer hash indexes named like "..._OPENHASH..." are probed with open
+            // addressing, which inserts faster but looks up slower than the chained table.
+            if (m_type == HASH_TABLE_INDEX && m_scheme.unique && isOpenHashName(m_scheme.name)) {
+                return new OpenAddressingHashUniqueIndex<(KeySize-1)/8 + 1>(m_keySchema, m_scheme);
+            }
             // The IntsKey size parameter ((KeySize-1)/8 + 1) is calculated to be
             // the number of 8-byte uint64's required to store KeySize packed bytes.
             return getInstanceForKeyType<IntsKey<(KeySize-1)/8 + 1> >();
         }
         // Generic Key
+        if (m_type == ADAPTIVE_RADIX_TREE_INDEX) {
+            VOLT_INFO("Producing a tree index for %s: "
+                      "radix tree index not currently supported for this index key.\n",
+                      m_scheme.name.c_str());
+            m_type = BALANCED_TREE_INDEX;
+        }
         if (m_type == HASH_TABLE_INDEX) {
             VOLT_INFO("Producing a tree index for %s: "
                       "hash index not currently supported for this index key.\n",
@@ -114,6 +139,15 @@ class TableIndexPicker
         return getInstanceForKeyType<GenericPersistentKey<KeySize> >();
     }
 
+    template <std::size_t IntsKeySize>
+    TableIndex *getRadixTreeInstance() const
+    {
+        if (m_scheme.unique) {
+            return new AdaptiveRadixTreeIndex<IntsKeySize, true>(m_keySchema, m_scheme);
+        }
+        return new AdaptiveRadixTreeIndex<IntsKeySize, false>(m_keySchema, m_scheme);
+    }
+
     template <int ColCount>
     TableIndex *getInstanceForHashedGenericColumns() const
     {
@@ -64,6 +64,9 @@ std::string IndexScanPlanNode::debugInfo(const std::string &spacer) const
            << indexLookupToString(m_lookup_type) << "]\n";
     buffer << spacer << "SortDirection["
            << sortDirectionToString(m_sort_direction) << "]\n";
+    if (m_covering) {
+        buffer << spacer << "Covering[true]\n";
+    }
 
     buffer << spacer << "SearchKey Expressions:\n";
     for (int ctr = 0, cnt = (int)m_searchkey_expressions.size(); ctr < cnt; ctr++) {
@@ -116,6 +119,8 @@ void IndexScanPlanNode::loadFromJSONObject(PlannerDomValue obj)
 
     m_searchkey_expressions.loadExpressionArrayFromJSONObject("SEARCHKEY_EXPRESSIONS", obj);
     loadBooleanArrayFromJSONObject("COMPARE_NOTDISTINCT", obj, m_compare_not_distinct);
+
+    m_covering = obj.hasNonNullKey("COVERING") && obj.valueForKey("COVERING").asBool();
 }
 
 } // namespace voltdb
@@ -58,6 +58,7 @@ public:
     IndexScanPlanNode()
         : m_lookup_type(INDEX_LOOKUP_TYPE_EQ)
         , m_sort_direction(SORT_DIRECTION_TYPE_INVALID)
+        , m_covering(false)
     { }
     ~IndexScanPlanNode();
     PlanNodeType getPlanNodeType() const;
@@ -81,6 +82,8 @@ public:
 
     AbstractExpression* getSkipNullPredicate() const { return m_skip_null_predicate.get(); }
 
+    bool isCovering() const { return m_covering; }
+
 protected:
     void loadFromJSONObject(PlannerDomValue obj);
 
@@ -109,6 +112,10 @@ protected:
 
     // null row predicate for underflow edge case
     boost::scoped_ptr<AbstractExpression> m_skip_null_predicate;
+
+    // True if every column the scan reads is an indexed column, so the
+    // scan can read the index keys instead of the table's tuples.
+    bool m_covering;
 };
 
 } // namespace voltdb
@@ -44,10 +44,34 @@
  */
 #include "nestloopnode.h"
 
+#include "expressions/abstractexpression.h"
+
+#include <sstream>
+
 namespace voltdb {
 
 NestLoopPlanNode::~NestLoopPlanNode() { }
 
 PlanNodeType NestLoopPlanNode::getPlanNodeType() const { return PLAN_NODE_TYPE_NESTLOOP; }
 
+std::string NestLoopPlanNode::debugInfo(const std::string& spacer) const
+{
+    std::ostringstream buffer;
+    buffer << AbstractJoinPlanNode::debugInfo(spacer);
+    for (int ctr = 0, cnt = (int)m_outerSemiJoinKeys.size(); ctr < cnt; ctr++) {
+        buffer << spacer << "Semi-Join Key " << ctr << "\n";
+        buffer << m_outerSemiJoinKeys[ctr]->debug(spacer);
+        buffer << m_innerSemiJoinKeys[ctr]->debug(spacer);
+    }
+    return buffer.str();
+}
+
+void NestLoopPlanNode::loadFromJSONObject(PlannerDomValue obj)
+{
+    AbstractJoinPlanNode::loadFromJSONObject(obj);
+    m_outerSemiJoinKeys.loadExpressionArrayFromJSONObject("SEMIJOIN_OUTER_KEYS", obj);
+    m_innerSemiJoinKeys.loadExpressionArrayFromJSONObject("SEMIJOIN_INNER_KEYS", obj);
+    assert(m_outerSemiJoinKeys.size() == m_innerSemiJoinKeys.size());
+}
+
 } // namespace voltdb
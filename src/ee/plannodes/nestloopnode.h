@@ -56,6 +56,20 @@ public:
     NestLoopPlanNode() { }
     ~NestLoopPlanNode();
     PlanNodeType getPlanNodeType() const;
+    std::string debugInfo(const std::string& spacer) const;
+
+    const OwningExpressionVector& getOuterSemiJoinKeys() const { return m_outerSemiJoinKeys; }
+    const OwningExpressionVector& getInnerSemiJoinKeys() const { return m_innerSemiJoinKeys; }
+
+protected:
+    void loadFromJSONObject(PlannerDomValue obj);
+
+    // The two sides of the equalities in the join predicate which
+    // compare an outer table expression to an inner table expression.
+    // An outer tuple whose keys match no inner tuple's keys can't
+    // join with any inner tuple, so the executor can skip its inner scan.
+    OwningExpressionVector m_outerSemiJoinKeys;
+    OwningExpressionVector m_innerSemiJoinKeys;
 };
 
 } // namespace voltdb
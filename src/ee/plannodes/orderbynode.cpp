@@ -62,12 +62,16 @@ std::string OrderByPlanNode::debugInfo(const std::string& spacer) const
                << m_sortExpressions[ctr]->debug()
                << "::" << m_sortDirections[ctr] << "\n";
     }
+    if (m_topN) {
+        buffer << spacer << "TopN\n";
+    }
     return buffer.str();
 }
 
 void OrderByPlanNode::loadFromJSONObject(PlannerDomValue obj)
 {
     loadSortListFromJSONObject(obj, &m_sortExpressions, &m_sortDirections);
+    m_topN = obj.hasNonNullKey("TOP_N") && obj.valueForKey("TOP_N").asBool();
 }
 
 } // namespace voltdb
@@ -52,7 +52,7 @@ namespace voltdb {
 class OrderByPlanNode : public AbstractPlanNode
 {
 public:
-    OrderByPlanNode() { }
+    OrderByPlanNode() : m_topN(false) { }
     ~OrderByPlanNode();
     PlanNodeType getPlanNodeType() const;
     std::string debugInfo(const std::string &spacer) const;
@@ -60,6 +60,12 @@ public:
     const std::vector<AbstractExpression*>& getSortExpressions() const { return m_sortExpressions; }
     const std::vector<SortDirectionType>& getSortDirections() const { return m_sortDirections; }
 
+    /**
+     * True when the planner found an inlined limit that lets the executor
+     * retain only the top limit + offset tuples while scanning its input.
+     */
+    bool isTopN() const { return m_topN; }
+
 protected:
     void loadFromJSONObject(PlannerDomValue obj);
 
@@ -70,6 +76,8 @@ protected:
      * If false, sort in DESC order
      */
     std::vector<SortDirectionType> m_sortDirections;
+
+    bool m_topN;
 };
 
 } // namespace voltdb
@@ -63,6 +63,9 @@ std::string WindowFunctionPlanNode::debugInfo(const std::string &spacer) const
     }
     debugWriteAggregateExpressionList(buffer, spacer, "partitionBys", m_partitionByExpressions);
     debugWriteAggregateExpressionList(buffer, spacer, "orderBys", m_orderByExpressions);
+    if (m_hasRowsFrame) {
+        buffer << spacer << "rowsFramePreceding=" << m_rowsFramePreceding << "\n";
+    }
     buffer << spacer << "}";
     return buffer.str();
 }
@@ -123,6 +126,10 @@ void WindowFunctionPlanNode::loadFromJSONObject(PlannerDomValue obj) {
         m_orderByExpressions.clear();
         loadSortListFromJSONObject(obj, &m_orderByExpressions, NULL);
     }
+    if (obj.hasNonNullKey("ROWS_FRAME_PRECEDING")) {
+        m_hasRowsFrame = true;
+        m_rowsFramePreceding = obj.valueForKey("ROWS_FRAME_PRECEDING").asInt64();
+    }
     if (!(containsPartitionExpressions && containsOrderByExpressions)) {
         std::ostringstream buffer;
         std::string sep = "";
@@ -26,8 +26,16 @@ public:
                                const std::string &spacer,
                                const std::string &label,
                                const OwningExpressionVector & exprs) const;
+    /**
+     * The value of getRowsFramePreceding() when the frame
+     * starts with the first row of the partition.
+     */
+    static const int64_t UNBOUNDED_PRECEDING = -1;
+
     WindowFunctionPlanNode()
-        : AbstractPlanNode() {}
+        : AbstractPlanNode(),
+          m_hasRowsFrame(false),
+          m_rowsFramePreceding(UNBOUNDED_PRECEDING) {}
     virtual ~WindowFunctionPlanNode();
 
     PlanNodeType getPlanNodeType() const;
@@ -49,6 +57,24 @@ public:
         return m_partitionByExpressions;
     }
 
+    /**
+     * True if the window has a ROWS frame, so that each row
+     * gets its own value computed over the rows in its frame.
+     * Otherwise the frame is the default one, which ends with
+     * the last order by peer of the row.
+     */
+    bool hasRowsFrame() const {
+        return m_hasRowsFrame;
+    }
+
+    /**
+     * The number of rows before the current row in a
+     * ROWS frame, or UNBOUNDED_PRECEDING.
+     */
+    int64_t getRowsFramePreceding() const {
+        return m_rowsFramePreceding;
+    }
+
     void collectOutputExpressions(std::vector<AbstractExpression *>&columnExpressions) const;
 protected:
     void loadFromJSONObject(PlannerDomValue obj);
@@ -62,6 +88,9 @@ private:
     OwningExpressionVector m_partitionByExpressions;
     // What columns to sort.
     OwningExpressionVector m_orderByExpressions;
+    // The ROWS frame, if any.
+    bool m_hasRowsFrame;
+    int64_t m_rowsFramePreceding;
 };
 }
 #endif /* SRC_EE_PLANNODES_WINDOWFUNCTIONNODE_H_ */
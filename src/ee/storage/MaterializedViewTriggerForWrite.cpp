@@ -79,6 +79,12 @@ void MaterializedViewTriggerForWrite::build(PersistentTable *srcTbl,
 
 MaterializedViewTriggerForWrite::~MaterializedViewTriggerForWrite() { }
 
+// See if the index is just built on group by columns or it also includes min/max agg (ENG-6511)
+// Count the key columns, as an expression index may list fewer source columns than it has keys.
+static bool minMaxIndexIncludesAggCol(TableIndex * index, size_t groupByColumnCount) {
+    return index && index->getKeySchema()->columnCount() > groupByColumnCount;
+}
+
 void MaterializedViewTriggerForWrite::setupMinMaxRecalculation(const catalog::CatalogMap<catalog::IndexRef> &indexForMinOrMax,
                                                                const catalog::CatalogMap<catalog::Statement> &fallbackQueryStmts) {
     std::vector<TableIndex*> candidates = m_srcPersistentTable->allIndexes();
@@ -138,7 +144,11 @@ void MaterializedViewTriggerForWrite::setupMinMaxRecalculation(const catalog::Ca
                             << "plan uses: " << ((IndexScanPlanNode *)apn)->getTargetIndexName() << endl;
                 }
 #endif
-                usePlanForAgg = hardCodedIndex->getName().compare( ((IndexScanPlanNode *)apn)->getTargetIndexName() ) != 0;
+                // An index on the group by columns followed by the min/max column
+                // (such as the hidden one the compiler adds) already finds the value
+                // with one lookup, so no plan can do better.
+                usePlanForAgg = ! minMaxIndexIncludesAggCol(hardCodedIndex, m_groupByColumnCount) &&
+                    hardCodedIndex->getName().compare( ((IndexScanPlanNode *)apn)->getTargetIndexName() ) != 0;
             }
             else {
                 usePlanForAgg = true;
@@ -163,11 +173,6 @@ void MaterializedViewTriggerForWrite::setupMinMaxRecalculation(const catalog::Ca
     }
 }
 
-// See if the index is just built on group by columns or it also includes min/max agg (ENG-6511)
-static bool minMaxIndexIncludesAggCol(TableIndex * index, size_t groupByColumnCount) {
-    return index && index->getColumnIndices().size() > groupByColumnCount;
-}
-
 void MaterializedViewTriggerForWrite::allocateMinMaxSearchKeyTuple() {
     uint32_t nextIndexStoreLength;
     size_t minMaxSearchKeyBackingStoreSize = 0;
@@ -461,14 +466,18 @@ void MaterializedViewTriggerForWrite::processTupleDelete(const TableTuple &oldTu
                     // re-calculate MIN / MAX
                     newValue = NValue::getNullValue(destTbl->schema()->columnType(aggOffset+aggIndex));
                     if (m_usePlanForAgg[minMaxAggIdx] && allowUsingPlanForMinMax) {
+                        destTbl->countMinMaxFallback(false);
                         newValue = findFallbackValueUsingPlan(oldTuple, newValue, aggIndex, minMaxAggIdx);
                     }
                     // indexscan if an index is available, otherwise tablescan
                     else if (m_indexForMinMax[minMaxAggIdx]) {
+                        destTbl->countMinMaxFallback( ! minMaxIndexIncludesAggCol(m_indexForMinMax[minMaxAggIdx],
+                                                                                  m_groupByColumnCount));
                         newValue = findMinMaxFallbackValueIndexed(oldTuple, existingValue, newValue,
                                                                   reversedForMin, aggIndex, minMaxAggIdx);
                     }
                     else {
+                        destTbl->countMinMaxFallback(true);
                         VOLT_TRACE("before findMinMaxFallbackValueSequential\n");
                         newValue = findMinMaxFallbackValueSequential(oldTuple, existingValue, newValue,
                                                                      reversedForMin, aggIndex);
@@ -0,0 +1,68 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2017 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+#ifndef PERSISTENTTABLEUNDOBULKINSERTACTION_H_
+#define PERSISTENTTABLEUNDOBULKINSERTACTION_H_
+
+#include "common/UndoAction.h"
+#include "common/types.h"
+#include "storage/persistenttable.h"
+
+#include <vector>
+
+namespace voltdb {
+
+/*
+ * Undoes a whole batch of rows loaded by PersistentTable::loadTuplesFromNoHeader
+ * with one action instead of one PersistentTableUndoInsertAction per row.
+ * The rows are remembered by address, as nothing can move them before the
+ * undo quantum that loaded them is released.
+ */
+class PersistentTableUndoBulkInsertAction: public voltdb::UndoAction {
+public:
+    inline PersistentTableUndoBulkInsertAction(std::vector<void*>& insertedTuples,
+                                               voltdb::PersistentTableSurgeon *tableSurgeon)
+        : m_tableSurgeon(tableSurgeon)
+    {
+        m_tuples.swap(insertedTuples);
+    }
+
+    virtual ~PersistentTableUndoBulkInsertAction() { }
+
+    /*
+     * Undo whatever this undo action was created to undo
+     */
+    virtual void undo() {
+        for (std::vector<void*>::reverse_iterator it = m_tuples.rbegin(); it != m_tuples.rend(); ++it) {
+            m_tableSurgeon->deleteTupleForUndo(static_cast<char*>(*it), true);
+        }
+    }
+
+    /*
+     * Release any resources held by the undo action. It will not need
+     * to be undone in the future.
+     */
+    virtual void release() { }
+
+private:
+    std::vector<void*> m_tuples;
+    PersistentTableSurgeon *m_tableSurgeon;
+};
+
+}
+
+#endif /* PERSISTENTTABLEUNDOBULKINSERTACTION_H_ */
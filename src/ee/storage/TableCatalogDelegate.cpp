@@ -92,6 +92,9 @@ TupleSchema* TableCatalogDelegate::createTupleSchema(catalog::Table const& catal
                                        static_cast<int32_t>(catalogColumn->size()),
                                        catalogColumn->nullable(),
                                        catalogColumn->inbytes());
+        if (catalogColumn->dictionary()) {
+            schemaBuilder.setColumnDictionaryAtIndex(catalogColumn->index());
+        }
     }
 
     if (needsDRTimestamp) {
@@ -185,6 +188,9 @@ getIndexIdFromMap(TableIndexType type, bool countable, bool isUnique,
     case COVERING_CELL_INDEX:
         retval += "G"; // C is taken
         break;
+    case ADAPTIVE_RADIX_TREE_INDEX:
+        retval += "R";
+        break;
     default:
         // this would need to change if we added index types
         assert(false);
@@ -418,6 +424,11 @@ Table* TableCatalogDelegate::constructTableFromCatalog(catalog::Database const&
         persistentTable->addIndex(index);
     }
 
+    // time to live, which needs the indexes to pick one to expire rows by
+    catalog::Column const* ttlColumn = catalogTable.ttlcolumn();
+    persistentTable->setTimeToLive(ttlColumn == NULL ? -1 : ttlColumn->index(),
+                                   catalogTable.ttlseconds(), catalogTable.ttlbatchsize());
+
     return table;
 }
 
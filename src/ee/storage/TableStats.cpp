@@ -40,6 +40,12 @@ vector<string> TableStats::generateTableStatsColumnNames() {
     columnNames.push_back("STRING_DATA_MEMORY");
     columnNames.push_back("TUPLE_LIMIT");
     columnNames.push_back("PERCENT_FULL");
+    columnNames.push_back("COMPACTION_RECLAIMED_MEMORY");
+    columnNames.push_back("COMPACTION_MAX_PAUSE");
+    columnNames.push_back("MINMAX_FALLBACKS");
+    columnNames.push_back("MINMAX_FALLBACK_SCANS");
+    columnNames.push_back("TTL_ROWS_EXPIRED");
+    columnNames.push_back("TTL_BACKLOG");
     return columnNames;
 }
 
@@ -59,6 +65,12 @@ void TableStats::populateTableStatsSchema(
     types.push_back(VALUE_TYPE_BIGINT); columnLengths.push_back(NValue::getTupleStorageSize(VALUE_TYPE_BIGINT)); allowNull.push_back(false);inBytes.push_back(false);
     types.push_back(VALUE_TYPE_INTEGER); columnLengths.push_back(NValue::getTupleStorageSize(VALUE_TYPE_INTEGER)); allowNull.push_back(false);inBytes.push_back(false);
     types.push_back(VALUE_TYPE_INTEGER); columnLengths.push_back(NValue::getTupleStorageSize(VALUE_TYPE_INTEGER)); allowNull.push_back(false);inBytes.push_back(false);
+    types.push_back(VALUE_TYPE_BIGINT); columnLengths.push_back(NValue::getTupleStorageSize(VALUE_TYPE_BIGINT)); allowNull.push_back(false);inBytes.push_back(false);
+    types.push_back(VALUE_TYPE_BIGINT); columnLengths.push_back(NValue::getTupleStorageSize(VALUE_TYPE_BIGINT)); allowNull.push_back(false);inBytes.push_back(false);
+    types.push_back(VALUE_TYPE_BIGINT); columnLengths.push_back(NValue::getTupleStorageSize(VALUE_TYPE_BIGINT)); allowNull.push_back(false);inBytes.push_back(false);
+    types.push_back(VALUE_TYPE_BIGINT); columnLengths.push_back(NValue::getTupleStorageSize(VALUE_TYPE_BIGINT)); allowNull.push_back(false);inBytes.push_back(false);
+    types.push_back(VALUE_TYPE_BIGINT); columnLengths.push_back(NValue::getTupleStorageSize(VALUE_TYPE_BIGINT)); allowNull.push_back(false);inBytes.push_back(false);
+    types.push_back(VALUE_TYPE_BIGINT); columnLengths.push_back(NValue::getTupleStorageSize(VALUE_TYPE_BIGINT)); allowNull.push_back(false);inBytes.push_back(false);
 }
 
 TempTable* TableStats::generateEmptyTableStatsTable() {
@@ -166,6 +178,43 @@ void TableStats::updateStatsTuple(TableTuple *tuple) {
         percentage = static_cast<int32_t> (ceil(static_cast<double>(tupleCount) * 100.0 / tupleLimit));
     }
     tuple->setNValue(StatsSource::m_columnName2Index["PERCENT_FULL"],ValueFactory::getIntegerValue(percentage));
+
+    // Totals since the table was created, in KB and microseconds.
+    int64_t compaction_reclaimed_kb = 0;
+    int64_t compaction_max_pause = 0;
+    if (persistentTable) {
+        compaction_reclaimed_kb = persistentTable->compactionReclaimedBytes() / 1024;
+        compaction_max_pause = persistentTable->maxCompactionPauseMicros();
+    }
+    tuple->setNValue(StatsSource::m_columnName2Index["COMPACTION_RECLAIMED_MEMORY"],
+            ValueFactory::getBigIntValue(compaction_reclaimed_kb));
+    tuple->setNValue(StatsSource::m_columnName2Index["COMPACTION_MAX_PAUSE"],
+            ValueFactory::getBigIntValue(compaction_max_pause));
+
+    // Totals since the view table was created; zero for other tables.
+    int64_t minmax_fallbacks = 0;
+    int64_t minmax_fallback_scans = 0;
+    if (persistentTable) {
+        minmax_fallbacks = persistentTable->minMaxFallbacks();
+        minmax_fallback_scans = persistentTable->minMaxFallbackScans();
+    }
+    tuple->setNValue(StatsSource::m_columnName2Index["MINMAX_FALLBACKS"],
+            ValueFactory::getBigIntValue(minmax_fallbacks));
+    tuple->setNValue(StatsSource::m_columnName2Index["MINMAX_FALLBACK_SCANS"],
+            ValueFactory::getBigIntValue(minmax_fallback_scans));
+
+    // Rows expired since the table was created, and the expired rows still
+    // waiting for a later batch; zero for tables without a time to live.
+    int64_t ttl_rows_expired = 0;
+    int64_t ttl_backlog = 0;
+    if (persistentTable) {
+        ttl_rows_expired = persistentTable->ttlRowsExpired();
+        ttl_backlog = persistentTable->ttlBacklog();
+    }
+    tuple->setNValue(StatsSource::m_columnName2Index["TTL_ROWS_EXPIRED"],
+            ValueFactory::getBigIntValue(ttl_rows_expired));
+    tuple->setNValue(StatsSource::m_columnName2Index["TTL_BACKLOG"],
+            ValueFactory::getBigIntValue(ttl_backlog));
 }
 
 /**
@@ -18,6 +18,7 @@
 #include "storage/table.h"
 #include <sys/mman.h>
 #include <errno.h>
+#include "common/LargePageAllocator.h"
 #include "common/ThreadLocalPool.h"
 
 namespace voltdb {
@@ -29,6 +30,7 @@ TupleBlock::TupleBlock(Table *table, TBBucketPtr bucket) :
         m_references(0),
         m_tupleLength(table->m_tupleLength),
         m_tuplesPerBlock(table->m_tuplesPerBlock),
+        m_storageSize(table->m_tableAllocationSize),
         m_activeTuples(0),
         m_nextFreeTuple(0),
         m_lastCompactionOffset(0),
@@ -43,7 +45,7 @@ TupleBlock::TupleBlock(Table *table, TBBucketPtr bucket) :
         throwFatalException("Failed mmap");
     }
 #else
-    m_storage = new char[table->m_tableAllocationSize];
+    m_storage = static_cast<char*>(LargePageAllocator::allocate(m_storageSize));
 #endif
     tupleBlocksAllocated++;
 }
@@ -56,7 +58,7 @@ TupleBlock::~TupleBlock() {
         throwFatalException("Failed munmap");
     }
 #else
-    delete []m_storage;
+    LargePageAllocator::free(m_storage, m_storageSize);
 #endif
 }
 
@@ -240,6 +240,8 @@ private:
     uint32_t m_references;
     uint32_t m_tupleLength;
     uint32_t m_tuplesPerBlock;
+    // The size m_storage was allocated with.
+    uint32_t m_storageSize;
     uint32_t m_activeTuples;
     uint32_t m_nextFreeTuple;
     uint32_t m_lastCompactionOffset;
@@ -52,6 +52,7 @@
 #include "MaterializedViewHandler.h"
 #include "MaterializedViewTriggerForWrite.h"
 #include "PersistentTableStats.h"
+#include "PersistentTableUndoBulkInsertAction.h"
 #include "PersistentTableUndoInsertAction.h"
 #include "PersistentTableUndoDeleteAction.h"
 #include "PersistentTableUndoTruncateTableAction.h"
@@ -69,10 +70,12 @@
 #include "common/UndoQuantum.h"
 #include "common/executorcontext.hpp"
 #include "common/FatalException.hpp"
+#include "murmur3/MurmurHash3.h"
 #include "common/types.h"
 #include "common/RecoveryProtoMessage.h"
 #include "common/StreamPredicateList.h"
 #include "common/ValueFactory.hpp"
+#include "common/ValuePeeker.hpp"
 #include "catalog/catalog.h"
 #include "catalog/database.h"
 #include "catalog/table.h"
@@ -87,6 +90,7 @@
 #include <boost/scoped_ptr.hpp>
 
 #include <algorithm> // std::find
+#include <atomic>
 #include <cassert>
 #include <cstdio>
 #include <sstream>
@@ -96,6 +100,11 @@ namespace voltdb {
 
 #define TABLE_BLOCKSIZE 2097152
 
+// Each table instance gets 2^40 change stamps of its own. Tables are created
+// concurrently by the sites of a host so the instance count is shared.
+static const int CHANGE_STAMP_INSTANCE_SHIFT = 40;
+static std::atomic<int64_t> s_changeStampInstances(0);
+
 class SetAndRestorePendingDeleteFlag
 {
 public:
@@ -121,8 +130,18 @@ PersistentTable::PersistentTable(int partitionColumn, char const* signature, boo
     m_tupleLimit(tupleLimit),
     m_purgeExecutorVector(),
     m_stats(this),
+    m_compactionReclaimedBytes(0),
+    m_maxCompactionPauseMicros(0),
+    m_minMaxFallbacks(0),
+    m_minMaxFallbackScans(0),
+    m_ttlColumnIndex(-1),
+    m_ttlMicros(0),
+    m_ttlBatchSize(0),
+    m_ttlRowsExpired(0),
+    m_ttlBacklog(0),
     m_failedCompactionCount(0),
     m_invisibleTuplesPendingDeleteCount(0),
+    m_changeStamp(++s_changeStampInstances << CHANGE_STAMP_INSTANCE_SHIFT),
     m_surgeon(*this),
     m_tableForStreamIndexing(NULL),
     m_isMaterialized(isMaterialized),
@@ -219,6 +238,7 @@ PersistentTable::~PersistentTable() {
 // OPERATIONS
 // ------------------------------------------------------------------
 void PersistentTable::nextFreeTuple(TableTuple* tuple) {
+    ++m_changeStamp;
     // First check whether we have any in our list
     // In the memcheck it uses the heap instead of a free list to help Valgrind.
     if (!m_blocksWithSpace.empty()) {
@@ -813,7 +833,7 @@ void PersistentTable::insertTupleCommon(TableTuple& source, TableTuple& target,
     }
 
     if (m_schema->getUninlinedObjectColumnCount() != 0) {
-        increaseStringMemCount(target.getNonInlinedMemorySize());
+        increaseStringMemCount(target);
     }
 
     target.setActiveTrue();
@@ -875,6 +895,7 @@ void PersistentTable::insertTupleCommon(TableTuple& source, TableTuple& target,
  * strings or create an UndoAction or update a materialized view.
  */
 void PersistentTable::insertTupleForUndo(char* tuple) {
+    ++m_changeStamp;
     TableTuple target(m_schema);
     target.move(tuple);
     target.setPendingDeleteOnUndoReleaseFalse();
@@ -912,6 +933,7 @@ void PersistentTable::updateTupleWithSpecificIndexes(TableTuple& targetTupleToUp
     UndoQuantum* uq = NULL;
     char* oldTupleData = NULL;
     int tupleLength = targetTupleToUpdate.tupleLength();
+    ++m_changeStamp;
     /**
      * Check for index constraint violations.
      */
@@ -1012,11 +1034,6 @@ void PersistentTable::updateTupleWithSpecificIndexes(TableTuple& targetTupleToUp
         }
     }
 
-    if (m_schema->getUninlinedObjectColumnCount() != 0) {
-        decreaseStringMemCount(targetTupleToUpdate.getNonInlinedMemorySize());
-        increaseStringMemCount(sourceTupleWithNewValues.getNonInlinedMemorySize());
-    }
-
     // TODO: This is a little messed up.
     // We know what we want the target tuple's flags to look like after the copy,
     // so we carefully set them (rather than, say, ignore them) on the source tuple
@@ -1041,7 +1058,13 @@ void PersistentTable::updateTupleWithSpecificIndexes(TableTuple& targetTupleToUp
     std::vector<char*> newObjects;
 
     // this is the actual write of the new values
+    if (m_schema->getUninlinedObjectColumnCount() != 0) {
+        decreaseStringMemCount(targetTupleToUpdate);
+    }
     targetTupleToUpdate.copyForPersistentUpdate(sourceTupleWithNewValues, oldObjects, newObjects);
+    if (m_schema->getUninlinedObjectColumnCount() != 0) {
+        increaseStringMemCount(targetTupleToUpdate);
+    }
 
     if (uq) {
         /*
@@ -1100,6 +1123,7 @@ void PersistentTable::updateTupleWithSpecificIndexes(TableTuple& targetTupleToUp
 void PersistentTable::updateTupleForUndo(char* tupleWithUnwantedValues,
                                          char* sourceTupleDataWithNewValues,
                                          bool revertIndexes) {
+    ++m_changeStamp;
     TableTuple matchable(m_schema);
     // Get the address of the tuple in the table from one of the copies on hand.
     // Any TableScan OR a primary key lookup on an already updated index will find the tuple
@@ -1125,13 +1149,15 @@ void PersistentTable::updateTupleForUndo(char* tupleWithUnwantedValues,
     }
 
     if (m_schema->getUninlinedObjectColumnCount() != 0) {
-        decreaseStringMemCount(targetTupleToUpdate.getNonInlinedMemorySize());
-        increaseStringMemCount(sourceTupleWithNewValues.getNonInlinedMemorySize());
+        decreaseStringMemCount(targetTupleToUpdate);
     }
 
     bool dirty = targetTupleToUpdate.isDirty();
     // this is the actual in-place revert to the old version
     targetTupleToUpdate.copy(sourceTupleWithNewValues);
+    if (m_schema->getUninlinedObjectColumnCount() != 0) {
+        increaseStringMemCount(targetTupleToUpdate);
+    }
     if (dirty) {
         targetTupleToUpdate.setDirtyTrue();
     }
@@ -1158,6 +1184,7 @@ void PersistentTable::deleteTuple(TableTuple& target, bool fallible) {
 
     // The tempTuple is forever!
     assert(&target != &m_tempTuple);
+    ++m_changeStamp;
 
     // Write to the DR stream before doing anything else to ensure nothing will
     // be left forgotten in case this throws.
@@ -1288,6 +1315,7 @@ void PersistentTable::deleteTupleForSchemaChange(TableTuple& target) {
  *     can be used directly.
  */
 void PersistentTable::deleteTupleForUndo(char* tupleData, bool skipLookup) {
+    ++m_changeStamp;
     TableTuple matchable(tupleData, m_schema);
     TableTuple target(tupleData, m_schema);
     //* enable for debug */ std::cout << "DEBUG: undoing "
@@ -1529,6 +1557,159 @@ void PersistentTable::processLoadedTuple(TableTuple& tuple,
     }
 }
 
+void PersistentTable::loadTuplesFromNoHeader(SerializeInputBE& serialInput,
+                                             Pool* stringPool,
+                                             ReferenceSerializeOutput* uniqueViolationOutput,
+                                             bool shouldDRStreamRows) {
+    if ( ! canLoadWithoutRowUndo(shouldDRStreamRows)) {
+        Table::loadTuplesFromNoHeader(serialInput, stringPool, uniqueViolationOutput, shouldDRStreamRows);
+        return;
+    }
+
+    int tupleCount = serialInput.readInt();
+    assert(tupleCount >= 0);
+
+    size_t lengthPosition = 0;
+    int32_t serializedTupleCount = 0;
+    size_t tupleCountPosition = 0;
+    if (uniqueViolationOutput != NULL) {
+        lengthPosition = uniqueViolationOutput->reserveBytes(4);
+    }
+
+    ExecutorContext* ec = ExecutorContext::getExecutorContext();
+    TableTuple target(m_schema);
+    TableTuple conflict(m_schema);
+    std::vector<void*> loadedTuples;
+    loadedTuples.reserve(tupleCount);
+    try {
+        for (int i = 0; i < tupleCount; ++i) {
+            nextFreeTuple(&target);
+            target.setActiveTrue();
+            target.setDirtyFalse();
+            target.setPendingDeleteFalse();
+            target.setPendingDeleteOnUndoReleaseFalse();
+
+            target.deserializeFrom(serialInput, stringPool);
+            if (m_schema->getUninlinedObjectColumnCount() != 0) {
+                increaseStringMemCount(target);
+            }
+            if (hasDRTimestampColumn()) {
+                setDRTimestampForTuple(ec, target, false);
+            }
+
+            // Only the unique indexes are filled as the rows arrive, so
+            // that the first of two rows with the same key is the one kept.
+            bool notNull = checkNulls(target);
+            conflict.move(NULL);
+            if (notNull) {
+                tryInsertOnUniqueIndexes(&target, &conflict);
+                if (conflict.isNullTuple()) {
+                    loadedTuples.push_back(target.address());
+                    continue;
+                }
+            }
+
+            if ( ! uniqueViolationOutput) {
+                if ( ! notNull) {
+                    throw ConstraintFailureException(this, target, TableTuple(), CONSTRAINT_TYPE_NOT_NULL);
+                }
+                throw ConstraintFailureException(this, target, conflict, CONSTRAINT_TYPE_UNIQUE);
+            }
+            if (serializedTupleCount == 0) {
+                serializeColumnHeaderTo(*uniqueViolationOutput);
+                tupleCountPosition = uniqueViolationOutput->reserveBytes(sizeof(int32_t));
+            }
+            serializedTupleCount++;
+            target.serializeTo(*uniqueViolationOutput);
+            deleteTupleStorage(target);
+        }
+    }
+    catch (SerializableEEException &e) {
+        // Leave the rows loaded so far indexed and undoable.
+        finishLoadWithoutRowUndo(loadedTuples);
+        throw;
+    }
+    finishLoadWithoutRowUndo(loadedTuples);
+
+    if (uniqueViolationOutput != NULL) {
+        if (serializedTupleCount == 0) {
+            uniqueViolationOutput->writeIntAt(lengthPosition, 0);
+        } else {
+            uniqueViolationOutput->writeIntAt(lengthPosition,
+                                              static_cast<int32_t>(uniqueViolationOutput->position() - lengthPosition - sizeof(int32_t)));
+            uniqueViolationOutput->writeIntAt(tupleCountPosition,
+                                              serializedTupleCount);
+        }
+    }
+}
+
+/*
+ * Rows can skip the per-row insert path only when nothing but the indexes
+ * has to see them: no views, no delta table, no DR record and no snapshot,
+ * elastic or recovery stream that tracks inserts.
+ */
+bool PersistentTable::canLoadWithoutRowUndo(bool shouldDRStreamRows) {
+    if (m_isMaterialized || ! m_views.empty() || ! m_viewHandlers.empty() ||
+            m_deltaTableActive || m_tableStreamer != NULL) {
+        return false;
+    }
+    ExecutorContext* ec = ExecutorContext::getExecutorContext();
+    if (shouldDRStreamRows && m_drEnabled && ec != NULL && getDRTupleStream(ec) != NULL) {
+        return false;
+    }
+    return true;
+}
+
+void PersistentTable::tryInsertOnUniqueIndexes(TableTuple* tuple, TableTuple* conflict) {
+    for (int i = 0; i < static_cast<int>(m_indexes.size()); ++i) {
+        if ( ! m_indexes[i]->isUniqueIndex()) {
+            continue;
+        }
+        m_indexes[i]->addEntry(tuple, conflict);
+        FAIL_IF(!conflict->isNullTuple()) {
+            VOLT_DEBUG("Failed to insert into index %s,%s",
+                       m_indexes[i]->getTypeName().c_str(),
+                       m_indexes[i]->getName().c_str());
+            for (int j = 0; j < i; ++j) {
+                if (m_indexes[j]->isUniqueIndex()) {
+                    m_indexes[j]->deleteEntry(tuple);
+                }
+            }
+            return;
+        }
+    }
+}
+
+/*
+ * Add the loaded rows to the non-unique indexes as one batch, which the
+ * tree indexes sort and then merge with their existing entries, and
+ * register a single undo action for all of them. The unique indexes were
+ * filled row by row already, since each row there is accepted or rejected
+ * against the rows before it.
+ */
+void PersistentTable::finishLoadWithoutRowUndo(std::vector<void*>& loadedTuples) {
+    if (loadedTuples.empty()) {
+        return;
+    }
+    BOOST_FOREACH (auto index, m_indexes) {
+        if (index->isUniqueIndex()) {
+            continue;
+        }
+        if (index->isPartialIndex()) {
+            // addEntriesInBulk drops the rows that fail the predicate.
+            std::vector<void*> indexedTuples(loadedTuples);
+            index->addEntriesInBulk(indexedTuples);
+        }
+        else {
+            index->addEntriesInBulk(loadedTuples);
+        }
+    }
+    UndoQuantum* uq = ExecutorContext::currentUndoQuantum();
+    if (uq) {
+        uq->registerUndoAction(new (*uq) PersistentTableUndoBulkInsertAction(loadedTuples, &m_surgeon));
+    }
+}
+
 /** Prepare table for streaming from serialized data. */
 bool PersistentTable::activateStream(
     TableStreamType streamType,
@@ -1647,6 +1828,58 @@ size_t PersistentTable::hashCode() {
     return hashCode;
 }
 
+void PersistentTable::increaseStringMemCount(const TableTuple& tuple) {
+    m_nonInlinedMemorySize += tuple.getNonInlinedMemorySize();
+    const uint16_t objectColumnCount = m_schema->getUninlinedObjectColumnCount();
+    for (int ii = 0; ii < objectColumnCount; ii++) {
+        int idx = m_schema->getUninlinedObjectColumnInfoIndex(ii);
+        if ( ! m_schema->getColumnInfo(idx)->dictionary) {
+            continue;
+        }
+        const StringRef* sref = tuple.getNValue(idx).getSharedObject();
+        if (sref != NULL && ++m_sharedObjectRefCounts[sref] == 1) {
+            m_nonInlinedMemorySize += sref->getAllocatedSize();
+        }
+    }
+}
+
+void PersistentTable::decreaseStringMemCount(const TableTuple& tuple) {
+    m_nonInlinedMemorySize -= tuple.getNonInlinedMemorySize();
+    const uint16_t objectColumnCount = m_schema->getUninlinedObjectColumnCount();
+    for (int ii = 0; ii < objectColumnCount; ii++) {
+        int idx = m_schema->getUninlinedObjectColumnInfoIndex(ii);
+        if ( ! m_schema->getColumnInfo(idx)->dictionary) {
+            continue;
+        }
+        const StringRef* sref = tuple.getNValue(idx).getSharedObject();
+        if (sref == NULL) {
+            continue;
+        }
+        boost::unordered_map<const StringRef*, int32_t>::iterator found = m_sharedObjectRefCounts.find(sref);
+        assert(found != m_sharedObjectRefCounts.end());
+        if (--(found->second) == 0) {
+            m_sharedObjectRefCounts.erase(found);
+            m_nonInlinedMemorySize -= sref->getAllocatedSize();
+        }
+    }
+}
+
+int64_t PersistentTable::contentDigest() {
+    CopySerializeOutput row;
+    TableIterator iter(this, m_data.begin());
+    TableTuple tuple(schema());
+    uint64_t digest = 0;
+    while (iter.next(tuple)) {
+        row.reset();
+        tuple.serializeTo(row, true);
+        const int length = static_cast<int>(row.size());
+        const uint32_t high = static_cast<uint32_t>(MurmurHash3_x64_128(row.data(), length, 0));
+        const uint32_t low = static_cast<uint32_t>(MurmurHash3_x64_128(row.data(), length, 1));
+        digest += (static_cast<uint64_t>(high) << 32) | low;
+    }
+    return static_cast<int64_t>(digest);
+}
+
 void PersistentTable::notifyBlockWasCompactedAway(TBPtr block) {
     if (m_blocksNotPendingSnapshot.find(block) == m_blocksNotPendingSnapshot.end()) {
         // do not find block in not pending snapshot container
@@ -1699,7 +1932,12 @@ void PersistentTable::swapTuples(TableTuple& originalTuple,
     }
 }
 
-bool PersistentTable::doCompactionWithinSubset(TBBucketPtrVector* bucketVector) {
+static int64_t compactionClockMicros() {
+    static const boost::posix_time::ptime epoch(boost::gregorian::date(1970, 1, 1));
+    return (boost::posix_time::microsec_clock::universal_time() - epoch).total_microseconds();
+}
+
+bool PersistentTable::doCompactionWithinSubset(TBBucketPtrVector* bucketVector, int64_t deadlineMicros) {
     /**
      * First find the two best candidate blocks
      */
@@ -1754,6 +1992,7 @@ bool PersistentTable::doCompactionWithinSubset(TBBucketPtrVector* bucketVector)
         }
 
         if (lightest->isEmpty()) {
+            m_compactionReclaimedBytes += m_tableAllocationSize;
             notifyBlockWasCompactedAway(lightest);
             m_data.erase(lightest->address());
             m_blocksWithSpace.erase(lightest);
@@ -1767,6 +2006,10 @@ bool PersistentTable::doCompactionWithinSubset(TBBucketPtrVector* bucketVector)
                 lightest->swapToBucket((*bucketVector)[lightestBucketChange]);
             }
         }
+
+        if (deadlineMicros != 0 && compactionClockMicros() >= deadlineMicros) {
+            break;
+        }
     }
 
     if (fullestBucketChange != NO_NEW_BUCKET_INDEX) {
@@ -1778,6 +2021,117 @@ bool PersistentTable::doCompactionWithinSubset(TBBucketPtrVector* bucketVector)
     return true;
 }
 
+void PersistentTable::notifyQuantumRelease() {
+    if ( ! compactionPredicate()) {
+        return;
+    }
+    ExecutorContext* ec = ExecutorContext::getExecutorContext();
+    int64_t budgetMicros = (ec == NULL) ? 0 : ec->compactionBudgetMicros();
+    if (budgetMicros > 0) {
+        doBudgetedCompaction(budgetMicros);
+    }
+    else {
+        doForcedCompaction();
+    }
+}
+
+bool PersistentTable::doBudgetedCompaction(int64_t budgetMicros) {
+    if ( ! compactionPredicate()) {
+        return false;
+    }
+    if (m_tableStreamer.get() != NULL && m_tableStreamer->hasStreamType(TABLE_STREAM_RECOVERY)) {
+        return false;
+    }
+    int64_t startMicros = compactionClockMicros();
+    int64_t deadlineMicros = startMicros + budgetMicros;
+    bool hadWork = true;
+    while (hadWork && compactionPredicate()) {
+        hadWork = false;
+        if (!m_blocksNotPendingSnapshot.empty()) {
+            hadWork |= doCompactionWithinSubset(&m_blocksNotPendingSnapshotLoad, deadlineMicros);
+        }
+        if (!m_blocksPendingSnapshot.empty() && compactionClockMicros() < deadlineMicros) {
+            hadWork |= doCompactionWithinSubset(&m_blocksPendingSnapshotLoad, deadlineMicros);
+        }
+        if (compactionClockMicros() >= deadlineMicros) {
+            break;
+        }
+    }
+    m_maxCompactionPauseMicros = std::max(m_maxCompactionPauseMicros,
+                                          compactionClockMicros() - startMicros);
+    // If no blocks could be merged, more slices would not help either.
+    return hadWork && compactionPredicate();
+}
+
+void PersistentTable::setTimeToLive(int columnIndex, int32_t seconds, int32_t batchSize) {
+    m_ttlColumnIndex = columnIndex;
+    m_ttlMicros = static_cast<int64_t>(seconds) * 1000000;
+    m_ttlBatchSize = batchSize;
+    if (columnIndex == -1) {
+        m_ttlBacklog = 0;
+    }
+}
+
+int64_t PersistentTable::expireRows(int64_t nowMicros) {
+    if (m_ttlColumnIndex == -1) {
+        return 0;
+    }
+    const int64_t cutoff = nowMicros - m_ttlMicros;
+
+    TableIndex* ttlIndex = NULL;
+    BOOST_FOREACH (TableIndex* index, m_indexes) {
+        if (index->isOrderedIndex() && !index->isPartialIndex() &&
+                index->getIndexedExpressions().empty() &&
+                index->getColumnIndices()[0] == m_ttlColumnIndex) {
+            ttlIndex = index;
+            break;
+        }
+    }
+    // The compiler only accepts a time to live along with such an index,
+    // expiring rows must never come down to scanning the table.
+    if (ttlIndex == NULL) {
+        m_ttlBacklog = 0;
+        return 0;
+    }
+
+    // Rows with a NULL timestamp sort first and never expire, so start
+    // from the smallest timestamp that is not NULL.
+    StandAloneTupleStorage searchKeyStorage(ttlIndex->getKeySchema());
+    TableTuple searchKey = searchKeyStorage.tuple();
+    searchKey.setAllNulls();
+    searchKey.setNValue(0, ValueFactory::getTimestampValue(INT64_MIN + 1));
+    IndexCursor indexCursor(ttlIndex->getTupleSchema());
+    ttlIndex->moveToKeyOrGreater(&searchKey, indexCursor);
+
+    // Collect the batch before deleting anything, as deletes would
+    // invalidate the index cursor. Past the batch, look at most one more
+    // batch ahead, so the backlog is exact up to the batch size and
+    // capped there.
+    std::vector<char*> expired;
+    int64_t backlog = 0;
+    TableTuple tuple(m_schema);
+    while (backlog < m_ttlBatchSize &&
+           !(tuple = ttlIndex->nextValue(indexCursor)).isNullTuple()) {
+        if (ValuePeeker::peekTimestamp(tuple.getNValue(m_ttlColumnIndex)) >= cutoff) {
+            break;
+        }
+        if (expired.size() < static_cast<size_t>(m_ttlBatchSize)) {
+            expired.push_back(tuple.address());
+        }
+        else {
+            ++backlog;
+        }
+    }
+
+    BOOST_FOREACH (char* address, expired) {
+        tuple.move(address);
+        deleteTuple(tuple, true);
+    }
+    m_ttlRowsExpired += expired.size();
+    m_ttlBacklog = backlog;
+    return expired.size();
+}
+
 void PersistentTable::doIdleCompaction() {
     if (!m_blocksNotPendingSnapshot.empty()) {
         doCompactionWithinSubset(&m_blocksNotPendingSnapshotLoad);
@@ -1858,6 +2212,8 @@ bool PersistentTable::doForcedCompaction() {
     assert(!compactionPredicate());
     boost::posix_time::ptime endTime(boost::posix_time::microsec_clock::universal_time());
     boost::posix_time::time_duration duration = endTime - startTime;
+    m_maxCompactionPauseMicros = std::max(m_maxCompactionPauseMicros,
+                                          static_cast<int64_t>(duration.total_microseconds()));
     snprintf(msg, sizeof(msg), "Finished forced compaction of %zd non-snapshot blocks and %zd snapshot blocks with allocated tuple count %zd in %zd ms on table %s",
             ((intmax_t)notPendingCompactions), ((intmax_t)pendingCompactions), ((intmax_t)allocatedTupleCount()), ((intmax_t)duration.total_milliseconds()), m_name.c_str());
     LogManager::getThreadLogger(LOGGERID_SQL)->log(LOGLEVEL_INFO, msg);
@@ -2058,11 +2414,15 @@ void PersistentTable::addIndex(TableIndex* index) {
     assert(!isExistingTableIndex(m_indexes, index));
 
     // fill the index with tuples... potentially the slow bit
+    // Tree indexes sort the keys and build themselves bottom-up.
+    std::vector<void*> tupleAddresses;
+    tupleAddresses.reserve(activeTupleCount());
     TableTuple tuple(m_schema);
     TableIterator iter = iterator();
     while (iter.next(tuple)) {
-        index->addEntry(&tuple, NULL);
+        tupleAddresses.push_back(tuple.address());
     }
+    index->addEntriesInBulk(tupleAddresses);
 
     // add the index to the table
     if (index->isUniqueIndex()) {
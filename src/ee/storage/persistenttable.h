@@ -71,6 +71,7 @@
 #include "common/ThreadLocalPool.h"
 
 class CompactionTest_BasicCompaction;
+class CompactionTest_BudgetedCompaction;
 class CompactionTest_CompactionWithCopyOnWrite;
 class CopyOnWriteTest;
 
@@ -204,6 +205,7 @@ class PersistentTable : public Table, public UndoQuantumReleaseInterest,
     friend class JumpingTableIterator;
     friend class ::CopyOnWriteTest;
     friend class ::CompactionTest_BasicCompaction;
+    friend class ::CompactionTest_BudgetedCompaction;
     friend class ::CompactionTest_CompactionWithCopyOnWrite;
     friend class CoveringCellIndexTest_TableCompaction;
     friend class MaterializedViewHandler;
@@ -230,12 +232,77 @@ public:
         return m_tupleCount * m_tempTuple.tupleLength();
     }
 
-    void notifyQuantumRelease() {
-        if (compactionPredicate()) {
-            doForcedCompaction();
+    /**
+     * Compact the table after a transaction if it has become too sparse.
+     * With a compaction budget configured in the ExecutorContext, this
+     * only does one time slice of the work and the engine tick carries
+     * on with it between transactions.
+     */
+    void notifyQuantumRelease();
+
+    /**
+     * Merge the emptiest blocks into the fullest ones while the table is
+     * too sparse, for at most about budgetMicros.  The slice may run over
+     * by the time of one block merge.
+     * Returns true if the table still needs compaction.
+     */
+    bool doBudgetedCompaction(int64_t budgetMicros);
+
+    /** Bytes of blocks freed by compaction since the table was created. */
+    int64_t compactionReclaimedBytes() const {
+        return m_compactionReclaimedBytes;
+    }
+
+    /** The longest time a single compaction held the site thread. */
+    int64_t maxCompactionPauseMicros() const {
+        return m_maxCompactionPauseMicros;
+    }
+
+    /**
+     * Count a search for the new MIN or MAX of a view group after its
+     * current one was deleted, on the view table.  scanned is true when
+     * the built-in search scanned the group or the whole source table
+     * instead of seeking an index on the group by and MIN / MAX columns.
+     */
+    void countMinMaxFallback(bool scanned) {
+        ++m_minMaxFallbacks;
+        if (scanned) {
+            ++m_minMaxFallbackScans;
         }
     }
 
+    int64_t minMaxFallbacks() const { return m_minMaxFallbacks; }
+
+    int64_t minMaxFallbackScans() const { return m_minMaxFallbackScans; }
+
+    /**
+     * Expire rows whose TIMESTAMP column columnIndex is more than seconds
+     * old, at most batchSize rows per call to expireRows.  A columnIndex
+     * of -1 removes the time to live.
+     */
+    void setTimeToLive(int columnIndex, int32_t seconds, int32_t batchSize);
+
+    bool hasTimeToLive() const { return m_ttlColumnIndex != -1; }
+
+    /**
+     * Delete up to a batch of the oldest rows that expired as of nowMicros,
+     * walking the first ordered index led by the TTL column.  Nothing is
+     * deleted when there is no such index.  Rows with a NULL timestamp never
+     * expire.
+     * Must run inside a transaction, as the deletes are undoable.
+     * Returns the number of rows deleted.
+     */
+    int64_t expireRows(int64_t nowMicros);
+
+    /** Rows deleted by expireRows since the table was created. */
+    int64_t ttlRowsExpired() const { return m_ttlRowsExpired; }
+
+    /**
+     * Expired rows left behind by the latest expireRows batch, counted up
+     * to the batch size.
+     */
+    int64_t ttlBacklog() const { return m_ttlBacklog; }
+
     // Return a table iterator by reference
     TableIterator& iterator() {
         m_iter.reset(m_data.begin());
@@ -275,6 +342,19 @@ public:
     void deleteTuple(TableTuple& tuple, bool fallible = true);
     // TODO: change meaningless bool return type to void (starting in class Table) and migrate callers.
     virtual bool insertTuple(TableTuple& tuple);
+
+    /**
+     * Loads rows without an undo action per row.  Unless the table has
+     * views, a DR stream or an active table stream to keep up to date, each
+     * row is only checked against the unique indexes as it arrives, the
+     * other indexes take all the loaded rows in one sorted batch, and a
+     * single undo action covers the whole load.  Otherwise every row takes
+     * the regular insert path.
+     */
+    virtual void loadTuplesFromNoHeader(SerializeInputBE& serialInput,
+                                        Pool* stringPool = NULL,
+                                        ReferenceSerializeOutput* uniqueViolationOutput = NULL,
+                                        bool shouldDRStreamRows = false);
     // Optimized version of update that only updates specific indexes.
     // The caller knows which indexes MAY need to be updated.
     // Note that inside update tuple the order of sourceTuple and
@@ -414,6 +494,23 @@ public:
      */
     size_t hashCode();
 
+    /**
+     * A value that changes whenever a tuple of this table is inserted, updated or
+     * deleted, including by undo. Every table instance starts from its own range,
+     * so a table that was truncated or swapped does not repeat an earlier stamp.
+     * Incremental snapshots compare it against the stamp of the last snapshot.
+     */
+    int64_t changeStamp() const { return m_changeStamp; }
+
+    /**
+     * A digest of the rows of this table that does not depend on their order: the
+     * sum of a hash of each row as snapshots serialize it. Java computes the same
+     * digest over the chunks of a snapshot file, so a table can be matched with the
+     * file that holds its rows after the stamps above have been lost to a restart.
+     * This scans the whole table.
+     */
+    int64_t contentDigest();
+
     size_t getBlocksNotPendingSnapshotCount() {
         return m_blocksNotPendingSnapshot.size();
     }
@@ -422,13 +519,13 @@ public:
 
     void printBucketInfo();
 
-    void increaseStringMemCount(size_t bytes) {
-        m_nonInlinedMemorySize += bytes;
-    }
-
-    void decreaseStringMemCount(size_t bytes) {
-        m_nonInlinedMemorySize -= bytes;
-    }
+    /**
+     * Count the memory of the non-inlined objects of a tuple that is added to
+     * or removed from the table.  A shared object of a DICTIONARY column is
+     * counted once, however many tuples of the table refer to it.
+     */
+    void increaseStringMemCount(const TableTuple& tuple);
+    void decreaseStringMemCount(const TableTuple& tuple);
 
     size_t allocatedBlockCount() const { return m_data.size(); }
 
@@ -586,7 +683,9 @@ private:
 
     void nextFreeTuple(TableTuple* tuple);
 
-    bool doCompactionWithinSubset(TBBucketPtrVector* bucketVector);
+    // Stops between block merges once deadlineMicros (see
+    // doBudgetedCompaction), if any, has passed.
+    bool doCompactionWithinSubset(TBBucketPtrVector* bucketVector, int64_t deadlineMicros = 0);
 
     bool doForcedCompaction();  // Returns true if a compaction was performed
 
@@ -596,6 +695,12 @@ private:
 
     void tryInsertOnAllIndexes(TableTuple* tuple, TableTuple* conflict);
 
+    bool canLoadWithoutRowUndo(bool shouldDRStreamRows);
+
+    void tryInsertOnUniqueIndexes(TableTuple* tuple, TableTuple* conflict);
+
+    void finishLoadWithoutRowUndo(std::vector<void*>& loadedTuples);
+
     bool checkUpdateOnUniqueIndexes(TableTuple& targetTupleToUpdate,
                                     TableTuple const& sourceTupleWithNewValues,
                                     std::vector<TableIndex*> const& indexesToUpdate);
@@ -712,6 +817,25 @@ private:
     // STATS
     PersistentTableStats m_stats;
 
+    // Compaction statistics.
+    int64_t m_compactionReclaimedBytes;
+    int64_t m_maxCompactionPauseMicros;
+
+    // MIN / MAX fallback statistics of a view table.
+    int64_t m_minMaxFallbacks;
+    int64_t m_minMaxFallbackScans;
+
+    // Time to live settings and statistics.
+    int m_ttlColumnIndex;
+    int64_t m_ttlMicros;
+    int32_t m_ttlBatchSize;
+    int64_t m_ttlRowsExpired;
+    int64_t m_ttlBacklog;
+
+    // The number of references from this table to each shared object of its
+    // DICTIONARY columns.
+    boost::unordered_map<const StringRef*, int32_t> m_sharedObjectRefCounts;
+
     // STORAGE TRACKING
 
     // Map from load to the blocks with level of load
@@ -740,6 +864,9 @@ private:
     // This is a testability feature not intended for use in product logic.
     int m_invisibleTuplesPendingDeleteCount;
 
+    // Bumped by every tuple modification, see changeStamp()
+    int64_t m_changeStamp;
+
     // Surgeon passed to classes requiring "deep" access to avoid excessive friendship.
     PersistentTableSurgeon m_surgeon;
 
@@ -983,7 +1110,7 @@ inline void PersistentTable::deleteTupleStorage(TableTuple& tuple, TBPtr block,
 
     // This frees referenced strings -- when could possibly be a better time?
     if (m_schema->getUninlinedObjectColumnCount() != 0) {
-        decreaseStringMemCount(tuple.getNonInlinedMemorySize());
+        decreaseStringMemCount(tuple);
         tuple.freeObjectColumns();
     }
 
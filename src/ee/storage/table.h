@@ -200,10 +200,10 @@ class Table {
      * Loads only tuple data and assumes there is no schema present.
      * Used for recovery where the schema is not sent.
      */
-    void loadTuplesFromNoHeader(SerializeInputBE& serialInput,
-                                Pool* stringPool = NULL,
-                                ReferenceSerializeOutput* uniqueViolationOutput = NULL,
-                                bool shouldDRStreamRows = false);
+    virtual void loadTuplesFromNoHeader(SerializeInputBE& serialInput,
+                                        Pool* stringPool = NULL,
+                                        ReferenceSerializeOutput* uniqueViolationOutput = NULL,
+                                        bool shouldDRStreamRows = false);
 
     /**
      * Loads only tuple data, not schema, from the serialized table.
@@ -0,0 +1,757 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2017 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+#ifndef ADAPTIVERADIXTREE_H_
+#define ADAPTIVERADIXTREE_H_
+
+#include <cassert>
+#include <cstddef>
+#include <cstring>
+#include <stdint.h>
+
+#include <boost/noncopyable.hpp>
+
+namespace voltdb {
+
+/**
+ * An adaptive radix tree (Leis et al., "The Adaptive Radix Tree: ARTful
+ * Indexing for Main-Memory Databases") over binary-comparable keys of a
+ * fixed length of KeyLength bytes.
+ *
+ * Inner nodes have 4, 16, 48 or 256 child slots and grow or shrink as
+ * children come and go.  Paths through inner nodes with a single child
+ * are compressed into the prefix of the next inner node, and a subtree
+ * with a single key is just its leaf (lazy expansion), so the height of
+ * the tree is bounded by the number of bytes that distinguish the keys.
+ *
+ * The leaves are also kept in a doubly linked list in key order, so that
+ * an iterator is just a leaf pointer, and each inner node counts the
+ * leaves under it so that the rank of a key costs one descent.
+ *
+ * Keys are unique: a caller that needs duplicates appends something
+ * that tells them apart, such as the address of the tuple.
+ */
+template<int KeyLength>
+class AdaptiveRadixTree : private boost::noncopyable {
+public:
+    struct Leaf {
+        Leaf* prev;
+        Leaf* next;
+        const void* value;
+        uint8_t key[KeyLength];
+    };
+
+    AdaptiveRadixTree() : m_root(NULL), m_first(NULL), m_last(NULL), m_count(0), m_bytesAllocated(0) { }
+
+    ~AdaptiveRadixTree() { freeSubtree(m_root); }
+
+    int64_t size() const { return m_count; }
+    int64_t bytesAllocated() const { return m_bytesAllocated; }
+
+    Leaf* first() const { return m_first; }
+    Leaf* last() const { return m_last; }
+
+    /**
+     * Return the leaf with exactly the given key, or NULL.
+     */
+    Leaf* find(const uint8_t* key) const
+    {
+        void* child = m_root;
+        int depth = 0;
+        while (child != NULL) {
+            if (isLeaf(child)) {
+                Leaf* leaf = asLeaf(child);
+                return ::memcmp(leaf->key, key, KeyLength) == 0 ? leaf : NULL;
+            }
+            Node* node = asNode(child);
+            if (::memcmp(node->prefix, key + depth, node->prefixLen) != 0) {
+                return NULL;
+            }
+            depth += node->prefixLen;
+            void** slot = findChild(node, key[depth]);
+            if (slot == NULL) {
+                return NULL;
+            }
+            child = *slot;
+            ++depth;
+        }
+        return NULL;
+    }
+
+    /**
+     * Return the first leaf whose key is not less than the given key, or NULL.
+     */
+    Leaf* lowerBound(const uint8_t* key) const
+    {
+        return m_root == NULL ? NULL : lowerBound(m_root, key, 0);
+    }
+
+    /**
+     * Return the first leaf whose key is greater than the given key, or NULL.
+     */
+    Leaf* upperBound(const uint8_t* key) const
+    {
+        Leaf* leaf = lowerBound(key);
+        if (leaf != NULL && ::memcmp(leaf->key, key, KeyLength) == 0) {
+            return leaf->next;
+        }
+        return leaf;
+    }
+
+    /**
+     * Return the number of keys that are less than the given key.
+     */
+    int64_t countLess(const uint8_t* key) const
+    {
+        int64_t total = 0;
+        void* child = m_root;
+        int depth = 0;
+        while (child != NULL) {
+            if (isLeaf(child)) {
+                return total + (::memcmp(asLeaf(child)->key, key, KeyLength) < 0 ? 1 : 0);
+            }
+            Node* node = asNode(child);
+            int cmp = ::memcmp(node->prefix, key + depth, node->prefixLen);
+            if (cmp < 0) {
+                return total + node->count;
+            }
+            if (cmp > 0) {
+                return total;
+            }
+            depth += node->prefixLen;
+            total += countChildrenBefore(node, key[depth]);
+            void** slot = findChild(node, key[depth]);
+            if (slot == NULL) {
+                return total;
+            }
+            child = *slot;
+            ++depth;
+        }
+        return total;
+    }
+
+    /**
+     * Insert the key with the given value.  If the key is already present,
+     * nothing changes and its leaf is returned, otherwise NULL.
+     */
+    Leaf* insert(const uint8_t* key, const void* value)
+    {
+        Leaf* existing = find(key);
+        if (existing != NULL) {
+            return existing;
+        }
+        Leaf* leaf = allocate<Leaf>();
+        ::memcpy(leaf->key, key, KeyLength);
+        leaf->value = value;
+
+        // The new leaf goes right before the first greater one.
+        Leaf* successor = lowerBound(key);
+        leaf->next = successor;
+        leaf->prev = (successor == NULL) ? m_last : successor->prev;
+        if (leaf->prev == NULL) {
+            m_first = leaf;
+        } else {
+            leaf->prev->next = leaf;
+        }
+        if (successor == NULL) {
+            m_last = leaf;
+        } else {
+            successor->prev = leaf;
+        }
+
+        insertAt(&m_root, leaf, 0);
+        ++m_count;
+        return NULL;
+    }
+
+    /**
+     * Remove the key.  Return false if it was not present.
+     */
+    bool erase(const uint8_t* key)
+    {
+        Leaf* leaf = find(key);
+        if (leaf == NULL) {
+            return false;
+        }
+        eraseAt(&m_root, key, 0);
+
+        if (leaf->prev == NULL) {
+            m_first = leaf->next;
+        } else {
+            leaf->prev->next = leaf->next;
+        }
+        if (leaf->next == NULL) {
+            m_last = leaf->prev;
+        } else {
+            leaf->next->prev = leaf->prev;
+        }
+        deallocate(leaf);
+        --m_count;
+        return true;
+    }
+
+private:
+    enum NodeType { NODE4, NODE16, NODE48, NODE256 };
+
+    struct Node {
+        uint8_t type;
+        uint8_t prefixLen;
+        uint16_t numChildren;
+        // number of leaves in the subtree
+        int64_t count;
+        uint8_t prefix[KeyLength];
+    };
+
+    struct Node4 : public Node {
+        uint8_t keys[4];
+        void* children[4];
+    };
+
+    struct Node16 : public Node {
+        uint8_t keys[16];
+        void* children[16];
+    };
+
+    struct Node48 : public Node {
+        // 0 for no child, otherwise one more than the index in children
+        uint8_t childIndex[256];
+        void* children[48];
+    };
+
+    struct Node256 : public Node {
+        void* children[256];
+    };
+
+    static bool isLeaf(const void* child) { return (reinterpret_cast<uintptr_t>(child) & 1) != 0; }
+    static Leaf* asLeaf(const void* child) { return reinterpret_cast<Leaf*>(reinterpret_cast<uintptr_t>(child) & ~static_cast<uintptr_t>(1)); }
+    static void* tagLeaf(Leaf* leaf) { return reinterpret_cast<void*>(reinterpret_cast<uintptr_t>(leaf) | 1); }
+    static Node* asNode(void* child) { return static_cast<Node*>(child); }
+
+    static int64_t subtreeCount(void* child) { return isLeaf(child) ? 1 : asNode(child)->count; }
+
+    template<typename T>
+    T* allocate()
+    {
+        T* result = new T();
+        ::memset(result, 0, sizeof(T));
+        m_bytesAllocated += sizeof(T);
+        return result;
+    }
+
+    template<typename T>
+    void deallocate(T* memory)
+    {
+        m_bytesAllocated -= sizeof(T);
+        delete memory;
+    }
+
+    void freeNode(Node* node)
+    {
+        switch (node->type) {
+        case NODE4: deallocate(static_cast<Node4*>(node)); break;
+        case NODE16: deallocate(static_cast<Node16*>(node)); break;
+        case NODE48: deallocate(static_cast<Node48*>(node)); break;
+        default: deallocate(static_cast<Node256*>(node)); break;
+        }
+    }
+
+    void freeSubtree(void* child)
+    {
+        if (child == NULL) {
+            return;
+        }
+        if (isLeaf(child)) {
+            deallocate(asLeaf(child));
+            return;
+        }
+        Node* node = asNode(child);
+        for (int ii = 0; ii < 256; ++ii) {
+            void** slot = findChild(node, static_cast<uint8_t>(ii));
+            if (slot != NULL) {
+                freeSubtree(*slot);
+            }
+        }
+        freeNode(node);
+    }
+
+    static void** findChild(Node* node, uint8_t byte)
+    {
+        switch (node->type) {
+        case NODE4: {
+            Node4* n = static_cast<Node4*>(node);
+            for (int ii = 0; ii < n->numChildren; ++ii) {
+                if (n->keys[ii] == byte) {
+                    return &n->children[ii];
+                }
+            }
+            return NULL;
+        }
+        case NODE16: {
+            Node16* n = static_cast<Node16*>(node);
+            for (int ii = 0; ii < n->numChildren; ++ii) {
+                if (n->keys[ii] == byte) {
+                    return &n->children[ii];
+                }
+            }
+            return NULL;
+        }
+        case NODE48: {
+            Node48* n = static_cast<Node48*>(node);
+            int index = n->childIndex[byte];
+            return index == 0 ? NULL : &n->children[index - 1];
+        }
+        default: {
+            Node256* n = static_cast<Node256*>(node);
+            return n->children[byte] == NULL ? NULL : &n->children[byte];
+        }
+        }
+    }
+
+    /**
+     * The child with the smallest byte greater than the given one, or NULL.
+     */
+    static void* findChildAfter(Node* node, uint8_t byte)
+    {
+        switch (node->type) {
+        case NODE4: {
+            Node4* n = static_cast<Node4*>(node);
+            for (int ii = 0; ii < n->numChildren; ++ii) {
+                if (n->keys[ii] > byte) {
+                    return n->children[ii];
+                }
+            }
+            return NULL;
+        }
+        case NODE16: {
+            Node16* n = static_cast<Node16*>(node);
+            for (int ii = 0; ii < n->numChildren; ++ii) {
+                if (n->keys[ii] > byte) {
+                    return n->children[ii];
+                }
+            }
+            return NULL;
+        }
+        case NODE48: {
+            Node48* n = static_cast<Node48*>(node);
+            for (int ii = byte + 1; ii < 256; ++ii) {
+                if (n->childIndex[ii] != 0) {
+                    return n->children[n->childIndex[ii] - 1];
+                }
+            }
+            return NULL;
+        }
+        default: {
+            Node256* n = static_cast<Node256*>(node);
+            for (int ii = byte + 1; ii < 256; ++ii) {
+                if (n->children[ii] != NULL) {
+                    return n->children[ii];
+                }
+            }
+            return NULL;
+        }
+        }
+    }
+
+    static int64_t countChildrenBefore(Node* node, uint8_t byte)
+    {
+        int64_t total = 0;
+        switch (node->type) {
+        case NODE4: {
+            Node4* n = static_cast<Node4*>(node);
+            for (int ii = 0; ii < n->numChildren && n->keys[ii] < byte; ++ii) {
+                total += subtreeCount(n->children[ii]);
+            }
+            break;
+        }
+        case NODE16: {
+            Node16* n = static_cast<Node16*>(node);
+            for (int ii = 0; ii < n->numChildren && n->keys[ii] < byte; ++ii) {
+                total += subtreeCount(n->children[ii]);
+            }
+            break;
+        }
+        case NODE48: {
+            Node48* n = static_cast<Node48*>(node);
+            for (int ii = 0; ii < byte; ++ii) {
+                if (n->childIndex[ii] != 0) {
+                    total += subtreeCount(n->children[n->childIndex[ii] - 1]);
+                }
+            }
+            break;
+        }
+        default: {
+            Node256* n = static_cast<Node256*>(node);
+            for (int ii = 0; ii < byte; ++ii) {
+                if (n->children[ii] != NULL) {
+                    total += subtreeCount(n->children[ii]);
+                }
+            }
+            break;
+        }
+        }
+        return total;
+    }
+
+    static Leaf* minimumLeaf(void* child)
+    {
+        while ( ! isLeaf(child)) {
+            Node* node = asNode(child);
+            switch (node->type) {
+            case NODE4: child = static_cast<Node4*>(node)->children[0]; break;
+            case NODE16: child = static_cast<Node16*>(node)->children[0]; break;
+            default: child = findChildAfterOrAt(node, 0); break;
+            }
+        }
+        return asLeaf(child);
+    }
+
+    static void* findChildAfterOrAt(Node* node, uint8_t byte)
+    {
+        void** slot = findChild(node, byte);
+        return slot != NULL ? *slot : findChildAfter(node, byte);
+    }
+
+    static Leaf* lowerBound(void* child, const uint8_t* key, int depth)
+    {
+        if (isLeaf(child)) {
+            Leaf* leaf = asLeaf(child);
+            return ::memcmp(leaf->key, key, KeyLength) >= 0 ? leaf : NULL;
+        }
+        Node* node = asNode(child);
+        int cmp = ::memcmp(node->prefix, key + depth, node->prefixLen);
+        if (cmp > 0) {
+            return minimumLeaf(node);
+        }
+        if (cmp < 0) {
+            return NULL;
+        }
+        depth += node->prefixLen;
+        void** slot = findChild(node, key[depth]);
+        if (slot != NULL) {
+            Leaf* result = lowerBound(*slot, key, depth + 1);
+            if (result != NULL) {
+                return result;
+            }
+        }
+        void* after = findChildAfter(node, key[depth]);
+        return after == NULL ? NULL : minimumLeaf(after);
+    }
+
+    Node4* newNode4(const uint8_t* prefix, int prefixLen)
+    {
+        Node4* node = allocate<Node4>();
+        node->type = NODE4;
+        node->prefixLen = static_cast<uint8_t>(prefixLen);
+        ::memcpy(node->prefix, prefix, prefixLen);
+        return node;
+    }
+
+    /**
+     * Copy the header of one inner node to its replacement of another size.
+     */
+    static void copyHeader(Node* to, const Node* from)
+    {
+        to->prefixLen = from->prefixLen;
+        to->numChildren = from->numChildren;
+        to->count = from->count;
+        ::memcpy(to->prefix, from->prefix, from->prefixLen);
+    }
+
+    template<typename SortedNode>
+    static void addSortedChild(SortedNode* node, uint8_t byte, void* child)
+    {
+        int position = 0;
+        while (position < node->numChildren && node->keys[position] < byte) {
+            ++position;
+        }
+        for (int ii = node->numChildren; ii > position; --ii) {
+            node->keys[ii] = node->keys[ii - 1];
+            node->children[ii] = node->children[ii - 1];
+        }
+        node->keys[position] = byte;
+        node->children[position] = child;
+        ++node->numChildren;
+    }
+
+    /**
+     * Add a child to the node at *ref, replacing it with a bigger node if it is full.
+     */
+    void addChild(void** ref, Node* node, uint8_t byte, void* child)
+    {
+        switch (node->type) {
+        case NODE4: {
+            Node4* n = static_cast<Node4*>(node);
+            if (n->numChildren < 4) {
+                addSortedChild(n, byte, child);
+                return;
+            }
+            Node16* bigger = allocate<Node16>();
+            bigger->type = NODE16;
+            copyHeader(bigger, n);
+            ::memcpy(bigger->keys, n->keys, sizeof(n->keys));
+            ::memcpy(bigger->children, n->children, sizeof(n->children));
+            deallocate(n);
+            *ref = bigger;
+            addSortedChild(bigger, byte, child);
+            return;
+        }
+        case NODE16: {
+            Node16* n = static_cast<Node16*>(node);
+            if (n->numChildren < 16) {
+                addSortedChild(n, byte, child);
+                return;
+            }
+            Node48* bigger = allocate<Node48>();
+            bigger->type = NODE48;
+            copyHeader(bigger, n);
+            for (int ii = 0; ii < 16; ++ii) {
+                bigger->children[ii] = n->children[ii];
+                bigger->childIndex[n->keys[ii]] = static_cast<uint8_t>(ii + 1);
+            }
+            deallocate(n);
+            *ref = bigger;
+            addChild(ref, bigger, byte, child);
+            return;
+        }
+        case NODE48: {
+            Node48* n = static_cast<Node48*>(node);
+            if (n->numChildren < 48) {
+                int position = 0;
+                while (n->children[position] != NULL) {
+                    ++position;
+                }
+                n->children[position] = child;
+                n->childIndex[byte] = static_cast<uint8_t>(position + 1);
+                ++n->numChildren;
+                return;
+            }
+            Node256* bigger = allocate<Node256>();
+            bigger->type = NODE256;
+            copyHeader(bigger, n);
+            for (int ii = 0; ii < 256; ++ii) {
+                if (n->childIndex[ii] != 0) {
+                    bigger->children[ii] = n->children[n->childIndex[ii] - 1];
+                }
+            }
+            deallocate(n);
+            *ref = bigger;
+            addChild(ref, bigger, byte, child);
+            return;
+        }
+        default: {
+            Node256* n = static_cast<Node256*>(node);
+            n->children[byte] = child;
+            ++n->numChildren;
+            return;
+        }
+        }
+    }
+
+    void insertAt(void** ref, Leaf* leaf, int depth)
+    {
+        const uint8_t* key = leaf->key;
+        while (true) {
+            void* child = *ref;
+            if (child == NULL) {
+                *ref = tagLeaf(leaf);
+                return;
+            }
+            if (isLeaf(child)) {
+                // Lazy expansion: split the leaf at the first byte that differs.
+                const uint8_t* otherKey = asLeaf(child)->key;
+                int mismatch = depth;
+                while (otherKey[mismatch] == key[mismatch]) {
+                    ++mismatch;
+                }
+                assert(mismatch < KeyLength);
+                Node4* node = newNode4(key + depth, mismatch - depth);
+                node->count = 2;
+                addSortedChild(node, otherKey[mismatch], child);
+                addSortedChild(node, key[mismatch], tagLeaf(leaf));
+                *ref = node;
+                return;
+            }
+            Node* node = asNode(child);
+            int mismatch = 0;
+            while (mismatch < node->prefixLen && node->prefix[mismatch] == key[depth + mismatch]) {
+                ++mismatch;
+            }
+            if (mismatch < node->prefixLen) {
+                // Split the compressed path where the new key leaves it.
+                Node4* parent = newNode4(node->prefix, mismatch);
+                parent->count = node->count + 1;
+                addSortedChild(parent, node->prefix[mismatch], node);
+                addSortedChild(parent, key[depth + mismatch], tagLeaf(leaf));
+                int remaining = node->prefixLen - mismatch - 1;
+                ::memmove(node->prefix, node->prefix + mismatch + 1, remaining);
+                node->prefixLen = static_cast<uint8_t>(remaining);
+                *ref = parent;
+                return;
+            }
+            depth += node->prefixLen;
+            ++node->count;
+            void** slot = findChild(node, key[depth]);
+            if (slot == NULL) {
+                addChild(ref, node, key[depth], tagLeaf(leaf));
+                return;
+            }
+            ref = slot;
+            ++depth;
+        }
+    }
+
+    template<typename SortedNode>
+    static void removeSortedChild(SortedNode* node, void** slot)
+    {
+        int position = static_cast<int>(slot - node->children);
+        for (int ii = position + 1; ii < node->numChildren; ++ii) {
+            node->keys[ii - 1] = node->keys[ii];
+            node->children[ii - 1] = node->children[ii];
+        }
+        --node->numChildren;
+    }
+
+    /**
+     * Remove the child in the given slot of the node at *ref, replacing the
+     * node with a smaller one when it gets sparse.
+     */
+    void removeChild(void** ref, Node* node, uint8_t byte, void** slot)
+    {
+        switch (node->type) {
+        case NODE4: {
+            Node4* n = static_cast<Node4*>(node);
+            removeSortedChild(n, slot);
+            if (n->numChildren > 1) {
+                return;
+            }
+            // Collapse the node into its only child, which inherits its path.
+            void* only = n->children[0];
+            if ( ! isLeaf(only)) {
+                Node* child = asNode(only);
+                uint8_t prefix[KeyLength];
+                int prefixLen = n->prefixLen;
+                ::memcpy(prefix, n->prefix, prefixLen);
+                prefix[prefixLen++] = n->keys[0];
+                ::memcpy(prefix + prefixLen, child->prefix, child->prefixLen);
+                prefixLen += child->prefixLen;
+                ::memcpy(child->prefix, prefix, prefixLen);
+                child->prefixLen = static_cast<uint8_t>(prefixLen);
+            }
+            deallocate(n);
+            *ref = only;
+            return;
+        }
+        case NODE16: {
+            Node16* n = static_cast<Node16*>(node);
+            removeSortedChild(n, slot);
+            if (n->numChildren > 3) {
+                return;
+            }
+            Node4* smaller = allocate<Node4>();
+            smaller->type = NODE4;
+            copyHeader(smaller, n);
+            ::memcpy(smaller->keys, n->keys, n->numChildren);
+            ::memcpy(smaller->children, n->children, n->numChildren * sizeof(void*));
+            deallocate(n);
+            *ref = smaller;
+            return;
+        }
+        case NODE48: {
+            Node48* n = static_cast<Node48*>(node);
+            *slot = NULL;
+            n->childIndex[byte] = 0;
+            --n->numChildren;
+            if (n->numChildren > 12) {
+                return;
+            }
+            Node16* smaller = allocate<Node16>();
+            smaller->type = NODE16;
+            copyHeader(smaller, n);
+            int position = 0;
+            for (int ii = 0; ii < 256; ++ii) {
+                if (n->childIndex[ii] != 0) {
+                    smaller->keys[position] = static_cast<uint8_t>(ii);
+                    smaller->children[position] = n->children[n->childIndex[ii] - 1];
+                    ++position;
+                }
+            }
+            deallocate(n);
+            *ref = smaller;
+            return;
+        }
+        default: {
+            Node256* n = static_cast<Node256*>(node);
+            *slot = NULL;
+            --n->numChildren;
+            if (n->numChildren > 37) {
+                return;
+            }
+            Node48* smaller = allocate<Node48>();
+            smaller->type = NODE48;
+            copyHeader(smaller, n);
+            int position = 0;
+            for (int ii = 0; ii < 256; ++ii) {
+                if (n->children[ii] != NULL) {
+                    smaller->children[position] = n->children[ii];
+                    smaller->childIndex[ii] = static_cast<uint8_t>(position + 1);
+                    ++position;
+                }
+            }
+            deallocate(n);
+            *ref = smaller;
+            return;
+        }
+        }
+    }
+
+    /**
+     * Remove the leaf of a key known to be present from the subtree at *ref.
+     * The leaf itself is left to the caller.
+     */
+    void eraseAt(void** ref, const uint8_t* key, int depth)
+    {
+        while (true) {
+            void* child = *ref;
+            if (isLeaf(child)) {
+                // Only a tree of one key has a leaf at the root.
+                *ref = NULL;
+                return;
+            }
+            Node* node = asNode(child);
+            depth += node->prefixLen;
+            --node->count;
+            void** slot = findChild(node, key[depth]);
+            assert(slot != NULL);
+            if (isLeaf(*slot)) {
+                removeChild(ref, node, key[depth], slot);
+                return;
+            }
+            ref = slot;
+            ++depth;
+        }
+    }
+
+    void* m_root;
+    Leaf* m_first;
+    Leaf* m_last;
+    int64_t m_count;
+    int64_t m_bytesAllocated;
+};
+
+} // namespace voltdb
+
+#endif // ADAPTIVERADIXTREE_H_
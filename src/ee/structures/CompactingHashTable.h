@@ -19,6 +19,7 @@
 #define COMPACTINGHASHTABLE_H_
 
 #include "ContiguousAllocator.h"
+#include "common/LargePageAllocator.h"
 
 #include <cstdlib>
 #include <utility>
@@ -256,7 +257,7 @@ namespace voltdb {
     m_dataEq(dataEq)
     {
         // allocate the hash table and bzero it (bzero is crucial)
-        void *memory = mmap(NULL, sizeof(HashNode*) * TABLE_SIZES[m_sizeIndex], PROT_WRITE, MAP_PRIVATE | MAP_ANON, -1, 0);
+        void *memory = LargePageAllocator::allocate(sizeof(HashNode*) * TABLE_SIZES[m_sizeIndex]);
         assert(memory);
         m_buckets = reinterpret_cast<HashNode**>(memory);
         memset(m_buckets, 0, sizeof(HashNode*) * TABLE_SIZES[m_sizeIndex]);
@@ -279,7 +280,7 @@ namespace voltdb {
         }
 
         // delete the hashtable
-        munmap(m_buckets, sizeof(HashNode*) * TABLE_SIZES[m_sizeIndex]);
+        LargePageAllocator::free(m_buckets, sizeof(HashNode*) * TABLE_SIZES[m_sizeIndex]);
 
         // when the allocator gets cleaned up, it will
         // free the memory used for nodes
@@ -617,7 +618,7 @@ namespace voltdb {
         //std::cout.flush();
 
         // create new double size buffer
-        void *memory = mmap(NULL, sizeof(HashNode*) * TABLE_SIZES[newSizeIndex], PROT_WRITE, MAP_PRIVATE | MAP_ANON, -1, 0);
+        void *memory = LargePageAllocator::allocate(sizeof(HashNode*) * TABLE_SIZES[newSizeIndex]);
         assert(memory);
         HashNode **newBuckets = reinterpret_cast<HashNode**>(memory);
         memset(newBuckets, 0, TABLE_SIZES[newSizeIndex] * sizeof(HashNode*));
@@ -635,7 +636,7 @@ namespace voltdb {
         }
 
         // swap the table buffers
-        munmap(m_buckets, TABLE_SIZES[m_sizeIndex] * sizeof(HashNode*));
+        LargePageAllocator::free(m_buckets, TABLE_SIZES[m_sizeIndex] * sizeof(HashNode*));
         m_buckets = newBuckets;
         m_sizeIndex = newSizeIndex;
     }
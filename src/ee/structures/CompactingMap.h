@@ -23,6 +23,7 @@
 #include <cstdlib>
 #include <stdint.h>
 #include <utility>
+#include <vector>
 #include <limits>
 #include <cassert>
 
@@ -199,6 +200,21 @@ public:
     bool insert(std::pair<Key, Data> value) { return (insert(value.first, value.second) == NULL); };
     // A syntactically convenient analog to CompactingHashTable's insert function
     const Data *insert(const Key &key, const Data &data);
+    /**
+     * Fill an empty map from entries that are already sorted by the map's
+     * comparator (and free of duplicate keys if the map is unique). The
+     * balanced tree is built bottom-up instead of by repeated inserts.
+     */
+    void insertSorted(const KeyValuePair *entries, int64_t count);
+    /**
+     * Merge entries that are already sorted by the map's comparator into a
+     * map that may hold entries. The existing entries and the new ones are
+     * merged in one pass and the tree is rebuilt bottom-up, which beats
+     * repeated inserts when the batch is not small next to the map. An
+     * existing entry comes before a new one with an equal key. Every node is
+     * reallocated, so iterators into the map are invalidated.
+     */
+    void mergeSorted(const KeyValuePair *entries, int64_t count);
     bool erase(const Key &key);
     bool erase(iterator &iter);
 
@@ -242,6 +258,9 @@ public:
 protected:
     // main internal functions
     void erase(TreeNode *z);
+    TreeNode *buildSubtree(const KeyValuePair *entries, int64_t begin, int64_t end,
+                           int depth, int bottomDepth);
+    void releaseAllNodes();
     TreeNode *lookup(const Key &key) const;
     TreeNode *lookupRank(int64_t ith) const;
 
@@ -276,7 +295,10 @@ template<typename KeyValuePair, typename Compare, bool hasRank>
 CompactingMap<KeyValuePair, Compare, hasRank>::CompactingMap(bool unique, Compare comper)
     : m_count(0),
       m_root(&NIL),
-      m_allocator(static_cast<int>(sizeof(TreeNode) - (hasRank ? 0 : sizeof(NodeCount))), static_cast<int>(10000)),
+      // Each block of nodes fills one large page, to be backed by a huge page.
+      m_allocator(static_cast<int>(sizeof(TreeNode) - (hasRank ? 0 : sizeof(NodeCount))),
+                  ContiguousAllocator::allocationsPerLargePage(
+                          static_cast<int>(sizeof(TreeNode) - (hasRank ? 0 : sizeof(NodeCount))))),
       m_unique(unique),
       NIL(&NIL, &NIL, INVALIDCT),
       m_comper(comper)
@@ -381,6 +403,97 @@ CompactingMap<KeyValuePair, Compare, hasRank>::insert(const Key &key, const Data
     return NULL;
 }
 
+template<typename KeyValuePair, typename Compare, bool hasRank>
+void CompactingMap<KeyValuePair, Compare, hasRank>::insertSorted(const KeyValuePair *entries, int64_t count)
+{
+    assert(m_count == 0);
+    if (count == 0) {
+        return;
+    }
+    // Splitting each range at its middle leaves every leaf on the bottom two
+    // levels, so coloring only the bottom level red gives every path from
+    // the root the same number of black nodes.
+    int bottomDepth = 0;
+    for (int64_t n = count; n > 1; n >>= 1) {
+        ++bottomDepth;
+    }
+    m_root = buildSubtree(entries, 0, count, 0, bottomDepth);
+    m_root->color = BLACK;
+    m_count = count;
+    assert(m_allocator.count() == m_count);
+}
+
+template<typename KeyValuePair, typename Compare, bool hasRank>
+void CompactingMap<KeyValuePair, Compare, hasRank>::mergeSorted(const KeyValuePair *entries, int64_t count)
+{
+    if (count == 0) {
+        return;
+    }
+    if (m_count == 0) {
+        insertSorted(entries, count);
+        return;
+    }
+    std::vector<KeyValuePair> merged(static_cast<size_t>(m_count + count));
+    size_t next = 0;
+    int64_t ii = 0;
+    for (iterator iter = begin(); !iter.isEnd(); iter.moveNext()) {
+        while (ii < count && m_comper(entries[ii].getKey(), iter.key()) < 0) {
+            merged[next++] = entries[ii++];
+        }
+        assert(!m_unique || ii == count || m_comper(entries[ii].getKey(), iter.key()) != 0);
+        merged[next++].setKeyValuePair(iter.key(), iter.value());
+    }
+    while (ii < count) {
+        merged[next++] = entries[ii++];
+    }
+    assert(next == merged.size());
+    releaseAllNodes();
+    insertSorted(&merged[0], static_cast<int64_t>(merged.size()));
+}
+
+/*
+ * Destroy every node and hand its storage back to the allocator, leaving
+ * an empty map.
+ */
+template<typename KeyValuePair, typename Compare, bool hasRank>
+void CompactingMap<KeyValuePair, Compare, hasRank>::releaseAllNodes()
+{
+    for (iterator iter = begin(); !iter.isEnd(); iter.moveNext()) {
+        iter.pair().~KeyValuePair();
+    }
+    for (int64_t ii = 0; ii < m_count; ++ii) {
+        m_allocator.trim();
+    }
+    m_root = &NIL;
+    m_count = 0;
+}
+
+template<typename KeyValuePair, typename Compare, bool hasRank>
+typename CompactingMap<KeyValuePair, Compare, hasRank>::TreeNode *
+CompactingMap<KeyValuePair, Compare, hasRank>::buildSubtree(const KeyValuePair *entries,
+                                                            int64_t begin, int64_t end,
+                                                            int depth, int bottomDepth)
+{
+    if (begin == end) {
+        return &NIL;
+    }
+    int64_t middle = begin + (end - begin) / 2;
+    // Nodes are allocated in key order.
+    TreeNode *left = buildSubtree(entries, begin, middle, depth + 1, bottomDepth);
+    TreeNode *z = new (m_allocator) TreeNode(&NIL, &NIL, static_cast<NodeCount>(end - begin));
+    z->kv.setKeyValuePair(entries[middle].getKey(), entries[middle].getValue());
+    z->color = (depth == bottomDepth) ? RED : BLACK;
+    z->left = left;
+    if (left != &NIL) {
+        left->parent = z;
+    }
+    z->right = buildSubtree(entries, middle + 1, end, depth + 1, bottomDepth);
+    if (z->right != &NIL) {
+        z->right->parent = z;
+    }
+    return z;
+}
+
 template<typename KeyValuePair, typename Compare, bool hasRank>
 typename CompactingMap<KeyValuePair, Compare, hasRank>::iterator
 CompactingMap<KeyValuePair, Compare, hasRank>::lowerBound(const Key &key) const
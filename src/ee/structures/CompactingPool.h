@@ -100,6 +100,11 @@ namespace voltdb
     static int32_t FIXED_OVERHEAD_PER_ENTRY()
     { return static_cast<int32_t>(sizeof(Relocatable)); }
 
+    // The number of elements of the given size per buffer that make each
+    // buffer fill one large page.
+    static int32_t elementsPerLargePage(int32_t elementSize)
+    { return ContiguousAllocator::allocationsPerLargePage(elementSize + FIXED_OVERHEAD_PER_ENTRY()); }
+
     private:
         ContiguousAllocator m_allocator;
 
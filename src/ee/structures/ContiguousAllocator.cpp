@@ -17,6 +17,8 @@
 
 #include "ContiguousAllocator.h"
 
+#include "common/LargePageAllocator.h"
+
 #include <cassert>
 
 using namespace voltdb;
@@ -29,14 +31,20 @@ ContiguousAllocator::ContiguousAllocator(int32_t allocSize, int32_t chunkSize)
       m_blockCount(0),
       m_cachedBuffer(0) {}
 
+int32_t ContiguousAllocator::allocationsPerLargePage(int32_t allocSize) {
+    assert(allocSize > 0);
+    size_t perPage = (LargePageAllocator::LARGE_PAGE_SIZE - sizeof(Buffer)) / allocSize;
+    return perPage > 0 ? static_cast<int32_t>(perPage) : 1;
+}
+
 ContiguousAllocator::~ContiguousAllocator() {
     while (m_tail) {
         Buffer *buf = m_tail->prev;
-        free(m_tail);
+        LargePageAllocator::free(m_tail, blockSize());
         m_tail = buf;
     }
     if (m_cachedBuffer != NULL) {
-        free(m_cachedBuffer);
+        LargePageAllocator::free(m_cachedBuffer, blockSize());
     }
 }
 
@@ -53,7 +61,7 @@ void *ContiguousAllocator::alloc() {
             memory = static_cast<void *>(m_cachedBuffer);
             m_cachedBuffer = NULL;
         } else {
-            memory = static_cast<void *>(malloc(sizeof(Buffer) + m_allocationSize * m_numberAllocationsPerBlock));
+            memory = LargePageAllocator::allocate(blockSize());
         }
 
         Buffer *buf = reinterpret_cast<Buffer*>(memory);
@@ -100,7 +108,7 @@ void ContiguousAllocator::trim() {
         if (m_blockCount == 0) {
             m_cachedBuffer = m_tail;
         } else {
-            free(m_tail);
+            LargePageAllocator::free(m_tail, blockSize());
         }
         m_tail = buf;
     }
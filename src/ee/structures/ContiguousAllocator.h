@@ -32,7 +32,7 @@ namespace voltdb {
  * allocation's data may be recovered.  The clients all do this.
  *
  * A *block* is a fixed size allocation, which has been obtained from
- * malloc(3). These are chained together.  They are all the same size
+ * the LargePageAllocator. These are chained together.  They are all the same size
  * in bytes.  This size is set when the allocator is constructed.
  *
  * The head of the chain of blocks is the *tail block*.  Blocks which
@@ -73,6 +73,11 @@ class ContiguousAllocator {
      */
     Buffer *m_cachedBuffer;
 
+    /** This is the size in bytes of each block, including its header. */
+    size_t blockSize() const {
+        return sizeof(Buffer) + static_cast<size_t>(m_allocationSize) * m_numberAllocationsPerBlock;
+    }
+
 public:
 
     /**
@@ -82,6 +87,13 @@ public:
     ContiguousAllocator(int32_t allocSize, int32_t chunkSize);
     ~ContiguousAllocator();
 
+    /**
+     * Return the number of allocations of the given size per block that make
+     * a block, with its header, fit in one large page of LargePageAllocator.
+     * It is at least 1.
+     */
+    static int32_t allocationsPerLargePage(int32_t allocSize);
+
     /**
      * Return an allocation.
      */
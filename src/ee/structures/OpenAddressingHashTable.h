@@ -0,0 +1,351 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2017 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+#ifndef OPENADDRESSINGHASHTABLE_H_
+#define OPENADDRESSINGHASHTABLE_H_
+
+#include "common/LargePageAllocator.h"
+
+#include <cassert>
+#include <cstring>
+#include <functional>
+#include <stdint.h>
+#include <boost/noncopyable.hpp>
+#ifdef __SSE2__
+#include <emmintrin.h>
+#endif
+
+namespace voltdb {
+
+    /**
+     * Spread the bits of a 64-bit value (the finalizer of MurmurHash3), since the tags and
+     * the first group of a probe are taken from different bits of the hash.
+     */
+    inline uint64_t openAddressingMix(uint64_t value) {
+        value ^= value >> 33;
+        value *= 0xff51afd7ed558ccdULL;
+        value ^= value >> 33;
+        value *= 0xc4ceb9fe1a85ec53ULL;
+        value ^= value >> 33;
+        return value;
+    }
+
+    /** The default hasher of OpenAddressingHashTable, for integer keys. */
+    template<class K>
+    struct OpenAddressingIntegerHasher {
+        uint64_t operator()(const K &key) const { return openAddressingMix(static_cast<uint64_t>(key)); }
+    };
+
+    /**
+     * OpenAddressingHashTable is a unique-key hash map that stores its entries inline in one
+     * array of slots, in the style of a "Swiss table":
+     *
+     * 1. Each slot has a control byte that is either EMPTY, DELETED, or the low 7 bits of the
+     *    hash of its key (the tag).  The control bytes are probed 16 at a time, so that a lookup
+     *    usually compares one key and touches one cache line of slots, instead of walking a chain
+     *    of nodes the way CompactingHashTable does.
+     * 2. The slots are probed by aligned groups of 16, with triangular steps between groups.  A
+     *    probe stops at the first group with an EMPTY slot.
+     * 3. Like CompactingHashTable, it shrinks when entries are removed, so that the memory of a
+     *    shrinking index goes back to the system, and the arrays come from LargePageAllocator.
+     *
+     * Keys and values must be plain data that can be copied with memcpy.  It doesn't support
+     * iteration over all values.  The hasher is called once per operation and its result is
+     * used as is, so it must spread the key over all 64 bits, like openAddressingMix does.
+     */
+    template<class K, class T, class H = OpenAddressingIntegerHasher<K>, class EK = std::equal_to<K> >
+    class OpenAddressingHashTable : private boost::noncopyable {
+    public:
+        typedef K Key;
+        typedef T Data;
+        typedef H Hasher;
+        typedef EK KeyEqChecker;
+
+        static const size_t GROUP_WIDTH = 16;
+        static const size_t MIN_CAPACITY = 2 * GROUP_WIDTH;
+
+        OpenAddressingHashTable(H hasher = H(), EK keyEq = EK());
+        ~OpenAddressingHashTable();
+
+        /**
+         * Return a pointer to the value of the key, or NULL.  The value may be
+         * changed through the pointer, until the table is next modified.
+         */
+        Data *find(const Key &key) const;
+
+        /**
+         * Insert the key and value.  If the key is present, nothing changes and
+         * a pointer to its current value is returned, otherwise NULL.
+         */
+        const Data *insert(const Key &key, const Data &value);
+
+        /** Remove the key.  Return false if it was not present. */
+        bool erase(const Key &key);
+
+        size_t size() const { return m_size; }
+        size_t capacity() const { return m_capacity; }
+        size_t bytesAllocated() const { return m_capacity * (sizeof(Slot) + 1); }
+
+        /** For debugging: check that every entry can be found where it is. SLOW. */
+        bool verify() const;
+
+    private:
+        struct Slot {
+            Key key;
+            Data value;
+        };
+
+        static const uint8_t EMPTY = 0x80;
+        static const uint8_t DELETED = 0xFE;
+
+        static uint8_t tagOf(uint64_t hash) { return static_cast<uint8_t>(hash & 0x7F); }
+        size_t firstGroupOf(uint64_t hash) const { return (hash >> 7) & (m_capacity / GROUP_WIDTH - 1); }
+
+        /** A bit for each control byte of the group that equals the given byte. */
+        static uint32_t matchByte(const uint8_t *group, uint8_t byte) {
+#ifdef __SSE2__
+            __m128i ctrl = _mm_loadu_si128(reinterpret_cast<const __m128i*>(group));
+            return static_cast<uint32_t>(_mm_movemask_epi8(_mm_cmpeq_epi8(ctrl, _mm_set1_epi8(static_cast<char>(byte)))));
+#else
+            uint32_t bits = 0;
+            for (size_t i = 0; i < GROUP_WIDTH; ++i) {
+                if (group[i] == byte) {
+                    bits |= 1U << i;
+                }
+            }
+            return bits;
+#endif
+        }
+
+        /** A bit for each EMPTY or DELETED control byte, which are the ones with the high bit set. */
+        static uint32_t matchFree(const uint8_t *group) {
+#ifdef __SSE2__
+            __m128i ctrl = _mm_loadu_si128(reinterpret_cast<const __m128i*>(group));
+            return static_cast<uint32_t>(_mm_movemask_epi8(ctrl));
+#else
+            uint32_t bits = 0;
+            for (size_t i = 0; i < GROUP_WIDTH; ++i) {
+                if (group[i] & 0x80) {
+                    bits |= 1U << i;
+                }
+            }
+            return bits;
+#endif
+        }
+
+        static int lowestBit(uint32_t bits) { return __builtin_ctz(bits); }
+
+        /** The slot of the key, or m_capacity if it is not present. */
+        size_t findSlot(const Key &key, uint64_t hash) const;
+        /** The first free slot on the probe sequence of the hash. */
+        size_t findFreeSlot(uint64_t hash) const;
+
+        void allocate(size_t capacity);
+        void release();
+        /** Move all of the entries into new arrays of the given capacity. */
+        void rehash(size_t capacity);
+        /** The capacity that leaves the table half full with the given number of entries. */
+        static size_t capacityFor(size_t entries);
+
+        uint8_t *m_ctrl;
+        Slot *m_slots;
+        size_t m_capacity;
+        size_t m_size;
+        // free slots that can still become used before the table must be rehashed
+        size_t m_growthLeft;
+
+        H m_hasher;
+        EK m_keyEq;
+    };
+
+    template<class K, class T, class H, class EK>
+    OpenAddressingHashTable<K, T, H, EK>::OpenAddressingHashTable(H hasher, EK keyEq)
+    : m_ctrl(NULL),
+      m_slots(NULL),
+      m_capacity(0),
+      m_size(0),
+      m_growthLeft(0),
+      m_hasher(hasher),
+      m_keyEq(keyEq)
+    {
+        allocate(MIN_CAPACITY);
+    }
+
+    template<class K, class T, class H, class EK>
+    OpenAddressingHashTable<K, T, H, EK>::~OpenAddressingHashTable() {
+        release();
+    }
+
+    template<class K, class T, class H, class EK>
+    void OpenAddressingHashTable<K, T, H, EK>::allocate(size_t capacity) {
+        // The control bytes go in front of the slots, in one block.
+        size_t ctrlBytes = capacity;
+        void *memory = LargePageAllocator::allocate(ctrlBytes + capacity * sizeof(Slot));
+        m_ctrl = static_cast<uint8_t*>(memory);
+        m_slots = reinterpret_cast<Slot*>(m_ctrl + ctrlBytes);
+        memset(m_ctrl, EMPTY, ctrlBytes);
+        m_capacity = capacity;
+        // Rehash when 7/8 of the slots are used or deleted.
+        m_growthLeft = capacity - capacity / 8 - m_size;
+    }
+
+    template<class K, class T, class H, class EK>
+    void OpenAddressingHashTable<K, T, H, EK>::release() {
+        LargePageAllocator::free(m_ctrl, m_capacity + m_capacity * sizeof(Slot));
+        m_ctrl = NULL;
+        m_slots = NULL;
+    }
+
+    template<class K, class T, class H, class EK>
+    size_t OpenAddressingHashTable<K, T, H, EK>::capacityFor(size_t entries) {
+        size_t capacity = MIN_CAPACITY;
+        while (capacity < entries * 2) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+    template<class K, class T, class H, class EK>
+    size_t OpenAddressingHashTable<K, T, H, EK>::findSlot(const Key &key, uint64_t hash) const {
+        const uint8_t tag = tagOf(hash);
+        const size_t groupMask = m_capacity / GROUP_WIDTH - 1;
+        size_t group = firstGroupOf(hash);
+        // Load the slots of the group while the control bytes are being matched.
+        __builtin_prefetch(m_slots + group * GROUP_WIDTH);
+        for (size_t step = 1; step <= groupMask + 1; ++step) {
+            const uint8_t *ctrl = m_ctrl + group * GROUP_WIDTH;
+            for (uint32_t bits = matchByte(ctrl, tag); bits != 0; bits &= bits - 1) {
+                size_t slot = group * GROUP_WIDTH + lowestBit(bits);
+                if (m_keyEq(m_slots[slot].key, key)) {
+                    return slot;
+                }
+            }
+            if (matchByte(ctrl, EMPTY) != 0) {
+                break;
+            }
+            group = (group + step) & groupMask;
+        }
+        return m_capacity;
+    }
+
+    template<class K, class T, class H, class EK>
+    size_t OpenAddressingHashTable<K, T, H, EK>::findFreeSlot(uint64_t hash) const {
+        const size_t groupMask = m_capacity / GROUP_WIDTH - 1;
+        size_t group = firstGroupOf(hash);
+        for (size_t step = 1; ; ++step) {
+            uint32_t bits = matchFree(m_ctrl + group * GROUP_WIDTH);
+            if (bits != 0) {
+                return group * GROUP_WIDTH + lowestBit(bits);
+            }
+            // The table always has free slots, and the probe visits every group.
+            assert(step <= groupMask);
+            group = (group + step) & groupMask;
+        }
+    }
+
+    template<class K, class T, class H, class EK>
+    T *OpenAddressingHashTable<K, T, H, EK>::find(const Key &key) const {
+        size_t slot = findSlot(key, static_cast<uint64_t>(m_hasher(key)));
+        if (slot == m_capacity) {
+            return NULL;
+        }
+        return &m_slots[slot].value;
+    }
+
+    template<class K, class T, class H, class EK>
+    const T *OpenAddressingHashTable<K, T, H, EK>::insert(const Key &key, const Data &value) {
+        uint64_t hash = static_cast<uint64_t>(m_hasher(key));
+        size_t slot = findSlot(key, hash);
+        if (slot != m_capacity) {
+            return &m_slots[slot].value;
+        }
+        if (m_growthLeft == 0) {
+            // Grow, unless the table is mostly deleted slots, which a rehash clears.
+            rehash(capacityFor(m_size + 1) > m_capacity ? m_capacity * 2 : m_capacity);
+        }
+        slot = findFreeSlot(hash);
+        if (m_ctrl[slot] == EMPTY) {
+            --m_growthLeft;
+        }
+        m_ctrl[slot] = tagOf(hash);
+        memcpy(&m_slots[slot].key, &key, sizeof(Key));
+        memcpy(&m_slots[slot].value, &value, sizeof(Data));
+        ++m_size;
+        return NULL;
+    }
+
+    template<class K, class T, class H, class EK>
+    bool OpenAddressingHashTable<K, T, H, EK>::erase(const Key &key) {
+        size_t slot = findSlot(key, static_cast<uint64_t>(m_hasher(key)));
+        if (slot == m_capacity) {
+            return false;
+        }
+        // If the group still has an EMPTY slot, no probe has ever gone past it,
+        // so the slot can be EMPTY again.  Otherwise later probes need the marker.
+        const uint8_t *group = m_ctrl + (slot / GROUP_WIDTH) * GROUP_WIDTH;
+        if (matchByte(group, EMPTY) != 0) {
+            m_ctrl[slot] = EMPTY;
+            ++m_growthLeft;
+        } else {
+            m_ctrl[slot] = DELETED;
+        }
+        --m_size;
+
+        // Shrink when the table is under 1/8 full, to release the memory.
+        if (m_capacity > MIN_CAPACITY && m_size < m_capacity / 8) {
+            rehash(capacityFor(m_size));
+        }
+        return true;
+    }
+
+    template<class K, class T, class H, class EK>
+    void OpenAddressingHashTable<K, T, H, EK>::rehash(size_t capacity) {
+        uint8_t *oldCtrl = m_ctrl;
+        Slot *oldSlots = m_slots;
+        size_t oldCapacity = m_capacity;
+
+        allocate(capacity);
+        for (size_t i = 0; i < oldCapacity; ++i) {
+            if (oldCtrl[i] & 0x80) {
+                continue;
+            }
+            uint64_t hash = static_cast<uint64_t>(m_hasher(oldSlots[i].key));
+            size_t slot = findFreeSlot(hash);
+            m_ctrl[slot] = tagOf(hash);
+            memcpy(&m_slots[slot], &oldSlots[i], sizeof(Slot));
+        }
+        LargePageAllocator::free(oldCtrl, oldCapacity + oldCapacity * sizeof(Slot));
+    }
+
+    template<class K, class T, class H, class EK>
+    bool OpenAddressingHashTable<K, T, H, EK>::verify() const {
+        size_t count = 0;
+        for (size_t i = 0; i < m_capacity; ++i) {
+            if (m_ctrl[i] & 0x80) {
+                continue;
+            }
+            ++count;
+            uint64_t hash = static_cast<uint64_t>(m_hasher(m_slots[i].key));
+            if (m_ctrl[i] != tagOf(hash) || findSlot(m_slots[i].key, hash) != i) {
+                return false;
+            }
+        }
+        return count == m_size;
+    }
+}
+
+#endif // OPENADDRESSINGHASHTABLE_H_
@@ -172,6 +172,10 @@ private:
 
     void tableHashCode( struct ipc_command *cmd);
 
+    void tableChangeStamp(struct ipc_command *cmd);
+
+    void tableContentDigest(struct ipc_command *cmd);
+
     void hashinate(struct ipc_command* cmd);
 
     void updateHashinator(struct ipc_command *cmd);
@@ -295,7 +299,7 @@ typedef struct {
 }__attribute__((packed)) recovery_message;
 
 /*
- * Header for a request for a table hash code
+ * Header for a request for a table hash code, also used for a table change stamp
  */
 typedef struct {
     struct ipc_command cmd;
@@ -508,6 +512,14 @@ bool VoltDBIPC::execute(struct ipc_command *cmd) {
           applyBinaryLog(cmd);
           result = kErrorCode_None;
           break;
+      case 30:
+          tableChangeStamp(cmd);
+          result = kErrorCode_None;
+          break;
+      case 31:
+          tableContentDigest(cmd);
+          result = kErrorCode_None;
+          break;
       default:
         result = stub(cmd);
     }
@@ -1361,6 +1373,26 @@ void VoltDBIPC::tableHashCode( struct ipc_command *cmd) {
     writeOrDie(m_fd, (unsigned char*)response, 9);
 }
 
+void VoltDBIPC::tableChangeStamp(struct ipc_command *cmd) {
+    table_hash_code *changeStampRequest = (table_hash_code*) cmd;
+    const int32_t tableId = ntohl(changeStampRequest->tableId);
+    int64_t tableChangeStamp = m_engine->tableChangeStamp(tableId);
+    char response[9];
+    response[0] = kErrorCode_Success;
+    *reinterpret_cast<int64_t*>(&response[1]) = htonll(tableChangeStamp);
+    writeOrDie(m_fd, (unsigned char*)response, 9);
+}
+
+void VoltDBIPC::tableContentDigest(struct ipc_command *cmd) {
+    table_hash_code *contentDigestRequest = (table_hash_code*) cmd;
+    const int32_t tableId = ntohl(contentDigestRequest->tableId);
+    int64_t tableContentDigest = m_engine->tableContentDigest(tableId);
+    char response[9];
+    response[0] = kErrorCode_Success;
+    *reinterpret_cast<int64_t*>(&response[1]) = htonll(tableContentDigest);
+    writeOrDie(m_fd, (unsigned char*)response, 9);
+}
+
 void VoltDBIPC::exportAction(struct ipc_command *cmd) {
     export_action *action = (export_action*)cmd;
 
@@ -73,12 +73,15 @@ import org.voltdb.ClientInterfaceHandleManager.Iv2InFlight;
 import org.voltdb.SystemProcedureCatalog.Config;
 import org.voltdb.catalog.Procedure;
 import org.voltdb.catalog.SnapshotSchedule;
+import org.voltdb.catalog.Table;
 import org.voltdb.client.ClientAuthScheme;
 import org.voltdb.client.ClientResponse;
 import org.voltdb.common.Constants;
 import org.voltdb.dtxn.InitiatorStats.InvocationInfo;
 import org.voltdb.iv2.Cartographer;
 import org.voltdb.iv2.Iv2Trace;
+import org.voltdb.iv2.MpInitiator;
+import org.voltdb.jni.ExecutionEngine.TaskType;
 import org.voltdb.messaging.FastDeserializer;
 import org.voltdb.messaging.InitiateResponseMessage;
 import org.voltdb.messaging.Iv2EndOfLogMessage;
@@ -105,6 +108,8 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
 
     static long TOPOLOGY_CHANGE_CHECK_MS = Long.getLong("TOPOLOGY_CHANGE_CHECK_MS", 5000);
     static long AUTH_TIMEOUT_MS = Long.getLong("AUTH_TIMEOUT_MS", 30000);
+    static long TTL_EXPIRATION_CHECK_MS = Long.getLong("TTL_EXPIRATION_CHECK_MS", 1000);
+    static long TTL_EXPIRATION_TIMEOUT_MS = Long.getLong("TTL_EXPIRATION_TIMEOUT_MS", 60 * 1000);
 
     //Same as in Distributer.java
     public static final long ASYNC_TOPO_HANDLE = Long.MAX_VALUE - 1;
@@ -1363,6 +1368,7 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
 
     private ScheduledFuture<?> m_deadConnectionFuture;
     private ScheduledFuture<?> m_topologyCheckFuture;
+    private ScheduledFuture<?> m_ttlExpirationFuture;
     public void schedulePeriodicWorks() {
         m_deadConnectionFuture = VoltDB.instance().scheduleWork(new Runnable() {
             @Override
@@ -1387,6 +1393,126 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
                 checkForTopologyChanges();
             }
         }, 0, TOPOLOGY_CHANGE_CHECK_MS, TimeUnit.MILLISECONDS);
+        /*
+         * Every second expire a batch of rows from tables with a time to live. The deletes
+         * run as system transactions so that every replica removes the same rows.
+         */
+        m_ttlExpirationFuture = VoltDB.instance().scheduleWork(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    expireRows();
+                } catch (Exception ex) {
+                    log.warn("Exception while expiring rows", ex);
+                }
+            }
+        }, TTL_EXPIRATION_CHECK_MS, TTL_EXPIRATION_CHECK_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /*
+     * The expiration transactions of one round, along with the leader each was sent to.
+     * A round still waiting for a response after a leader moved or after the timeout is
+     * given up on, so a lost response cannot stop expiration for good.
+     */
+    private class ExpirationRound {
+        final AtomicInteger m_outstanding = new AtomicInteger(0);
+        final long m_startMs = System.currentTimeMillis();
+        final Map<Integer, Long> m_leaders = new HashMap<Integer, Long>();
+        final SimpleClientResponseAdapter.Callback m_callback = new SimpleClientResponseAdapter.Callback() {
+            @Override
+            public void handleResponse(ClientResponse response) {
+                m_outstanding.decrementAndGet();
+                if (response.getStatus() != ClientResponse.SUCCESS) {
+                    log.warn("Failed to expire rows: " + response.getStatusString());
+                }
+            }
+        };
+
+        boolean isDone() {
+            if (m_outstanding.get() <= 0) {
+                return true;
+            }
+            if (System.currentTimeMillis() - m_startMs > TTL_EXPIRATION_TIMEOUT_MS) {
+                log.warn("Expiring rows took more than " + TTL_EXPIRATION_TIMEOUT_MS +
+                        " ms, starting another round");
+                return true;
+            }
+            for (Map.Entry<Integer, Long> e : m_leaders.entrySet()) {
+                final long leader = e.getKey() == MpInitiator.MP_INIT_PID ?
+                        m_cartographer.getHSIdForMultiPartitionInitiator() :
+                        m_cartographer.getHSIdForMaster(e.getKey());
+                if (leader != e.getValue()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void submitted(int partitionId, long leader, boolean accepted) {
+            if (accepted) {
+                m_leaders.put(partitionId, leader);
+            } else {
+                m_outstanding.decrementAndGet();
+            }
+        }
+    }
+
+    // Only touched by the periodic expiration task
+    private ExpirationRound m_expirationRound = null;
+
+    /*
+     * Start an expiration transaction on each partition led by this host when some
+     * partitioned table has a time to live, and one on every site when a replicated table
+     * has one and this host runs the multi-partition initiator. Skip the round if the
+     * previous one is still running so a large backlog never queues up more than one
+     * batch per partition.
+     */
+    private void expireRows() throws IOException {
+        if (VoltDB.instance().getMode() != OperationMode.RUNNING ||
+                VoltDB.instance().getReplicationRole() == ReplicationRole.REPLICA ||
+                (m_expirationRound != null && !m_expirationRound.isDone())) {
+            return;
+        }
+        m_expirationRound = null;
+        boolean hasPartitionedTTL = false;
+        boolean hasReplicatedTTL = false;
+        for (Table table : getCatalogContext().tables) {
+            if (table.getTtlcolumn() != null) {
+                if (table.getIsreplicated()) {
+                    hasReplicatedTTL = true;
+                } else {
+                    hasPartitionedTTL = true;
+                }
+            }
+        }
+        if (!hasPartitionedTTL && !hasReplicatedTTL) {
+            return;
+        }
+        final ExpirationRound round = new ExpirationRound();
+        m_expirationRound = round;
+        final int hostId = VoltDB.instance().getHostMessenger().getHostId();
+        if (hasPartitionedTTL) {
+            VoltTable partitionKeys = TheHashinator.getPartitionKeys(VoltType.VARBINARY);
+            partitionKeys.resetRowPosition();
+            while (partitionKeys.advanceRow()) {
+                int partitionId = (int) partitionKeys.getLong(0);
+                long leader = m_cartographer.getHSIdForMaster(partitionId);
+                if (CoreUtils.getHostIdFromHSId(leader) != hostId) {
+                    continue;
+                }
+                round.m_outstanding.incrementAndGet();
+                round.submitted(partitionId, leader,
+                        callExecuteTaskSPAsync(round.m_callback, partitionId, partitionKeys.getVarbinary(1),
+                                TaskType.EXPIRE_ROWS));
+            }
+        }
+        final long mpi = m_cartographer.getHSIdForMultiPartitionInitiator();
+        if (hasReplicatedTTL && CoreUtils.getHostIdFromHSId(mpi) == hostId) {
+            round.m_outstanding.incrementAndGet();
+            round.submitted(MpInitiator.MP_INIT_PID, mpi,
+                    callExecuteTaskAsync(round.m_callback,
+                            ByteBuffer.allocate(4).putInt(TaskType.EXPIRE_ROWS.ordinal()).array()));
+        }
     }
 
     /*
@@ -1528,6 +1654,10 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
             m_topologyCheckFuture.cancel(false);
             try {m_topologyCheckFuture.get();} catch (Throwable t) {}
         }
+        if (m_ttlExpirationFuture != null) {
+            m_ttlExpirationFuture.cancel(false);
+            try {m_ttlExpirationFuture.get();} catch (Throwable t) {}
+        }
         if (m_maxConnectionUpdater != null) {
             m_maxConnectionUpdater.cancel(false);
         }
@@ -1879,27 +2009,66 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
      *
      * @param cb  maximum timeout in milliseconds
      * @param params  actual parameter(s) for sub task to run
-     * @return
+     * @return false if the transaction was not accepted, the callback is then never invoked
      * @throws IOException
      * @throws InterruptedException
      */
-    public void callExecuteTaskAsync(SimpleClientResponseAdapter.Callback cb, byte[] params) throws IOException {
+    public boolean callExecuteTaskAsync(SimpleClientResponseAdapter.Callback cb, byte[] params) throws IOException {
         final String procedureName = "@ExecuteTask";
         Config procedureConfig = SystemProcedureCatalog.listing.get(procedureName);
         Procedure proc = procedureConfig.asCatalogProcedure();
         StoredProcedureInvocation spi = new StoredProcedureInvocation();
         spi.setProcName(procedureName);
         spi.setParams(params);
-        spi.setClientHandle(m_executeTaskAdpater.registerCallback(cb));
+        final long handle = m_executeTaskAdpater.registerCallback(cb);
+        spi.setClientHandle(handle);
         if (spi.getSerializedParams() == null) {
             spi = MiscUtils.roundTripForCL(spi);
         }
         synchronized (m_executeTaskAdpater) {
-            createTransaction(m_executeTaskAdpater.connectionId(), spi,
+            if (createTransaction(m_executeTaskAdpater.connectionId(), spi,
                     proc.getReadonly(), proc.getSinglepartition(), proc.getEverysite(),
                     0 /* Can provide anything for multi-part */,
-                    spi.getSerializedSize(), System.nanoTime());
+                    spi.getSerializedSize(), System.nanoTime())) {
+                return true;
+            }
+        }
+        m_executeTaskAdpater.unregisterCallback(handle);
+        return false;
+    }
+
+    /**
+     * Asynchronous version, call @ExecuteTask_SP to generate a SP transaction on the given partition.
+     *
+     * @param cb  callback invoked with the response
+     * @param partitionId  partition to run the task on
+     * @param partitionKey  a VARBINARY key hashing to that partition
+     * @param taskType  sub task to run
+     * @return false if the transaction was not accepted, the callback is then never invoked
+     * @throws IOException
+     */
+    public boolean callExecuteTaskSPAsync(SimpleClientResponseAdapter.Callback cb, int partitionId,
+            byte[] partitionKey, TaskType taskType) throws IOException {
+        final String procedureName = "@ExecuteTask_SP";
+        Config procedureConfig = SystemProcedureCatalog.listing.get(procedureName);
+        Procedure proc = procedureConfig.asCatalogProcedure();
+        StoredProcedureInvocation spi = new StoredProcedureInvocation();
+        spi.setProcName(procedureName);
+        spi.setParams(partitionKey, (byte) taskType.ordinal());
+        final long handle = m_executeTaskAdpater.registerCallback(cb);
+        spi.setClientHandle(handle);
+        if (spi.getSerializedParams() == null) {
+            spi = MiscUtils.roundTripForCL(spi);
+        }
+        synchronized (m_executeTaskAdpater) {
+            if (createTransaction(m_executeTaskAdpater.connectionId(), spi,
+                    proc.getReadonly(), proc.getSinglepartition(), proc.getEverysite(),
+                    partitionId, spi.getSerializedSize(), System.nanoTime())) {
+                return true;
+            }
         }
+        m_executeTaskAdpater.unregisterCallback(handle);
+        return false;
     }
 
     /**
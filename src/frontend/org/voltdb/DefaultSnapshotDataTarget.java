@@ -22,6 +22,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
@@ -45,6 +46,7 @@ import org.voltcore.utils.CoreUtils;
 import org.voltcore.utils.DBBPool;
 import org.voltcore.utils.DBBPool.BBContainer;
 import org.voltdb.messaging.FastSerializer;
+import org.voltdb.sysprocs.saverestore.IncrementalSnapshotTracker;
 import org.voltdb.sysprocs.saverestore.SnapshotUtil;
 import org.voltdb.utils.CompressionService;
 import org.voltdb.utils.PosixAdvise;
@@ -55,7 +57,7 @@ import com.google_voltpatches.common.util.concurrent.ListenableFuture;
 import com.google_voltpatches.common.util.concurrent.ListeningExecutorService;
 import com.google_voltpatches.common.util.concurrent.ListeningScheduledExecutorService;
 import com.google_voltpatches.common.util.concurrent.MoreExecutors;
-import com.google_voltpatches.common.util.concurrent.UnsynchronizedRateLimiter;
+import com.google_voltpatches.common.util.concurrent.RateLimiter;
 
 
 public class DefaultSnapshotDataTarget implements SnapshotDataTarget {
@@ -97,24 +99,72 @@ public class DefaultSnapshotDataTarget implements SnapshotDataTarget {
 
     private boolean m_needsFinalClose = true;
 
+    // Only used by the writer thread, and by close once the writes are drained
+    private volatile boolean m_directIO = false;
+    private BBContainer m_directIOBufferC = null;
+    private ByteBuffer m_directIOBuffer = null;
+    // The header, kept until the first chunk switches the file to direct I/O
+    private ByteBuffer m_directIOPendingHeader = null;
+    // Digest of the rows written, see IncrementalSnapshotTracker
+    private boolean m_trackContentDigest = false;
+    private boolean m_contentDigestValid = true;
+    private long m_contentDigest = 0;
+
     @SuppressWarnings("unused")
     private final String m_tableName;
+    private final SnapshotCodec m_codec;
+    private final int m_compressionLevel;
 
     private final AtomicInteger m_outstandingWriteTasks = new AtomicInteger(0);
     private final ReentrantLock m_outstandingWriteTasksLock = new ReentrantLock();
     private final Condition m_noMoreOutstandingWriteTasksCondition =
             m_outstandingWriteTasksLock.newCondition();
 
-    private static final ListeningExecutorService m_es = CoreUtils.getListeningSingleThreadExecutor("Snapshot write service ");
+    // Single-threaded, so the writes to this file stay in order
+    private final ListeningExecutorService m_es;
     static final ListeningScheduledExecutorService m_syncService = MoreExecutors.listeningDecorator(
             Executors.newSingleThreadScheduledExecutor(CoreUtils.getThreadFactory("Snapshot sync service")));
 
     public static final int SNAPSHOT_SYNC_FREQUENCY = Integer.getInteger("SNAPSHOT_SYNC_FREQUENCY", 500);
     public static final int SNAPSHOT_FADVISE_BYTES = Integer.getInteger("SNAPSHOT_FADVISE_BYTES", 1024 * 1024 * 2);
+
+    /*
+     * With direct I/O the file is written with O_DIRECT from an aligned staging buffer,
+     * whole blocks at a time, so snapshot data bypasses the page cache and there is no
+     * writeback for transactions on this host to stall behind. The staging buffer bounds
+     * the data held per file. The header is written and forced through the page cache
+     * so a bad path or full disk fails the constructor, and the unaligned tail goes
+     * through the page cache at close.
+     */
+    public static final boolean SNAPSHOT_DIRECT_IO =
+            Boolean.getBoolean("SNAPSHOT_DIRECT_IO") && PosixAdvise.DIRECT_IO_SUPPORTED;
+    public static final int SNAPSHOT_DIRECT_IO_BUFFER_BYTES;
+    static final int DIRECT_IO_ALIGNMENT = 4096;
+    /*
+     * Staging buffers are shared by all the files being written. A file that starts
+     * while they are all taken is written through the page cache.
+     */
+    static final int SNAPSHOT_DIRECT_IO_MAX_BUFFERS = Integer.getInteger("SNAPSHOT_DIRECT_IO_MAX_BUFFERS", 8);
+    private static final ArrayDeque<BBContainer> m_directIOBuffers = new ArrayDeque<BBContainer>();
+    private static int m_directIOBuffersAllocated = 0;
+    // Lets tests use direct I/O without setting the property for the whole JVM
+    static volatile boolean m_directIOForTest = false;
+
+    /*
+     * Bytes handed to write() and not yet written, over all the files. Writers that fall
+     * behind the disk make write() block rather than letting chunks pile up in their queues.
+     */
+    static final int SNAPSHOT_MAX_BYTES_IN_FLIGHT =
+            Integer.getInteger("SNAPSHOT_MAX_BYTES_IN_FLIGHT", 1024 * 1024 * 64);
+    static final Semaphore m_bytesAllowedInFlight = new Semaphore(SNAPSHOT_MAX_BYTES_IN_FLIGHT);
     public static final int SNAPSHOT_RATELIMIT_MEGABYTES;
     public static final boolean USE_SNAPSHOT_RATELIMIT;
 
     static {
+        int bufferBytes = Integer.getInteger("SNAPSHOT_DIRECT_IO_BUFFER_BYTES", 1024 * 1024 * 4);
+        SNAPSHOT_DIRECT_IO_BUFFER_BYTES =
+                Math.max(DIRECT_IO_ALIGNMENT, bufferBytes - bufferBytes % DIRECT_IO_ALIGNMENT);
+
         int limit = Integer.getInteger("SNAPSHOT_RATELIMIT_MEGABYTES", Integer.MAX_VALUE);
         if (limit < 1) {
             SNAP_LOG.warn("Invalid snapshot rate limit " + limit + ", no limit will be applied");
@@ -130,8 +180,9 @@ public class DefaultSnapshotDataTarget implements SnapshotDataTarget {
         }
     }
 
-    public static final UnsynchronizedRateLimiter SNAPSHOT_RATELIMITER =
-            UnsynchronizedRateLimiter.create(SNAPSHOT_RATELIMIT_MEGABYTES * 1024.0 * 1024.0, 1, TimeUnit.SECONDS);
+    // Shared by all the snapshot writer threads, they wait for permits without holding a lock
+    public static final RateLimiter SNAPSHOT_RATELIMITER =
+            RateLimiter.create(SNAPSHOT_RATELIMIT_MEGABYTES * 1024.0 * 1024.0, 1, TimeUnit.SECONDS);
 
     public static void enforceSnapshotRateLimit(int permits) {
         if (USE_SNAPSHOT_RATELIMIT) {
@@ -163,7 +214,77 @@ public class DefaultSnapshotDataTarget implements SnapshotDataTarget {
                 schemaTable,
                 txnId,
                 timestamp,
-                new int[] { 0, 0, 0, 2 });
+                SnapshotCodec.SNAPPY,
+                SnapshotCodec.SNAPPY.getDefaultLevel());
+    }
+
+    public DefaultSnapshotDataTarget(
+            final File file,
+            final int hostId,
+            final String clusterName,
+            final String databaseName,
+            final String tableName,
+            final int numPartitions,
+            final boolean isReplicated,
+            final List<Integer> partitionIds,
+            final VoltTable schemaTable,
+            final long txnId,
+            final long timestamp,
+            final SnapshotCodec codec,
+            final int compressionLevel) throws IOException {
+        this(
+                file,
+                hostId,
+                clusterName,
+                databaseName,
+                tableName,
+                numPartitions,
+                isReplicated,
+                partitionIds,
+                schemaTable,
+                txnId,
+                timestamp,
+                codec,
+                compressionLevel,
+                null);
+    }
+
+    /**
+     * @param baseFile  If not null the file only names the file of an earlier
+     *                  snapshot that still holds the rows of the table, and
+     *                  nothing should be written to it
+     */
+    public DefaultSnapshotDataTarget(
+            final File file,
+            final int hostId,
+            final String clusterName,
+            final String databaseName,
+            final String tableName,
+            final int numPartitions,
+            final boolean isReplicated,
+            final List<Integer> partitionIds,
+            final VoltTable schemaTable,
+            final long txnId,
+            final long timestamp,
+            final SnapshotCodec codec,
+            final int compressionLevel,
+            final File baseFile) throws IOException {
+        this(
+                file,
+                hostId,
+                clusterName,
+                databaseName,
+                tableName,
+                numPartitions,
+                isReplicated,
+                partitionIds,
+                schemaTable,
+                txnId,
+                timestamp,
+                new int[] { 0, 0, 0, baseFile != null ? 3 : codec.getFormatVersion() },
+                codec,
+                compressionLevel,
+                baseFile);
     }
 
     public DefaultSnapshotDataTarget(
@@ -180,11 +301,82 @@ public class DefaultSnapshotDataTarget implements SnapshotDataTarget {
             final long timestamp,
             int version[]
             ) throws IOException {
+        this(
+                file,
+                hostId,
+                clusterName,
+                databaseName,
+                tableName,
+                numPartitions,
+                isReplicated,
+                partitionIds,
+                schemaTable,
+                txnId,
+                timestamp,
+                version,
+                SnapshotCodec.SNAPPY,
+                SnapshotCodec.SNAPPY.getDefaultLevel());
+    }
+
+    public DefaultSnapshotDataTarget(
+            final File file,
+            final int hostId,
+            final String clusterName,
+            final String databaseName,
+            final String tableName,
+            final int numPartitions,
+            final boolean isReplicated,
+            final List<Integer> partitionIds,
+            final VoltTable schemaTable,
+            final long txnId,
+            final long timestamp,
+            int version[],
+            final SnapshotCodec codec,
+            final int compressionLevel
+            ) throws IOException {
+        this(
+                file,
+                hostId,
+                clusterName,
+                databaseName,
+                tableName,
+                numPartitions,
+                isReplicated,
+                partitionIds,
+                schemaTable,
+                txnId,
+                timestamp,
+                version,
+                codec,
+                compressionLevel,
+                null);
+    }
+
+    public DefaultSnapshotDataTarget(
+            final File file,
+            final int hostId,
+            final String clusterName,
+            final String databaseName,
+            final String tableName,
+            final int numPartitions,
+            final boolean isReplicated,
+            final List<Integer> partitionIds,
+            final VoltTable schemaTable,
+            final long txnId,
+            final long timestamp,
+            int version[],
+            final SnapshotCodec codec,
+            final int compressionLevel,
+            final File baseFile
+            ) throws IOException {
         String hostname = CoreUtils.getHostnameOrAddress();
         m_file = file;
         m_tableName = tableName;
+        m_codec = codec;
+        m_compressionLevel = compressionLevel;
         m_fos = new FileOutputStream(file);
         m_channel = m_fos.getChannel();
+        m_es = SnapshotWriteService.writerFor(file);
         m_needsFinalClose = !isReplicated;
         final FastSerializer fs = new FastSerializer();
         fs.writeInt(0);//CRC
@@ -206,6 +398,15 @@ public class DefaultSnapshotDataTarget implements SnapshotDataTarget {
             stringer.keySymbolValuePair("isReplicated", isReplicated);
             stringer.keySymbolValuePair("isCompressed", true);
             stringer.keySymbolValuePair("checksumType", "CRC32C");
+            if (codec != SnapshotCodec.SNAPPY) {
+                stringer.keySymbolValuePair("compressionCodec", codec.name());
+            }
+            if (baseFile != null) {
+                // Relative, so the snapshot directories can be moved together
+                stringer.keySymbolValuePair("baseFile",
+                        file.getAbsoluteFile().getParentFile().toPath().relativize(
+                                baseFile.getAbsoluteFile().toPath()).toString());
+            }
             stringer.keySymbolValuePair("timestamp", timestamp);
             /*
              * The timestamp string is for human consumption, automated stuff should use
@@ -279,6 +480,16 @@ public class DefaultSnapshotDataTarget implements SnapshotDataTarget {
             m_fos.close();
             throw m_writeException;
         }
+        try {
+            m_channel.force(false);
+        } catch (IOException e) {
+            m_fos.close();
+            throw e;
+        }
+        if (SNAPSHOT_DIRECT_IO || (m_directIOForTest && PosixAdvise.DIRECT_IO_SUPPORTED)) {
+            // The file switches to direct I/O at the first chunk, if a staging buffer is free
+            m_directIOPendingHeader = aggregateBuffer;
+        }
 
         ScheduledFuture<?> syncTask = null;
         syncTask = m_syncService.scheduleAtFixedRate(new Runnable() {
@@ -336,6 +547,53 @@ public class DefaultSnapshotDataTarget implements SnapshotDataTarget {
         m_syncTask = syncTask;
     }
 
+    /**
+     * Compute the content digest of the rows written to the file, see
+     * IncrementalSnapshotTracker. Must be called before the first chunk is written.
+     */
+    public void trackContentDigest() {
+        m_trackContentDigest = true;
+    }
+
+    /**
+     * The content digest of the rows written, once the file is closed. Null if it was not
+     * tracked, or the file is incomplete.
+     */
+    public Long getContentDigest() {
+        if (!m_trackContentDigest || !m_contentDigestValid ||
+                m_writeFailed || m_reportedSerializationFailure != null) {
+            return null;
+        }
+        return m_contentDigest;
+    }
+
+    /*
+     * A chunk from the EE is the partition id, the row count and the rows. Each row
+     * starts with its length, not counting the length itself.
+     */
+    private void addToContentDigest(ByteBuffer chunk) {
+        final int limit = chunk.limit();
+        if (limit < 8) {
+            m_contentDigestValid = false;
+            return;
+        }
+        final int rowCount = chunk.getInt(4);
+        int position = 8;
+        for (int ii = 0; ii < rowCount; ii++) {
+            if (limit - position < 4) {
+                m_contentDigestValid = false;
+                return;
+            }
+            final int length = chunk.getInt(position) + 4;
+            if (length < 4 || limit - position < length) {
+                m_contentDigestValid = false;
+                return;
+            }
+            m_contentDigest = IncrementalSnapshotTracker.addRowToDigest(m_contentDigest, chunk, position, length);
+            position += length;
+        }
+    }
+
     @Override
     public void reportSerializationFailure(IOException ex) {
         m_reportedSerializationFailure = ex;
@@ -358,19 +616,22 @@ public class DefaultSnapshotDataTarget implements SnapshotDataTarget {
             } finally {
                 m_outstandingWriteTasksLock.unlock();
             }
-            m_syncTask.cancel(false);
-            ListenableFuture<?> task = m_syncService.submit(new Runnable() {
-                @Override
-                public void run() {
-                    // Empty task to wait on 'cancel' above, since m_syncTask.get()
-                    // will immediately throw a CancellationException
+            if (m_syncTask != null) {
+                m_syncTask.cancel(false);
+                ListenableFuture<?> task = m_syncService.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        // Empty task to wait on 'cancel' above, since m_syncTask.get()
+                        // will immediately throw a CancellationException
+                    }
+                });
+                try {
+                    task.get();
+                } catch (ExecutionException e) {
+                    SNAP_LOG.error("Error waiting on snapshot sync task cancellation", e);
                 }
-            });
-            try {
-                task.get();
-            } catch (ExecutionException e) {
-                SNAP_LOG.error("Error waiting on snapshot sync task cancellation", e);
             }
+            finishDirectIO();
             m_channel.force(false);
         } finally {
             m_bytesAllowedBeforeSync.release(m_bytesWrittenSinceLastSync.getAndSet(0));
@@ -430,7 +691,16 @@ public class DefaultSnapshotDataTarget implements SnapshotDataTarget {
 
         ByteBuffer tupleData = tupleDataCont.b();
 
+        final int bytesInFlight = Math.min(tupleData.remaining(), SNAPSHOT_MAX_BYTES_IN_FLIGHT);
+        try {
+            m_bytesAllowedInFlight.acquire(bytesInFlight);
+        } catch (InterruptedException e) {
+            tupleDataCont.discard();
+            return Futures.immediateFailedFuture(e);
+        }
+
         m_outstandingWriteTasks.incrementAndGet();
+        SnapshotWriteService.writeQueued();
 
         Future<BBContainer> compressionTask = null;
         if (prependLength) {
@@ -445,13 +715,14 @@ public class DefaultSnapshotDataTarget implements SnapshotDataTarget {
              * that is 16 bytes, but 4 of those are done by CompressionService
              */
             cont.b().position(12);
-            compressionTask = CompressionService.compressAndCRC32cBufferAsync(tupleData, cont);
+            compressionTask = CompressionService.compressAndCRC32cBufferAsync(tupleData, cont, m_codec, m_compressionLevel);
         }
         final Future<BBContainer> compressionTaskFinal = compressionTask;
 
         ListenableFuture<?> writeTask = m_es.submit(new Callable<Object>() {
             @Override
             public Object call() throws Exception {
+                int totalWritten = 0;
                 try {
                     if (m_acceptOneWrite) {
                         m_acceptOneWrite = false;
@@ -467,15 +738,24 @@ public class DefaultSnapshotDataTarget implements SnapshotDataTarget {
                     }
 
                     final ByteBuffer tupleData = tupleDataCont.b();
-                    int totalWritten = 0;
+                    if (m_directIOPendingHeader != null) {
+                        enableDirectIO();
+                    }
+                    // Direct I/O can be turned off by a failed write, account for this one as it starts
+                    final boolean directIO = m_directIO;
                     if (prependLength) {
                         BBContainer payloadContainer = compressionTaskFinal.get();
+                        if (m_trackContentDigest) {
+                            addToContentDigest(tupleData);
+                        }
                         try {
                             final ByteBuffer payloadBuffer = payloadContainer.b();
                             payloadBuffer.position(0);
 
                             ByteBuffer lengthPrefix = ByteBuffer.allocate(12);
-                            m_bytesAllowedBeforeSync.acquire(payloadBuffer.remaining());
+                            if (!directIO) {
+                                m_bytesAllowedBeforeSync.acquire(payloadBuffer.remaining());
+                            }
                             //Length prefix does not include 4 header items, just compressd payload
                             //that follows
                             lengthPrefix.putInt(payloadBuffer.remaining() - 16);//length prefix
@@ -496,19 +776,17 @@ public class DefaultSnapshotDataTarget implements SnapshotDataTarget {
                             /*
                              * Write payload to file
                              */
-                            while (payloadBuffer.hasRemaining()) {
-                                totalWritten += m_channel.write(payloadBuffer);
-                            }
+                            totalWritten += writeToFile(payloadBuffer);
                         } finally {
                             payloadContainer.discard();
                         }
                     } else {
-                        while (tupleData.hasRemaining()) {
-                            totalWritten += m_channel.write(tupleData);
-                        }
+                        totalWritten += writeToFile(tupleData);
                     }
                     m_bytesWritten += totalWritten;
-                    m_bytesWrittenSinceLastSync.addAndGet(totalWritten);
+                    if (!directIO) {
+                        m_bytesWrittenSinceLastSync.addAndGet(totalWritten);
+                    }
                 } catch (IOException e) {
                     m_writeException = e;
                     SNAP_LOG.error("Error while attempting to write snapshot data to file " + m_file, e);
@@ -518,6 +796,8 @@ public class DefaultSnapshotDataTarget implements SnapshotDataTarget {
                     try {
                         tupleDataCont.discard();
                     } finally {
+                        m_bytesAllowedInFlight.release(bytesInFlight);
+                        SnapshotWriteService.writeCompleted(totalWritten);
                         m_outstandingWriteTasksLock.lock();
                         try {
                             if (m_outstandingWriteTasks.decrementAndGet() == 0) {
@@ -534,6 +814,158 @@ public class DefaultSnapshotDataTarget implements SnapshotDataTarget {
         return writeTask;
     }
 
+    /**
+     * Take a staging buffer from the shared pool, or null if they are all in use
+     */
+    static BBContainer takeDirectIOBuffer() {
+        synchronized (m_directIOBuffers) {
+            BBContainer c = m_directIOBuffers.poll();
+            if (c == null && m_directIOBuffersAllocated < SNAPSHOT_DIRECT_IO_MAX_BUFFERS) {
+                c = DBBPool.allocateDirect(SNAPSHOT_DIRECT_IO_BUFFER_BYTES + DIRECT_IO_ALIGNMENT);
+                m_directIOBuffersAllocated++;
+            }
+            return c;
+        }
+    }
+
+    static void returnDirectIOBuffer(BBContainer c) {
+        synchronized (m_directIOBuffers) {
+            m_directIOBuffers.push(c);
+        }
+    }
+
+    /**
+     * The aligned part of a staging buffer that is used for writes
+     */
+    static ByteBuffer alignedDirectIOBuffer(BBContainer c) {
+        final long misalignment = c.address() % DIRECT_IO_ALIGNMENT;
+        final ByteBuffer b = c.b();
+        b.clear();
+        b.position(misalignment == 0 ? 0 : (int)(DIRECT_IO_ALIGNMENT - misalignment));
+        b.limit(b.position() + SNAPSHOT_DIRECT_IO_BUFFER_BYTES);
+        return b.slice();
+    }
+
+    /**
+     * Switch to direct I/O once the header has been written and forced through the page cache.
+     * The block holding the end of the header is staged again and rewritten with the first
+     * chunk, so every direct write starts on a block boundary.
+     */
+    private void enableDirectIO() throws IOException {
+        final ByteBuffer header = m_directIOPendingHeader;
+        m_directIOPendingHeader = null;
+        final BBContainer bufferC = takeDirectIOBuffer();
+        if (bufferC == null) {
+            SNAP_LOG.debug("No direct I/O staging buffer is free for snapshot file " + m_file);
+            return;
+        }
+        try {
+            final long retval = PosixAdvise.setDirectIO(m_fos.getFD(), true);
+            if (retval != 0) {
+                SNAP_LOG.warn("Unable to use direct I/O for snapshot file " + m_file + ": " + retval);
+                returnDirectIOBuffer(bufferC);
+                return;
+            }
+        } catch (Throwable t) {
+            SNAP_LOG.warn("Unable to use direct I/O for snapshot file " + m_file, t);
+            returnDirectIOBuffer(bufferC);
+            return;
+        }
+        m_directIOBufferC = bufferC;
+        m_directIOBuffer = alignedDirectIOBuffer(bufferC);
+        final long position = m_channel.position();
+        final int partialBlock = (int)(position % DIRECT_IO_ALIGNMENT);
+        final ByteBuffer headerTail = header.duplicate();
+        headerTail.limit(header.capacity()).position(header.capacity() - partialBlock);
+        m_directIOBuffer.put(headerTail);
+        m_channel.position(position - partialBlock);
+        m_directIO = true;
+    }
+
+    private void disableDirectIO() throws IOException {
+        m_directIO = false;
+        final long retval = PosixAdvise.setDirectIO(m_fos.getFD(), false);
+        if (retval != 0) {
+            throw new IOException("Unable to turn off direct I/O for snapshot file " + m_file + ": " + retval);
+        }
+    }
+
+    private int writeToFile(ByteBuffer data) throws IOException {
+        int written = 0;
+        if (!m_directIO) {
+            while (data.hasRemaining()) {
+                written += m_channel.write(data);
+            }
+            return written;
+        }
+        while (data.hasRemaining()) {
+            final ByteBuffer slice = data.duplicate();
+            slice.limit(slice.position() + Math.min(slice.remaining(), m_directIOBuffer.remaining()));
+            m_directIOBuffer.put(slice);
+            written += slice.position() - data.position();
+            data.position(slice.position());
+            if (!m_directIOBuffer.hasRemaining()) {
+                flushDirectIOBuffer(false);
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Write the whole blocks in the staging buffer, or all of it when the file is finished.
+     * If the file system refuses an aligned write the rest of the file goes through the page cache.
+     */
+    private void flushDirectIOBuffer(boolean finish) throws IOException {
+        m_directIOBuffer.flip();
+        final int end = m_directIOBuffer.limit();
+        m_directIOBuffer.limit(end - end % DIRECT_IO_ALIGNMENT);
+        try {
+            while (m_directIOBuffer.hasRemaining()) {
+                m_channel.write(m_directIOBuffer);
+            }
+        } catch (IOException e) {
+            SNAP_LOG.warn("Direct I/O write to snapshot file " + m_file +
+                          " failed, writing through the page cache instead", e);
+            finish = true;
+        }
+        m_directIOBuffer.limit(end);
+        if (finish) {
+            disableDirectIO();
+            while (m_directIOBuffer.hasRemaining()) {
+                m_channel.write(m_directIOBuffer);
+            }
+            m_directIOBuffer.clear();
+        } else {
+            m_directIOBuffer.compact();
+        }
+    }
+
+    private void finishDirectIO() throws IOException {
+        if (m_directIOBufferC == null) {
+            return;
+        }
+        try {
+            if (m_directIO) {
+                if (m_writeFailed) {
+                    disableDirectIO();
+                } else {
+                    flushDirectIOBuffer(true);
+                }
+            }
+        } catch (IOException e) {
+            m_writeException = e;
+            SNAP_LOG.error("Error while attempting to write snapshot data to file " + m_file, e);
+            m_writeFailed = true;
+            if (m_directIO) {
+                throw e;
+            }
+        } finally {
+            returnDirectIOBuffer(m_directIOBufferC);
+            m_directIOBufferC = null;
+            m_directIOBuffer = null;
+        }
+    }
+
     @Override
     public ListenableFuture<?> write(final Callable<BBContainer> tupleData, int tableId) {
         return write(tupleData, true);
@@ -575,15 +1007,10 @@ public class DefaultSnapshotDataTarget implements SnapshotDataTarget {
     }
 
     public static void setRate(final Integer megabytesPerSecond) {
-        m_es.execute(new Runnable() {
-            @Override
-            public void run() {
-                if (megabytesPerSecond == null) {
-                    SNAPSHOT_RATELIMITER.setRate(SNAPSHOT_RATELIMIT_MEGABYTES * 1024.0 * 1024.0);
-                } else {
-                    SNAPSHOT_RATELIMITER.setRate(megabytesPerSecond * 1024.0 * 1024.0);
-                }
-            }
-        });
+        if (megabytesPerSecond == null) {
+            SNAPSHOT_RATELIMITER.setRate(SNAPSHOT_RATELIMIT_MEGABYTES * 1024.0 * 1024.0);
+        } else {
+            SNAPSHOT_RATELIMITER.setRate(megabytesPerSecond * 1024.0 * 1024.0);
+        }
     }
 }
@@ -0,0 +1,338 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2017 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.voltcore.logging.Level;
+import org.voltcore.logging.VoltLogger;
+import org.voltcore.utils.CoreUtils;
+import org.voltdb.catalog.Column;
+import org.voltdb.catalog.Procedure;
+import org.voltdb.catalog.Table;
+import org.voltdb.client.ClientResponse;
+import org.voltdb.client.ProcedureCallback;
+import org.voltdb.importer.AbstractImporter;
+import org.voltdb.importer.ImportBatcher;
+import org.voltdb.importer.ImporterStatsCollector;
+import org.voltdb.utils.CatalogUtil;
+
+/**
+ * Batches the invocations of the default insert or upsert procedure of a table made by
+ * one importer. Rows are grouped by the partition they hash to and every group is sent
+ * as one @LoadSinglepartitionTable, or @LoadMultipartitionTable for replicated tables,
+ * the way VoltBulkLoader does for clients. If a bulk load fails, the rows of the group
+ * are retried one at a time with the original procedure so only the offending rows fail.
+ * <p>Full batches are sent by the importer thread that filled them. Batches past their latency
+ * and retries are sent by a thread of the batcher, as the server may make callers sleep under
+ * back pressure and that must not hold up the batches of other importers.
+ */
+public class ImportBatcherImpl implements ImportBatcher {
+    private static final VoltLogger m_logger = new VoltLogger("IMPORT");
+
+    // Only hands the batches past their latency to the sender of their batcher, never sends them
+    private static final ScheduledThreadPoolExecutor s_flushTimer =
+            CoreUtils.getScheduledThreadPoolExecutor("Importer Batch Flush", 1, CoreUtils.SMALL_STACK_SIZE);
+
+    private static final int REPLICATED_BATCH = -1;
+
+    private static class Batch {
+        final long m_startNanos = System.nanoTime();
+        final List<Object[]> m_params = new ArrayList<Object[]>();
+        final List<Object[]> m_rows = new ArrayList<Object[]>();
+        final List<ProcedureCallback> m_callbacks = new ArrayList<ProcedureCallback>();
+    }
+
+    private final AbstractImporter m_importer;
+    private final ImporterStatsCollector m_statsCollector;
+    private final InternalConnectionHandler m_handler;
+    private final String m_procedure;
+    private final String m_tableName;
+    private final byte m_upsert;
+    private final VoltTable.ColumnInfo[] m_columnInfo;
+    private final VoltType[] m_columnTypes;
+    private final int m_partitionColumn;
+    private final VoltType m_partitionColumnType;
+    private final int m_batchSize;
+    private final long m_maxLatencyNanos;
+    private final Map<Integer, Batch> m_batches = new HashMap<Integer, Batch>();
+    private final ScheduledFuture<?> m_flushTask;
+    // Sends the batches past their latency and retries the rows of failed ones
+    private final ExecutorService m_sender;
+    private final AtomicBoolean m_flushQueued = new AtomicBoolean(false);
+
+    /**
+     * Create a batcher for the given procedure, or return null if it is not the default
+     * insert or upsert procedure of a persistent table.
+     */
+    static ImportBatcherImpl create(AbstractImporter importer, ImporterStatsCollector statsCollector,
+                                    String proc, int batchSize, long maxLatencyMillis)
+    {
+        final CatalogContext catalogContext = VoltDB.instance().getCatalogContext();
+        final Procedure catProc = InvocationDispatcher.getProcedureFromName(proc, catalogContext);
+        if (catProc == null || !catProc.getDefaultproc()) {
+            return null;
+        }
+        final String lowerProc = proc.toLowerCase();
+        final boolean upsert = lowerProc.endsWith(".upsert");
+        if (!upsert && !lowerProc.endsWith(".insert")) {
+            return null;
+        }
+        final Table table = catProc.getPartitiontable();
+        if (table == null || table.getMaterializer() != null ||
+                CatalogUtil.isTableExportOnly(catalogContext.database, table)) {
+            return null;
+        }
+        return new ImportBatcherImpl(importer, statsCollector,
+                VoltDB.instance().getClientInterface().getInternalConnectionHandler(),
+                proc, table, upsert, batchSize, maxLatencyMillis);
+    }
+
+    ImportBatcherImpl(AbstractImporter importer, ImporterStatsCollector statsCollector,
+                      InternalConnectionHandler handler, String proc, Table table, boolean upsert,
+                      int batchSize, long maxLatencyMillis)
+    {
+        m_importer = importer;
+        m_statsCollector = statsCollector;
+        m_handler = handler;
+        m_procedure = proc;
+        m_tableName = table.getTypeName();
+        m_upsert = (byte) (upsert ? 1 : 0);
+        m_batchSize = batchSize;
+        m_maxLatencyNanos = TimeUnit.MILLISECONDS.toNanos(maxLatencyMillis);
+
+        final List<Column> columns = CatalogUtil.getSortedCatalogItems(table.getColumns(), "index");
+        m_columnInfo = new VoltTable.ColumnInfo[columns.size()];
+        m_columnTypes = new VoltType[columns.size()];
+        for (int i = 0; i < m_columnTypes.length; i++) {
+            final Column column = columns.get(i);
+            m_columnTypes[i] = VoltType.get((byte) column.getType());
+            m_columnInfo[i] = new VoltTable.ColumnInfo(column.getTypeName(), m_columnTypes[i]);
+        }
+        final Column partitionColumn = table.getPartitioncolumn();
+        if (table.getIsreplicated() || partitionColumn == null) {
+            m_partitionColumn = -1;
+            m_partitionColumnType = VoltType.NULL;
+        } else {
+            m_partitionColumn = partitionColumn.getIndex();
+            m_partitionColumnType = m_columnTypes[m_partitionColumn];
+        }
+
+        m_sender = CoreUtils.getCachedSingleThreadExecutor("Importer Batch Sender - " + importer.getName(), 15000);
+        final Runnable flushExpired = new Runnable() {
+            @Override
+            public void run() {
+                m_flushQueued.set(false);
+                try {
+                    send(takeBatches(System.nanoTime() - m_maxLatencyNanos));
+                } catch (Throwable t) {
+                    m_logger.rateLimitedLog(InternalConnectionHandler.SUPPRESS_INTERVAL, Level.ERROR, t,
+                            "%s: Error flushing import batches for %s", m_importer.getName(), m_procedure);
+                }
+            }
+        };
+        // Check twice per latency period so no batch waits much longer than asked for.
+        // A sender still busy with the previous check is not queued another one.
+        final long period = Math.max(1, maxLatencyMillis / 2);
+        m_flushTask = s_flushTimer.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                if (m_flushQueued.compareAndSet(false, true)) {
+                    m_sender.execute(flushExpired);
+                }
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public String getProcedure() {
+        return m_procedure;
+    }
+
+    @Override
+    public boolean add(Object[] params, ProcedureCallback callback) {
+        if (params.length != m_columnTypes.length) {
+            return false;
+        }
+        final Object[] row = new Object[params.length];
+        final int partition;
+        try {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = ParameterConverter.tryToMakeCompatible(m_columnTypes[i].classFromType(), params[i]);
+            }
+            partition = m_partitionColumn < 0 ? REPLICATED_BATCH :
+                TheHashinator.getPartitionForParameter(m_partitionColumnType, row[m_partitionColumn]);
+        } catch (Exception e) {
+            m_logger.rateLimitedLog(InternalConnectionHandler.SUPPRESS_INTERVAL, Level.ERROR, e,
+                    "%s: Can not convert a row for %s", m_importer.getName(), m_procedure);
+            return false;
+        }
+
+        Batch full = null;
+        synchronized (this) {
+            Batch batch = m_batches.get(partition);
+            if (batch == null) {
+                batch = new Batch();
+                m_batches.put(partition, batch);
+            }
+            batch.m_params.add(params);
+            batch.m_rows.add(row);
+            batch.m_callbacks.add(callback);
+            if (batch.m_rows.size() >= m_batchSize) {
+                m_batches.remove(partition);
+                full = batch;
+            }
+        }
+        if (full != null) {
+            send(full);
+        }
+        return true;
+    }
+
+    @Override
+    public void flush() {
+        send(takeBatches(Long.MAX_VALUE));
+    }
+
+    @Override
+    public void close() {
+        m_flushTask.cancel(false);
+        flush();
+    }
+
+    /**
+     * Remove and return the batches whose first row was added before the given time.
+     */
+    private synchronized List<Batch> takeBatches(long startedBeforeNanos) {
+        final List<Batch> batches = new ArrayList<Batch>();
+        final Iterator<Batch> it = m_batches.values().iterator();
+        while (it.hasNext()) {
+            final Batch batch = it.next();
+            if (batch.m_startNanos - startedBeforeNanos < 0) {
+                batches.add(batch);
+                it.remove();
+            }
+        }
+        return batches;
+    }
+
+    private void send(List<Batch> batches) {
+        for (Batch batch : batches) {
+            send(batch);
+        }
+    }
+
+    private void send(final Batch batch) {
+        final String proc = m_partitionColumn < 0 ? "@LoadMultipartitionTable" : "@LoadSinglepartitionTable";
+        final ProcedureCallback callback = new ProcedureCallback() {
+            @Override
+            public void clientCallback(ClientResponse response) throws Exception {
+                switch (response.getStatus()) {
+                case ClientResponse.USER_ABORT:
+                case ClientResponse.GRACEFUL_FAILURE:
+                case ClientResponse.UNEXPECTED_FAILURE:
+                case ClientResponse.TXN_RESTART:
+                    // Do not run the rows on the response thread
+                    m_sender.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            sendRows(batch);
+                        }
+                    });
+                    break;
+                default:
+                    for (ProcedureCallback rowCallback : batch.m_callbacks) {
+                        respond(rowCallback, response);
+                    }
+                }
+            }
+        };
+
+        boolean queued = false;
+        try {
+            final VoltTable table = new VoltTable(m_columnInfo);
+            for (Object[] row : batch.m_rows) {
+                table.addRow(row);
+            }
+            if (m_partitionColumn < 0) {
+                queued = m_handler.callProcedure(m_importer, m_statsCollector, callback,
+                        proc, m_tableName, m_upsert, table);
+            } else {
+                final byte[] partitionParam = VoltType.valueToBytes(batch.m_rows.get(0)[m_partitionColumn]);
+                queued = m_handler.callProcedure(m_importer, m_statsCollector, callback,
+                        proc, partitionParam, m_tableName, m_upsert, table);
+            }
+        } catch (Exception e) {
+            m_logger.rateLimitedLog(InternalConnectionHandler.SUPPRESS_INTERVAL, Level.ERROR, e,
+                    "%s: Error trying to load a batch of %s", m_importer.getName(), m_procedure);
+        }
+        if (queued) {
+            m_statsCollector.reportQueued(m_importer.getName(), proc);
+        } else {
+            m_statsCollector.reportFailure(m_importer.getName(), proc, false);
+            sendRows(batch);
+        }
+    }
+
+    /**
+     * Invoke the batched procedure once per row of a batch that could not be loaded whole.
+     * Rows that can not even be queued are failed right away so the importer does not wait
+     * for them.
+     */
+    private void sendRows(Batch batch) {
+        for (int i = 0; i < batch.m_params.size(); i++) {
+            final ProcedureCallback rowCallback = batch.m_callbacks.get(i);
+            boolean queued = false;
+            try {
+                queued = m_handler.callProcedure(m_importer, m_statsCollector, rowCallback,
+                        m_procedure, batch.m_params.get(i));
+            } catch (Exception e) {
+                m_logger.rateLimitedLog(InternalConnectionHandler.SUPPRESS_INTERVAL, Level.ERROR, e,
+                        "%s: Error trying to import", m_importer.getName());
+            }
+            if (queued) {
+                m_statsCollector.reportQueued(m_importer.getName(), m_procedure);
+            } else {
+                m_statsCollector.reportFailure(m_importer.getName(), m_procedure, false);
+                respond(rowCallback, new ClientResponseImpl(ClientResponse.GRACEFUL_FAILURE, new VoltTable[0],
+                        "Procedure " + m_procedure + " could not be queued"));
+            }
+        }
+    }
+
+    private void respond(ProcedureCallback callback, ClientResponse response) {
+        if (callback == null) {
+            return;
+        }
+        try {
+            callback.clientCallback(response);
+        } catch (Exception e) {
+            m_logger.rateLimitedLog(InternalConnectionHandler.SUPPRESS_INTERVAL, Level.ERROR, e,
+                    "%s: Error in the callback of %s", m_importer.getName(), m_procedure);
+        }
+    }
+}
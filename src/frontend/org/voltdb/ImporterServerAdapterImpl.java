@@ -19,6 +19,7 @@ package org.voltdb;
 
 import org.voltdb.client.ProcedureCallback;
 import org.voltdb.importer.AbstractImporter;
+import org.voltdb.importer.ImportBatcher;
 import org.voltdb.importer.ImporterServerAdapter;
 import org.voltdb.importer.ImporterStatsCollector;
 
@@ -51,6 +52,11 @@ public class ImporterServerAdapterImpl implements ImporterServerAdapter {
                 .callProcedure(importer, m_statsCollector, procCallback, proc, fieldList);
     }
 
+    @Override
+    public ImportBatcher createBatcher(AbstractImporter importer, String proc, int batchSize, long maxLatencyMillis) {
+        return ImportBatcherImpl.create(importer, m_statsCollector, proc, batchSize, maxLatencyMillis);
+    }
+
     private InternalConnectionHandler getInternalConnectionHandler() {
         return VoltDB.instance().getClientInterface().getInternalConnectionHandler();
     }
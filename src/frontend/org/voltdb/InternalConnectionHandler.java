@@ -173,7 +173,12 @@ public class InternalConnectionHandler {
         }
         int partition = -1;
         try {
-            partition = InvocationDispatcher.getPartitionForProcedure(catProc, task);
+            if ("@LoadSinglepartitionTable".equals(proc)) {
+                partition = InvocationDispatcher.getLoadSinglepartitionTablePartition(
+                        getCatalogContext().database.getTables(), task);
+            } else {
+                partition = InvocationDispatcher.getPartitionForProcedure(catProc, task);
+            }
         } catch (Exception e) {
             String fmt = "Can not invoke procedure %s from streaming interface %s. Partition not found.";
             m_logger.rateLimitedLog(SUPPRESS_INTERVAL, Level.ERROR, e, fmt, proc, caller);
@@ -934,9 +934,7 @@ public final class InvocationDispatcher {
         int partition = -1;
         try {
             CatalogMap<Table> tables = m_catalogContext.get().database.getTables();
-            int partitionParamType = getLoadSinglePartitionTablePartitionParamType(tables, task);
-            byte[] valueToHash = (byte[])task.getParameterAtIndex(0);
-            partition = TheHashinator.getPartitionForParameter(partitionParamType, valueToHash);
+            partition = getLoadSinglepartitionTablePartition(tables, task);
         }
         catch (Exception e) {
             authLog.warn(e.getMessage());
@@ -955,6 +953,19 @@ public final class InvocationDispatcher {
         return null;
     }
 
+    /**
+     * The partition to run a @LoadSinglepartitionTable invocation at, found by hashing
+     * its serialized partitioning value as the partitioning column of the target table.
+     */
+    final static int getLoadSinglepartitionTablePartition(CatalogMap<Table> tables,
+                                                          StoredProcedureInvocation spi)
+        throws Exception
+    {
+        int partitionParamType = getLoadSinglePartitionTablePartitionParamType(tables, spi);
+        byte[] valueToHash = (byte[])spi.getParameterAtIndex(0);
+        return TheHashinator.getPartitionForParameter(partitionParamType, valueToHash);
+    }
+
     /**
      * XXX: This should go away when we get rid of the legacy hashinator.
      */
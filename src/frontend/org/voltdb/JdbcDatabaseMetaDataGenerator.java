@@ -509,7 +509,8 @@ public class JdbcDatabaseMetaDataGenerator
     private String getSortOrder(Index index)
     {
         String sort_order = null;
-        if (index.getType() == IndexType.BALANCED_TREE.getValue())
+        if (index.getType() == IndexType.BALANCED_TREE.getValue() ||
+                index.getType() == IndexType.ADAPTIVE_RADIX_TREE.getValue())
         {
             sort_order = "A";
         }
@@ -141,6 +141,10 @@ public class SimpleClientResponseAdapter implements Connection, WriteStream {
         return handle;
     }
 
+    public void unregisterCallback(long handle) {
+        m_callbacks.remove(handle);
+    }
+
     public Supplier<Pair<Long, SyncCallback>> getSyncCallbackSupplier() {
         return new Supplier<Pair<Long, SyncCallback>>() {
             @Override
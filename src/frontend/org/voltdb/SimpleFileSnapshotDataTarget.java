@@ -45,6 +45,7 @@ public class SimpleFileSnapshotDataTarget implements SnapshotDataTarget {
     private long m_bytesWritten = 0;
     private Runnable m_onCloseTask;
     private boolean m_needsFinalClose;
+    private final SnapshotFormat m_format;
 
     /*
      * Remember to sync regularly. SimpleFileSnapshotDataTarget
@@ -77,11 +78,27 @@ public class SimpleFileSnapshotDataTarget implements SnapshotDataTarget {
 
     public SimpleFileSnapshotDataTarget(
             File file, boolean needsFinalClose) throws IOException {
+        this(file, needsFinalClose, SnapshotFormat.CSV, null);
+    }
+
+    /**
+     * @param header  Bytes written at the start of the file before any data, may be null
+     */
+    public SimpleFileSnapshotDataTarget(
+            File file, boolean needsFinalClose, SnapshotFormat format, byte header[]) throws IOException {
         m_file = file;
         m_tempFile = new File(m_file.getParentFile(), m_file.getName() + ".incomplete");
         m_ras = new RandomAccessFile(m_tempFile, "rw");
         m_fc = m_ras.getChannel();
         m_needsFinalClose = needsFinalClose;
+        m_format = format;
+        if (header != null) {
+            final ByteBuffer headerBuf = ByteBuffer.wrap(header);
+            while (headerBuf.hasRemaining()) {
+                m_fc.write(headerBuf);
+            }
+            m_bytesWritten = header.length;
+        }
 
         m_es = CoreUtils.getListeningSingleThreadExecutor("Snapshot write thread for " + m_file);
         ScheduledFuture<?> syncTask = null;
@@ -211,7 +228,7 @@ public class SimpleFileSnapshotDataTarget implements SnapshotDataTarget {
 
     @Override
     public SnapshotFormat getFormat() {
-        return SnapshotFormat.CSV;
+        return m_format;
     }
 
     @Override
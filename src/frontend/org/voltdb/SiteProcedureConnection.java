@@ -221,4 +221,10 @@ public interface SiteProcedureConnection {
      * binary log stream when we set protocol version.
      */
     public void setDRProtocolVersion(int drVersion, long spHandle, long uniqueId);
+    /*
+     * Delete a bounded batch of rows whose time to live has passed from either the
+     * partitioned or the replicated TTL tables of this site, as of the transaction's
+     * unique id. Returns the number of rows deleted.
+     */
+    public long expireRows(long txnId, long spHandle, long uniqueId, boolean replicated);
 }
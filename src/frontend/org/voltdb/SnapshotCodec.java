@@ -0,0 +1,245 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2017 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.xerial.snappy.Snappy;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+
+/**
+ * Codecs that native snapshot chunks can be compressed with. SNAPPY is the
+ * only codec of version 2 snapshot files and the default. LZ4 favors speed
+ * and DEFLATE favors size; files written with either are version 3 and
+ * name their codec in the header.
+ *
+ * Each codec compresses from the position to the limit of the input and
+ * writes at the position of the output, leaving the output position alone
+ * and setting its limit to the end of the compressed data, as Snappy does.
+ * LZ4 and DEFLATE chunks start with the uncompressed length.
+ */
+public enum SnapshotCodec {
+    SNAPPY (0, 0, 0) {
+        @Override
+        public int compress(ByteBuffer input, ByteBuffer output, int level) throws IOException {
+            return Snappy.compress(input, output);
+        }
+
+        @Override
+        public int uncompressedLength(ByteBuffer compressed) throws IOException {
+            return Snappy.uncompressedLength(compressed);
+        }
+
+        @Override
+        public int decompress(ByteBuffer compressed, ByteBuffer uncompressed) throws IOException {
+            return Snappy.uncompress(compressed, uncompressed);
+        }
+
+        @Override
+        public int maxCompressedLength(int uncompressedLength) {
+            return Snappy.maxCompressedLength(uncompressedLength);
+        }
+    },
+
+    /**
+     * Level 0 uses the fast compressor, any higher level the high
+     * compression one.
+     */
+    LZ4 (0, 0, 1) {
+        @Override
+        public int compress(ByteBuffer input, ByteBuffer output, int level) throws IOException {
+            final byte[] in = toArray(input);
+            final LZ4Compressor compressor =
+                    level > 0 ? m_lz4Factory.highCompressor() : m_lz4Factory.fastCompressor();
+            final byte[] out = new byte[compressor.maxCompressedLength(in.length)];
+            final int length = compressor.compress(in, 0, in.length, out, 0);
+            return putWithLengthPrefix(output, in.length, out, length);
+        }
+
+        @Override
+        public int decompress(ByteBuffer compressed, ByteBuffer uncompressed) throws IOException {
+            final int length = uncompressedLength(compressed);
+            final byte[] in = payloadToArray(compressed);
+            final byte[] out = new byte[length];
+            try {
+                m_lz4Factory.fastDecompressor().decompress(in, 0, out, 0, length);
+            } catch (LZ4Exception e) {
+                throw new IOException(e);
+            }
+            return putUncompressed(uncompressed, out);
+        }
+
+        @Override
+        public int maxCompressedLength(int uncompressedLength) {
+            return m_lz4Factory.fastCompressor().maxCompressedLength(uncompressedLength) + 4;
+        }
+    },
+
+    DEFLATE (Deflater.DEFAULT_COMPRESSION, Deflater.BEST_SPEED, Deflater.BEST_COMPRESSION) {
+        @Override
+        public int compress(ByteBuffer input, ByteBuffer output, int level) throws IOException {
+            final byte[] in = toArray(input);
+            final byte[] out = new byte[maxCompressedLength(in.length)];
+            final Deflater deflater = new Deflater(level);
+            try {
+                deflater.setInput(in);
+                deflater.finish();
+                int length = 0;
+                while (!deflater.finished()) {
+                    final int count = deflater.deflate(out, length, out.length - length);
+                    if (count == 0 && length == out.length) {
+                        throw new IOException("DEFLATE output exceeded its bound");
+                    }
+                    length += count;
+                }
+                return putWithLengthPrefix(output, in.length, out, length);
+            } finally {
+                deflater.end();
+            }
+        }
+
+        @Override
+        public int decompress(ByteBuffer compressed, ByteBuffer uncompressed) throws IOException {
+            final int length = uncompressedLength(compressed);
+            final byte[] in = payloadToArray(compressed);
+            final byte[] out = new byte[length];
+            final Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(in);
+                int inflated = 0;
+                while (inflated < length && !inflater.finished()) {
+                    final int count = inflater.inflate(out, inflated, length - inflated);
+                    if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        throw new IOException("Truncated DEFLATE snapshot chunk");
+                    }
+                    inflated += count;
+                }
+            } catch (DataFormatException e) {
+                throw new IOException(e);
+            } finally {
+                inflater.end();
+            }
+            return putUncompressed(uncompressed, out);
+        }
+
+        @Override
+        public int maxCompressedLength(int uncompressedLength) {
+            // zlib's bound for stored blocks, plus the length prefix
+            return uncompressedLength + (uncompressedLength >> 12) + (uncompressedLength >> 14) + 64 + 4;
+        }
+    };
+
+    private static final LZ4Factory m_lz4Factory = LZ4Factory.fastestInstance();
+
+    private final int m_defaultLevel;
+    private final int m_minLevel;
+    private final int m_maxLevel;
+
+    private SnapshotCodec(int defaultLevel, int minLevel, int maxLevel) {
+        m_defaultLevel = defaultLevel;
+        m_minLevel = minLevel;
+        m_maxLevel = maxLevel;
+    }
+
+    public abstract int compress(ByteBuffer input, ByteBuffer output, int level) throws IOException;
+
+    public abstract int decompress(ByteBuffer compressed, ByteBuffer uncompressed) throws IOException;
+
+    public abstract int maxCompressedLength(int uncompressedLength);
+
+    /**
+     * The uncompressed length of a chunk, read without moving the position
+     */
+    public int uncompressedLength(ByteBuffer compressed) throws IOException {
+        if (compressed.remaining() < 4) {
+            throw new IOException("Truncated " + this + " snapshot chunk");
+        }
+        final int length = compressed.getInt(compressed.position());
+        if (length < 0) {
+            throw new IOException("Corrupted " + this + " snapshot chunk has negative length");
+        }
+        return length;
+    }
+
+    public int getDefaultLevel() {
+        return m_defaultLevel;
+    }
+
+    public boolean isValidLevel(int level) {
+        return level == m_defaultLevel || (level >= m_minLevel && level <= m_maxLevel);
+    }
+
+    /**
+     * Version number written to the header of snapshot files compressed
+     * with this codec
+     */
+    public int getFormatVersion() {
+        return this == SNAPPY ? 2 : 3;
+    }
+
+    /**
+     * Get the codec from its name. Letter case of the name doesn't matter.
+     *
+     * @throws IllegalArgumentException If the name does not match any codec
+     */
+    public static SnapshotCodec getEnumIgnoreCase(String s) {
+        for (SnapshotCodec value : values()) {
+            if (value.toString().equalsIgnoreCase(s)) {
+                return value;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown snapshot compression codec " + s);
+    }
+
+    private static byte[] toArray(ByteBuffer input) {
+        final byte[] in = new byte[input.remaining()];
+        input.duplicate().get(in);
+        return in;
+    }
+
+    private static byte[] payloadToArray(ByteBuffer compressed) {
+        final ByteBuffer payload = compressed.duplicate();
+        payload.position(payload.position() + 4);
+        final byte[] in = new byte[payload.remaining()];
+        payload.get(in);
+        return in;
+    }
+
+    private static int putWithLengthPrefix(ByteBuffer output, int uncompressedLength, byte[] out, int length) {
+        final ByteBuffer target = output.duplicate();
+        target.putInt(uncompressedLength);
+        target.put(out, 0, length);
+        output.limit(output.position() + 4 + length);
+        return 4 + length;
+    }
+
+    private static int putUncompressed(ByteBuffer uncompressed, byte[] out) {
+        final ByteBuffer target = uncompressed.duplicate();
+        target.put(out);
+        uncompressed.limit(uncompressed.position() + out.length);
+        return out.length;
+    }
+}
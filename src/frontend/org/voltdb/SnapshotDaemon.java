@@ -140,6 +140,7 @@ public class SnapshotDaemon implements SnapshotCompletionInterest {
     private String m_path;
     private String m_prefix;
     private String m_prefixAndSeparator;
+    private String m_compression;
 
     private SnapshotSchedule m_lastKnownSchedule = null;
 
@@ -209,6 +210,7 @@ public class SnapshotDaemon implements SnapshotCompletionInterest {
         m_prefix = null;
         m_path = null;
         m_prefixAndSeparator = null;
+        m_compression = null;
 
         // Register the snapshot status to the StatsAgent
         SnapshotStatus snapshotStatus = new SnapshotStatus();
@@ -1210,6 +1212,7 @@ public class SnapshotDaemon implements SnapshotCompletionInterest {
             m_path = VoltDB.instance().getSnapshotPath();
             m_prefix = schedule.getPrefix();
             m_prefixAndSeparator = m_prefix + "_";
+            m_compression = schedule.getCompression();
             final String frequencyUnitString = schedule.getFrequencyunit().toLowerCase();
             assert(frequencyUnitString.length() == 1);
             final char frequencyUnit = frequencyUnitString.charAt(0);
@@ -1364,6 +1367,9 @@ public class SnapshotDaemon implements SnapshotCompletionInterest {
             jsObj.put(SnapshotUtil.JSON_PATH, m_path);
             jsObj.put(SnapshotUtil.JSON_PATH_TYPE, SnapshotPathType.SNAP_AUTO.toString());
             jsObj.put(SnapshotUtil.JSON_NONCE, nonce);
+            if (m_compression != null && !m_compression.isEmpty()) {
+                jsObj.put(SnapshotUtil.JSON_COMPRESSION, m_compression);
+            }
             jsObj.put("perPartitionTxnIds", retrievePerPartitionTransactionIds());
             m_snapshots.offer(new Snapshot(m_path, SnapshotPathType.SNAP_AUTO, nonce, now));
             long handle = m_nextCallbackHandle++;
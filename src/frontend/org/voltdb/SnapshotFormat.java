@@ -21,10 +21,11 @@ package org.voltdb;
  * Supported snapshot formats
  */
 public enum SnapshotFormat {
-    NATIVE (true,  true,  TableStreamType.SNAPSHOT),
-    CSV    (true,  true,  TableStreamType.SNAPSHOT),
-    STREAM (false, false, TableStreamType.SNAPSHOT),
-    INDEX  (false, false, TableStreamType.ELASTIC_INDEX);
+    NATIVE   (true,  true,  TableStreamType.SNAPSHOT),
+    CSV      (true,  true,  TableStreamType.SNAPSHOT),
+    COLUMNAR (true,  true,  TableStreamType.SNAPSHOT),
+    STREAM   (false, false, TableStreamType.SNAPSHOT),
+    INDEX    (false, false, TableStreamType.ELASTIC_INDEX);
 
     private final boolean m_isFileBased;
     private final boolean m_canCloseEarly;
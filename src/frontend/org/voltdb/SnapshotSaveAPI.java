@@ -17,6 +17,7 @@
 
 package org.voltdb;
 
+import java.io.File;
 import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.HashMap;
@@ -41,10 +42,12 @@ import org.json_voltpatches.JSONStringer;
 import org.voltcore.logging.VoltLogger;
 import org.voltcore.utils.CoreUtils;
 import org.voltcore.zk.ZKUtil;
+import org.voltdb.catalog.Table;
 import org.voltdb.dtxn.SiteTracker;
 import org.voltdb.iv2.TxnEgo;
 import org.voltdb.sysprocs.saverestore.CSVSnapshotWritePlan;
 import org.voltdb.sysprocs.saverestore.HashinatorSnapshotData;
+import org.voltdb.sysprocs.saverestore.IncrementalSnapshotTracker;
 import org.voltdb.sysprocs.saverestore.IndexSnapshotWritePlan;
 import org.voltdb.sysprocs.saverestore.NativeSnapshotWritePlan;
 import org.voltdb.sysprocs.saverestore.SnapshotPathType;
@@ -88,6 +91,12 @@ public class SnapshotSaveAPI
             new HashMap<Integer, Long>();
     private static Map<Integer, JSONObject> m_remoteDataCenterLastIds =
             new HashMap<Integer, JSONObject>();
+    // Change stamp of every table, by partition, as of the start of a native snapshot
+    private static Map<Integer, Map<Integer, Long>> m_partitionTableChangeStamps =
+            new HashMap<Integer, Map<Integer, Long>>();
+    // Content digest of the tables an incremental snapshot can only match by digest, by partition
+    private static Map<Integer, Map<Integer, Long>> m_partitionTableContentDigests =
+            new HashMap<Integer, Map<Integer, Long>>();
 
     private static ExtensibleSnapshotDigestData m_allLocalSiteSnapshotDigestData;
     /**
@@ -154,6 +163,11 @@ public class SnapshotSaveAPI
                     Map<Integer, JSONObject> remoteDataCenterLastIds = m_remoteDataCenterLastIds;
                     m_remoteDataCenterLastIds = new HashMap<Integer, JSONObject>();
 
+                    Map<Integer, Map<Integer, Long>> partitionTableChangeStamps = m_partitionTableChangeStamps;
+                    m_partitionTableChangeStamps = new HashMap<Integer, Map<Integer, Long>>();
+                    Map<Integer, Map<Integer, Long>> partitionTableContentDigests = m_partitionTableContentDigests;
+                    m_partitionTableContentDigests = new HashMap<Integer, Map<Integer, Long>>();
+
                     /*
                      * Do a quick sanity check that the provided IDs
                      * don't conflict with currently active partitions. If they do
@@ -187,7 +201,9 @@ public class SnapshotSaveAPI
                             m_allLocalSiteSnapshotDigestData,
                             context.getSiteTrackerForSnapshot(),
                             hashinatorData,
-                            timestamp);
+                            timestamp,
+                            partitionTableChangeStamps,
+                            partitionTableContentDigests);
                 }
             });
 
@@ -203,6 +219,24 @@ public class SnapshotSaveAPI
             SNAP_LOG.debug("Registering transaction id " + partitionTxnId + " for " + TxnEgo.getPartitionId(partitionTxnId));
             m_partitionLastSeenTransactionIds.put(partitionId, partitionTxnId);
             m_remoteDataCenterLastIds.put(partitionId, perSiteRemoteDataCenterDrIds);
+            if (format == SnapshotFormat.NATIVE) {
+                final boolean incremental = finalJsData != null &&
+                        finalJsData.optBoolean(SnapshotUtil.JSON_INCREMENTAL, false) &&
+                        SnapshotPathType.valueOf(pathType) == SnapshotPathType.SNAP_PATH;
+                final File stateFile = IncrementalSnapshotTracker.getStateFile(file_path, context.getHostId());
+                Map<Integer, Long> tableChangeStamps = new HashMap<Integer, Long>();
+                Map<Integer, Long> tableContentDigests = new HashMap<Integer, Long>();
+                for (Table table : SnapshotUtil.getTablesToSave(context.getDatabase())) {
+                    tableChangeStamps.put(table.getRelativeIndex(),
+                            context.getTableChangeStamp(table.getRelativeIndex()));
+                    if (incremental && IncrementalSnapshotTracker.needsContentDigest(stateFile, table.getTypeName())) {
+                        tableContentDigests.put(table.getRelativeIndex(),
+                                context.getTableContentDigest(table.getRelativeIndex()));
+                    }
+                }
+                m_partitionTableChangeStamps.put(partitionId, tableChangeStamps);
+                m_partitionTableContentDigests.put(partitionId, tableContentDigests);
+            }
         }
 
         boolean runPostTasks = false;
@@ -484,15 +518,20 @@ public class SnapshotSaveAPI
             ExtensibleSnapshotDigestData extraSnapshotData,
             SiteTracker tracker,
             HashinatorSnapshotData hashinatorData,
-            long timestamp)
+            long timestamp,
+            Map<Integer, Map<Integer, Long>> partitionTableChangeStamps,
+            Map<Integer, Map<Integer, Long>> partitionTableContentDigests)
     {
         SnapshotWritePlan plan;
         if (format == SnapshotFormat.NATIVE) {
-            plan = new NativeSnapshotWritePlan();
+            plan = new NativeSnapshotWritePlan(partitionTableChangeStamps, partitionTableContentDigests);
         }
         else if (format == SnapshotFormat.CSV) {
             plan = new CSVSnapshotWritePlan();
         }
+        else if (format == SnapshotFormat.COLUMNAR) {
+            plan = new CSVSnapshotWritePlan(SnapshotFormat.COLUMNAR);
+        }
         else if (format == SnapshotFormat.STREAM) {
             plan = new StreamSnapshotWritePlan();
         }
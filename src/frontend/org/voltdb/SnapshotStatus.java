@@ -116,6 +116,10 @@ public class SnapshotStatus extends StatsSource {
         columns.add(new ColumnInfo("THROUGHPUT", VoltType.FLOAT));
         columns.add(new ColumnInfo("RESULT", VoltType.STRING));
         columns.add(new ColumnInfo("TYPE", VoltType.STRING));
+        // Snapshot writers of the host, shared by all the snapshots
+        columns.add(new ColumnInfo("WRITE_THREADS", VoltType.INTEGER));
+        columns.add(new ColumnInfo("WRITE_QUEUE_DEPTH", VoltType.INTEGER));
+        columns.add(new ColumnInfo("WRITE_THROUGHPUT", VoltType.FLOAT));
     }
 
     @SuppressWarnings("unchecked")
@@ -145,6 +149,9 @@ public class SnapshotStatus extends StatsSource {
         rowValues[columnNameToIndex.get("THROUGHPUT")] = throughput;
         rowValues[columnNameToIndex.get("RESULT")] = t.error == null ? "SUCCESS" : "FAILURE";
         rowValues[columnNameToIndex.get("TYPE")] = getSnapshotType(s.path);
+        rowValues[columnNameToIndex.get("WRITE_THREADS")] = SnapshotWriteService.writerCount();
+        rowValues[columnNameToIndex.get("WRITE_QUEUE_DEPTH")] = SnapshotWriteService.queueDepth();
+        rowValues[columnNameToIndex.get("WRITE_THROUGHPUT")] = SnapshotWriteService.throughput();
         super.updateStatsRow(rowKey, rowValues);
     }
 
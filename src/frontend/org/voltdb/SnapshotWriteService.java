@@ -0,0 +1,139 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2017 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.voltcore.logging.VoltLogger;
+import org.voltcore.utils.CoreUtils;
+
+import com.google_voltpatches.common.util.concurrent.ListeningExecutorService;
+
+/**
+ * The threads that write snapshot data to disk, shared by all the
+ * {@link DefaultSnapshotDataTarget}s of the process. Each target is given
+ * one single-threaded writer for its whole life, so the writes to one file
+ * stay in order while different files are written in parallel.
+ *
+ * By default there are SNAPSHOT_WRITE_THREADS writers and targets are
+ * handed out round robin. With SNAPSHOT_WRITE_THREAD_PER_FILESYSTEM set,
+ * there is instead one writer for each filesystem that snapshot files are
+ * written to.
+ */
+final class SnapshotWriteService {
+    private static final VoltLogger SNAP_LOG = new VoltLogger("SNAPSHOT");
+
+    static final int SNAPSHOT_WRITE_THREADS = Math.max(1, Integer.getInteger("SNAPSHOT_WRITE_THREADS", 1));
+    static final boolean SNAPSHOT_WRITE_THREAD_PER_FILESYSTEM = Boolean.getBoolean("SNAPSHOT_WRITE_THREAD_PER_FILESYSTEM");
+    // Lets tests use a writer per filesystem without setting the property for the whole JVM
+    static volatile boolean m_perFileSystemForTest = false;
+
+    private static final List<ListeningExecutorService> m_writers = new ArrayList<ListeningExecutorService>();
+    private static final Map<FileStore, ListeningExecutorService> m_writersByFileStore =
+            new HashMap<FileStore, ListeningExecutorService>();
+    private static int m_nextWriter = 0;
+
+    // Write metrics, guarded by the class lock
+    private static int m_queueDepth = 0;
+    private static long m_burstStartMillis = 0;
+    private static long m_burstEndMillis = 0;
+    private static long m_burstBytes = 0;
+
+    private SnapshotWriteService() {}
+
+    /**
+     * Pick the writer for a new snapshot file.
+     */
+    static ListeningExecutorService writerFor(File file) {
+        return writerFor(file, SNAPSHOT_WRITE_THREAD_PER_FILESYSTEM || m_perFileSystemForTest);
+    }
+
+    static synchronized ListeningExecutorService writerFor(File file, boolean perFileSystem) {
+        if (perFileSystem) {
+            try {
+                FileStore store = Files.getFileStore(file.toPath());
+                ListeningExecutorService writer = m_writersByFileStore.get(store);
+                if (writer == null) {
+                    writer = CoreUtils.getListeningSingleThreadExecutor("Snapshot write service " + store.name() + " ");
+                    m_writersByFileStore.put(store, writer);
+                    m_writers.add(writer);
+                }
+                return writer;
+            } catch (IOException e) {
+                SNAP_LOG.warn("Unable to find the filesystem of snapshot file " + file +
+                        ", using a shared snapshot writer", e);
+            }
+        }
+        if (m_writers.size() < SNAPSHOT_WRITE_THREADS) {
+            ListeningExecutorService writer =
+                    CoreUtils.getListeningSingleThreadExecutor("Snapshot write service " + m_writers.size() + " ");
+            m_writers.add(writer);
+            return writer;
+        }
+        ListeningExecutorService writer = m_writers.get(m_nextWriter % m_writers.size());
+        m_nextWriter = (m_nextWriter + 1) % m_writers.size();
+        return writer;
+    }
+
+    static synchronized void writeQueued() {
+        if (m_queueDepth++ == 0) {
+            // The writers were idle, start measuring a new burst of writes
+            m_burstStartMillis = System.currentTimeMillis();
+            m_burstEndMillis = 0;
+            m_burstBytes = 0;
+        }
+    }
+
+    static synchronized void writeCompleted(long bytes) {
+        m_burstBytes += bytes;
+        if (--m_queueDepth == 0) {
+            m_burstEndMillis = System.currentTimeMillis();
+        }
+    }
+
+    static synchronized int writerCount() {
+        return m_writers.size();
+    }
+
+    /**
+     * Writes queued or in progress on all the writers
+     */
+    static synchronized int queueDepth() {
+        return m_queueDepth;
+    }
+
+    /**
+     * Megabytes per second written by all the writers together, from the
+     * moment they last became busy until now or until they went idle.
+     */
+    static synchronized double throughput() {
+        if (m_burstStartMillis == 0) {
+            return 0;
+        }
+        long end = m_burstEndMillis == 0 ? System.currentTimeMillis() : m_burstEndMillis;
+        double seconds = Math.max(1, end - m_burstStartMillis) / 1000.0;
+        return (m_burstBytes / (1024.0 * 1024.0)) / seconds;
+    }
+}
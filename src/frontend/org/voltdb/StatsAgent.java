@@ -525,6 +525,9 @@ public class StatsAgent extends OpsAgent
         case IMPORTER:
             stats = collectStats(StatsSelector.IMPORTER, interval);
             break;
+        case EXPORT:
+            stats = collectStats(StatsSelector.EXPORT, interval);
+            break;
         case DRROLE:
             stats = collectStats(StatsSelector.DRROLE, false);
             break;
@@ -57,5 +57,6 @@ public enum StatsSelector {
     CPU,            // Return CPU Stats
 
     COMMANDLOG,     // return number of outstanding bytes and txns on this node
-    IMPORTER
+    IMPORTER,
+    EXPORT          // return throughput, lag and memory use of the export streams on this node
 }
@@ -92,6 +92,16 @@ public interface SystemProcedureExecutionContext {
 
     boolean activateTableStream(int tableId, TableStreamType type, boolean undo, byte[] predicates);
 
+    /**
+     * The change stamp of a table in this site's EE, it moves whenever the table is modified.
+     */
+    long getTableChangeStamp(int tableId);
+
+    /**
+     * The order independent content digest of a table in this site's EE, it scans the whole table.
+     */
+    long getTableContentDigest(int tableId);
+
     public void forceAllDRNodeBuffersToDisk(final boolean nofsync);
 
     public DRIdempotencyResult isExpectedApplyBinaryLog(int producerClusterId, int producerPartitionId,
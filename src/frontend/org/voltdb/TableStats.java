@@ -48,5 +48,11 @@ public class TableStats extends SiteStatsSource {
         columns.add(new ColumnInfo("STRING_DATA_MEMORY", VoltType.BIGINT));
         columns.add(new ColumnInfo("TUPLE_LIMIT", VoltType.INTEGER));
         columns.add(new ColumnInfo("PERCENT_FULL", VoltType.INTEGER));
+        columns.add(new ColumnInfo("COMPACTION_RECLAIMED_MEMORY", VoltType.BIGINT));
+        columns.add(new ColumnInfo("COMPACTION_MAX_PAUSE", VoltType.BIGINT));
+        columns.add(new ColumnInfo("MINMAX_FALLBACKS", VoltType.BIGINT));
+        columns.add(new ColumnInfo("MINMAX_FALLBACK_SCANS", VoltType.BIGINT));
+        columns.add(new ColumnInfo("TTL_ROWS_EXPIRED", VoltType.BIGINT));
+        columns.add(new ColumnInfo("TTL_BACKLOG", VoltType.BIGINT));
     }
 }
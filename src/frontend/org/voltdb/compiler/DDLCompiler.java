@@ -36,6 +36,7 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 
 import org.apache.commons.lang3.StringUtils;
@@ -92,6 +93,7 @@ public class DDLCompiler {
 
     private static final int MAX_COLUMNS = 1024; // KEEP THIS < MAX_PARAM_COUNT to enable default CRUD update.
     private static final int MAX_ROW_SIZE = 1024 * 1024 * 2;
+    private static final int DEFAULT_TTL_BATCH_SIZE = 1000;
     private static final int MAX_BYTES_PER_UTF8_CHARACTER = 4;
 
     private static final String TABLE = "TABLE";
@@ -100,6 +102,7 @@ public class DDLCompiler {
     private static final String REPLICATE = "REPLICATE";
     private static final String ROLE = "ROLE";
     private static final String DR = "DR";
+    private static final String TTL = "TTL";
 
     private final HSQLInterface m_hsql;
     private final VoltCompiler m_compiler;
@@ -409,6 +412,14 @@ public class DDLCompiler {
             m_compiler.addWarn(String.format("Partition column %s was dropped from table %s.  Attempting to change table to replicated.", partitionCol, tableElement.attributes.get("name")));
             tableElement.attributes.remove("partitioncolumn");
         }
+        // likewise drop the time to live of a table that lost its ttl column
+        String ttlCol = tableElement.attributes.get("ttlcolumn");
+        if (ttlCol != null && removedColumns.contains(ttlCol)) {
+            m_compiler.addWarn(String.format("TTL column %s was dropped from table %s.  Rows will no longer be expired.", ttlCol, tableElement.attributes.get("name")));
+            tableElement.attributes.remove("ttlcolumn");
+            tableElement.attributes.remove("ttlseconds");
+            tableElement.attributes.remove("ttlbatchsize");
+        }
     }
 
     /**
@@ -927,6 +938,71 @@ public class DDLCompiler {
             return true;
         }
 
+        // matches if it is TTL TABLE <table-name> DISABLE
+        //                or TTL TABLE <table-name> ON COLUMN <column-name> <value> [<unit>] [BATCH_SIZE <rows>]
+        // group 1 -- table name
+        // group 2 -- NOT NULL: disable ttl
+        // group 3 -- column name
+        // group 4 -- time to live
+        // group 5 -- time unit, SECONDS if NULL
+        // group 6 -- batch size, default if NULL
+        statementMatcher = SQLParser.matchTTLTable(statement);
+        if (statementMatcher.matches()) {
+            String tableName = checkIdentifierStart(statementMatcher.group(1), statement);
+            VoltXMLElement tableXML = m_schema.findChild("table", tableName.toUpperCase());
+            if (tableXML == null) {
+                throw m_compiler.new VoltCompilerException(String.format(
+                        "While configuring ttl, table %s was not present in the catalog.", tableName));
+            }
+            if (tableXML.attributes.containsKey("export")) {
+                throw m_compiler.new VoltCompilerException(String.format(
+                        "Invalid TTL statement: table %s is a stream", tableName));
+            }
+            if (tableXML.attributes.containsKey("query")) {
+                throw m_compiler.new VoltCompilerException(String.format(
+                        "Invalid TTL statement: table %s is a materialized view", tableName));
+            }
+            if (statementMatcher.group(2) != null) {
+                tableXML.attributes.remove("ttlcolumn");
+                tableXML.attributes.remove("ttlseconds");
+                tableXML.attributes.remove("ttlbatchsize");
+                return true;
+            }
+
+            String columnName = checkIdentifierStart(statementMatcher.group(3), statement);
+            String unit = statementMatcher.group(5);
+            long seconds;
+            try {
+                seconds = Math.multiplyExact(Long.parseLong(statementMatcher.group(4)),
+                        unit == null ? 1 : TimeUnit.valueOf(unit.toUpperCase()).toSeconds(1));
+            } catch (NumberFormatException | ArithmeticException e) {
+                // Too many digits for a long, certainly out of range
+                seconds = Long.MAX_VALUE;
+            }
+            if (seconds <= 0 || seconds > Integer.MAX_VALUE) {
+                throw m_compiler.new VoltCompilerException(String.format(
+                        "Invalid TTL statement: time to live for table %s must be between 1 and %d seconds",
+                        tableName, Integer.MAX_VALUE));
+            }
+            long batchSize = DEFAULT_TTL_BATCH_SIZE;
+            if (statementMatcher.group(6) != null) {
+                try {
+                    batchSize = Long.parseLong(statementMatcher.group(6));
+                } catch (NumberFormatException e) {
+                    batchSize = Long.MAX_VALUE;
+                }
+                if (batchSize <= 0 || batchSize > Integer.MAX_VALUE) {
+                    throw m_compiler.new VoltCompilerException(String.format(
+                            "Invalid TTL statement: BATCH_SIZE for table %s must be a positive integer",
+                            tableName));
+                }
+            }
+            tableXML.attributes.put("ttlcolumn", columnName.toUpperCase());
+            tableXML.attributes.put("ttlseconds", Long.toString(seconds));
+            tableXML.attributes.put("ttlbatchsize", Long.toString(batchSize));
+            return true;
+        }
+
         statementMatcher = SQLParser.matchSetGlobalParam(statement);
         if (statementMatcher.matches()) {
             String name = statementMatcher.group(1).toUpperCase();
@@ -985,6 +1061,14 @@ public class DDLCompiler {
                     statement.substring(0,statement.length()-1))); // remove trailing semicolon
         }
 
+        if (TTL.equals(commandPrefix)) {
+            throw m_compiler.new VoltCompilerException(String.format(
+                    "Invalid TTL TABLE statement: \"%s\", " +
+                    "expected syntax: TTL TABLE <table> ON COLUMN <column> <value> [SECONDS|MINUTES|HOURS|DAYS] [BATCH_SIZE <rows>] " +
+                    "or: TTL TABLE <table> DISABLE",
+                    statement.substring(0,statement.length()-1))); // remove trailing semicolon
+        }
+
         // Not a VoltDB-specific DDL statement.
         return false;
     }
@@ -1606,6 +1690,47 @@ public class DDLCompiler {
         }
     }
 
+    /**
+     * Validate the TTL column of a table and record its time to live in the catalog.
+     * Expiration walks the oldest rows first, so a tree index must lead with the
+     * column; without one every batch would have to scan the table.
+     */
+    private void addTimeToLiveToCatalog(Table table, VoltXMLElement node, Column ttlColumn)
+            throws VoltCompilerException {
+        final String ttlColumnName = node.attributes.get("ttlcolumn");
+        if (ttlColumn == null) {
+            throw m_compiler.new VoltCompilerException(String.format(
+                    "Invalid TTL statement: column %s does not exist in table %s",
+                    ttlColumnName, table.getTypeName()));
+        }
+        if (ttlColumn.getType() != VoltType.TIMESTAMP.getValue()) {
+            throw m_compiler.new VoltCompilerException(String.format(
+                    "Invalid TTL statement: column %s of table %s must be of type TIMESTAMP",
+                    ttlColumnName, table.getTypeName()));
+        }
+        table.setTtlcolumn(ttlColumn);
+        table.setTtlseconds(Integer.parseInt(node.attributes.get("ttlseconds")));
+        table.setTtlbatchsize(Integer.parseInt(node.attributes.get("ttlbatchsize")));
+
+        for (Index index : table.getIndexes()) {
+            if (index.getType() != IndexType.BALANCED_TREE.getValue() &&
+                    index.getType() != IndexType.ADAPTIVE_RADIX_TREE.getValue()) {
+                continue;
+            }
+            if (!index.getExpressionsjson().isEmpty() || !index.getPredicatejson().isEmpty()) {
+                continue;
+            }
+            for (ColumnRef colRef : index.getColumns()) {
+                if (colRef.getIndex() == 0 && colRef.getColumn() == ttlColumn) {
+                    return;
+                }
+            }
+        }
+        throw m_compiler.new VoltCompilerException(String.format(
+                "Invalid TTL statement: table %s needs a tree index whose first column is TTL column %s",
+                table.getTypeName(), ttlColumnName));
+    }
+
     private void addTableToCatalog(Database db, VoltXMLElement node, boolean isXDCR)
             throws VoltCompilerException {
         assert node.name.equals("table");
@@ -1713,6 +1838,11 @@ public class DDLCompiler {
             }
         }
 
+        final String ttlColumnName = node.attributes.get("ttlcolumn");
+        if (ttlColumnName != null) {
+            addTimeToLiveToCatalog(table, node, columnMap.get(ttlColumnName));
+        }
+
         table.setSignature(CatalogUtil.getSignatureForTable(name, columnTypes));
 
         /*
@@ -1894,6 +2024,25 @@ public class DDLCompiler {
         column.setInbytes(inBytes);
         column.setSize(size);
 
+        if (Boolean.valueOf(node.attributes.get("dictionary"))) {
+            if (type != VoltType.STRING && type != VoltType.VARBINARY) {
+                String msg = "DICTIONARY column " + name + " in table " + table.getTypeName() +
+                        " has type " + type.toSQLString() + ", but only VARCHAR and VARBINARY columns" +
+                        " can be DICTIONARY columns.";
+                throw compiler.new VoltCompilerException(msg);
+            }
+            // Values shorter than 64 bytes are stored in the tuple itself,
+            // so there is nothing to share.
+            int maxBytes = (type == VoltType.STRING && !inBytes) ? size * 4 : size;
+            if (maxBytes < 64) {
+                String msg = String.format("DICTIONARY has no effect on column %s in table %s, " +
+                        "because its values are stored inline in each row.",
+                        name, table.getTypeName());
+                compiler.addWarn(msg);
+            }
+            column.setDictionary(true);
+        }
+
         column.setDefaultvalue(defaultvalue);
         if (defaulttype != null)
             column.setDefaulttype(Integer.parseInt(defaulttype));
@@ -2123,9 +2272,26 @@ public class DDLCompiler {
         //   3. it does not have an autogenerated name.
         // We don't think about the column type here, but see
         // below.
+        // Likewise, the index is an adaptive radix tree iff it has "radix"
+        // but not "tree" or "hash" in a name that is not autogenerated.
+        // A unique integer hash index with "openhash" in its name uses the
+        // open-addressing hash table in the EE.
         if (has_geo_col) {
             index.setType(IndexType.COVERING_CELL_INDEX.getValue());
         }
+        else if (( ! indexNameNoCase.contains("tree") ) && ( ! indexNameNoCase.contains("hash") ) &&
+                 indexNameNoCase.contains("radix") &&
+                 ! indexNameNoCase.startsWith(HSQLInterface.AUTO_GEN_PRIMARY_KEY_PREFIX.toLowerCase())) {
+            // Radix tree keys are the bytes of integer values.
+            if (has_nonint_col) {
+                String emsg = "Index " + name + " in table " + table.getTypeName() +
+                             " uses a non-integer column " + nonint_col_name +
+                             ", but radix tree indexes only support integer columns";
+                throw compiler.new VoltCompilerException(emsg);
+            }
+            index.setType(IndexType.ADAPTIVE_RADIX_TREE.getValue());
+            index.setCountable(true);
+        }
         else if (( ! indexNameNoCase.contains("tree") ) && indexNameNoCase.contains("hash") &&
                  ! indexNameNoCase.startsWith(HSQLInterface.AUTO_GEN_PRIMARY_KEY_PREFIX.toLowerCase())) {
             // If the column type is not an integer, we cannot
@@ -27,6 +27,7 @@ import java.util.TreeSet;
 import org.hsqldb_voltpatches.HSQLInterface;
 import org.hsqldb_voltpatches.HSQLInterface.HSQLParseException;
 import org.hsqldb_voltpatches.VoltXMLElement;
+import org.json_voltpatches.JSONArray;
 import org.json_voltpatches.JSONException;
 import org.json_voltpatches.JSONObject;
 import org.voltdb.VoltType;
@@ -66,6 +67,11 @@ import org.voltdb.utils.Encoder;
 
 public class MaterializedViewProcessor {
 
+    // Add a hidden index for each min / max column of a single table view that no index
+    // supports. Off unless asked for, as every such index slows down writes to the source table.
+    static boolean ADD_MINMAX_INDEXES =
+            Boolean.valueOf(System.getProperty("org.voltdb.matviewminmaxindexes", "false"));
+
     private final VoltCompiler m_compiler;
     private final HSQLInterface m_hsql;
 
@@ -336,7 +342,17 @@ public class MaterializedViewProcessor {
                 }
 
                 // Find index for each min/max aggCol/aggExpr (ENG-6511 and ENG-8512)
+                // Streams never delete, so they don't need a hidden index.
+                boolean addMinMaxIndexes = ADD_MINMAX_INDEXES && ! exportTableNames.contains(srcTable.getTypeName());
+                List<AbstractExpression> groupbyColExprs = new ArrayList<>();
+                for (ParsedColInfo col : stmt.m_groupByColumns) {
+                    groupbyColExprs.add(col.expression);
+                }
                 for (Integer i=0; i<minMaxAggs.size(); ++i) {
+                    if (addMinMaxIndexes) {
+                        addIndexForMatviewMinOrMax(matviewinfo, i, srcTable, groupbyExprs, groupbyColExprs,
+                                                   minMaxAggs.get(i));
+                    }
                     Index found = findBestMatchIndexForMatviewMinOrMax(matviewinfo, srcTable, groupbyExprs, minMaxAggs.get(i));
                     IndexRef refFound = matviewinfo.getIndexforminmax().add(i.toString());
                     if (found != null) {
@@ -749,6 +765,14 @@ public class MaterializedViewProcessor {
         for (Table table : db.getTables()) {
             for (MaterializedViewInfo mvInfo : table.getViews()) {
                 for (Statement stmt : mvInfo.getFallbackquerystmts()) {
+                    try {
+                        if (isMinMaxRefreshedByIndexLookup(mvInfo, stmt.getTypeName())) {
+                            continue;
+                        }
+                    } catch (JSONException e) {
+                        throw m_compiler.new VoltCompilerException("Unexpected error reading the indexes " +
+                                "used to refresh materialized view " + mvInfo.getTypeName() + ": " + e.toString());
+                    }
                     // If there is any statement in the fallBackQueryStmts map, then
                     // there must be some min/max columns.
                     // Only check if the plan uses index scan.
@@ -939,6 +963,128 @@ public class MaterializedViewProcessor {
         return candidate;
     }
 
+    // If no index on the source table covers both the group by columns and the min / max
+    // argument, add a hidden one which does. A delete of the current min / max value can
+    // then find the fallback value with one index lookup instead of scanning the whole
+    // group or the whole table. Queries are not planned with the hidden indexes.
+    // groupbyExprs is null for simple group by columns, as elsewhere, while
+    // groupbyColExprs always has the expressions of the group by columns.
+    private void addIndexForMatviewMinOrMax(MaterializedViewInfo matviewinfo, int minMaxAggIdx,
+            Table srcTable, List<AbstractExpression> groupbyExprs, List<AbstractExpression> groupbyColExprs,
+            AbstractExpression minMaxAggExpr) throws VoltCompilerException {
+        Index found = findBestMatchIndexForMatviewMinOrMax(matviewinfo, srcTable, groupbyExprs, minMaxAggExpr);
+        int groupbyCount = (groupbyExprs == null) ? matviewinfo.getGroupbycols().size() : groupbyExprs.size();
+        try {
+            if (found != null && getIndexKeyCount(found) > groupbyCount) {
+                return;
+            }
+        } catch (JSONException e) {
+            throw m_compiler.new VoltCompilerException("Unexpected error reading the expressions " +
+                    "of index " + found.getTypeName() + ": " + e.toString());
+        }
+
+        List<Column> indexedColumns = new ArrayList<>();
+        String indexedExprsJson = null;
+        if (groupbyExprs == null && minMaxAggExpr instanceof TupleValueExpression) {
+            List<ColumnRef> groupbyColRefs =
+                CatalogUtil.getSortedCatalogItems(matviewinfo.getGroupbycols(), "index");
+            for (ColumnRef groupbyColRef : groupbyColRefs) {
+                indexedColumns.add(groupbyColRef.getColumn());
+            }
+            String aggColumnName = ((TupleValueExpression)minMaxAggExpr).getColumnName();
+            indexedColumns.add(srcTable.getColumns().getIgnoreCase(aggColumnName));
+            for (Column column : indexedColumns) {
+                VoltType columnType = VoltType.get((byte)column.getType());
+                if ( ! columnType.isIndexable() || columnType == VoltType.GEOGRAPHY) {
+                    return;
+                }
+            }
+        }
+        else {
+            List<AbstractExpression> indexedExprs = new ArrayList<>(groupbyColExprs);
+            indexedExprs.add(minMaxAggExpr);
+            for (AbstractExpression expr : indexedExprs) {
+                if ( ! expr.isValueTypeIndexable(new StringBuffer())) {
+                    return;
+                }
+                for (TupleValueExpression tve : expr.findAllTupleValueSubexpressions()) {
+                    Column column = srcTable.getColumns().getIgnoreCase(tve.getColumnName());
+                    if ( ! indexedColumns.contains(column)) {
+                        indexedColumns.add(column);
+                    }
+                }
+            }
+            if ( ! AbstractExpression.validateExprsForIndexesAndMVs(indexedExprs, new StringBuffer())) {
+                return;
+            }
+            try {
+                indexedExprsJson = DDLCompiler.convertToJSONArray(indexedExprs);
+            } catch (JSONException e) {
+                throw m_compiler.new VoltCompilerException("Unexpected error serializing non-column " +
+                        "expressions for the min / max index: " + e.toString());
+            }
+        }
+
+        // View names are unique and the suffix has no underscore, so the name is too.
+        // It only depends on the schema, so recompiling the same schema gives the same name.
+        String indexName = HSQLInterface.AUTO_GEN_MATVIEW_MINMAX_IDX_PREFIX +
+                matviewinfo.getTypeName() + "_" + minMaxAggIdx;
+        if (srcTable.getIndexes().get(indexName) != null) {
+            throw m_compiler.new VoltCompilerException(String.format(
+                    "Index name %s on table %s is reserved for the min / max columns of materialized view %s",
+                    indexName, srcTable.getTypeName(), matviewinfo.getTypeName()));
+        }
+
+        Index index = srcTable.getIndexes().add(indexName);
+        index.setType(IndexType.BALANCED_TREE.getValue());
+        index.setCountable(true);
+        index.setUnique(false);
+        index.setAssumeunique(false);
+        // For expression indexes, the columns are the ones whose updates change the index.
+        for (int i = 0; i < indexedColumns.size(); i++) {
+            ColumnRef cref = index.getColumns().add(String.valueOf(i));
+            cref.setColumn(indexedColumns.get(i));
+            cref.setIndex(i);
+        }
+        if (indexedExprsJson != null) {
+            index.setExpressionsjson(indexedExprsJson);
+        }
+        m_compiler.addInfo(String.format(
+                "Added hidden index %s on table %s to refresh min / max column %d of materialized view %s " +
+                "without a scan. It adds to the cost of every write to the table.",
+                indexName, srcTable.getTypeName(), minMaxAggIdx, matviewinfo.getTypeName()));
+    }
+
+    /**
+     * Return true if the EE refreshes a min / max column of a single table view
+     * with one lookup on an index covering the group by columns and the min / max
+     * argument. The fallback query plan is not used then.
+     */
+    public static boolean isMinMaxRefreshedByIndexLookup(MaterializedViewInfo mvInfo, String minMaxAggKey)
+            throws JSONException {
+        IndexRef indexRef = mvInfo.getIndexforminmax().get(minMaxAggKey);
+        if (indexRef == null) {
+            return false;
+        }
+        Table srcTable = (Table) mvInfo.getParent();
+        Index index = srcTable.getIndexes().get(indexRef.getName());
+        if (index == null) {
+            return false;
+        }
+        String groupbyExprsJson = mvInfo.getGroupbyexpressionsjson();
+        int groupbyCount = groupbyExprsJson.isEmpty() ?
+                mvInfo.getGroupbycols().size() : new JSONArray(groupbyExprsJson).length();
+        return getIndexKeyCount(index) > groupbyCount;
+    }
+
+    private static int getIndexKeyCount(Index index) throws JSONException {
+        String expressionjson = index.getExpressionsjson();
+        if (expressionjson.isEmpty()) {
+            return index.getColumns().size();
+        }
+        return new JSONArray(expressionjson).length();
+    }
+
     private static void setTypeAttributesForColumn(Column column, AbstractExpression expr) {
         VoltType voltTy = expr.getValueType();
         column.setType(voltTy.getValue());
@@ -27,6 +27,7 @@ import org.voltdb.catalog.MaterializedViewHandlerInfo;
 import org.voltdb.catalog.MaterializedViewInfo;
 import org.voltdb.catalog.Statement;
 import org.voltdb.catalog.Table;
+import org.voltdb.compiler.MaterializedViewProcessor;
 import org.voltdb.types.ExpressionType;
 import org.voltdb.utils.CatalogUtil;
 import org.voltdb.utils.Encoder;
@@ -96,7 +97,8 @@ public class ViewExplainer {
                     CatalogMap<IndexRef> hardCodedIndicesForSingleTableView = mvInfo.getIndexforminmax();
                     String hardCodedIndexName = hardCodedIndicesForSingleTableView.get(String.valueOf(minMaxAggIdx)).getName();
                     String indexNameUsedInStatement = getIndexNameUsedInStatement(fallBackQueryStmt);
-                    if (! indexNameUsedInStatement.equalsIgnoreCase(hardCodedIndexName)) {
+                    if (! MaterializedViewProcessor.isMinMaxRefreshedByIndexLookup(mvInfo, String.valueOf(minMaxAggIdx)) &&
+                            ! indexNameUsedInStatement.equalsIgnoreCase(hardCodedIndexName)) {
                         plan = Encoder.hexDecodeToString(fallBackQueryStmt.getExplainplan());
                     }
                     // If we do not use execution plan, see which built-in method is used.
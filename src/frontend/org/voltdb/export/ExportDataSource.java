@@ -24,6 +24,8 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.concurrent.Callable;
@@ -61,6 +63,7 @@ import com.google_voltpatches.common.util.concurrent.ListeningExecutorService;
 import com.google_voltpatches.common.util.concurrent.SettableFuture;
 import java.nio.charset.StandardCharsets;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.hadoop_voltpatches.util.PureJavaCrc32;
 import org.voltcore.utils.CoreUtils;
 
@@ -114,6 +117,26 @@ public class ExportDataSource implements Comparable<ExportDataSource> {
     private final LinkedTransferQueue<RunnableWithES> m_queuedActions = new LinkedTransferQueue<>();
     private RunnableWithES m_firstAction = null;
 
+    /*
+     * Number of committed blocks polled from overflow into memory ahead of the
+     * processor, so a processor decoding several blocks in parallel does not
+     * wait on the disk for each of them.
+     */
+    static final int EXPORT_PREFETCH_BLOCKS = Integer.getInteger("EXPORT_PREFETCH_BLOCKS", 4);
+
+    // Polled blocks not yet discarded by the processor, in poll order. Only touched on the executor.
+    private final ArrayDeque<AckingContainer> m_outstandingPolls = new ArrayDeque<AckingContainer>();
+    /*
+     * End USO and arrival time of the pushed blocks that are not released yet. When no processor
+     * is draining the source, blocks past the first MAX_TRACKED_PUSHES are folded into the newest
+     * entry, which keeps its arrival time, so the lag of the oldest block stays exact.
+     */
+    static final int MAX_TRACKED_PUSHES = 1024;
+    private final ArrayDeque<Pair<Long, Long>> m_pushTimes = new ArrayDeque<Pair<Long, Long>>();
+    private final AtomicLong m_tuplesAcked = new AtomicLong(0);
+    private volatile long m_bytesInMemory = 0;
+    private volatile long m_oldestPendingPushTime = 0;
+
     /**
      * Create a new data source.
      * @param db
@@ -343,6 +366,77 @@ public class ExportDataSource implements Comparable<ExportDataSource> {
         }
         m_lastReleaseOffset = releaseOffset;
         m_firstUnpolledUso = Math.max(m_firstUnpolledUso, lastUso);
+
+        while (!m_pushTimes.isEmpty() && m_pushTimes.peek().getFirst() <= releaseOffset) {
+            m_pushTimes.poll();
+        }
+        m_oldestPendingPushTime = m_pushTimes.isEmpty() ? 0 : m_pushTimes.peek().getSecond();
+        m_bytesInMemory = m_committedBuffers.memoryBytes();
+    }
+
+    private synchronized void notePushedBlock(long endUso) {
+        if (m_pushTimes.isEmpty()) {
+            m_oldestPendingPushTime = System.currentTimeMillis();
+            m_pushTimes.offer(Pair.of(endUso, m_oldestPendingPushTime));
+        } else if (m_pushTimes.size() < MAX_TRACKED_PUSHES) {
+            m_pushTimes.offer(Pair.of(endUso, System.currentTimeMillis()));
+        } else {
+            final Pair<Long, Long> newest = m_pushTimes.pollLast();
+            m_pushTimes.offer(Pair.of(endUso, newest.getSecond()));
+        }
+        m_bytesInMemory = m_committedBuffers.memoryBytes();
+    }
+
+    private synchronized void clearPushTimes() {
+        m_pushTimes.clear();
+        m_oldestPendingPushTime = 0;
+    }
+
+    /**
+     * Forget the blocks handed to the current processor. It is called when that processor
+     * goes away or the data it polled is truncated. Containers it still holds are no longer
+     * tracked, so discarding them later does not ack, and the next processor starts with
+     * acks that are not held back by blocks it never saw.
+     */
+    private void resetOutstandingPolls() {
+        m_outstandingPolls.clear();
+    }
+
+    int getOutstandingPollCount() {
+        return m_outstandingPolls.size();
+    }
+
+    synchronized int getTrackedPushCount() {
+        return m_pushTimes.size();
+    }
+
+    /**
+     * Total number of rows the processor has finished with, for statistics
+     */
+    public long getTuplesAcked() {
+        return m_tuplesAcked.get();
+    }
+
+    /**
+     * Milliseconds since the oldest row not yet acked arrived, 0 if everything has been acked
+     */
+    public long getLagMillis() {
+        final long oldest = m_oldestPendingPushTime;
+        return oldest == 0 ? 0 : Math.max(0, System.currentTimeMillis() - oldest);
+    }
+
+    /**
+     * Bytes of committed export data held in memory by the source, including prefetched blocks
+     */
+    public long getBytesInMemory() {
+        return m_bytesInMemory;
+    }
+
+    /**
+     * Bytes of disk used by the overflow files of the source
+     */
+    public long getBytesOnDisk() {
+        return m_committedBuffers.diskBytes();
     }
 
     public String getDatabase() {
@@ -515,6 +609,7 @@ public class ExportDataSource implements Comparable<ExportDataSource> {
                                     deleted.set(true);
                                 }
                             }, uso, false));
+                    notePushedBlock(uso + buffer.capacity() - 8);
                 } catch (IOException e) {
                     VoltDB.crashLocalVoltDB("Unable to write to export overflow.", true, e);
                 }
@@ -603,6 +698,7 @@ public class ExportDataSource implements Comparable<ExportDataSource> {
             public void run() {
                 try {
                     m_committedBuffers.truncateToTxnId(txnId, m_nullArrayLength);
+                    resetOutstandingPolls();
                     if (m_committedBuffers.isEmpty() && m_endOfStream) {
                         if (m_pollFuture != null) {
                             m_pollFuture.set(null);
@@ -658,6 +754,8 @@ public class ExportDataSource implements Comparable<ExportDataSource> {
             @Override
             public void run() {
                 try {
+                    resetOutstandingPolls();
+                    clearPushTimes();
                     m_committedBuffers.closeAndDelete();
                     m_ackMailboxRefs.set(null);
                 } catch(IOException e) {
@@ -678,6 +776,8 @@ public class ExportDataSource implements Comparable<ExportDataSource> {
             @Override
             public void run() {
                 try {
+                    resetOutstandingPolls();
+                    clearPushTimes();
                     m_committedBuffers.close();
                     m_ackMailboxRefs.set(null);
                 } catch (IOException e) {
@@ -735,6 +835,7 @@ public class ExportDataSource implements Comparable<ExportDataSource> {
 
         try {
             StreamBlock first_unpolled_block = null;
+            final long firstUnpolledUso = m_firstUnpolledUso;
 
             if (m_endOfStream && m_committedBuffers.isEmpty()) {
                 //Returning null indicates end of stream
@@ -786,27 +887,62 @@ public class ExportDataSource implements Comparable<ExportDataSource> {
             if (first_unpolled_block == null) {
                 m_pollFuture = fut;
             } else {
+                final AckingContainer cont =
+                        new AckingContainer(first_unpolled_block.unreleasedContainer(),
+                                first_unpolled_block.uso() + first_unpolled_block.totalUso());
+                m_outstandingPolls.offer(cont);
+                boolean handedOut = false;
                 try {
-                    fut.set(
-                            new AckingContainer(first_unpolled_block.unreleasedContainer(),
-                                    first_unpolled_block.uso() + first_unpolled_block.totalUso()));
+                    handedOut = fut.set(cont);
                 } catch (RejectedExecutionException reex) {
                     //We are closing source.
                 }
                 m_pollFuture = null;
+                if (!handedOut) {
+                    //Nobody will discard it, don't let it hold back the acks and poll the block again
+                    m_outstandingPolls.removeLastOccurrence(cont);
+                    cont.drop();
+                    m_firstUnpolledUso = firstUnpolledUso;
+                    return;
+                }
+
+                //Read the blocks the processor is likely to ask for next while it works on this one
+                m_committedBuffers.prefetch(m_outstandingPolls.size() + EXPORT_PREFETCH_BLOCKS);
+                m_bytesInMemory = m_committedBuffers.memoryBytes();
             }
         } catch (Throwable t) {
             fut.setException(t);
         }
     }
 
+    /**
+     * Container handed to the processor by poll(). The processor may poll again
+     * before discarding it and may discard the containers it holds in any order,
+     * for example when it decodes them on several threads. Acks are cumulative,
+     * so the source only acks up to the end of the oldest container that is
+     * still held by the processor.
+     */
     class AckingContainer extends BBContainer {
         final long m_uso;
         final BBContainer m_backingCont;
+        final int m_tupleCount;
+        private boolean m_discarded = false;
+        private boolean m_dropped = false;
         public AckingContainer(BBContainer cont, long uso) {
             super(cont.b());
             m_uso = uso;
             m_backingCont = cont;
+            m_tupleCount = countTuples(cont.b());
+        }
+
+        /**
+         * Release a container that could not be handed to the processor, without acking it.
+         * Only called on the executor.
+         */
+        void drop() {
+            checkDoubleFree();
+            m_dropped = true;
+            m_backingCont.discard();
         }
 
         @Override
@@ -816,13 +952,27 @@ public class ExportDataSource implements Comparable<ExportDataSource> {
                 @Override
                 public void run() {
                     try {
+                        if (m_dropped) {
+                            return;
+                        }
                         m_backingCont.discard();
+                        m_discarded = true;
+                        long ackUso = Long.MIN_VALUE;
+                        while (!m_outstandingPolls.isEmpty() && m_outstandingPolls.peek().m_discarded) {
+                            final AckingContainer acked = m_outstandingPolls.poll();
+                            m_tuplesAcked.addAndGet(acked.m_tupleCount);
+                            ackUso = acked.m_uso;
+                        }
+                        if (ackUso == Long.MIN_VALUE) {
+                            //An older block is still being processed
+                            return;
+                        }
                         try {
                             if (!getLocalExecutorService().isShutdown()) {
-                                ackImpl(m_uso);
+                                ackImpl(ackUso);
                             }
                         } finally {
-                            forwardAckToOtherReplicas(m_uso);
+                            forwardAckToOtherReplicas(ackUso);
                         }
                     } catch (Exception e) {
                         exportLog.error("Error acking export buffer", e);
@@ -835,6 +985,23 @@ public class ExportDataSource implements Comparable<ExportDataSource> {
         }
     }
 
+    /*
+     * Rows in a block are prefixed by their length, little endian
+     */
+    private static int countTuples(ByteBuffer buf) {
+        final ByteBuffer b = buf.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int count = 0;
+        while (b.remaining() >= 4) {
+            final int rowLength = b.getInt();
+            if (rowLength < 0 || rowLength > b.remaining()) {
+                break;
+            }
+            b.position(b.position() + rowLength);
+            count++;
+        }
+        return count;
+    }
+
     private void forwardAckToOtherReplicas(long uso) {
         if (m_runEveryWhere && m_replicaRunning) {
            //we dont forward if we are running as replica in replicated export
@@ -956,6 +1123,8 @@ public class ExportDataSource implements Comparable<ExportDataSource> {
                         exportLog.info("Export generation " + getGeneration() + " Table " + getTableName() + " accepting mastership for partition " + getPartitionId());
                         if (m_onMastership != null) {
                             if (m_mastershipAccepted.compareAndSet(false, true)) {
+                                //The new processor polls from scratch
+                                resetOutstandingPolls();
                                 m_onMastership.run();
                             }
                         }
@@ -20,6 +20,7 @@ package org.voltdb.export;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -39,6 +40,7 @@ import org.voltcore.utils.COWSortedMap;
 import org.voltcore.utils.DBBPool;
 import org.voltcore.utils.Pair;
 import org.voltdb.CatalogContext;
+import org.voltdb.StatsSelector;
 import org.voltdb.VoltDB;
 import org.voltdb.catalog.CatalogMap;
 import org.voltdb.catalog.Cluster;
@@ -299,6 +301,9 @@ public class ExportManager
         CatalogMap<Connector> connectors = getConnectors(catalogContext);
 
         m_self = em;
+        if (VoltDB.instance().getStatsAgent() != null) {
+            VoltDB.instance().getStatsAgent().registerStatsSource(StatsSelector.EXPORT, 0, new ExportStats());
+        }
         if (hasEnabledConnectors(connectors)) {
             em.createInitialExportProcessor(catalogContext, connectors, true, partitions, isRejoin);
         } else {
@@ -622,6 +627,19 @@ public class ExportManager
         return m_connCount;
     }
 
+    /**
+     * Data sources of all the generations on this host, oldest generation first
+     */
+    public List<ExportDataSource> getDataSources() {
+        List<ExportDataSource> sources = new ArrayList<ExportDataSource>();
+        for (ExportGeneration generation : m_generations.values()) {
+            for (Map<String, ExportDataSource> partitionSources : generation.getDataSourceByPartition().values()) {
+                sources.addAll(partitionSources.values());
+            }
+        }
+        return sources;
+    }
+
     public synchronized void updateCatalog(CatalogContext catalogContext, List<Integer> partitions)
     {
         final Cluster cluster = catalogContext.catalog.getClusters().get("cluster");
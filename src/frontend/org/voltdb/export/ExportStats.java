@@ -0,0 +1,117 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2017 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.export;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.voltdb.StatsSource;
+import org.voltdb.VoltTable.ColumnInfo;
+import org.voltdb.VoltType;
+
+/**
+ * Throughput, lag, memory and disk use of every export stream partition on this host,
+ * returned by @Statistics EXPORT.
+ */
+public class ExportStats extends StatsSource {
+
+    // Per source: tuples at the last interval, tuples and time at the last collection
+    private Map<ExportDataSource, long[]> m_lastCounts = new HashMap<ExportDataSource, long[]>();
+    private List<ExportDataSource> m_sources = new ArrayList<ExportDataSource>();
+    private boolean m_interval;
+
+    public ExportStats() {
+        super(false);
+    }
+
+    @Override
+    protected void populateColumnSchema(ArrayList<ColumnInfo> columns) {
+        super.populateColumnSchema(columns);
+        columns.add(new ColumnInfo("PARTITION_ID", VoltType.INTEGER));
+        columns.add(new ColumnInfo("SOURCE", VoltType.STRING));
+        columns.add(new ColumnInfo("GENERATION", VoltType.BIGINT));
+        columns.add(new ColumnInfo("TUPLES_ACKED", VoltType.BIGINT));
+        columns.add(new ColumnInfo("TUPLES_PER_SECOND", VoltType.BIGINT));
+        columns.add(new ColumnInfo("LAG_MILLIS", VoltType.BIGINT));
+        columns.add(new ColumnInfo("BYTES_IN_MEMORY", VoltType.BIGINT));
+        columns.add(new ColumnInfo("BYTES_ON_DISK", VoltType.BIGINT));
+    }
+
+    @Override
+    protected void updateStatsRow(Object rowKey, Object[] rowValues) {
+        final ExportDataSource source = (ExportDataSource)rowKey;
+        final long tuples = source.getTuplesAcked();
+        final long time = System.currentTimeMillis();
+        long last[] = m_lastCounts.get(source);
+        if (last == null) {
+            last = new long[] { 0, 0, 0 };
+        }
+
+        long tuplesPerSecond = 0;
+        if (last[2] > 0 && time > last[2]) {
+            tuplesPerSecond = (tuples - last[1]) * 1000 / (time - last[2]);
+        }
+
+        rowValues[columnNameToIndex.get("PARTITION_ID")] = source.getPartitionId();
+        rowValues[columnNameToIndex.get("SOURCE")] = source.getTableName();
+        rowValues[columnNameToIndex.get("GENERATION")] = source.getGeneration();
+        rowValues[columnNameToIndex.get("TUPLES_ACKED")] = m_interval ? tuples - last[0] : tuples;
+        rowValues[columnNameToIndex.get("TUPLES_PER_SECOND")] = tuplesPerSecond;
+        rowValues[columnNameToIndex.get("LAG_MILLIS")] = source.getLagMillis();
+        rowValues[columnNameToIndex.get("BYTES_IN_MEMORY")] = source.getBytesInMemory();
+        rowValues[columnNameToIndex.get("BYTES_ON_DISK")] = source.getBytesOnDisk();
+
+        m_lastCounts.put(source, new long[] { m_interval ? tuples : last[0], tuples, time });
+        super.updateStatsRow(rowKey, rowValues);
+    }
+
+    protected List<ExportDataSource> getDataSources() {
+        final ExportManager manager = ExportManager.instance();
+        return manager == null ? new ArrayList<ExportDataSource>() : manager.getDataSources();
+    }
+
+    @Override
+    protected Iterator<Object> getStatsRowKeyIterator(boolean interval) {
+        m_interval = interval;
+        m_sources = getDataSources();
+
+        // Forget the sources of drained generations
+        m_lastCounts.keySet().retainAll(m_sources);
+
+        final Iterator<ExportDataSource> iter = m_sources.iterator();
+        return new Iterator<Object>() {
+            @Override
+            public boolean hasNext() {
+                return iter.hasNext();
+            }
+
+            @Override
+            public Object next() {
+                return iter.next();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -179,6 +179,37 @@ public class StreamBlockQueue {
         return sb;
     }
 
+    /**
+     * Read blocks from the persistent deque into memory ahead of the iterator
+     * until at least the given number of blocks are in memory, so that the
+     * next polls don't have to wait for the disk.
+     */
+    public void prefetch(int blocks) {
+        while (m_memoryDeque.size() < blocks) {
+            if (pollPersistentDeque(false) == null) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Unreleased bytes of the blocks currently held in memory
+     */
+    public long memoryBytes() {
+        long memoryBlockUsage = 0;
+        for (StreamBlock b : m_memoryDeque) {
+            memoryBlockUsage += b.unreleasedSize();
+        }
+        return memoryBlockUsage;
+    }
+
+    /**
+     * Bytes of disk used by the persistent deque backing the queue
+     */
+    public long diskBytes() {
+        return m_persistentDeque.getDiskUsageBytes();
+    }
+
     public StreamBlock pop() {
         if (m_memoryDeque.isEmpty()) {
             StreamBlock sb = pollPersistentDeque(true);
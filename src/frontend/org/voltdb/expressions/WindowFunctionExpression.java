@@ -46,6 +46,12 @@ public class WindowFunctionExpression extends AbstractExpression {
 
     public static SortDirectionType DEFAULT_ORDER_BY_DIRECTION = SortDirectionType.ASC;
 
+    // The window has the default frame, which contains all the rows of the
+    // partition up to and including the order by peers of the current row.
+    public static final int NO_ROWS_FRAME = -2;
+    // The window has a ROWS frame which starts at the first row of the partition.
+    public static final int UNBOUNDED_PRECEDING = -1;
+
     private List<AbstractExpression> m_partitionByExpressions = new ArrayList<>();
     private List<AbstractExpression> m_orderByExpressions     = new ArrayList<>();
     private List<SortDirectionType>  m_orderByDirections      = new ArrayList<>();
@@ -59,6 +65,10 @@ public class WindowFunctionExpression extends AbstractExpression {
 
     private boolean m_isDistinct = false;
 
+    // For a ROWS BETWEEN n PRECEDING AND CURRENT ROW frame this is n.  It
+    // is UNBOUNDED_PRECEDING or NO_ROWS_FRAME otherwise.
+    private int m_rowsFramePreceding = NO_ROWS_FRAME;
+
     public WindowFunctionExpression() {
         //
         // This is needed for serialization
@@ -72,6 +82,7 @@ public class WindowFunctionExpression extends AbstractExpression {
             List<AbstractExpression> orderbyExprs,
             List<SortDirectionType>  orderByDirections,
             List<AbstractExpression> aggArguments,
+            int                      rowsFramePreceding,
             int                      id)
     {
         super(operationType);
@@ -82,6 +93,7 @@ public class WindowFunctionExpression extends AbstractExpression {
             m_args = new ArrayList<>();
         }
         m_args.addAll(aggArguments);
+        m_rowsFramePreceding = rowsFramePreceding;
         finalizeValueTypes();
         m_xmlID = id;
     }
@@ -111,13 +123,31 @@ public class WindowFunctionExpression extends AbstractExpression {
         return m_args;
     }
 
+    /**
+     * Does this window have a ROWS frame?  Aggregates over a ROWS frame
+     * produce a value for each row rather than for each group of order
+     * by peers.
+     */
+    public boolean hasRowsFrame() {
+        return m_rowsFramePreceding != NO_ROWS_FRAME;
+    }
+
+    /**
+     * Return the number of rows preceding the current row in a ROWS frame,
+     * or UNBOUNDED_PRECEDING if the frame starts at the start of the partition.
+     */
+    public int getRowsFramePreceding() {
+        return m_rowsFramePreceding;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (super.equals(obj) && obj instanceof WindowFunctionExpression) {
             WindowFunctionExpression oWindow = (WindowFunctionExpression)obj;
             if (m_orderByExpressions.equals(oWindow.getOrderByExpressions())
                     && m_orderByDirections.equals(oWindow.getOrderByDirections())
-                    && m_partitionByExpressions.equals(oWindow.getPartitionByExpressions())) {
+                    && m_partitionByExpressions.equals(oWindow.getPartitionByExpressions())
+                    && m_rowsFramePreceding == oWindow.getRowsFramePreceding()) {
                 return true;
             }
         }
@@ -131,6 +161,7 @@ public class WindowFunctionExpression extends AbstractExpression {
         hash += m_orderByExpressions.hashCode();
         hash += m_partitionByExpressions.hashCode();
         hash += m_args.hashCode();
+        hash += m_rowsFramePreceding;
         return hash;
     }
 
@@ -67,10 +67,12 @@ public class KafkaStreamImporterConfig implements ImporterConfig
     private final FormatterBuilder m_formatterBuilder;
     private final KafkaImporterCommitPolicy m_commitPolicy;
     private final long m_triggerValue;
+    private final int m_batchSize;
+    private final long m_batchLatency;
 
     private KafkaStreamImporterConfig(URI uri, List<HostAndPort> brokers, String topic, int partition, HostAndPort partitionLeader,
             String groupId, int fetchSize, int soTimeout, String procedure, String commitPolicy,
-            FormatterBuilder formatterBuilder)
+            int batchSize, long batchLatency, FormatterBuilder formatterBuilder)
     {
         m_uri = uri;
         m_brokers = brokers;
@@ -84,6 +86,8 @@ public class KafkaStreamImporterConfig implements ImporterConfig
         KafkaImporterCommitPolicy cp;
         m_commitPolicy = KafkaImporterCommitPolicy.fromString(commitPolicy);
         m_triggerValue = KafkaImporterCommitPolicy.fromStringTriggerValue(commitPolicy, m_commitPolicy);
+        m_batchSize = batchSize;
+        m_batchLatency = batchLatency;
 
         m_formatterBuilder = formatterBuilder;
     }
@@ -155,6 +159,14 @@ public class KafkaStreamImporterConfig implements ImporterConfig
         return m_triggerValue;
     }
 
+    public int getBatchSize() {
+        return m_batchSize;
+    }
+
+    public long getBatchLatency() {
+        return m_batchLatency;
+    }
+
     public static Map<URI, ImporterConfig> createConfigEntries(Properties props,  FormatterBuilder formatterBuilder)
     {
         String brokers = props.getProperty("brokers", "").trim();
@@ -196,6 +208,15 @@ public class KafkaStreamImporterConfig implements ImporterConfig
             throw new IllegalArgumentException("Missing topic(s).");
         }
         String commitPolicy = props.getProperty("commit.policy", "none");
+        // Rows for the same partition loaded by one transaction, 1 invokes the procedure per message
+        int batchSize = Integer.parseInt(props.getProperty("batch.size", "1").trim());
+        long batchLatency = Long.parseLong(props.getProperty("batch.latency.ms", "100").trim());
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batch.size must be at least 1");
+        }
+        if (batchLatency < 1) {
+            throw new IllegalArgumentException("batch.latency.ms must be at least 1");
+        }
         Map<URI, ImporterConfig> configs = new HashMap<>();
         for (String topic : ttopicList) {
             if (topic.length() > topicMaxNameLength) {
@@ -206,7 +227,8 @@ public class KafkaStreamImporterConfig implements ImporterConfig
                 throw new IllegalArgumentException("topic name " + topic + " is illegal, contains a character other than ASCII alphanumerics, '_' and '-'");
             }
             try {
-                configs.putAll(getConfigsForPartitions(key, hapList, topic, groupId, procedure, soTimeout, fetchSize, commitPolicy, formatterBuilder));
+                configs.putAll(getConfigsForPartitions(key, hapList, topic, groupId, procedure, soTimeout, fetchSize, commitPolicy,
+                        batchSize, batchLatency, formatterBuilder));
             } catch(Exception e) {
                 m_logger.warn(String.format("Error trying to get partition information for topic [%s] on host [%s]", topic, hapList.get(0).getHost()), e);
             }
@@ -230,7 +252,8 @@ public class KafkaStreamImporterConfig implements ImporterConfig
     }
 
     private static Map<URI, KafkaStreamImporterConfig> getConfigsForPartitions(String key, List<HostAndPort> brokerList,
-            final String topic, String groupId, String procedure, int soTimeout, int fetchSize, String commitPolicy, FormatterBuilder formatterBuilder)
+            final String topic, String groupId, String procedure, int soTimeout, int fetchSize, String commitPolicy,
+            int batchSize, long batchLatency, FormatterBuilder formatterBuilder)
     {
         SimpleConsumer consumer = null;
         Map<URI, KafkaStreamImporterConfig> configs = new HashMap<>();
@@ -274,7 +297,7 @@ public class KafkaStreamImporterConfig implements ImporterConfig
                         }
                         KafkaStreamImporterConfig config = new KafkaStreamImporterConfig(uri, brokerList, topic,
                                 part.partitionId(), new HostAndPort(leader.host(), leader.port()),
-                                groupId, fetchSize, soTimeout, procedure, commitPolicy, formatterBuilder);
+                                groupId, fetchSize, soTimeout, procedure, commitPolicy, batchSize, batchLatency, formatterBuilder);
                         configs.put(uri, config);
                     }
                 }
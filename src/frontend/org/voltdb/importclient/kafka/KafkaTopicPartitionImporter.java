@@ -377,6 +377,7 @@ public class KafkaTopicPartitionImporter extends AbstractImporter
         AtomicLong cbcnt = new AtomicLong(0);
         @SuppressWarnings("unchecked")
         Formatter<String> formatter = (Formatter<String>) m_config.getFormatterBuilder().create();
+        enableBatching(m_config.getProcedure(), m_config.getBatchSize(), m_config.getBatchLatency());
         try {
             //Start with the starting leader.
             resetLeader();
@@ -498,6 +499,7 @@ public class KafkaTopicPartitionImporter extends AbstractImporter
         } catch (Exception ex) {
             error(ex, "Failed to start topic partition fetcher for " + m_topicAndPartition);
         } finally {
+            flushBatches();
             //Dont care about return as it wil force a commit.
             commitOffset();
             KafkaStreamImporterConfig.closeConsumer(m_consumer);
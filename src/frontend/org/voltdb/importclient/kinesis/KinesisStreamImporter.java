@@ -74,6 +74,7 @@ public class KinesisStreamImporter extends AbstractImporter {
     public void accept() {
 
         info(null, "Starting data stream fetcher for " + m_config.getResourceID().toString());
+        enableBatching(m_config.getProcedure(), m_config.getBatchSize(), m_config.getBatchLatency());
         try {
             KinesisClientLibConfiguration kclConfig = new KinesisClientLibConfiguration(m_config.getAppName(),
                     m_config.getStreamName(), credentials(), UUID.randomUUID().toString());
@@ -205,6 +206,8 @@ public class KinesisStreamImporter extends AbstractImporter {
                 offset++;
             }
 
+            // The checkpoint waits for the callbacks of the records, do not let them sit in a batch
+            flushBatches();
             commitCheckPoint(records.getCheckpointer());
         }
 
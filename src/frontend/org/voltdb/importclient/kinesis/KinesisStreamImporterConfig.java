@@ -58,6 +58,8 @@ public class KinesisStreamImporterConfig implements ImporterConfig {
     private final long m_idleTimeBetweenReadsInMillis;
     private final long m_maxReadBatchSize;
     private final long m_taskBackoffTimeMillis;
+    private final int m_batchSize;
+    private final long m_batchLatency;
     private final FormatterBuilder m_formatterBuilder;
 
     /**
@@ -72,12 +74,15 @@ public class KinesisStreamImporterConfig implements ImporterConfig {
      * @param maxReadBatchSize Max records to read per Kinesis get request
      * @param resourceId The URI per stream, per shard, per app
      * @param taskBackoffTimeMillis  Backoff period when tasks encounter an exception
+     * @param batchSize Rows for the same partition loaded by one transaction, 1 to invoke the procedure per record
+     * @param batchLatency Time after which rows are loaded even if their batch is not full
      * @param formatterBuilder FormatterBuilder
      */
     private KinesisStreamImporterConfig(final String appName, final String region, final String streamName,
             final String procedure, final String secretKey, final String accessKey,
             final long idleTimeBetweenReadsInMillis, final long maxReadBatchSize, final URI resourceId,
-            final long taskBackoffTimeMillis, final FormatterBuilder formatterBuilder) {
+            final long taskBackoffTimeMillis, final int batchSize, final long batchLatency,
+            final FormatterBuilder formatterBuilder) {
 
         m_appName = appName;
         m_region = region;
@@ -89,6 +94,8 @@ public class KinesisStreamImporterConfig implements ImporterConfig {
         m_maxReadBatchSize = maxReadBatchSize;
         m_resourceID = resourceId;
         m_taskBackoffTimeMillis = taskBackoffTimeMillis;
+        m_batchSize = batchSize;
+        m_batchLatency = batchLatency;
         m_formatterBuilder = formatterBuilder;
     }
 
@@ -133,6 +140,14 @@ public class KinesisStreamImporterConfig implements ImporterConfig {
         return m_taskBackoffTimeMillis;
     }
 
+    public int getBatchSize() {
+        return m_batchSize;
+    }
+
+    public long getBatchLatency() {
+        return m_batchLatency;
+    }
+
     public static Map<URI, ImporterConfig> createConfigEntries(Properties props, FormatterBuilder formatterBuilder) {
 
         Map<URI, ImporterConfig> configs = new HashMap<>();
@@ -146,6 +161,8 @@ public class KinesisStreamImporterConfig implements ImporterConfig {
         long readInterval = getPropertyAsLong(props, "idle.time.between.reads", 1000);
         long maxReadBatchSize = getPropertyAsLong(props, "max.read.batch.size", 10000);
         long taskBackoffTimeMillis = getPropertyAsLong(props, "task.backoff.time.millis", 500);
+        int batchSize = (int) getPropertyAsLong(props, "batch.size", 1);
+        long batchLatency = getPropertyAsLong(props, "batch.latency.ms", 100);
 
         List<Shard> shards = discoverShards(region, streamName, accessKey, secretKey, appName);
         if (shards == null || shards.isEmpty()) {
@@ -164,7 +181,8 @@ public class KinesisStreamImporterConfig implements ImporterConfig {
             URI uri = URI.create(builder.toString());
 
             ImporterConfig config = new KinesisStreamImporterConfig(appName, region, streamName, procedure, secretKey,
-                    accessKey, readInterval, maxReadBatchSize, uri, taskBackoffTimeMillis, formatterBuilder);
+                    accessKey, readInterval, maxReadBatchSize, uri, taskBackoffTimeMillis, batchSize, batchLatency,
+                    formatterBuilder);
 
             configs.put(uri, config);
         }
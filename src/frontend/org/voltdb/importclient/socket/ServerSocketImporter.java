@@ -60,6 +60,7 @@ public class ServerSocketImporter extends AbstractImporter {
     @Override
     protected void accept()
     {
+        enableBatching(m_config.getProcedure(), m_config.getBatchSize(), m_config.getBatchLatency());
         startListening();
     }
 
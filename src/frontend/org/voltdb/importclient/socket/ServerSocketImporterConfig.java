@@ -38,6 +38,8 @@ public class ServerSocketImporterConfig implements ImporterConfig
     private final String m_procedure;
     private final int m_port;
     private final ServerSocket m_serverSocket;
+    private final int m_batchSize;
+    private final long m_batchLatency;
 
     public ServerSocketImporterConfig(Properties props, FormatterBuilder formatterBuilder)
     {
@@ -58,6 +60,20 @@ public class ServerSocketImporterConfig implements ImporterConfig
             throw new IllegalArgumentException("Invalid port specification: " + portStr);
         }
 
+        // Rows for the same partition loaded by one transaction, 1 invokes the procedure per line
+        String batchSizeStr = propsCopy.getProperty("batch.size", "1").trim();
+        String batchLatencyStr = propsCopy.getProperty("batch.latency.ms", "100").trim();
+        try {
+            m_batchSize = Integer.parseInt(batchSizeStr);
+            m_batchLatency = Long.parseLong(batchLatencyStr);
+            if (m_batchSize <= 0 || m_batchLatency <= 0) {
+                throw new NumberFormatException();
+            }
+        } catch(NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid batch specification: batch.size " + batchSizeStr +
+                    ", batch.latency.ms " + batchLatencyStr);
+        }
+
         try {
             m_serverSocket = new ServerSocket(m_port);
         } catch(IOException e) {
@@ -89,6 +105,16 @@ public class ServerSocketImporterConfig implements ImporterConfig
         return m_port;
     }
 
+    public int getBatchSize()
+    {
+        return m_batchSize;
+    }
+
+    public long getBatchLatency()
+    {
+        return m_batchLatency;
+    }
+
     public ServerSocket getServerSocket()
     {
         return m_serverSocket;
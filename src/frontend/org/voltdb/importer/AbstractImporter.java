@@ -54,6 +54,7 @@ public abstract class AbstractImporter
     private ImporterServerAdapter m_importServerAdapter;
     private volatile boolean m_stopping;
     private AtomicInteger m_backPressureCount = new AtomicInteger(0);
+    private volatile ImportBatcher m_batcher;
 
     protected AbstractImporter() {
         m_logger = new VoltLogger(getName());
@@ -101,6 +102,21 @@ public abstract class AbstractImporter
      */
     protected final boolean callProcedure(Invocation invocation, ProcedureCallback callback)
     {
+        final ImportBatcher batcher = m_batcher;
+        if (batcher != null && batcher.getProcedure().equals(invocation.getProcedure())) {
+            try {
+                boolean result = batcher.add(invocation.getParams(), callback);
+                if (!result) {
+                    reportFailureStat(invocation.getProcedure());
+                }
+                applyBackPressureAsNeeded();
+                return result;
+            } catch (Exception ex) {
+                rateLimitedLog(Level.ERROR, ex, "%s: Error trying to import", getName());
+                reportFailureStat(invocation.getProcedure());
+                return false;
+            }
+        }
         try {
             boolean result = m_importServerAdapter.callProcedure(this, callback, invocation.getProcedure(), invocation.getParams());
             reportStat(result, invocation.getProcedure());
@@ -113,6 +129,43 @@ public abstract class AbstractImporter
         }
     }
 
+    /**
+     * Importer implementations may call this before they start calling procedures to have
+     * the invocations of the given procedure loaded into the server in batches, one per
+     * partition, instead of one transaction per invocation. The callback of every invocation
+     * still receives the status of its row. Only the default insert and upsert procedures of
+     * a table can be batched.
+     *
+     * @param procedure the procedure whose invocations are batched
+     * @param batchSize the number of rows for a partition after which they are sent, batching
+     * is disabled if this is 1 or less
+     * @param maxLatencyMillis the time after which rows are sent even if their batch is not full
+     * @return returns true if the invocations of the procedure will be batched; false otherwise
+     */
+    protected final boolean enableBatching(String procedure, int batchSize, long maxLatencyMillis)
+    {
+        if (m_batcher != null || batchSize <= 1) {
+            return m_batcher != null;
+        }
+        m_batcher = m_importServerAdapter.createBatcher(this, procedure, batchSize, maxLatencyMillis);
+        if (m_batcher == null) {
+            rateLimitedLog(Level.WARN, null, "%s: Invocations of %s can not be batched", getName(), procedure);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Send the invocations waiting in a batch right away, if batching is enabled.
+     */
+    protected final void flushBatches()
+    {
+        final ImportBatcher batcher = m_batcher;
+        if (batcher != null) {
+            batcher.flush();
+        }
+    }
+
     private void applyBackPressureAsNeeded()
     {
         int count = m_backPressureCount.get();
@@ -152,6 +205,10 @@ public abstract class AbstractImporter
     {
         m_stopping = true;
         stop();
+        final ImportBatcher batcher = m_batcher;
+        if (batcher != null) {
+            batcher.close();
+        }
     }
 
     private void reportStat(boolean result, String procName) {
@@ -0,0 +1,54 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2017 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.importer;
+
+import org.voltdb.client.ProcedureCallback;
+
+/**
+ * Batching stage between an importer and the server. Invocations of a default insert or upsert
+ * procedure are grouped by the partition their row goes to, and every group is loaded into the
+ * table with a single transaction once it is full or its oldest row has waited long enough.
+ * The callback of every row in a group receives the response of the transaction, so importers
+ * can keep committing their offsets per row.
+ */
+public interface ImportBatcher {
+
+    /**
+     * The procedure whose invocations are batched
+     */
+    public String getProcedure();
+
+    /**
+     * Queue the parameters of one invocation of the batched procedure.
+     *
+     * @param params the parameters of the invocation, one per column of the table
+     * @param callback the callback that will receive the status of the row, may be null
+     * @return true if the row was queued; false if it could not be converted to the table schema
+     */
+    public boolean add(Object[] params, ProcedureCallback callback);
+
+    /**
+     * Send every queued row to the server right away.
+     */
+    public void flush();
+
+    /**
+     * Send every queued row and stop the latency timer of the batcher.
+     */
+    public void close();
+}
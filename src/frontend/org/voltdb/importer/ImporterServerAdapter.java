@@ -52,6 +52,18 @@ public interface ImporterServerAdapter {
      */
     public boolean callProcedure(AbstractImporter importer, ProcedureCallback callback, String proc, Object... fieldList);
 
+    /**
+     * This is used by importers to batch their invocations of a procedure in the server.
+     *
+     * @param importer the calling importer instance
+     * @param proc the name of the procedure whose invocations are to be batched
+     * @param batchSize the number of rows for a partition after which they are sent
+     * @param maxLatencyMillis the time after which rows are sent even if their batch is not full
+     * @return the batcher, or null if the procedure is not the default insert or upsert
+     * procedure of a table and thus can not be batched.
+     */
+    public ImportBatcher createBatcher(AbstractImporter importer, String proc, int batchSize, long maxLatencyMillis);
+
     /**
      * This should be used by importers to report failure while trying to execute a procedure.
      *
@@ -294,7 +294,9 @@ public class MpScheduler extends Scheduler
                     m_buddyHSIds.get(m_nextBuddy), false);
         }
 
-        m_nextBuddy = (m_nextBuddy++) % m_buddyHSIds.size();
+        // Rotate the coordinator fragment work across all the local sites so that
+        // concurrent MP reads running on the MpRoSitePool don't all borrow the same site.
+        m_nextBuddy = (m_nextBuddy + 1) % m_buddyHSIds.size();
         m_outstandingTxns.put(task.m_txnState.txnId, task.m_txnState);
         m_pendingTasks.offer(task);
     }
@@ -381,7 +383,9 @@ public class MpScheduler extends Scheduler
                     m_buddyHSIds.get(m_nextBuddy), true);
         }
 
-        m_nextBuddy = (m_nextBuddy++) % m_buddyHSIds.size();
+        // Rotate the coordinator fragment work across all the local sites so that
+        // concurrent MP reads running on the MpRoSitePool don't all borrow the same site.
+        m_nextBuddy = (m_nextBuddy + 1) % m_buddyHSIds.size();
         m_outstandingTxns.put(task.m_txnState.txnId, task.m_txnState);
         m_pendingTasks.offer(task);
     }
@@ -423,6 +423,18 @@ public class Site implements Runnable, SiteProcedureConnection, SiteSnapshotConn
             return m_ee.activateTableStream(tableId, type, undo ? getNextUndoToken(m_currentTxnId) : Long.MAX_VALUE, predicates);
         }
 
+        @Override
+        public long getTableChangeStamp(int tableId)
+        {
+            return m_ee.tableChangeStamp(tableId);
+        }
+
+        @Override
+        public long getTableContentDigest(int tableId)
+        {
+            return m_ee.tableContentDigest(tableId);
+        }
+
         @Override
         public Pair<Long, int[]> tableStreamSerializeMore(int tableId, TableStreamType type,
                                                           List<DBBPool.BBContainer> outputBuffers)
@@ -1648,6 +1660,19 @@ public class Site implements Runnable, SiteProcedureConnection, SiteSnapshotConn
                 EventType.DR_STREAM_START, uniqueId, m_lastCommittedSpHandle, spHandle, new byte[0]);
     }
 
+    @Override
+    public long expireRows(long txnId, long spHandle, long uniqueId, boolean replicated) {
+        ByteBuffer paramBuffer = m_ee.getParamBufferForExecuteTask(41);
+        paramBuffer.putLong(txnId);
+        paramBuffer.putLong(spHandle);
+        paramBuffer.putLong(m_lastCommittedSpHandle);
+        paramBuffer.putLong(uniqueId);
+        paramBuffer.putLong(getNextUndoToken(m_currentTxnId));
+        paramBuffer.put(replicated ? (byte) 1 : (byte) 0);
+        ByteBuffer resultBuffer = ByteBuffer.wrap(m_ee.executeTask(TaskType.EXPIRE_ROWS, paramBuffer));
+        return resultBuffer.getLong();
+    }
+
     /**
      * Generate a in-stream DR event which pushes an event buffer to topend
      */
@@ -66,7 +66,8 @@ public abstract class ExecutionEngine implements FastDeserializer.Deserializatio
         GENERATE_DR_EVENT(6),
         RESET_DR_APPLIED_TRACKER(7),
         SET_MERGED_DRID_TRACKER(8),
-        INIT_DRID_TRACKER(9);
+        INIT_DRID_TRACKER(9),
+        EXPIRE_ROWS(10);
 
         private TaskType(int taskId) {
             this.taskId = taskId;
@@ -730,6 +731,20 @@ public abstract class ExecutionEngine implements FastDeserializer.Deserializatio
      */
     public abstract long tableHashCode(int tableId);
 
+    /**
+     * Get the change stamp of a table, a value that moves whenever a tuple of the
+     * table is inserted, updated or deleted.
+     * @param tableId table to get the change stamp of
+     */
+    public abstract long tableChangeStamp(int tableId);
+
+    /**
+     * Get the content digest of a table, an order independent sum of the hashes of
+     * the serialized rows. It equals the digest of the rows in a snapshot of the table.
+     * @param tableId table to get the content digest of
+     */
+    public abstract long tableContentDigest(int tableId);
+
     /**
      * Compute the partition to which the parameter value maps using the
      * ExecutionEngine's hashinator.  Currently only valid for int types
@@ -828,7 +843,8 @@ public abstract class ExecutionEngine implements FastDeserializer.Deserializatio
             int defaultDrBufferSize,
             long tempTableMemory,
             boolean createDrReplicatedStream,
-            int compactionThreshold);
+            int compactionThreshold,
+            long compactionBudgetMicros);
 
     /**
      * Sets (or re-sets) all the shared direct byte buffers in the EE.
@@ -1028,6 +1044,20 @@ public abstract class ExecutionEngine implements FastDeserializer.Deserializatio
      */
     protected native long nativeTableHashCode(long pointer, int tableId);
 
+    /**
+     * Get the change stamp of a table.
+     * @param pointer Pointer to an engine instance
+     * @param tableId table to get the change stamp of
+     */
+    protected native long nativeTableChangeStamp(long pointer, int tableId);
+
+    /**
+     * Get the content digest of a table.
+     * @param pointer Pointer to an engine instance
+     * @param tableId table to get the content digest of
+     */
+    protected native long nativeTableContentDigest(long pointer, int tableId);
+
     protected native long nativeApplyBinaryLog(long pointer,
                                                long txnId,
                                                long spHandle,
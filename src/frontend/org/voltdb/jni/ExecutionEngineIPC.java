@@ -125,7 +125,9 @@ public class ExecutionEngineIPC extends ExecutionEngine {
         GetUSOs(25),
         updateHashinator(27),
         executeTask(28),
-        applyBinaryLog(29);
+        applyBinaryLog(29),
+        TableChangeStamp(30),
+        TableContentDigest(31);
         Commands(final int id) {
             m_id = id;
         }
@@ -1426,6 +1428,58 @@ public class ExecutionEngineIPC extends ExecutionEngine {
         }
     }
 
+    @Override
+    public long tableChangeStamp(int tableId) {
+        try {
+            m_data.clear();
+            m_data.putInt(Commands.TableChangeStamp.m_id);
+            m_data.putInt(tableId);
+
+            m_data.flip();
+            m_connection.write();
+
+            m_connection.readStatusByte();
+            ByteBuffer changeStamp = ByteBuffer.allocate(8);
+            while (changeStamp.hasRemaining()) {
+                int read = m_connection.m_socketChannel.read(changeStamp);
+                if (read <= 0) {
+                    throw new EOFException();
+                }
+            }
+            changeStamp.flip();
+            return changeStamp.getLong();
+        } catch (final IOException e) {
+            System.out.println("Exception: " + e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public long tableContentDigest(int tableId) {
+        try {
+            m_data.clear();
+            m_data.putInt(Commands.TableContentDigest.m_id);
+            m_data.putInt(tableId);
+
+            m_data.flip();
+            m_connection.write();
+
+            m_connection.readStatusByte();
+            ByteBuffer contentDigest = ByteBuffer.allocate(8);
+            while (contentDigest.hasRemaining()) {
+                int read = m_connection.m_socketChannel.read(contentDigest);
+                if (read <= 0) {
+                    throw new EOFException();
+                }
+            }
+            contentDigest.flip();
+            return contentDigest.getLong();
+        } catch (final IOException e) {
+            System.out.println("Exception: " + e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
     @Override
     public int hashinate(Object value, HashinatorConfig config)
     {
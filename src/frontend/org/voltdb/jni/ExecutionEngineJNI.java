@@ -62,6 +62,13 @@ public class ExecutionEngineJNI extends ExecutionEngine {
      */
     public static final int EE_COMPACTION_THRESHOLD;
 
+    /*
+     * Longest time in microseconds the EE may spend compacting a table after a transaction.
+     * Compaction that is left over is carried on in the periodic tick between transactions.
+     * 0, the default, compacts each table completely as soon as it crosses the threshold.
+     */
+    public static final long EE_COMPACTION_BUDGET_MICROS;
+
     /** java.util.logging logger. */
     private static final VoltLogger LOG = new VoltLogger("HOST");
 
@@ -72,6 +79,10 @@ public class ExecutionEngineJNI extends ExecutionEngine {
         if (EE_COMPACTION_THRESHOLD < 0 || EE_COMPACTION_THRESHOLD > 99) {
             VoltDB.crashLocalVoltDB("EE_COMPACTION_THRESHOLD " + EE_COMPACTION_THRESHOLD + " is not valid, must be between 0 and 99", false, null);
         }
+        EE_COMPACTION_BUDGET_MICROS = Long.getLong("EE_COMPACTION_BUDGET_MICROS", 0);
+        if (EE_COMPACTION_BUDGET_MICROS < 0) {
+            VoltDB.crashLocalVoltDB("EE_COMPACTION_BUDGET_MICROS " + EE_COMPACTION_BUDGET_MICROS + " is not valid, must not be negative", false, null);
+        }
         HOST_TRACE_ENABLED = LOG.isTraceEnabled();
     }
 
@@ -148,7 +159,8 @@ public class ExecutionEngineJNI extends ExecutionEngine {
                     defaultDrBufferSize,
                     tempTableMemory * 1024 * 1024,
                     createDrReplicatedStream,
-                    EE_COMPACTION_THRESHOLD);
+                    EE_COMPACTION_THRESHOLD,
+                    EE_COMPACTION_BUDGET_MICROS);
         checkErrorCode(errorCode);
 
         setupPsetBuffer(256 * 1024); // 256k seems like a reasonable per-ee number (but is totally pulled from my a**)
@@ -569,6 +581,16 @@ public class ExecutionEngineJNI extends ExecutionEngine {
         return nativeTableHashCode(pointer, tableId);
     }
 
+    @Override
+    public long tableChangeStamp(int tableId) {
+        return nativeTableChangeStamp(pointer, tableId);
+    }
+
+    @Override
+    public long tableContentDigest(int tableId) {
+        return nativeTableContentDigest(pointer, tableId);
+    }
+
     @Override
     public int hashinate(
             Object value,
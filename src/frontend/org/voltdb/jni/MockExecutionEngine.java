@@ -207,6 +207,16 @@ public class MockExecutionEngine extends ExecutionEngine {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public long tableChangeStamp(int tableId) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long tableContentDigest(int tableId) {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public int hashinate(Object value, TheHashinator.HashinatorConfig config) {
         return 0;
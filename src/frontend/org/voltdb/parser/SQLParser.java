@@ -348,6 +348,7 @@ public class SQLParser extends SQLPatternFactory
             "\\AREPLICATE|" +
             "\\AIMPORT|" +
             "\\ADR|" +
+            "\\ATTL|" +
             "\\ASET" +
             ")" +                                  // end (group 1)
             "\\s" +                                // one required whitespace to terminate keyword
@@ -362,6 +363,22 @@ public class SQLParser extends SQLPatternFactory
             "\\s*;\\z"                              // (end statement)
             );
 
+    private static final Pattern PAT_TTL_TABLE = Pattern.compile(
+            "(?i)" +                                // (ignore case)
+            "\\A"  +                                // start statement
+            "TTL\\s+TABLE\\s+" +                    // TTL TABLE
+            "([\\w$]+)" +                           // (1) <table name>
+            "(?:" +                                 // either
+            "\\s+(DISABLE)" +                       //     (2) DISABLE
+            "|" +                                   // or
+            "\\s+ON\\s+COLUMN\\s+([\\w$]+)" +      //     (3) ON COLUMN <column name>
+            "\\s+(\\d+)" +                          //     (4) <time to live>
+            "(?:\\s+(SECONDS|MINUTES|HOURS|DAYS))?" + //     (5) optional time unit, default SECONDS
+            "(?:\\s+BATCH_SIZE\\s+(\\d+))?" +       //     (6) optional BATCH_SIZE <rows>
+            ")" +
+            "\\s*;\\z"                              // (end statement)
+            );
+
     //========== Patterns from SQLCommand ==========
 
     private static final String EndOfLineCommentPatternString =
@@ -646,6 +663,16 @@ public class SQLParser extends SQLPatternFactory
         return PAT_DR_TABLE.matcher(statement);
     }
 
+    /**
+     * Match statement against TTL table pattern
+     * @param statement  statement to match against
+     * @return           pattern matcher object
+     */
+    public static Matcher matchTTLTable(String statement)
+    {
+        return PAT_TTL_TABLE.matcher(statement);
+    }
+
     /**
      * Match statement against import class pattern
      * @param statement  statement to match against
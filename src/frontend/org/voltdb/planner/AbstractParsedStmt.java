@@ -586,9 +586,14 @@ public abstract class AbstractParsedStmt {
         List<AbstractExpression> orderbyExprs = new ArrayList<>();
         List<SortDirectionType>  orderbyDirs  = new ArrayList<>();
         List<AbstractExpression> aggParams    = new ArrayList<>();
+        int rowsFramePreceding = WindowFunctionExpression.NO_ROWS_FRAME;
 
         for (VoltXMLElement childEle : exprNode.children) {
             if (childEle.name.equals("winspec")) {
+                String rowsPreceding = childEle.attributes.get("rowspreceding");
+                if (rowsPreceding != null) {
+                    rowsFramePreceding = Integer.parseInt(rowsPreceding);
+                }
                 for (VoltXMLElement ele : childEle.children) {
                     if (ele.name.equals("partitionbyList")) {
                         for (VoltXMLElement childNode : ele.children) {
@@ -630,6 +635,7 @@ public abstract class AbstractParsedStmt {
                                                              orderbyExprs,
                                                              orderbyDirs,
                                                              aggParams,
+                                                             rowsFramePreceding,
                                                              id);
         ExpressionUtil.finalizeValueTypes(rankExpr);
         // Only offset 0 is useful.  But we keep the index anyway.
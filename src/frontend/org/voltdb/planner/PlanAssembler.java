@@ -2741,7 +2741,7 @@ public class PlanAssembler {
         boolean foundAllGroupByCoveredIndex = false;
 
         for (Index index : allIndexes) {
-            if ( ! IndexType.isScannable(index.getType())) {
+            if ( ! IndexType.isScannable(index.getType()) || CatalogUtil.isHiddenMatViewIndex(index)) {
                 continue;
             }
 
@@ -106,6 +106,9 @@ public class StmtTargetTableScan extends StmtTableScan {
         if (m_indexes == null) {
             m_indexes = new ArrayList<Index>();
             for (Index index : m_table.getIndexes()) {
+                if (CatalogUtil.isHiddenMatViewIndex(index)) {
+                    continue;
+                }
                 m_indexes.add(index);
             }
         }
@@ -63,7 +63,8 @@ public class IndexScanPlanNode extends AbstractScanPlanNode implements IndexSort
         KEY_ITERATE,
         LOOKUP_TYPE,
         PURPOSE,
-        SORT_DIRECTION;
+        SORT_DIRECTION,
+        COVERING;
     }
 
     /**
@@ -632,7 +633,8 @@ public class IndexScanPlanNode extends AbstractScanPlanNode implements IndexSort
             tuplesToRead = 2;
         }
         else if ((m_catalogIndex.getType() == IndexType.BALANCED_TREE.getValue()) ||
-                 (m_catalogIndex.getType() == IndexType.BTREE.getValue())) {
+                 (m_catalogIndex.getType() == IndexType.BTREE.getValue()) ||
+                 (m_catalogIndex.getType() == IndexType.ADAPTIVE_RADIX_TREE.getValue())) {
             tuplesToRead = 3;
         }
         else if (m_catalogIndex.getType() == IndexType.COVERING_CELL_INDEX.getValue()) {
@@ -756,6 +758,51 @@ public class IndexScanPlanNode extends AbstractScanPlanNode implements IndexSort
         if (m_skip_null_predicate != null) {
             stringer.key(Members.SKIP_NULL_PREDICATE.name()).value(m_skip_null_predicate);
         }
+        if (isCoveringIndexScan()) {
+            stringer.keySymbolValuePair(Members.COVERING.name(), true);
+        }
+    }
+
+    /**
+     * An index scan is covering, or index-only, when every column it reads
+     * -- in its filters, its inline nodes and its output -- is a column of
+     * its index.  The EE can then read the column values out of the index
+     * keys and never touch the table's tuples.  This is only done for
+     * column (not expression) tree indexes, and not for index scans
+     * inlined in a join, whose expressions also refer to the outer table.
+     */
+    public boolean isCoveringIndexScan() {
+        if (m_isInline || m_catalogIndex == null) {
+            return false;
+        }
+        if ((m_catalogIndex.getType() != IndexType.BALANCED_TREE.getValue()) &&
+                (m_catalogIndex.getType() != IndexType.BTREE.getValue())) {
+            return false;
+        }
+        if ( ! m_catalogIndex.getExpressionsjson().isEmpty()) {
+            return false;
+        }
+        Set<String> indexedColumns = new HashSet<>();
+        for (ColumnRef cref : m_catalogIndex.getColumns()) {
+            indexedColumns.add(cref.getColumn().getName());
+        }
+        // Subqueries are evaluated elsewhere, so don't try to reason about them.
+        if ( ! findAllSubquerySubexpressions().isEmpty()) {
+            return false;
+        }
+        Set<AbstractExpression> tves = new HashSet<>();
+        findAllExpressionsOfClass(TupleValueExpression.class, tves);
+        for (AbstractExpression expr : tves) {
+            TupleValueExpression tve = (TupleValueExpression) expr;
+            if ( ! indexedColumns.contains(tve.getColumnName())) {
+                return false;
+            }
+            if (tve.getTableAlias() != null && m_targetTableAlias != null
+                    && ! tve.getTableAlias().equals(m_targetTableAlias)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     //all members loaded
@@ -17,15 +17,31 @@
 
 package org.voltdb.plannodes;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json_voltpatches.JSONException;
+import org.json_voltpatches.JSONStringer;
+import org.voltdb.VoltType;
 import org.voltdb.catalog.Cluster;
 import org.voltdb.catalog.Database;
 import org.voltdb.compiler.DatabaseEstimates;
 import org.voltdb.compiler.ScalarValueHints;
+import org.voltdb.expressions.AbstractExpression;
+import org.voltdb.expressions.AbstractSubqueryExpression;
+import org.voltdb.expressions.ExpressionUtil;
+import org.voltdb.expressions.TupleValueExpression;
+import org.voltdb.types.ExpressionType;
 import org.voltdb.types.PlanNodeType;
 import org.voltdb.types.SortDirectionType;
 
 public class NestLoopPlanNode extends AbstractJoinPlanNode {
 
+    public enum Members {
+        SEMIJOIN_OUTER_KEYS,
+        SEMIJOIN_INNER_KEYS;
+    }
+
     public NestLoopPlanNode() {
         super();
     }
@@ -50,6 +66,93 @@ public class NestLoopPlanNode extends AbstractJoinPlanNode {
                 m_children.get(1).m_estimatedProcessedTupleCount;
     }
 
+    @Override
+    public void toJSONString(JSONStringer stringer) throws JSONException {
+        super.toJSONString(stringer);
+        List<AbstractExpression> outerKeys = new ArrayList<>();
+        List<AbstractExpression> innerKeys = new ArrayList<>();
+        findSemiJoinKeys(outerKeys, innerKeys);
+        if ( ! outerKeys.isEmpty()) {
+            stringer.key(Members.SEMIJOIN_OUTER_KEYS.name()).array(outerKeys);
+            stringer.key(Members.SEMIJOIN_INNER_KEYS.name()).array(innerKeys);
+        }
+    }
+
+    /**
+     * Find the equalities in the join predicate which compare an expression
+     * of the outer table to an expression of the inner table.  The EE puts
+     * the inner sides in a Bloom filter, and skips the inner table scan for
+     * an outer tuple whose outer sides are not in it.  Only types whose
+     * equal values always have equal hashes qualify, which excludes FLOAT,
+     * where 0.0 and -0.0 are equal, and comparisons of different types.
+     *
+     * @param outerKeys the outer sides of the equalities.
+     * @param innerKeys the inner sides of the equalities, in the same order.
+     */
+    public void findSemiJoinKeys(List<AbstractExpression> outerKeys,
+                                 List<AbstractExpression> innerKeys) {
+        if (m_joinPredicate == null) {
+            return;
+        }
+        for (AbstractExpression expr : ExpressionUtil.uncombinePredicate(m_joinPredicate)) {
+            if (expr.getExpressionType() != ExpressionType.COMPARE_EQUAL) {
+                continue;
+            }
+            AbstractExpression left = expr.getLeft();
+            AbstractExpression right = expr.getRight();
+            if ( ! isSemiJoinKeyType(left.getValueType()) ||
+                    left.getValueType() != right.getValueType()) {
+                continue;
+            }
+            int leftSide = tableIndexOfSemiJoinKey(left);
+            int rightSide = tableIndexOfSemiJoinKey(right);
+            if (leftSide == 0 && rightSide == 1) {
+                outerKeys.add(left);
+                innerKeys.add(right);
+            }
+            else if (leftSide == 1 && rightSide == 0) {
+                outerKeys.add(right);
+                innerKeys.add(left);
+            }
+        }
+    }
+
+    private static boolean isSemiJoinKeyType(VoltType type) {
+        switch (type) {
+        case TINYINT:
+        case SMALLINT:
+        case INTEGER:
+        case BIGINT:
+        case TIMESTAMP:
+        case DECIMAL:
+        case STRING:
+        case VARBINARY:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * @return 0 if the expression only refers to the outer table, 1 if it
+     *         only refers to the inner table, and -1 otherwise.
+     */
+    private static int tableIndexOfSemiJoinKey(AbstractExpression expr) {
+        if (expr.hasAnySubexpressionOfClass(AbstractSubqueryExpression.class)) {
+            return -1;
+        }
+        int tableIdx = -1;
+        for (TupleValueExpression tve : ExpressionUtil.getTupleValueExpressions(expr)) {
+            if (tableIdx == -1) {
+                tableIdx = tve.getTableIndex();
+            }
+            else if (tableIdx != tve.getTableIndex()) {
+                return -1;
+            }
+        }
+        return tableIdx;
+    }
+
     @Override
     protected String explainPlanForNode(String indent) {
         return "NEST LOOP " + this.m_joinType.toString() + " JOIN" +
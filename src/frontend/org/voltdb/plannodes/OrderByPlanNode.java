@@ -39,7 +39,8 @@ public class OrderByPlanNode extends AbstractPlanNode {
     public enum Members {
         SORT_COLUMNS,
         SORT_EXPRESSION,
-        SORT_DIRECTION;
+        SORT_DIRECTION,
+        TOP_N;
     }
 
     protected List<AbstractExpression> m_sortExpressions = new ArrayList<AbstractExpression>();
@@ -107,6 +108,16 @@ public class OrderByPlanNode extends AbstractPlanNode {
         return m_sortDirections;
     }
 
+    /**
+     * An ORDER BY with an inlined LIMIT only ever has to emit the first
+     * limit + offset rows, so the EE can keep them in a bounded heap while
+     * scanning its input instead of collecting and sorting every input row.
+     * @return true if this node has an inline LIMIT and qualifies for top-N sorting
+     */
+    public boolean isTopN() {
+        return getInlinePlanNode(PlanNodeType.LIMIT) != null;
+    }
+
     @Override
     public void resolveColumnIndexes() {
         // Need to order and resolve indexes of output columns AND
@@ -165,6 +176,9 @@ public class OrderByPlanNode extends AbstractPlanNode {
         super.toJSONString(stringer);
         assert (m_sortExpressions.size() == m_sortDirections.size());
         AbstractExpression.toJSONArrayFromSortList(stringer, m_sortExpressions, m_sortDirections);
+        if (isTopN()) {
+            stringer.keySymbolValuePair(Members.TOP_N.name(), true);
+        }
     }
 
     @Override
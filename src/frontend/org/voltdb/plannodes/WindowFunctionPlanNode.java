@@ -42,8 +42,8 @@ public class WindowFunctionPlanNode extends AbstractPlanNode {
         AGGREGATE_TYPE,
         AGGREGATE_OUTPUT_COLUMN,
         AGGREGATE_EXPRESSIONS,
-        PARTITIONBY_EXPRESSIONS
-
+        PARTITIONBY_EXPRESSIONS,
+        ROWS_FRAME_PRECEDING
     };
     // A list of aggregate types.  These are not programming language
     // types.  They are more like expression operator types, like
@@ -67,6 +67,11 @@ public class WindowFunctionPlanNode extends AbstractPlanNode {
     // is empty, not null.
     protected List<AbstractExpression> m_orderByExpressions = new ArrayList<>();
 
+    // The number of rows before the current row in a ROWS frame.  The
+    // default frame, which ends with the last order by peer of the current
+    // row, is WindowFunctionExpression.NO_ROWS_FRAME.
+    protected int m_rowsFramePreceding = WindowFunctionExpression.NO_ROWS_FRAME;
+
     private int getAggregateFunctionCount() {
         return m_aggregateTypes.size();
     }
@@ -114,6 +119,7 @@ public class WindowFunctionPlanNode extends AbstractPlanNode {
         }
         m_partitionByExpressions = winExpr.getPartitionByExpressions();
         m_orderByExpressions = winExpr.getOrderByExpressions();
+        m_rowsFramePreceding = winExpr.getRowsFramePreceding();
         m_outputTVEs.add(winExpr.getDisplayListExpression());
     }
 
@@ -143,6 +149,9 @@ public class WindowFunctionPlanNode extends AbstractPlanNode {
         AbstractExpression.toJSONArrayFromSortList(stringer,
                                                    m_orderByExpressions,
                                                        null);
+        if (hasRowsFrame()) {
+            stringer.keySymbolValuePair(Members.ROWS_FRAME_PRECEDING.name(), m_rowsFramePreceding);
+        }
     }
 
     /**
@@ -177,6 +186,9 @@ public class WindowFunctionPlanNode extends AbstractPlanNode {
         AbstractExpression.loadSortListFromJSONArray(m_orderByExpressions,
                                                      null,
                                                      jobj);
+        if (jobj.has(Members.ROWS_FRAME_PRECEDING.name())) {
+            m_rowsFramePreceding = jobj.getInt(Members.ROWS_FRAME_PRECEDING.name());
+        }
     }
 
     @Override
@@ -259,7 +271,22 @@ public class WindowFunctionPlanNode extends AbstractPlanNode {
 
     @Override
     protected String explainPlanForNode(String indent) {
-        return("WINDOW FUNCTION AGGREGATION: ops: " + m_aggregateTypes.get(0).name() + "()");
+        String frame = "";
+        if (hasRowsFrame()) {
+            frame = " over ROWS "
+                    + (m_rowsFramePreceding == WindowFunctionExpression.UNBOUNDED_PRECEDING
+                            ? "UNBOUNDED" : Integer.toString(m_rowsFramePreceding))
+                    + " PRECEDING";
+        }
+        return("WINDOW FUNCTION AGGREGATION: ops: " + m_aggregateTypes.get(0).name() + "()" + frame);
+    }
+
+    public boolean hasRowsFrame() {
+        return m_rowsFramePreceding != WindowFunctionExpression.NO_ROWS_FRAME;
+    }
+
+    public int getRowsFramePreceding() {
+        return m_rowsFramePreceding;
     }
 
     public List<AbstractExpression> getPartitionByExpressions() {
@@ -180,6 +180,15 @@ public class ExecuteTask extends VoltSystemProcedure {
                 }
                 break;
             }
+            case EXPIRE_ROWS:
+            {
+                result = new VoltTable(STATUS_SCHEMA,
+                        new ColumnInfo("ROWS_EXPIRED", VoltType.BIGINT));
+                long expired = context.getSiteProcedureConnection().expireRows(m_runner.getTxnState().txnId,
+                        m_runner.getTxnState().getNotice().getSpHandle(), m_runner.getUniqueId(), true);
+                result.addRow(STATUS_OK, expired);
+                break;
+            }
             default:
                 throw new VoltAbortException("Unable to find the task associated with the given task id");
             }
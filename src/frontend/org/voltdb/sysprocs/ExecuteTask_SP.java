@@ -67,6 +67,11 @@ public class ExecuteTask_SP extends VoltSystemProcedure {
                 throw new VoltAbortException("DRConsumerDrIdTracker could not be converted to JSON");
             }
 
+            break;
+        case EXPIRE_ROWS:
+            long expired = ctx.getSiteProcedureConnection().expireRows(m_runner.getTxnState().txnId,
+                    m_runner.getTxnState().getNotice().getSpHandle(), m_runner.getUniqueId(), false);
+            setAppStatusString(Long.toString(expired));
             break;
         default:
             throw new VoltAbortException("Unable to find the task associated with the given task id");
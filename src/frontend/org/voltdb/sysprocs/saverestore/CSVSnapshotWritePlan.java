@@ -33,6 +33,7 @@ import org.json_voltpatches.JSONObject;
 import org.voltcore.logging.VoltLogger;
 import org.voltcore.utils.CoreUtils;
 import org.voltdb.CSVSnapshotFilter;
+import org.voltdb.ColumnarSnapshotFilter;
 import org.voltdb.ExtensibleSnapshotDigestData;
 import org.voltdb.SimpleFileSnapshotDataTarget;
 import org.voltdb.SnapshotDataFilter;
@@ -46,6 +47,7 @@ import org.voltdb.catalog.Table;
 import org.voltdb.dtxn.SiteTracker;
 import org.voltdb.sysprocs.SnapshotRegistry;
 import org.voltdb.utils.CatalogUtil;
+import org.voltdb.utils.ColumnarFormat;
 
 import com.google_voltpatches.common.primitives.Ints;
 import com.google_voltpatches.common.primitives.Longs;
@@ -60,12 +62,28 @@ import com.google_voltpatches.common.primitives.Longs;
  * selection which is seeded such that each node in the cluster will reach the
  * same conclusion about whether or not it is writing a given partition.  Each
  * partitioned table is written to the same target per table by each selected
- * site on a node. */
+ * site on a node.
+ *
+ * The same plan writes COLUMNAR snapshots, only the filter turning the
+ * tuple stream into the file format and the file header differ. */
 public class CSVSnapshotWritePlan extends SnapshotWritePlan
 {
 
     static final VoltLogger SNAP_LOG = new VoltLogger("SNAPSHOT");
 
+    private final SnapshotFormat m_format;
+
+    public CSVSnapshotWritePlan()
+    {
+        this(SnapshotFormat.CSV);
+    }
+
+    public CSVSnapshotWritePlan(SnapshotFormat format)
+    {
+        assert(format == SnapshotFormat.CSV || format == SnapshotFormat.COLUMNAR);
+        m_format = format;
+    }
+
     @Override
     public Callable<Boolean> createSetup(
             String file_path, String pathType, String file_nonce,
@@ -100,7 +118,7 @@ public class CSVSnapshotWritePlan extends SnapshotWritePlan
                     context.getHostId(),
                     file_path,
                     file_nonce,
-                    SnapshotFormat.CSV,
+                    m_format,
                     config.tables);
 
         boolean noTargetsCreated = true;
@@ -124,7 +142,11 @@ public class CSVSnapshotWritePlan extends SnapshotWritePlan
             }
 
             List<SnapshotDataFilter> filters = new ArrayList<SnapshotDataFilter>();
-            filters.add(new CSVSnapshotFilter(CatalogUtil.getVoltTable(table), ',', null));
+            if (m_format == SnapshotFormat.COLUMNAR) {
+                filters.add(new ColumnarSnapshotFilter(CatalogUtil.getVoltTable(table)));
+            } else {
+                filters.add(new CSVSnapshotFilter(CatalogUtil.getVoltTable(table), ',', null));
+            }
 
             final SnapshotTableTask task =
                     new SnapshotTableTask(
@@ -215,10 +237,15 @@ public class CSVSnapshotWritePlan extends SnapshotWritePlan
                 table,
                 file_path,
                 file_nonce,
-                SnapshotFormat.CSV,
+                m_format,
                 hostId);
 
-        sdt = new SimpleFileSnapshotDataTarget(saveFilePath, !table.getIsreplicated());
+        if (m_format == SnapshotFormat.COLUMNAR) {
+            sdt = new SimpleFileSnapshotDataTarget(saveFilePath, !table.getIsreplicated(), m_format,
+                    ColumnarFormat.getHeader(CatalogUtil.getVoltTable(table)));
+        } else {
+            sdt = new SimpleFileSnapshotDataTarget(saveFilePath, !table.getIsreplicated());
+        }
 
         m_targets.add(sdt);
         final Runnable onClose = new TargetStatsClosure(sdt, table.getTypeName(), numTables, snapshotRecord);
@@ -0,0 +1,322 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2017 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.sysprocs.saverestore;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.cassandra_voltpatches.MurmurHash3;
+import org.json_voltpatches.JSONArray;
+import org.json_voltpatches.JSONException;
+import org.json_voltpatches.JSONObject;
+import org.json_voltpatches.JSONStringer;
+import org.voltcore.logging.VoltLogger;
+import org.voltdb.SnapshotCompletionInterest;
+import org.voltdb.SnapshotCompletionMonitor;
+import org.voltdb.VoltDB;
+
+/**
+ * Remembers, for every table, the file this host wrote the table to in the last
+ * completed native snapshot along with the change stamps the local sites reported
+ * for the table at that point. An incremental snapshot skips the tables whose
+ * stamps have not moved since and writes a small file naming the base file that
+ * still holds their rows instead, see TableSaveFile.
+ *
+ * Change stamps start over when the EE does, so they only mean something within
+ * one process. Each completed snapshot also saves the files along with the content
+ * digest of the rows in them to a state file in the snapshot directory. After a
+ * restart the tables are matched against those files by digest instead, which
+ * costs a scan of the table.
+ */
+public class IncrementalSnapshotTracker
+{
+    private static final VoltLogger SNAP_LOG = new VoltLogger("SNAPSHOT");
+
+    static class TableFile {
+        final File m_file;
+        // Null for a file loaded from a state file, it is then matched by digest
+        final Map<Integer, Long> m_changeStamps;
+        final Set<Integer> m_partitions;
+        final boolean m_isReplicated;
+        // Null if unknown, the file is then not saved to the state file
+        Long m_contentDigest;
+
+        TableFile(File file, Map<Integer, Long> changeStamps, Set<Integer> partitions,
+                  boolean isReplicated, Long contentDigest)
+        {
+            m_file = file;
+            m_changeStamps = changeStamps;
+            m_partitions = partitions;
+            m_isReplicated = isReplicated;
+            m_contentDigest = contentDigest;
+        }
+    }
+
+    // Files of the snapshot in progress, they replace the base ones once it succeeds
+    private static long s_pendingTxnId = Long.MIN_VALUE;
+    private static File s_pendingStateFile = null;
+    private static Map<String, TableFile> s_pendingFiles = new HashMap<String, TableFile>();
+    private static final Map<String, TableFile> s_baseFiles = new HashMap<String, TableFile>();
+    private static final Set<File> s_loadedStateFiles = new HashSet<File>();
+    private static boolean s_registered = false;
+
+    private static final SnapshotCompletionInterest s_completionInterest = new SnapshotCompletionInterest() {
+        @Override
+        public CountDownLatch snapshotCompleted(SnapshotCompletionEvent event)
+        {
+            completeSnapshot(event.multipartTxnId, event.didSucceed);
+            return new CountDownLatch(0);
+        }
+    };
+
+    /**
+     * The state file of this host for snapshots written to a directory
+     */
+    public static File getStateFile(String directory, int hostId)
+    {
+        return new File(directory, "incremental_snapshot_host_" + hostId + ".json");
+    }
+
+    /**
+     * Whether the current content digest of the table is needed to find its base file,
+     * because that file was loaded from the state file
+     */
+    public static synchronized boolean needsContentDigest(File stateFile, String tableName)
+    {
+        loadStateFile(stateFile);
+        final TableFile base = s_baseFiles.get(tableName);
+        return base != null && base.m_changeStamps == null;
+    }
+
+    /**
+     * The file of the last completed snapshot holding the rows of a table, or null
+     * if the table has changed since or that file is gone.
+     * @param changeStamps    Change stamp of the table by partition, as of now
+     * @param contentDigests  Content digest of the table by partition as of now, or null
+     *                        if not computed
+     */
+    public static synchronized File getBaseFile(File stateFile, String tableName,
+                                                Map<Integer, Long> changeStamps,
+                                                Map<Integer, Long> contentDigests)
+    {
+        loadStateFile(stateFile);
+        final TableFile base = s_baseFiles.get(tableName);
+        if (base == null || !base.m_file.exists()) {
+            return null;
+        }
+        if (base.m_changeStamps != null) {
+            return base.m_changeStamps.equals(changeStamps) ? base.m_file : null;
+        }
+        if (contentDigests == null || !base.m_partitions.equals(contentDigests.keySet())) {
+            return null;
+        }
+        if (base.m_isReplicated) {
+            // Every site holds the whole table and the file one copy of it
+            for (long digest : contentDigests.values()) {
+                if (digest != base.m_contentDigest) {
+                    return null;
+                }
+            }
+        } else {
+            long digest = 0;
+            for (long partitionDigest : contentDigests.values()) {
+                digest += partitionDigest;
+            }
+            if (digest != base.m_contentDigest) {
+                return null;
+            }
+        }
+        return base.m_file;
+    }
+
+    /**
+     * Note the file holding the rows of a table for the snapshot with the given txnId.
+     * It becomes the base file of the table if the snapshot succeeds. A file that is
+     * already the base file keeps its content digest, for a new file it is reported
+     * with recordContentDigest once the file is written.
+     */
+    public static synchronized void recordTableFile(long txnId, File stateFile, String tableName, File file,
+                                                    Map<Integer, Long> changeStamps, boolean isReplicated)
+    {
+        if (txnId != s_pendingTxnId) {
+            s_pendingTxnId = txnId;
+            s_pendingFiles = new HashMap<String, TableFile>();
+        }
+        s_pendingStateFile = stateFile;
+        final TableFile base = s_baseFiles.get(tableName);
+        final Long contentDigest = base != null && base.m_file.equals(file) ? base.m_contentDigest : null;
+        s_pendingFiles.put(tableName, new TableFile(file, changeStamps,
+                new HashSet<Integer>(changeStamps.keySet()), isReplicated, contentDigest));
+
+        if (!s_registered) {
+            final SnapshotCompletionMonitor monitor = VoltDB.instance().getSnapshotCompletionMonitor();
+            if (monitor != null) {
+                monitor.addInterest(s_completionInterest);
+                s_registered = true;
+            }
+        }
+    }
+
+    /**
+     * Note the digest of the rows written to the file of a table, null if it is not known
+     */
+    public static synchronized void recordContentDigest(long txnId, String tableName, Long contentDigest)
+    {
+        if (txnId != s_pendingTxnId) {
+            return;
+        }
+        final TableFile pending = s_pendingFiles.get(tableName);
+        if (pending != null) {
+            pending.m_contentDigest = contentDigest;
+        }
+    }
+
+    static synchronized void completeSnapshot(long txnId, boolean succeeded)
+    {
+        if (txnId != s_pendingTxnId) {
+            return;
+        }
+        if (succeeded) {
+            s_baseFiles.putAll(s_pendingFiles);
+            SNAP_LOG.debug("Snapshot " + txnId + " is the base of incremental snapshots for tables " +
+                    s_pendingFiles.keySet());
+            try {
+                saveStateFile(s_pendingStateFile);
+            } catch (IOException e) {
+                SNAP_LOG.warn("Unable to save incremental snapshot state to " + s_pendingStateFile +
+                        ", the first snapshot after a restart will write every table", e);
+            }
+        }
+        s_pendingTxnId = Long.MIN_VALUE;
+        s_pendingStateFile = null;
+        s_pendingFiles = new HashMap<String, TableFile>();
+    }
+
+    /**
+     * Add the digest of one serialized row, as written by the EE, to a content digest
+     */
+    public static long addRowToDigest(long digest, ByteBuffer buf, int offset, int length)
+    {
+        final long high = MurmurHash3.hash3_x64_128(buf, offset, length, 0) & 0xFFFFFFFFL;
+        final long low = MurmurHash3.hash3_x64_128(buf, offset, length, 1) & 0xFFFFFFFFL;
+        return digest + ((high << 32) | low);
+    }
+
+    /*
+     * Paths in the state file are relative to its directory so a snapshot directory
+     * can be moved along with its base files.
+     */
+    private static void saveStateFile(File stateFile) throws IOException
+    {
+        if (stateFile == null) {
+            return;
+        }
+        final File directory = stateFile.getAbsoluteFile().getParentFile();
+        final byte stateBytes[];
+        try {
+            JSONStringer stringer = new JSONStringer();
+            stringer.object();
+            stringer.key("tables").array();
+            for (Map.Entry<String, TableFile> e : s_baseFiles.entrySet()) {
+                final TableFile file = e.getValue();
+                if (file.m_contentDigest == null) {
+                    continue;
+                }
+                stringer.object();
+                stringer.keySymbolValuePair("tableName", e.getKey());
+                stringer.keySymbolValuePair("file",
+                        directory.toPath().relativize(file.m_file.getAbsoluteFile().toPath()).toString());
+                stringer.keySymbolValuePair("contentDigest", file.m_contentDigest);
+                stringer.keySymbolValuePair("isReplicated", file.m_isReplicated);
+                stringer.key("partitionIds").array();
+                for (int partitionId : file.m_partitions) {
+                    stringer.value(partitionId);
+                }
+                stringer.endArray();
+                stringer.endObject();
+            }
+            stringer.endArray();
+            stringer.endObject();
+            stateBytes = stringer.toString().getBytes(StandardCharsets.UTF_8);
+        } catch (JSONException e) {
+            throw new IOException(e);
+        }
+
+        final File tempFile = new File(directory, stateFile.getName() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tempFile)) {
+            fos.write(stateBytes);
+            fos.getChannel().force(true);
+        }
+        Files.move(tempFile.toPath(), stateFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void loadStateFile(File stateFile)
+    {
+        if (stateFile == null || !s_loadedStateFiles.add(stateFile) || !stateFile.exists()) {
+            return;
+        }
+        final File directory = stateFile.getAbsoluteFile().getParentFile();
+        try {
+            final JSONObject state =
+                    new JSONObject(new String(Files.readAllBytes(stateFile.toPath()), StandardCharsets.UTF_8));
+            final JSONArray tables = state.getJSONArray("tables");
+            for (int ii = 0; ii < tables.length(); ii++) {
+                final JSONObject table = tables.getJSONObject(ii);
+                final String tableName = table.getString("tableName");
+                // Files of this process are known by their change stamps already
+                if (s_baseFiles.containsKey(tableName)) {
+                    continue;
+                }
+                final JSONArray partitionIds = table.getJSONArray("partitionIds");
+                final Set<Integer> partitions = new HashSet<Integer>();
+                for (int jj = 0; jj < partitionIds.length(); jj++) {
+                    partitions.add(partitionIds.getInt(jj));
+                }
+                s_baseFiles.put(tableName, new TableFile(
+                        directory.toPath().resolve(table.getString("file")).normalize().toFile(),
+                        null,
+                        partitions,
+                        table.getBoolean("isReplicated"),
+                        table.getLong("contentDigest")));
+            }
+        } catch (IOException | JSONException e) {
+            SNAP_LOG.warn("Unable to load incremental snapshot state from " + stateFile +
+                    ", the next snapshot will write every table", e);
+        }
+    }
+
+    static synchronized void clear()
+    {
+        s_pendingTxnId = Long.MIN_VALUE;
+        s_pendingStateFile = null;
+        s_pendingFiles = new HashMap<String, TableFile>();
+        s_baseFiles.clear();
+        s_loadedStateFiles.clear();
+    }
+}
@@ -31,6 +31,7 @@ import org.voltcore.utils.CoreUtils;
 import org.voltcore.utils.InstanceId;
 import org.voltdb.DefaultSnapshotDataTarget;
 import org.voltdb.ExtensibleSnapshotDigestData;
+import org.voltdb.SnapshotCodec;
 import org.voltdb.SnapshotDataFilter;
 import org.voltdb.SnapshotDataTarget;
 import org.voltdb.SnapshotFormat;
@@ -57,9 +58,52 @@ import com.google_voltpatches.common.collect.Maps;
  * responsibility for writing them is spread round-robin across the sites on a
  * node.  Partitioned tables are written to the same target per table by every
  * site on a node.
+ *
+ * An incremental snapshot leaves out the tables that have not changed since the
+ * last snapshot, their files only name the file of that snapshot holding the rows.
  */
 public class NativeSnapshotWritePlan extends SnapshotWritePlan
 {
+    // Change stamp of every table by partition, keyed by table relative index then partition id
+    private final Map<Integer, Map<Integer, Long>> m_tableChangeStamps;
+    // Content digests of the tables that needed them, keyed the same way
+    private final Map<Integer, Map<Integer, Long>> m_tableContentDigests;
+
+    public NativeSnapshotWritePlan()
+    {
+        m_tableChangeStamps = null;
+        m_tableContentDigests = null;
+    }
+
+    /**
+     * @param partitionTableChangeStamps    The change stamps of the tables reported by the local sites,
+     *                                      keyed by partition id then table relative index
+     * @param partitionTableContentDigests  The content digests of the tables the local sites computed
+     *                                      them for, keyed the same way
+     */
+    public NativeSnapshotWritePlan(Map<Integer, Map<Integer, Long>> partitionTableChangeStamps,
+                                   Map<Integer, Map<Integer, Long>> partitionTableContentDigests)
+    {
+        m_tableChangeStamps = byTable(partitionTableChangeStamps);
+        m_tableContentDigests = byTable(partitionTableContentDigests);
+    }
+
+    private static Map<Integer, Map<Integer, Long>> byTable(Map<Integer, Map<Integer, Long>> byPartition)
+    {
+        Map<Integer, Map<Integer, Long>> byTable = new HashMap<Integer, Map<Integer, Long>>();
+        for (Map.Entry<Integer, Map<Integer, Long>> partition : byPartition.entrySet()) {
+            for (Map.Entry<Integer, Long> table : partition.getValue().entrySet()) {
+                Map<Integer, Long> values = byTable.get(table.getKey());
+                if (values == null) {
+                    values = new HashMap<Integer, Long>();
+                    byTable.put(table.getKey(), values);
+                }
+                values.put(partition.getKey(), table.getValue());
+            }
+        }
+        return byTable;
+    }
+
     @Override
     public Callable<Boolean> createSetup(String file_path, String pathType,
                                             String file_nonce,
@@ -114,11 +158,33 @@ public class NativeSnapshotWritePlan extends SnapshotWritePlan
                     SnapshotFormat.NATIVE,
                     tableArray);
 
+        // Only files of snapshots to a user supplied path are kept around long enough to be a base
+        final boolean trackChanges =
+                m_tableChangeStamps != null && SnapshotPathType.valueOf(pathType) == SnapshotPathType.SNAP_PATH;
+        final Map<Integer, File> unchangedTables = new HashMap<Integer, File>();
+        final File stateFile = IncrementalSnapshotTracker.getStateFile(file_path, context.getHostId());
+
         final ArrayList<SnapshotTableTask> partitionedSnapshotTasks =
             new ArrayList<SnapshotTableTask>();
         final ArrayList<SnapshotTableTask> replicatedSnapshotTasks =
             new ArrayList<SnapshotTableTask>();
         for (final Table table : tableArray) {
+            if (trackChanges && config.incremental) {
+                final File baseFile = IncrementalSnapshotTracker.getBaseFile(stateFile, table.getTypeName(),
+                        m_tableChangeStamps.get(table.getRelativeIndex()),
+                        m_tableContentDigests.get(table.getRelativeIndex()));
+                if (baseFile != null) {
+                    SNAP_LOG.debug("Table " + table.getTypeName() + " is unchanged since " + baseFile);
+                    unchangedTables.put(table.getRelativeIndex(), baseFile);
+                    result.addRow(context.getHostId(),
+                            CoreUtils.getHostnameOrAddress(),
+                            table.getTypeName(),
+                            "SUCCESS",
+                            "");
+                    continue;
+                }
+            }
+
             final SnapshotTableTask task =
                     new SnapshotTableTask(
                             table,
@@ -141,7 +207,8 @@ public class NativeSnapshotWritePlan extends SnapshotWritePlan
                     "");
         }
 
-        if (tableArray.length > 0 && replicatedSnapshotTasks.isEmpty() && partitionedSnapshotTasks.isEmpty()) {
+        if (tableArray.length > 0 && replicatedSnapshotTasks.isEmpty() && partitionedSnapshotTasks.isEmpty() &&
+                unchangedTables.isEmpty()) {
             SnapshotRegistry.discardSnapshot(m_snapshotRecord);
         }
 
@@ -159,7 +226,8 @@ public class NativeSnapshotWritePlan extends SnapshotWritePlan
         return createDeferredSetup(file_path, pathType, file_nonce, txnId, partitionTransactionIds,
                 context, extraSnapshotData, tracker, hashinatorData, timestamp,
                 newPartitionCount, tableArray, m_snapshotRecord, partitionedSnapshotTasks,
-                replicatedSnapshotTasks, isTruncationSnapshot);
+                replicatedSnapshotTasks, isTruncationSnapshot, config.codec, config.compressionLevel,
+                unchangedTables, trackChanges ? m_tableChangeStamps : null, stateFile);
     }
 
     private Callable<Boolean> createDeferredSetup(final String file_path,
@@ -177,7 +245,12 @@ public class NativeSnapshotWritePlan extends SnapshotWritePlan
                                                   final SnapshotRegistry.Snapshot snapshotRecord,
                                                   final ArrayList<SnapshotTableTask> partitionedSnapshotTasks,
                                                   final ArrayList<SnapshotTableTask> replicatedSnapshotTasks,
-                                                  final boolean isTruncationSnapshot)
+                                                  final boolean isTruncationSnapshot,
+                                                  final SnapshotCodec codec,
+                                                  final int compressionLevel,
+                                                  final Map<Integer, File> unchangedTables,
+                                                  final Map<Integer, Map<Integer, Long>> tableChangeStamps,
+                                                  final File stateFile)
     {
         return new Callable<Boolean>() {
             private final HashMap<Integer, SnapshotDataTarget> m_createdTargets = Maps.newHashMap();
@@ -204,6 +277,19 @@ public class NativeSnapshotWritePlan extends SnapshotWritePlan
                     task.setTarget(target);
                 }
 
+                // Files of unchanged tables are complete as soon as they name their base
+                for (Table table : tables) {
+                    final File baseFile = unchangedTables.get(table.getRelativeIndex());
+                    if (baseFile != null) {
+                        createDataTargetForTable(file_path, file_nonce, table, txnId,
+                                context.getHostId(), context.getCluster().getTypeName(),
+                                context.getDatabase().getTypeName(), context.getNumberOfPartitions(),
+                                DrRoleType.XDCR.value().equals(context.getCluster().getDrrole()),
+                                tracker, timestamp, numTables, snapshotRecord,
+                                codec, compressionLevel, baseFile, getChangeStamps(table), stateFile).close();
+                    }
+                }
+
                 if (isTruncationSnapshot) {
                     // Only sync the DR Log on Native Snapshots
                     SnapshotSiteProcessor.m_tasksOnSnapshotCompletion.offer(new Runnable() {
@@ -235,11 +321,18 @@ public class NativeSnapshotWritePlan extends SnapshotWritePlan
                                                       context.getHostId(), context.getCluster().getTypeName(),
                                                       context.getDatabase().getTypeName(), context.getNumberOfPartitions(),
                                                       DrRoleType.XDCR.value().equals(context.getCluster().getDrrole()),
-                                                      tracker, timestamp, numTables, snapshotRecord);
+                                                      tracker, timestamp, numTables, snapshotRecord,
+                                                      codec, compressionLevel, null, getChangeStamps(task.m_table),
+                                                      stateFile);
                     m_createdTargets.put(task.m_table.getRelativeIndex(), target);
                 }
                 return target;
             }
+
+            private Map<Integer, Long> getChangeStamps(Table table)
+            {
+                return tableChangeStamps == null ? null : tableChangeStamps.get(table.getRelativeIndex());
+            }
         };
     }
 
@@ -255,7 +348,12 @@ public class NativeSnapshotWritePlan extends SnapshotWritePlan
                                                         SiteTracker tracker,
                                                         long timestamp,
                                                         AtomicInteger numTables,
-                                                        SnapshotRegistry.Snapshot snapshotRecord)
+                                                        SnapshotRegistry.Snapshot snapshotRecord,
+                                                        SnapshotCodec codec,
+                                                        int compressionLevel,
+                                                        File baseFile,
+                                                        Map<Integer, Long> changeStamps,
+                                                        File stateFile)
             throws IOException
     {
         SnapshotDataTarget sdt;
@@ -278,7 +376,10 @@ public class NativeSnapshotWritePlan extends SnapshotWritePlan
                     tracker.getPartitionsForHost(hostId),
                     CatalogUtil.getVoltTable(table, CatalogUtil.DR_HIDDEN_COLUMN_INFO),
                     txnId,
-                    timestamp);
+                    timestamp,
+                    codec,
+                    compressionLevel,
+                    baseFile);
         }
         else {
             sdt = new DefaultSnapshotDataTarget(saveFilePath,
@@ -291,11 +392,35 @@ public class NativeSnapshotWritePlan extends SnapshotWritePlan
                     tracker.getPartitionsForHost(hostId),
                     CatalogUtil.getVoltTable(table),
                     txnId,
-                    timestamp);
+                    timestamp,
+                    codec,
+                    compressionLevel,
+                    baseFile);
         }
 
-        m_targets.add(sdt);
-        final Runnable onClose = new TargetStatsClosure(sdt, table.getTypeName(), numTables, snapshotRecord);
+        final Runnable statsClosure = new TargetStatsClosure(sdt, table.getTypeName(), numTables, snapshotRecord);
+        Runnable onClose = statsClosure;
+        if (changeStamps != null) {
+            IncrementalSnapshotTracker.recordTableFile(txnId, stateFile, table.getTypeName(),
+                    baseFile != null ? baseFile : saveFilePath, changeStamps, table.getIsreplicated());
+            if (baseFile == null) {
+                // Lets the file be found by its digest after a restart
+                final DefaultSnapshotDataTarget target = (DefaultSnapshotDataTarget) sdt;
+                target.trackContentDigest();
+                onClose = new Runnable() {
+                    @Override
+                    public void run()
+                    {
+                        IncrementalSnapshotTracker.recordContentDigest(txnId, table.getTypeName(),
+                                target.getContentDigest());
+                        statsClosure.run();
+                    }
+                };
+            }
+        }
+        if (baseFile == null) {
+            m_targets.add(sdt);
+        }
         sdt.setOnCloseHandler(onClose);
 
         return sdt;
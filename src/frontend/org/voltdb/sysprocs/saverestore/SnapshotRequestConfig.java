@@ -26,6 +26,7 @@ import org.json_voltpatches.JSONException;
 import org.json_voltpatches.JSONObject;
 import org.json_voltpatches.JSONStringer;
 import org.voltcore.logging.VoltLogger;
+import org.voltdb.SnapshotCodec;
 import org.voltdb.catalog.Database;
 import org.voltdb.catalog.Table;
 
@@ -37,6 +38,11 @@ public class SnapshotRequestConfig {
     protected static final VoltLogger SNAP_LOG = new VoltLogger("SNAPSHOT");
 
     public final Table[] tables;
+    // How native snapshot files compress their chunks
+    public final SnapshotCodec codec;
+    public final int compressionLevel;
+    // Only write the tables that changed since the last snapshot to the same path
+    public final boolean incremental;
 
     /**
      * @param tables    Tables to snapshot, cannot be null.
@@ -45,11 +51,46 @@ public class SnapshotRequestConfig {
     {
         Preconditions.checkNotNull(tables);
         this.tables = tables.toArray(new Table[0]);
+        codec = SnapshotCodec.SNAPPY;
+        compressionLevel = codec.getDefaultLevel();
+        incremental = false;
     }
 
     public SnapshotRequestConfig(JSONObject jsData, Database catalogDatabase)
     {
         tables = getTablesToInclude(jsData, catalogDatabase);
+        codec = getCodec(jsData);
+        compressionLevel = getCompressionLevel(jsData, codec);
+        incremental = jsData != null && jsData.optBoolean(SnapshotUtil.JSON_INCREMENTAL, false);
+    }
+
+    /**
+     * The codec named by the compression option, SNAPPY if there is none.
+     * @throws IllegalArgumentException if the codec is unknown
+     */
+    public static SnapshotCodec getCodec(JSONObject jsData)
+    {
+        if (jsData == null || !jsData.has(SnapshotUtil.JSON_COMPRESSION)) {
+            return SnapshotCodec.SNAPPY;
+        }
+        return SnapshotCodec.getEnumIgnoreCase(jsData.optString(SnapshotUtil.JSON_COMPRESSION).trim());
+    }
+
+    /**
+     * The compressionLevel option, or the default level of the codec.
+     * @throws IllegalArgumentException if the codec has no such level
+     */
+    public static int getCompressionLevel(JSONObject jsData, SnapshotCodec codec)
+    {
+        if (jsData == null || !jsData.has(SnapshotUtil.JSON_COMPRESSION_LEVEL)) {
+            return codec.getDefaultLevel();
+        }
+        final int level = jsData.optInt(SnapshotUtil.JSON_COMPRESSION_LEVEL, Integer.MIN_VALUE);
+        if (!codec.isValidLevel(level)) {
+            throw new IllegalArgumentException("Invalid compression level " +
+                    jsData.opt(SnapshotUtil.JSON_COMPRESSION_LEVEL) + " for snapshot compression codec " + codec);
+        }
+        return level;
     }
 
     private static Table[] getTablesToInclude(JSONObject jsData,
@@ -131,5 +172,12 @@ public class SnapshotRequestConfig {
             }
             stringer.endArray();
         }
+        if (codec != SnapshotCodec.SNAPPY) {
+            stringer.keySymbolValuePair(SnapshotUtil.JSON_COMPRESSION, codec.name());
+            stringer.keySymbolValuePair(SnapshotUtil.JSON_COMPRESSION_LEVEL, compressionLevel);
+        }
+        if (incremental) {
+            stringer.keySymbolValuePair(SnapshotUtil.JSON_INCREMENTAL, true);
+        }
     }
 }
@@ -44,7 +44,9 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
@@ -89,6 +91,7 @@ import org.voltdb.utils.VoltFile;
 
 import com.google_voltpatches.common.base.Throwables;
 import com.google_voltpatches.common.util.concurrent.ListenableFuture;
+import com.google_voltpatches.common.util.concurrent.ListeningExecutorService;
 import com.google_voltpatches.common.util.concurrent.SettableFuture;
 
 public class SnapshotUtil {
@@ -107,6 +110,9 @@ public class SnapshotUtil {
     public static final String JSON_DATA = "data";
     public static final String JSON_URIPATH = "uripath";
     public static final String JSON_SERVICE = "service";
+    public static final String JSON_COMPRESSION = "compression";
+    public static final String JSON_COMPRESSION_LEVEL = "compressionLevel";
+    public static final String JSON_INCREMENTAL = "incremental";
     /**
      * milestone used to mark a shutdown save snapshot
      */
@@ -767,7 +773,140 @@ public class SnapshotUtil {
             VoltLogger logger) {
 
         NamedSnapshots namedSnapshots = new NamedSnapshots(namedSnapshotMap, stype);
-        retrieveSnapshotFilesInternal(directory, namedSnapshots, filter, validate, stype, logger, 0);
+        /*
+         * Table files are scanned concurrently, validating them reads and decompresses
+         * every chunk so a large snapshot is otherwise bound by a single core.
+         */
+        final ListeningExecutorService scanner =
+                CoreUtils.getListeningExecutorService("Snapshot file scanner", TABLE_FILE_SCAN_THREADS);
+        final List<Pair<File, ListenableFuture<TableFileScan>>> tableFileScans =
+                new ArrayList<Pair<File, ListenableFuture<TableFileScan>>>();
+        try {
+            retrieveSnapshotFilesInternal(directory, namedSnapshots, filter, validate, stype, logger, 0,
+                                          scanner, tableFileScans);
+            collectTableFileScans(namedSnapshots, tableFileScans, validate, logger);
+        } finally {
+            scanner.shutdownNow();
+        }
+    }
+
+    private static final int TABLE_FILE_SCAN_THREADS = Math.max(1, Math.min(8, CoreUtils.availableProcessors()));
+    private static final long TABLE_FILE_SCAN_PROGRESS_INTERVAL = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * What a table file says about itself, and the partitions it holds intact
+     */
+    private static class TableFileScan {
+        final long m_txnId;
+        final String m_tableName;
+        final boolean m_isReplicated;
+        final boolean m_completed;
+        final Set<Integer> m_validPartitionIds;
+        final Set<Integer> m_corruptPartitionIds;
+        final int m_totalPartitions;
+
+        TableFileScan(TableSaveFile saveFile) {
+            m_txnId = saveFile.getTxnId();
+            m_tableName = saveFile.getTableName();
+            m_isReplicated = saveFile.isReplicated();
+            m_completed = saveFile.getCompleted();
+            m_corruptPartitionIds = saveFile.getCorruptedPartitionIds();
+            m_validPartitionIds = new HashSet<Integer>();
+            for (Integer partitionId : saveFile.getPartitionIds()) {
+                m_validPartitionIds.add(partitionId);
+            }
+            m_validPartitionIds.removeAll(m_corruptPartitionIds);
+            m_totalPartitions = saveFile.getTotalPartitions();
+        }
+    }
+
+    private static TableFileScan scanTableFile(File f, boolean validate) {
+        try {
+            TableSaveFile saveFile = new TableSaveFile(f, 1, null, true);
+            try {
+                if (validate && saveFile.getCompleted()) {
+                    while (saveFile.hasMoreChunks()) {
+                        BBContainer cont = saveFile.getNextChunk();
+                        if (cont != null) {
+                            cont.discard();
+                        }
+                    }
+                }
+                return new TableFileScan(saveFile);
+            } finally {
+                saveFile.close();
+            }
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Error: Unable to process " + f.getPath());
+            return null;
+        }
+    }
+
+    /**
+     * Add the scanned table files to their snapshots in the order they were found, reporting
+     * progress of a validation as it goes.
+     */
+    private static void collectTableFileScans(
+            NamedSnapshots namedSnapshots,
+            List<Pair<File, ListenableFuture<TableFileScan>>> tableFileScans,
+            boolean validate,
+            VoltLogger logger) {
+        final long startTime = System.nanoTime();
+        long lastProgressTime = startTime;
+        long bytesScanned = 0;
+        int filesScanned = 0;
+        for (Pair<File, ListenableFuture<TableFileScan>> tableFileScan : tableFileScans) {
+            final File f = tableFileScan.getFirst();
+            final TableFileScan scan;
+            try {
+                scan = tableFileScan.getSecond().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                System.err.println(e.getCause().getMessage());
+                System.err.println("Error: Unable to process " + f.getPath());
+                continue;
+            }
+            filesScanned++;
+            bytesScanned += f.length();
+            if (validate && logger != null) {
+                final long now = System.nanoTime();
+                if (now - lastProgressTime > TABLE_FILE_SCAN_PROGRESS_INTERVAL) {
+                    lastProgressTime = now;
+                    logger.info(String.format("Validated %d of %d snapshot files, %s",
+                            filesScanned, tableFileScans.size(), formatScanRate(bytesScanned, now - startTime)));
+                }
+            }
+            if (scan == null) {
+                continue;
+            }
+
+            String nonce = parseNonceFromSnapshotFilename(f.getName());
+            Snapshot named_s = namedSnapshots.get(nonce);
+            named_s.setTxnId(scan.m_txnId);
+            TableFiles namedTableFiles = named_s.m_tableFiles.get(scan.m_tableName);
+            if (namedTableFiles == null) {
+                namedTableFiles = new TableFiles(scan.m_isReplicated);
+                named_s.m_tableFiles.put(scan.m_tableName, namedTableFiles);
+            }
+            namedTableFiles.m_files.add(f);
+            namedTableFiles.m_completed.add(scan.m_completed);
+            namedTableFiles.m_validPartitionIds.add(scan.m_validPartitionIds);
+            namedTableFiles.m_corruptParititionIds.add(scan.m_corruptPartitionIds);
+            namedTableFiles.m_totalPartitionCounts.add(scan.m_totalPartitions);
+        }
+        if (validate && logger != null && !tableFileScans.isEmpty()) {
+            logger.info(String.format("Validated %d snapshot files, %s",
+                    filesScanned, formatScanRate(bytesScanned, System.nanoTime() - startTime)));
+        }
+    }
+
+    private static String formatScanRate(long bytes, long elapsedNanos) {
+        final double megabytes = bytes / (1024.0 * 1024.0);
+        final double seconds = Math.max(elapsedNanos, 1) / 1000000000.0;
+        return String.format("%.1f MB in %.1f seconds, %.1f MB/s", megabytes, seconds, megabytes / seconds);
     }
 
     private static void retrieveSnapshotFilesInternal(
@@ -777,7 +916,9 @@ public class SnapshotUtil {
             boolean validate,
             SnapshotPathType stype,
             VoltLogger logger,
-            int recursion) {
+            int recursion,
+            ListeningExecutorService scanner,
+            List<Pair<File, ListenableFuture<TableFileScan>>> tableFileScans) {
 
         if (recursion == 32) {
             return;
@@ -796,13 +937,14 @@ public class SnapshotUtil {
             return;
         }
 
-        for (File f : directory.listFiles(filter)) {
+        for (final File f : directory.listFiles(filter)) {
             if (f.isDirectory()) {
                 if (!f.canRead() || !f.canExecute()) {
                     System.err.println("Warning: Skipping directory " + f.getPath()
                             + " due to lack of read permission");
                 } else {
-                    retrieveSnapshotFilesInternal(f, namedSnapshots, filter, validate, stype, logger, recursion++);
+                    retrieveSnapshotFilesInternal(f, namedSnapshots, filter, validate, stype, logger, recursion++,
+                                                  scanner, tableFileScans);
                 }
                 continue;
             }
@@ -811,6 +953,18 @@ public class SnapshotUtil {
                 continue;
             }
 
+            if (!f.getName().endsWith(".digest") &&
+                !f.getName().endsWith(".jar") &&
+                !f.getName().endsWith(HASH_EXTENSION)) {
+                tableFileScans.add(Pair.of(f, scanner.submit(new Callable<TableFileScan>() {
+                    @Override
+                    public TableFileScan call() {
+                        return scanTableFile(f, validate);
+                    }
+                })));
+                continue;
+            }
+
             FileInputStream fis = null;
             try {
                 fis = new FileInputStream(f);
@@ -861,38 +1015,6 @@ public class SnapshotUtil {
                             continue;
                         }
                     }
-                } else {
-                    HashSet<Integer> partitionIds = new HashSet<Integer>();
-                    TableSaveFile saveFile = new TableSaveFile(fis, 1, null, true);
-                    try {
-                        for (Integer partitionId : saveFile.getPartitionIds()) {
-                            partitionIds.add(partitionId);
-                        }
-                        if (validate && saveFile.getCompleted()) {
-                            while (saveFile.hasMoreChunks()) {
-                                BBContainer cont = saveFile.getNextChunk();
-                                if (cont != null) {
-                                    cont.discard();
-                                }
-                            }
-                        }
-                        partitionIds.removeAll(saveFile.getCorruptedPartitionIds());
-                        String nonce = parseNonceFromSnapshotFilename(f.getName());
-                        Snapshot named_s = namedSnapshots.get(nonce);
-                        named_s.setTxnId(saveFile.getTxnId());
-                        TableFiles namedTableFiles = named_s.m_tableFiles.get(saveFile.getTableName());
-                        if (namedTableFiles == null) {
-                            namedTableFiles = new TableFiles(saveFile.isReplicated());
-                            named_s.m_tableFiles.put(saveFile.getTableName(), namedTableFiles);
-                        }
-                        namedTableFiles.m_files.add(f);
-                        namedTableFiles.m_completed.add(saveFile.getCompleted());
-                        namedTableFiles.m_validPartitionIds.add(partitionIds);
-                        namedTableFiles.m_corruptParititionIds.add(saveFile.getCorruptedPartitionIds());
-                        namedTableFiles.m_totalPartitionCounts.add(saveFile.getTotalPartitions());
-                    } finally {
-                        saveFile.close();
-                    }
                 }
             } catch (IOException e) {
                 System.err.println(e.getMessage());
@@ -1183,6 +1305,8 @@ public class SnapshotUtil {
         String extension = ".vpt";
         if (format == SnapshotFormat.CSV) {
             extension = ".csv";
+        } else if (format == SnapshotFormat.COLUMNAR) {
+            extension = ".vcol";
         }
 
         StringBuilder filename_builder = new StringBuilder(fileNonce);
@@ -18,6 +18,7 @@
 package org.voltdb.sysprocs.saverestore;
 
 import java.io.EOFException;
+import java.io.File;
 import java.io.FileDescriptor;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -26,8 +27,12 @@ import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Semaphore;
 import java.util.zip.Checksum;
@@ -40,9 +45,11 @@ import org.json_voltpatches.JSONObject;
 import org.voltcore.TransactionIdManager;
 import org.voltcore.logging.VoltLogger;
 import org.voltcore.utils.Bits;
+import org.voltcore.utils.CoreUtils;
 import org.voltcore.utils.DBBPool;
 import org.voltcore.utils.DBBPool.BBContainer;
 import org.voltdb.EELibraryLoader;
+import org.voltdb.SnapshotCodec;
 import org.voltdb.messaging.FastDeserializer;
 import org.voltdb.utils.CompressionService;
 import org.voltdb.utils.PosixAdvise;
@@ -98,15 +105,45 @@ public class TableSaveFile
         this(fis, readAheadChunks, relevantPartitionIds, false);
     }
 
-    // XXX maybe consider an IOException subclass at some point
     public TableSaveFile(
             FileInputStream fis,
             int readAheadChunks,
             Integer[] relevantPartitionIds,
+            boolean continueOnCorruptedChunk) throws IOException {
+        this(fis, null, readAheadChunks, relevantPartitionIds, continueOnCorruptedChunk);
+    }
+
+    /**
+     * Open a file by name, which lets a file of an incremental snapshot find
+     * its base file by a path relative to the file's directory
+     */
+    public TableSaveFile(
+            File file,
+            int readAheadChunks,
+            Integer[] relevantPartitionIds) throws IOException {
+        this(file, readAheadChunks, relevantPartitionIds, false);
+    }
+
+    public TableSaveFile(
+            File file,
+            int readAheadChunks,
+            Integer[] relevantPartitionIds,
+            boolean continueOnCorruptedChunk) throws IOException {
+        this(new FileInputStream(file), file.getAbsoluteFile().getParentFile(), readAheadChunks,
+             relevantPartitionIds, continueOnCorruptedChunk);
+    }
+
+    // XXX maybe consider an IOException subclass at some point
+    private TableSaveFile(
+            FileInputStream fis,
+            File directory,
+            int readAheadChunks,
+            Integer[] relevantPartitionIds,
             boolean continueOnCorruptedChunk) throws IOException
             {
                 m_fd = fis.getFD();
                 FileChannel dataIn = fis.getChannel();
+        String baseFileName = null;
         try {
             EELibraryLoader.loadExecutionEngineLibrary(true);
             if (relevantPartitionIds == null) {
@@ -118,6 +155,8 @@ public class TableSaveFile
                 }
             }
             m_chunkReads = new Semaphore(readAheadChunks);
+            m_readAheadChunks = readAheadChunks;
+            m_maxReadAheadChunks = Math.max(readAheadChunks, MAX_READ_AHEAD_CHUNKS);
             m_saveFile = dataIn;
             m_continueOnCorruptedChunk = continueOnCorruptedChunk;
 
@@ -245,6 +284,7 @@ public class TableSaveFile
                 m_isReplicated = fd.readBoolean();
                 m_isCompressed = false;
                 m_checksumType = ChecksumType.CRC32;
+                m_codec = SnapshotCodec.SNAPPY;
                 if (!m_isReplicated) {
                     m_partitionIds = (int[])fd.readArray(int.class);
                     if (!m_completed) {
@@ -262,7 +302,7 @@ public class TableSaveFile
                 }
                 m_hasVersion2FormatChunks = false;
             } else {
-                assert(m_versionNum[3] == 1 || m_versionNum[3] == 2);
+                assert(m_versionNum[3] >= 1 && m_versionNum[3] <= 3);
                 if (m_versionNum[3] >= 2) {
                     m_hasVersion2FormatChunks = true;
                 } else {
@@ -290,6 +330,10 @@ public class TableSaveFile
                 m_isReplicated = obj.getBoolean("isReplicated");
                 m_isCompressed = obj.optBoolean("isCompressed", false);
                 m_checksumType = ChecksumType.valueOf(obj.optString("checksumType", "CRC32"));
+                //Only version 3 files name their codec, earlier ones are all Snappy
+                m_codec = SnapshotCodec.valueOf(obj.optString("compressionCodec", SnapshotCodec.SNAPPY.name()));
+                //Tables left out of an incremental snapshot name the file still holding their rows
+                baseFileName = obj.optString("baseFile", null);
                 if (!m_isReplicated) {
                     JSONArray partitionIds = obj.getJSONArray("partitionIds");
                     m_partitionIds = new int[partitionIds.length()];
@@ -323,7 +367,57 @@ public class TableSaveFile
             throw new IOException(e);
         } catch (JSONException e) {
             throw new IOException(e);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e);
         }
+        m_maxCompressedChunkLength =
+                Math.max(CompressionService.maxCompressedLength(DEFAULT_CHUNKSIZE),
+                         m_codec.maxCompressedLength(DEFAULT_CHUNKSIZE));
+        if (baseFileName != null) {
+            try {
+                // Files written before the path was made relative name their base by its absolute path
+                File baseFile = new File(baseFileName);
+                if (!baseFile.isAbsolute()) {
+                    if (directory == null) {
+                        throw new IOException("The directory of the file of table " + m_tableName +
+                                              " is not known, unable to find its base file " + baseFileName);
+                    }
+                    baseFile = new File(directory, baseFileName);
+                }
+                m_base = openBaseFile(baseFile, readAheadChunks, relevantPartitionIds, continueOnCorruptedChunk);
+            } catch (IOException e) {
+                m_saveFile.close();
+                throw e;
+            }
+        } else {
+            m_base = null;
+        }
+    }
+
+    private TableSaveFile openBaseFile(
+            File baseFile,
+            int readAheadChunks,
+            Integer[] relevantPartitionIds,
+            boolean continueOnCorruptedChunk) throws IOException
+    {
+        final TableSaveFile base = new TableSaveFile(baseFile, readAheadChunks,
+                                                     relevantPartitionIds, continueOnCorruptedChunk);
+        if (!base.getTableName().equals(m_tableName) ||
+            base.isReplicated() != m_isReplicated ||
+            !Arrays.equals(base.getPartitionIds(), m_partitionIds)) {
+            base.close();
+            throw new IOException("Base file " + baseFile + " of table " + m_tableName +
+                                  " does not hold the same table and partitions");
+        }
+        return base;
+    }
+
+    /**
+     * The file holding the rows of this table if this file is from an incremental
+     * snapshot that left the table out, otherwise null
+     */
+    public TableSaveFile getBase() {
+        return m_base;
     }
 
     public int[] getVersionNumber()
@@ -365,6 +459,10 @@ public class TableSaveFile
         return m_isReplicated;
     }
 
+    public SnapshotCodec getCodec() {
+        return m_codec;
+    }
+
     public boolean isCompressed() {
         return m_isCompressed;
     }
@@ -386,6 +484,11 @@ public class TableSaveFile
     }
 
     public void close() throws IOException {
+        if (m_base != null) {
+            m_base.close();
+            m_saveFile.close();
+            return;
+        }
         Thread chunkReader;
         synchronized (this) {
             m_hasMoreChunks = false;
@@ -402,9 +505,27 @@ public class TableSaveFile
         }
 
         synchronized (this) {
+            /*
+             * Decompressions already submitted still own their buffers
+             */
+            while (m_pendingDecompressions > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
             while (!m_availableChunks.isEmpty()) {
                 m_availableChunks.poll().discard();
             }
+            for (Container c : m_decompressedChunks.values()) {
+                if (c != null) {
+                    c.discard();
+                }
+            }
+            m_decompressedChunks.clear();
+            m_sharedReadAheadChunks.release(m_sharedReadAheadChunksHeld);
+            m_sharedReadAheadChunksHeld = 0;
             notifyAll();
         }
 
@@ -415,23 +536,38 @@ public class TableSaveFile
         while ((cont = m_buffers.poll()) != null) {
             cont.discard();
         }
+        while ((cont = m_compressedBuffers.poll()) != null) {
+            cont.discard();
+        }
     }
 
     public Set<Integer> getCorruptedPartitionIds() {
+        if (m_base != null) {
+            final Set<Integer> corruptedPartitions = new HashSet<Integer>(m_base.getCorruptedPartitionIds());
+            corruptedPartitions.addAll(m_corruptedPartitions);
+            return corruptedPartitions;
+        }
         return m_corruptedPartitions;
     }
 
     public ByteBuffer getTableHeader() {
+        // Chunks of the base file are laid out per its own schema
+        if (m_base != null) {
+            return m_base.getTableHeader();
+        }
         return m_tableHeader;
     }
 
     // Will get the next chunk of the table that is just over the chunk size
     public synchronized BBContainer getNextChunk() throws IOException
     {
+        if (m_base != null) {
+            return m_base.getNextChunk();
+        }
         if (m_chunkReaderException != null) {
             throw m_chunkReaderException;
         }
-        if (!m_hasMoreChunks) {
+        if (!m_hasMoreChunks && m_pendingDecompressions == 0) {
             final Container c = m_availableChunks.poll();
             return c;
         }
@@ -443,9 +579,25 @@ public class TableSaveFile
         }
 
         Container c = null;
-        while (c == null && (m_hasMoreChunks || !m_availableChunks.isEmpty())) {
+        boolean starved = false;
+        while (c == null && (m_hasMoreChunks || m_pendingDecompressions > 0 || !m_availableChunks.isEmpty())) {
             c = m_availableChunks.poll();
             if (c == null) {
+                if (m_chunkReaderException != null) {
+                    throw m_chunkReaderException;
+                }
+                /*
+                 * The reader is blocked on read ahead while the consumer waits, so the
+                 * consumer is outrunning the reader and decompression. Let one more
+                 * chunk be in flight to keep more of the compression threads busy.
+                 */
+                if (!starved && m_readAheadChunks < m_maxReadAheadChunks && m_chunkReads.availablePermits() == 0 &&
+                        m_sharedReadAheadChunks.tryAcquire()) {
+                    starved = true;
+                    m_readAheadChunks++;
+                    m_sharedReadAheadChunksHeld++;
+                    m_chunkReads.release();
+                }
                 try {
                     wait();
                 } catch (InterruptedException e) {
@@ -463,12 +615,22 @@ public class TableSaveFile
         return c;
     }
 
+    /**
+     * The number of chunks the reader is currently allowed to have in flight
+     */
+    synchronized int getReadAheadChunks() {
+        return m_readAheadChunks;
+    }
+
     public synchronized boolean hasMoreChunks() throws IOException
     {
+        if (m_base != null) {
+            return m_base.hasMoreChunks();
+        }
         if (m_chunkReaderException != null) {
             throw m_chunkReaderException;
         }
-        return m_hasMoreChunks || !m_availableChunks.isEmpty();
+        return m_hasMoreChunks || m_pendingDecompressions > 0 || !m_availableChunks.isEmpty();
     }
 
     private final FileChannel m_saveFile;
@@ -492,6 +654,9 @@ public class TableSaveFile
     private final ArrayDeque<Container> m_availableChunks = new ArrayDeque<Container>();
     private final HashSet<Integer> m_relevantPartitionIds;
     private final ChecksumType m_checksumType;
+    private final SnapshotCodec m_codec;
+    private final int m_maxCompressedChunkLength;
+    private final TableSaveFile m_base;
 
     /*
      * In version 2 the layout of chunks was rejiggered to do less work
@@ -516,10 +681,40 @@ public class TableSaveFile
      */
     private final Semaphore m_chunkReads;
 
+    /**
+     * Read ahead starts out at what the caller asked for and grows while the
+     * consumer is found waiting on the reader, up to a bound on the memory held
+     */
+    private static final int MAX_READ_AHEAD_CHUNKS = Math.min(16, CoreUtils.availableProcessors() * 2);
+    private int m_readAheadChunks;
+    private final int m_maxReadAheadChunks;
+
+    /**
+     * Chunks of read ahead beyond what the callers asked for are taken from a budget
+     * shared by all open files, so files scanned concurrently don't each grow to the
+     * per file bound. Each chunk in flight holds a compressed and a decompressed buffer.
+     */
+    static final int MAX_SHARED_READ_AHEAD_CHUNKS = Integer.getInteger("SNAPSHOT_MAX_SHARED_READ_AHEAD_CHUNKS", 16);
+    static final Semaphore m_sharedReadAheadChunks = new Semaphore(MAX_SHARED_READ_AHEAD_CHUNKS);
+    private int m_sharedReadAheadChunksHeld = 0;
+
     private ChunkReader m_chunkReader = null;
     private Thread m_chunkReaderThread = null;
     private IOException m_chunkReaderException = null;
 
+    /*
+     * Version 2 and 3 chunks are decompressed on the compression service so the
+     * chunk reader only does I/O and checksums. Chunks are numbered as they are read
+     * and decompressed chunks are parked until every chunk before them has been
+     * published, so they come out of getNextChunk in file order. A null entry is a
+     * chunk that was dropped because it could not be decompressed.
+     */
+    private final ConcurrentLinkedQueue<BBContainer> m_compressedBuffers = new ConcurrentLinkedQueue<BBContainer>();
+    private final Map<Long, Container> m_decompressedChunks = new HashMap<Long, Container>();
+    private long m_nextChunkToDecompress = 0;
+    private long m_nextChunkToPublish = 0;
+    private int m_pendingDecompressions = 0;
+
     /**
      * Thread to read chunks from the disk
      */
@@ -530,10 +725,6 @@ public class TableSaveFile
          * that should be easier to understand and validate.
          */
         private void readChunksV2() {
-            //For reading the compressed input.
-            final BBContainer fileInputBufferC =
-                    DBBPool.allocateDirect(CompressionService.maxCompressedLength(DEFAULT_CHUNKSIZE));
-            final ByteBuffer fileInputBuffer = fileInputBufferC.b();
             long sinceLastFAdvise = Long.MAX_VALUE;
             long positionAtLastFAdvise = 0;
             while (m_hasMoreChunks) {
@@ -579,11 +770,10 @@ public class TableSaveFile
                 try {
                     m_chunkReads.acquire();
                 } catch (InterruptedException e) {
-                    fileInputBufferC.discard();
                     return;
                 }
                 boolean expectedAnotherChunk = false;
-                Container c = null;
+                BBContainer fileInputBufferC = null;
                 try {
 
                     /*
@@ -616,8 +806,10 @@ public class TableSaveFile
                     int generatedValue = (int)partitionIdCRC.getValue();
                     if (generatedValue != nextChunkPartitionIdCRC) {
                         chunkLengthB.position(0);
-                        for (int partitionId : m_partitionIds) {
-                            m_corruptedPartitions.add(partitionId);
+                        synchronized (TableSaveFile.this) {
+                            for (int partitionId : m_partitionIds) {
+                                m_corruptedPartitions.add(partitionId);
+                            }
                         }
                         throw new IOException("Chunk partition ID CRC check failed. " +
                                 "This corrupts all partitions in this file");
@@ -636,17 +828,20 @@ public class TableSaveFile
                         throw new IOException("Corrupted TableSaveFile chunk has negative chunk length");
                     }
 
-                    if (nextChunkLength > fileInputBuffer.capacity()) {
+                    if (nextChunkLength > m_maxCompressedChunkLength) {
                         throw new IOException("Corrupted TableSaveFile chunk has unreasonable length " +
                                 "> DEFAULT_CHUNKSIZE bytes");
                     }
 
                     /*
-                     * Go fetch the compressed data so that the uncompressed size is known
-                     * and use that to set nextChunkLength to be the uncompressed length,
-                     * the code ahead that constructs the volt table is expecting
-                     * the uncompressed size/data since it is producing an uncompressed table
+                     * Go fetch the compressed data into a buffer of its own, it is handed
+                     * off to the decompression task along with the chunk
                      */
+                    fileInputBufferC = m_compressedBuffers.poll();
+                    if (fileInputBufferC == null) {
+                        fileInputBufferC = DBBPool.allocateDirect(m_maxCompressedChunkLength);
+                    }
+                    final ByteBuffer fileInputBuffer = fileInputBufferC.b();
                     fileInputBuffer.clear();
                     fileInputBuffer.limit(nextChunkLength);
                     while (fileInputBuffer.hasRemaining()) {
@@ -657,7 +852,6 @@ public class TableSaveFile
                         sinceLastFAdvise += read;
                     }
                     fileInputBuffer.flip();
-                    nextChunkLength = CompressionService.uncompressedLength(fileInputBuffer);
 
                     /*
                      * Validate the rest of the chunk. This can fail if the data is corrupted
@@ -666,7 +860,9 @@ public class TableSaveFile
                     final int calculatedCRC =
                             DBBPool.getBufferCRC32C(fileInputBuffer, 0, fileInputBuffer.remaining());
                     if (calculatedCRC != nextChunkCRC) {
-                        m_corruptedPartitions.add(nextChunkPartitionId);
+                        synchronized (TableSaveFile.this) {
+                            m_corruptedPartitions.add(nextChunkPartitionId);
+                        }
                         if (m_continueOnCorruptedChunk) {
                             m_chunkReads.release();
                             continue;
@@ -675,50 +871,6 @@ public class TableSaveFile
                         }
                     }
 
-                    /*
-                     * Now allocate space to store the chunk using the VoltTable serialization representation.
-                     * The chunk will contain an integer row count preceding it so it can
-                     * be sucked straight in. There is a little funny business to overwrite the
-                     * partition id that is not part of the serialization format
-                     */
-                    c = getOutputBuffer(nextChunkPartitionId);
-
-                    /*
-                     * If the length value is wrong or not all data made it to disk this read will
-                     * not complete correctly. There could be overflow, underflow etc.
-                     * so use a try finally block to indicate that all partitions are now corrupt.
-                     * The enclosing exception handlers will do the right thing WRT to
-                     * propagating the error and closing the file.
-                     */
-                    boolean completedRead = false;
-                    try {
-                        final ByteBuffer buf = c.b();
-                        /*
-                         * Assemble a VoltTable out of the chunk of tuples.
-                         * Put in the header that was cached in the constructor,
-                         * then copy the tuple data.
-                         */
-                        buf.clear();
-                        buf.limit(nextChunkLength  + m_tableHeader.capacity());
-                        m_tableHeader.position(0);
-                        buf.put(m_tableHeader);
-                        //Doesn't move buffer position, does change the limit
-                        CompressionService.decompressBuffer(fileInputBuffer, buf);
-                        completedRead = true;
-                    } finally {
-                        if (!completedRead) {
-                            for (int partitionId : m_partitionIds) {
-                                m_corruptedPartitions.add(partitionId);
-                            }
-                            if (m_continueOnCorruptedChunk) {
-                                m_chunkReads.release();
-                                continue;
-                            } else {
-                                throw new IOException("Failed decompression of saved table chunk");
-                            }
-                        }
-                    }
-
                     /*
                      * Skip irrelevant chunks after CRC is calculated. Always calulate the CRC
                      * in case it is the length value that is corrupted
@@ -730,16 +882,14 @@ public class TableSaveFile
                         }
                     }
 
-                    /*
-                     * VoltTable wants the buffer at the home position 0
-                     */
-                    c.b().position(0);
-
+                    final long chunkNumber;
                     synchronized (TableSaveFile.this) {
-                        m_availableChunks.offer(c);
-                        c = null;
-                        TableSaveFile.this.notifyAll();
+                        chunkNumber = m_nextChunkToDecompress++;
+                        m_pendingDecompressions++;
                     }
+                    CompressionService.submitCompressionTask(
+                            new ChunkDecompressor(chunkNumber, nextChunkPartitionId, fileInputBufferC));
+                    fileInputBufferC = null;
                 } catch (EOFException eof) {
                     synchronized (TableSaveFile.this) {
                         m_hasMoreChunks = false;
@@ -775,10 +925,94 @@ public class TableSaveFile
                         TableSaveFile.this.notifyAll();
                     }
                 } finally {
-                    if (c != null) c.discard();
+                    if (fileInputBufferC != null) m_compressedBuffers.offer(fileInputBufferC);
                 }
             }
-            fileInputBufferC.discard();
+        }
+
+        /**
+         * Decompresses one chunk into a VoltTable buffer behind the cached table header
+         */
+        private class ChunkDecompressor implements Callable<Void> {
+            private final long m_chunkNumber;
+            private final int m_partitionId;
+            private final BBContainer m_input;
+
+            private ChunkDecompressor(long chunkNumber, int partitionId, BBContainer input) {
+                m_chunkNumber = chunkNumber;
+                m_partitionId = partitionId;
+                m_input = input;
+            }
+
+            @Override
+            public Void call() {
+                Container c = null;
+                Throwable failure = null;
+                try {
+                    final ByteBuffer fileInputBuffer = m_input.b();
+                    final int nextChunkLength = m_codec.uncompressedLength(fileInputBuffer);
+                    c = getOutputBuffer(m_partitionId);
+                    final ByteBuffer buf = c.b();
+                    /*
+                     * Assemble a VoltTable out of the chunk of tuples.
+                     * Put in the header that was cached in the constructor,
+                     * then copy the tuple data.
+                     */
+                    buf.clear();
+                    buf.limit(nextChunkLength  + m_tableHeader.capacity());
+                    final ByteBuffer tableHeader = m_tableHeader.duplicate();
+                    tableHeader.position(0);
+                    buf.put(tableHeader);
+                    //Doesn't move buffer position, does change the limit
+                    m_codec.decompress(fileInputBuffer, buf);
+
+                    /*
+                     * VoltTable wants the buffer at the home position 0
+                     */
+                    buf.position(0);
+                } catch (Throwable t) {
+                    failure = t;
+                    if (c != null) {
+                        c.discard();
+                        c = null;
+                    }
+                } finally {
+                    m_compressedBuffers.offer(m_input);
+                }
+                publishChunk(m_chunkNumber, c, failure);
+                return null;
+            }
+        }
+
+        /**
+         * Hand decompressed chunks to getNextChunk in the order they were read.
+         * If the chunk could not be decompressed all partitions are corrupt, as
+         * the length value itself may be what was damaged.
+         */
+        private void publishChunk(long chunkNumber, Container c, Throwable failure) {
+            synchronized (TableSaveFile.this) {
+                m_pendingDecompressions--;
+                if (failure != null) {
+                    for (int partitionId : m_partitionIds) {
+                        m_corruptedPartitions.add(partitionId);
+                    }
+                    if (!m_continueOnCorruptedChunk && m_chunkReaderException == null) {
+                        m_hasMoreChunks = false;
+                        m_chunkReaderException =
+                                new IOException("Failed decompression of saved table chunk", failure);
+                    }
+                }
+                m_decompressedChunks.put(chunkNumber, c);
+                while (m_decompressedChunks.containsKey(m_nextChunkToPublish)) {
+                    final Container next = m_decompressedChunks.remove(m_nextChunkToPublish++);
+                    if (next == null) {
+                        m_chunkReads.release();
+                    } else {
+                        m_availableChunks.offer(next);
+                    }
+                }
+                TableSaveFile.this.notifyAll();
+            }
         }
 
         private void readChunks() {
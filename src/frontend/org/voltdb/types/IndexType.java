@@ -30,6 +30,7 @@ public enum IndexType {
     HASH_TABLE          (2),
     BTREE               (3),
     COVERING_CELL_INDEX (4),
+    ADAPTIVE_RADIX_TREE (5),
     ;
 
     IndexType(int val) {
@@ -87,6 +88,8 @@ public enum IndexType {
         switch (this) {
         case BALANCED_TREE:
             return "_TREE";
+        case ADAPTIVE_RADIX_TREE:
+            return "_RADIX";
         case BTREE:
         case HASH_TABLE:
         case COVERING_CELL_INDEX:
@@ -111,6 +114,7 @@ public enum IndexType {
         switch (this) {
         case BALANCED_TREE:
         case BTREE:
+        case ADAPTIVE_RADIX_TREE:
             return true;
         case HASH_TABLE:
         case INVALID:
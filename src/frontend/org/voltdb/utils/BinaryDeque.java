@@ -105,6 +105,11 @@ public interface BinaryDeque {
 
     public Pair<Integer, Long> getBufferCountAndSize() throws IOException;
 
+    /**
+     * Bytes of disk used by the back store of the queue
+     */
+    public long getDiskUsageBytes();
+
     public void closeAndDelete() throws IOException;
 
     /**
@@ -18,7 +18,6 @@
 package org.voltdb.utils;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -48,8 +47,7 @@ public class CSVTableSaveFile {
     public CSVTableSaveFile(File saveFile, char delimiter, Integer partitions[])
             throws IOException {
         m_delimiter = delimiter;
-        final FileInputStream fis = new FileInputStream(saveFile);
-        m_saveFile = new TableSaveFile(fis, 10, partitions);
+        m_saveFile = new TableSaveFile(saveFile, 10, partitions);
         for (int ii = 0; ii < m_converterThreads.length; ii++) {
             m_converterThreads[ii] = new Thread(new ConverterThread());
             m_converterThreads[ii].start();
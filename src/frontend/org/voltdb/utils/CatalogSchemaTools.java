@@ -140,6 +140,9 @@ public abstract class CatalogSchemaTools {
             table_sb.append(add).append(spacer).append(catalog_col.getTypeName()).append(" ").append(col_type.toSQLString()).append(col_type.isVariableLength() &&
                     catalog_col.getSize() > 0 ? "(" + catalog_col.getSize() +
                             (catalog_col.getInbytes() ? " BYTES" : "") + ")" : "");
+            if (catalog_col.getDictionary()) {
+                table_sb.append(" DICTIONARY");
+            }
 
             // Default value
             String defaultvalue = catalog_col.getDefaultvalue();
@@ -332,6 +335,8 @@ public abstract class CatalogSchemaTools {
         // All other Indexes
         for (Index catalog_idx : catalog_tbl.getIndexes()) {
             if (skip_indexes.contains(catalog_idx)) continue;
+            // Materialized views add these again when the DDL is compiled.
+            if (CatalogUtil.isHiddenMatViewIndex(catalog_idx)) continue;
 
             if (catalog_idx.getUnique()) {
                 if (catalog_idx.getAssumeunique()) {
@@ -392,6 +397,13 @@ public abstract class CatalogSchemaTools {
             sb.append("DR TABLE ").append(catalog_tbl.getTypeName()).append(";\n");
         }
 
+        if (catalog_tbl.getTtlcolumn() != null) {
+            sb.append("TTL TABLE ").append(catalog_tbl.getTypeName())
+              .append(" ON COLUMN ").append(catalog_tbl.getTtlcolumn().getTypeName())
+              .append(" ").append(catalog_tbl.getTtlseconds()).append(" SECONDS")
+              .append(" BATCH_SIZE ").append(catalog_tbl.getTtlbatchsize()).append(";\n");
+        }
+
         sb.append("\n");
         // Canonical DDL generation for this table is done, now just hand the CREATE TABLE
         // statement to whoever might be interested (DDLCompiler, I'm looking in your direction)
@@ -33,6 +33,7 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -65,6 +66,7 @@ import org.apache.zookeeper_voltpatches.CreateMode;
 import org.apache.zookeeper_voltpatches.KeeperException;
 import org.apache.zookeeper_voltpatches.ZooDefs.Ids;
 import org.apache.zookeeper_voltpatches.ZooKeeper;
+import org.hsqldb_voltpatches.HSQLInterface;
 import org.json_voltpatches.JSONException;
 import org.mindrot.BCrypt;
 import org.xml.sax.SAXException;
@@ -73,6 +75,7 @@ import org.voltcore.logging.VoltLogger;
 import org.voltcore.utils.Pair;
 import org.voltdb.HealthMonitor;
 import org.voltdb.RealVoltDB;
+import org.voltdb.SnapshotCodec;
 import org.voltdb.SystemProcedureCatalog;
 import org.voltdb.VoltDB;
 import org.voltdb.VoltTable;
@@ -551,6 +554,16 @@ public abstract class CatalogUtil {
         return false;
     }
 
+    /**
+     * Return true if an index was added by a materialized view to refresh
+     * its min / max columns. Queries are not planned with these indexes.
+     * @param index
+     * @return true if the index is hidden from the planner
+     */
+    public static boolean isHiddenMatViewIndex(Index index) {
+        return index.getTypeName().startsWith(HSQLInterface.AUTO_GEN_MATVIEW_MINMAX_IDX_PREFIX);
+    }
+
     public static boolean isExportEnabled() {
         return m_exportEnabled;
     }
@@ -1645,11 +1658,26 @@ public abstract class CatalogUtil {
             retain = 1;
         }
 
+        String compression = snapshotSettings.getCompression();
+        if (compression != null && !compression.trim().isEmpty()) {
+            try {
+                compression = SnapshotCodec.getEnumIgnoreCase(compression.trim()).name();
+            } catch (IllegalArgumentException e) {
+                hostLog.error("Snapshot compression " + compression +
+                        " is not a valid codec. Must be one of " + Arrays.toString(SnapshotCodec.values()) +
+                        ". Defaulting snapshot compression to " + SnapshotCodec.SNAPPY + ".");
+                compression = SnapshotCodec.SNAPPY.name();
+            }
+        } else {
+            compression = "";
+        }
+
         schedule.setFrequencyunit(
                 frequency.substring(frequency.length() - 1, frequency.length()));
         schedule.setFrequencyvalue(frequencyInt);
         schedule.setPrefix(prefix);
         schedule.setRetain(retain);
+        schedule.setCompression(compression);
     }
 
     /**
@@ -0,0 +1,716 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2017 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.voltdb.VoltTable;
+import org.voltdb.VoltTableRow;
+import org.voltdb.VoltType;
+import org.voltdb.types.GeographyPointValue;
+import org.voltdb.types.GeographyValue;
+import org.voltdb.types.TimestampType;
+import org.voltdb.types.VoltDecimalHelper;
+
+/**
+ * Columnar layout for table data exported from snapshots, meant for analytics
+ * tools that only want a few columns out of wide tables.
+ *
+ * A file starts with a header naming the columns and their types, followed by
+ * row groups. Every row group stores its columns one after the other, each with
+ * its encoding, null count, min/max statistics and data, so a reader can skip a
+ * column or the whole group without decoding any values.
+ *
+ * <pre>
+ * header:    magic "VCOL", version (byte), column count (int),
+ *            per column: type (byte), name length (int), name (UTF-8)
+ * row group: length of the rest of the group (int), row count (int), then per column:
+ *            encoding (byte), null count (int), has stats (byte), [min, max],
+ *            data length (int), [null bitmap], values of the non-null rows
+ * </pre>
+ *
+ * All numbers are big endian. Integer and timestamp columns are delta encoded when
+ * that is smaller than the plain values, strings and varbinary are dictionary
+ * encoded when at most half of the values are distinct.
+ */
+public class ColumnarFormat {
+
+    public static final byte[] MAGIC = new byte[] { 'V', 'C', 'O', 'L' };
+    public static final byte VERSION = 1;
+
+    public enum Encoding {
+        PLAIN,
+        DICTIONARY,
+        DELTA;
+
+        static Encoding get(byte b) {
+            if (b < 0 || b >= values().length) {
+                throw new IllegalArgumentException("Unknown columnar encoding " + b);
+            }
+            return values()[b];
+        }
+    }
+
+    /**
+     * What a row group says about one of its columns. Min and max are
+     * Long for integer and timestamp columns, Double, BigDecimal, String or
+     * byte[] for the others, and null when the column has no non-null
+     * value or its type keeps no statistics.
+     */
+    public static class ColumnStats {
+        public final VoltType m_type;
+        public final Encoding m_encoding;
+        public final int m_nullCount;
+        public final Object m_min;
+        public final Object m_max;
+
+        ColumnStats(VoltType type, Encoding encoding, int nullCount, Object min, Object max)
+        {
+            m_type = type;
+            m_encoding = encoding;
+            m_nullCount = nullCount;
+            m_min = min;
+            m_max = max;
+        }
+    }
+
+    /**
+     * Serialize the file header for a table with the same columns as vt
+     */
+    public static byte[] getHeader(VoltTable vt) {
+        try {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream(64 + vt.getColumnCount() * 32);
+            DataOutputStream out = new DataOutputStream(baos);
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(vt.getColumnCount());
+            for (int ii = 0; ii < vt.getColumnCount(); ii++) {
+                out.writeByte(vt.getColumnType(ii).getValue());
+                byte name[] = vt.getColumnName(ii).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(name.length);
+                out.write(name);
+            }
+            out.flush();
+            return baos.toByteArray();
+        } catch (IOException e) {
+            // Writing to memory
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Read the file header at the position of buf
+     * @return A table without rows with the columns of the file
+     */
+    public static VoltTable readHeader(ByteBuffer buf) throws IOException {
+        byte magic[] = new byte[MAGIC.length];
+        buf.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a columnar snapshot file");
+        }
+        byte version = buf.get();
+        if (version != VERSION) {
+            throw new IOException("Unsupported columnar snapshot file version " + version);
+        }
+        VoltTable.ColumnInfo columns[] = new VoltTable.ColumnInfo[buf.getInt()];
+        for (int ii = 0; ii < columns.length; ii++) {
+            VoltType type = VoltType.get(buf.get());
+            byte name[] = new byte[buf.getInt()];
+            buf.get(name);
+            columns[ii] = new VoltTable.ColumnInfo(new String(name, StandardCharsets.UTF_8), type);
+        }
+        return new VoltTable(columns);
+    }
+
+    /**
+     * Encode all the rows of vt as one row group, length prefix included.
+     * The position of vt is reset.
+     */
+    public static byte[] encodeRowGroup(VoltTable vt) {
+        final int rowCount = vt.getRowCount();
+        final ColumnWriter writers[] = new ColumnWriter[vt.getColumnCount()];
+        for (int ii = 0; ii < writers.length; ii++) {
+            writers[ii] = createWriter(vt.getColumnType(ii), rowCount);
+        }
+
+        vt.resetRowPosition();
+        int row = 0;
+        while (vt.advanceRow()) {
+            for (int ii = 0; ii < writers.length; ii++) {
+                writers[ii].add(vt, ii, row);
+            }
+            row++;
+        }
+        vt.resetRowPosition();
+
+        try {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream(vt.getSerializedSize());
+            DataOutputStream out = new DataOutputStream(baos);
+            out.writeInt(0); // length, filled in below
+            out.writeInt(rowCount);
+            for (ColumnWriter writer : writers) {
+                writer.write(out);
+            }
+            out.flush();
+            byte group[] = baos.toByteArray();
+            ByteBuffer.wrap(group).putInt(0, group.length - 4);
+            return group;
+        } catch (IOException e) {
+            // Writing to memory
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Decode the row group at the position of buf into a VoltTable. Leaves
+     * buf positioned at the next row group.
+     * @param schema  Table without rows returned by readHeader()
+     */
+    public static VoltTable decodeRowGroup(ByteBuffer buf, VoltTable schema) {
+        final int length = buf.getInt();
+        final int end = length + buf.position();
+        final int rowCount = buf.getInt();
+        final Object rows[][] = new Object[rowCount][schema.getColumnCount()];
+        for (int ii = 0; ii < schema.getColumnCount(); ii++) {
+            final VoltType type = schema.getColumnType(ii);
+            final Encoding encoding = Encoding.get(buf.get());
+            final int nullCount = buf.getInt();
+            if (buf.get() != 0) {
+                readValue(type, buf);
+                readValue(type, buf);
+            }
+            final int dataEnd = buf.getInt() + buf.position();
+            byte nulls[] = null;
+            if (nullCount > 0) {
+                nulls = new byte[(rowCount + 7) / 8];
+                buf.get(nulls);
+            }
+
+            Object dictionary[] = null;
+            if (encoding == Encoding.DICTIONARY) {
+                dictionary = new Object[buf.getInt()];
+                for (int jj = 0; jj < dictionary.length; jj++) {
+                    dictionary[jj] = readValue(type, buf);
+                }
+            }
+
+            long last = 0;
+            boolean first = true;
+            for (int row = 0; row < rowCount; row++) {
+                if (nulls != null && (nulls[row >> 3] & (1 << (row & 7))) != 0) {
+                    continue;
+                }
+                Object value;
+                switch (encoding) {
+                case DELTA:
+                    last = first ? readZigZag(buf) : last + readZigZag(buf);
+                    first = false;
+                    value = type == VoltType.TIMESTAMP ? new TimestampType(last) : Long.valueOf(last);
+                    break;
+                case DICTIONARY:
+                    value = dictionary[(int)readZigZag(buf)];
+                    break;
+                default:
+                    value = readValue(type, buf);
+                }
+                rows[row][ii] = value;
+            }
+            assert(buf.position() == dataEnd);
+            buf.position(dataEnd);
+        }
+
+        VoltTable vt = schema.clone(length);
+        for (Object row[] : rows) {
+            vt.addRow(row);
+        }
+        buf.position(end);
+        return vt;
+    }
+
+    /**
+     * Read only the per column statistics of the row group at the position of
+     * buf, skipping the data. Leaves buf positioned at the next row group.
+     * @param schema  Table without rows returned by readHeader()
+     */
+    public static ColumnStats[] readRowGroupStats(ByteBuffer buf, VoltTable schema) {
+        final int end = buf.getInt() + buf.position();
+        buf.getInt(); // row count
+        ColumnStats stats[] = new ColumnStats[schema.getColumnCount()];
+        for (int ii = 0; ii < stats.length; ii++) {
+            final VoltType type = schema.getColumnType(ii);
+            final Encoding encoding = Encoding.get(buf.get());
+            final int nullCount = buf.getInt();
+            Object min = null;
+            Object max = null;
+            if (buf.get() != 0) {
+                min = readValue(type, buf);
+                max = readValue(type, buf);
+                if (type == VoltType.TIMESTAMP) {
+                    min = ((TimestampType)min).getTime();
+                    max = ((TimestampType)max).getTime();
+                }
+            }
+            final int dataLength = buf.getInt();
+            buf.position(buf.position() + dataLength);
+            stats[ii] = new ColumnStats(type, encoding, nullCount, min, max);
+        }
+        buf.position(end);
+        return stats;
+    }
+
+    /*
+     * Values of a column collected from a table, along with the
+     * nulls and the statistics of the column
+     */
+    private static abstract class ColumnWriter {
+        final VoltType m_type;
+        final byte m_nulls[];
+        int m_nullCount = 0;
+
+        ColumnWriter(VoltType type, int rowCount) {
+            m_type = type;
+            m_nulls = new byte[(rowCount + 7) / 8];
+        }
+
+        void add(VoltTableRow vt, int column, int row) {
+            if (!addValue(vt, column)) {
+                m_nulls[row >> 3] |= 1 << (row & 7);
+                m_nullCount++;
+            }
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            ByteArrayOutputStream data = new ByteArrayOutputStream();
+            DataOutputStream dataOut = new DataOutputStream(data);
+            if (m_nullCount > 0) {
+                dataOut.write(m_nulls);
+            }
+            Encoding encoding = writeValues(dataOut);
+            dataOut.flush();
+
+            out.writeByte(encoding.ordinal());
+            out.writeInt(m_nullCount);
+            out.writeByte(hasStats() ? 1 : 0);
+            if (hasStats()) {
+                writeStats(out);
+            }
+            out.writeInt(data.size());
+            data.writeTo(out);
+        }
+
+        /** @return false if the value was null */
+        abstract boolean addValue(VoltTableRow vt, int column);
+        abstract Encoding writeValues(DataOutputStream out) throws IOException;
+        abstract boolean hasStats();
+        abstract void writeStats(DataOutputStream out) throws IOException;
+    }
+
+    private static class IntegerColumnWriter extends ColumnWriter {
+        private final long m_values[];
+        private int m_count = 0;
+        private long m_min = Long.MAX_VALUE;
+        private long m_max = Long.MIN_VALUE;
+
+        IntegerColumnWriter(VoltType type, int rowCount) {
+            super(type, rowCount);
+            m_values = new long[rowCount];
+        }
+
+        @Override
+        boolean addValue(VoltTableRow vt, int column) {
+            final long value = m_type == VoltType.TIMESTAMP ? vt.getTimestampAsLong(column) : vt.getLong(column);
+            if (vt.wasNull()) {
+                return false;
+            }
+            m_values[m_count++] = value;
+            m_min = Math.min(m_min, value);
+            m_max = Math.max(m_max, value);
+            return true;
+        }
+
+        @Override
+        Encoding writeValues(DataOutputStream out) throws IOException {
+            int deltaSize = 0;
+            for (int ii = 0; ii < m_count; ii++) {
+                deltaSize += zigZagSize(ii == 0 ? m_values[0] : m_values[ii] - m_values[ii - 1]);
+            }
+            if (deltaSize < m_count * m_type.getLengthInBytesForFixedTypes()) {
+                for (int ii = 0; ii < m_count; ii++) {
+                    writeZigZag(out, ii == 0 ? m_values[0] : m_values[ii] - m_values[ii - 1]);
+                }
+                return Encoding.DELTA;
+            }
+            for (int ii = 0; ii < m_count; ii++) {
+                writeLong(out, m_type, m_values[ii]);
+            }
+            return Encoding.PLAIN;
+        }
+
+        @Override
+        boolean hasStats() {
+            return m_count > 0;
+        }
+
+        @Override
+        void writeStats(DataOutputStream out) throws IOException {
+            writeLong(out, m_type, m_min);
+            writeLong(out, m_type, m_max);
+        }
+    }
+
+    private static class FloatColumnWriter extends ColumnWriter {
+        private final double m_values[];
+        private int m_count = 0;
+        private double m_min = Double.POSITIVE_INFINITY;
+        private double m_max = Double.NEGATIVE_INFINITY;
+
+        FloatColumnWriter(VoltType type, int rowCount) {
+            super(type, rowCount);
+            m_values = new double[rowCount];
+        }
+
+        @Override
+        boolean addValue(VoltTableRow vt, int column) {
+            final double value = vt.getDouble(column);
+            if (vt.wasNull()) {
+                return false;
+            }
+            m_values[m_count++] = value;
+            m_min = Math.min(m_min, value);
+            m_max = Math.max(m_max, value);
+            return true;
+        }
+
+        @Override
+        Encoding writeValues(DataOutputStream out) throws IOException {
+            for (int ii = 0; ii < m_count; ii++) {
+                out.writeDouble(m_values[ii]);
+            }
+            return Encoding.PLAIN;
+        }
+
+        @Override
+        boolean hasStats() {
+            return m_count > 0;
+        }
+
+        @Override
+        void writeStats(DataOutputStream out) throws IOException {
+            out.writeDouble(m_min);
+            out.writeDouble(m_max);
+        }
+    }
+
+    private static class DecimalColumnWriter extends ColumnWriter {
+        private final BigDecimal m_values[];
+        private int m_count = 0;
+        private BigDecimal m_min = null;
+        private BigDecimal m_max = null;
+
+        DecimalColumnWriter(VoltType type, int rowCount) {
+            super(type, rowCount);
+            m_values = new BigDecimal[rowCount];
+        }
+
+        @Override
+        boolean addValue(VoltTableRow vt, int column) {
+            final BigDecimal value = vt.getDecimalAsBigDecimal(column);
+            if (vt.wasNull()) {
+                return false;
+            }
+            m_values[m_count++] = value;
+            if (m_min == null || value.compareTo(m_min) < 0) {
+                m_min = value;
+            }
+            if (m_max == null || value.compareTo(m_max) > 0) {
+                m_max = value;
+            }
+            return true;
+        }
+
+        @Override
+        Encoding writeValues(DataOutputStream out) throws IOException {
+            for (int ii = 0; ii < m_count; ii++) {
+                out.write(VoltDecimalHelper.serializeBigDecimal(m_values[ii]));
+            }
+            return Encoding.PLAIN;
+        }
+
+        @Override
+        boolean hasStats() {
+            return m_count > 0;
+        }
+
+        @Override
+        void writeStats(DataOutputStream out) throws IOException {
+            out.write(VoltDecimalHelper.serializeBigDecimal(m_min));
+            out.write(VoltDecimalHelper.serializeBigDecimal(m_max));
+        }
+    }
+
+    /*
+     * Strings, varbinary and geography, kept as the serialized bytes of each value.
+     * Strings and varbinary compare as unsigned bytes, which for UTF-8 is the
+     * order of the code points.
+     */
+    private static class BytesColumnWriter extends ColumnWriter {
+        private final byte m_values[][];
+        private int m_count = 0;
+        private byte m_min[] = null;
+        private byte m_max[] = null;
+
+        BytesColumnWriter(VoltType type, int rowCount) {
+            super(type, rowCount);
+            m_values = new byte[rowCount][];
+        }
+
+        @Override
+        boolean addValue(VoltTableRow vt, int column) {
+            final byte value[];
+            switch (m_type) {
+            case STRING:
+                value = vt.getStringAsBytes(column);
+                break;
+            case VARBINARY:
+                value = vt.getVarbinary(column);
+                break;
+            case GEOGRAPHY_POINT: {
+                GeographyPointValue point = vt.getGeographyPointValue(column);
+                if (vt.wasNull()) {
+                    return false;
+                }
+                ByteBuffer buf = ByteBuffer.allocate(GeographyPointValue.getLengthInBytes());
+                point.flattenToBuffer(buf);
+                value = buf.array();
+                break;
+            }
+            case GEOGRAPHY: {
+                GeographyValue geography = vt.getGeographyValue(column);
+                if (vt.wasNull()) {
+                    return false;
+                }
+                ByteBuffer buf = ByteBuffer.allocate(geography.getLengthInBytes());
+                geography.flattenToBuffer(buf);
+                value = buf.array();
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported type " + m_type);
+            }
+            if (vt.wasNull()) {
+                return false;
+            }
+            m_values[m_count++] = value;
+            if (hasOrdering()) {
+                if (m_min == null || compareUnsigned(value, m_min) < 0) {
+                    m_min = value;
+                }
+                if (m_max == null || compareUnsigned(value, m_max) > 0) {
+                    m_max = value;
+                }
+            }
+            return true;
+        }
+
+        private boolean hasOrdering() {
+            return m_type == VoltType.STRING || m_type == VoltType.VARBINARY;
+        }
+
+        private void writeBytes(DataOutputStream out, byte value[]) throws IOException {
+            if (m_type != VoltType.GEOGRAPHY_POINT) {
+                out.writeInt(value.length);
+            }
+            out.write(value);
+        }
+
+        @Override
+        Encoding writeValues(DataOutputStream out) throws IOException {
+            if (hasOrdering() && m_count > 1) {
+                Map<ByteBuffer, Integer> dictionary = new HashMap<ByteBuffer, Integer>();
+                int limit = m_count / 2;
+                int ii = 0;
+                for (; ii < m_count && dictionary.size() <= limit; ii++) {
+                    ByteBuffer key = ByteBuffer.wrap(m_values[ii]);
+                    if (!dictionary.containsKey(key)) {
+                        dictionary.put(key, dictionary.size());
+                    }
+                }
+                if (dictionary.size() <= limit) {
+                    byte entries[][] = new byte[dictionary.size()][];
+                    for (Map.Entry<ByteBuffer, Integer> e : dictionary.entrySet()) {
+                        entries[e.getValue()] = e.getKey().array();
+                    }
+                    out.writeInt(entries.length);
+                    for (byte entry[] : entries) {
+                        writeBytes(out, entry);
+                    }
+                    for (ii = 0; ii < m_count; ii++) {
+                        writeZigZag(out, dictionary.get(ByteBuffer.wrap(m_values[ii])));
+                    }
+                    return Encoding.DICTIONARY;
+                }
+            }
+            for (int ii = 0; ii < m_count; ii++) {
+                writeBytes(out, m_values[ii]);
+            }
+            return Encoding.PLAIN;
+        }
+
+        @Override
+        boolean hasStats() {
+            return m_min != null;
+        }
+
+        @Override
+        void writeStats(DataOutputStream out) throws IOException {
+            writeBytes(out, m_min);
+            writeBytes(out, m_max);
+        }
+    }
+
+    private static ColumnWriter createWriter(VoltType type, int rowCount) {
+        switch (type) {
+        case TINYINT:
+        case SMALLINT:
+        case INTEGER:
+        case BIGINT:
+        case TIMESTAMP:
+            return new IntegerColumnWriter(type, rowCount);
+        case FLOAT:
+            return new FloatColumnWriter(type, rowCount);
+        case DECIMAL:
+            return new DecimalColumnWriter(type, rowCount);
+        case STRING:
+        case VARBINARY:
+        case GEOGRAPHY_POINT:
+        case GEOGRAPHY:
+            return new BytesColumnWriter(type, rowCount);
+        default:
+            throw new IllegalArgumentException("Unsupported type " + type);
+        }
+    }
+
+    private static void writeLong(DataOutputStream out, VoltType type, long value) throws IOException {
+        switch (type) {
+        case TINYINT:
+            out.writeByte((int)value);
+            break;
+        case SMALLINT:
+            out.writeShort((int)value);
+            break;
+        case INTEGER:
+            out.writeInt((int)value);
+            break;
+        default:
+            out.writeLong(value);
+        }
+    }
+
+    /*
+     * Read one plain encoded value, as accepted by VoltTable.addRow()
+     */
+    private static Object readValue(VoltType type, ByteBuffer buf) {
+        switch (type) {
+        case TINYINT:
+            return buf.get();
+        case SMALLINT:
+            return buf.getShort();
+        case INTEGER:
+            return buf.getInt();
+        case BIGINT:
+            return buf.getLong();
+        case TIMESTAMP:
+            return new TimestampType(buf.getLong());
+        case FLOAT:
+            return buf.getDouble();
+        case DECIMAL:
+            return VoltDecimalHelper.deserializeBigDecimal(buf);
+        case STRING: {
+            byte value[] = new byte[buf.getInt()];
+            buf.get(value);
+            return new String(value, StandardCharsets.UTF_8);
+        }
+        case VARBINARY: {
+            byte value[] = new byte[buf.getInt()];
+            buf.get(value);
+            return value;
+        }
+        case GEOGRAPHY_POINT:
+            return GeographyPointValue.unflattenFromBuffer(buf);
+        case GEOGRAPHY: {
+            final int length = buf.getInt();
+            final int end = buf.position() + length;
+            GeographyValue value = GeographyValue.unflattenFromBuffer(buf);
+            buf.position(end);
+            return value;
+        }
+        default:
+            throw new IllegalArgumentException("Unsupported type " + type);
+        }
+    }
+
+    private static int compareUnsigned(byte a[], byte b[]) {
+        final int length = Math.min(a.length, b.length);
+        for (int ii = 0; ii < length; ii++) {
+            int cmp = (a[ii] & 0xff) - (b[ii] & 0xff);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return a.length - b.length;
+    }
+
+    private static int zigZagSize(long value) {
+        long v = (value << 1) ^ (value >> 63);
+        int size = 1;
+        while ((v & ~0x7FL) != 0) {
+            v >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static void writeZigZag(DataOutputStream out, long value) throws IOException {
+        long v = (value << 1) ^ (value >> 63);
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int)((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int)v);
+    }
+
+    private static long readZigZag(ByteBuffer buf) {
+        long v = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buf.get();
+            v |= (long)(b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (v >>> 1) ^ -(v & 1);
+    }
+}
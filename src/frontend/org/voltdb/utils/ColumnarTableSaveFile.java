@@ -0,0 +1,166 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2017 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.utils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.voltcore.utils.CoreUtils;
+import org.voltcore.utils.DBBPool.BBContainer;
+import org.voltdb.PrivateVoltTableFactory;
+import org.voltdb.VoltTable;
+import org.voltdb.sysprocs.saverestore.TableSaveFile;
+
+/**
+ * Converts a native snapshot table file to the columnar format of
+ * {@link ColumnarFormat}, one row group per chunk of the save file. Chunks are
+ * encoded on a pool of threads and written out in the order they were read.
+ */
+public class ColumnarTableSaveFile {
+
+    public static void main(String args[]) throws Exception {
+        if (args.length != 2 && args.length != 4) {
+            System.err.println("Usage: [--partitions 1,3,4] outfile.vcol infile.vpt");
+            System.exit(-1);
+        }
+
+        Integer partitions[] = null;
+        int argIndex = 0;
+        if (args[0].equals("--partitions")) {
+            String partitionStrings[] = args[1].split(",");
+            partitions = new Integer[partitionStrings.length];
+            int ii = 0;
+            for (String partitionString : partitionStrings) {
+                partitions[ii++] = Integer.valueOf(partitionString);
+            }
+            argIndex = 2;
+        }
+
+        final File outfile = new File(args[argIndex]);
+        if (!outfile.exists() && !outfile.createNewFile()) {
+            System.err.println("Can't create output file " + args[argIndex]);
+            System.exit(-1);
+        }
+        if (!outfile.canWrite()) {
+            System.err.println("Can't write to output file " + args[argIndex]);
+            System.exit(-1);
+        }
+
+        final File infile = new File(args[argIndex + 1]);
+        if (!infile.exists()) {
+            System.err.println("Input file " + args[argIndex + 1] + " does not exist");
+            System.exit(-1);
+        }
+        if (!infile.canRead()) {
+            System.err.println("Can't read input file " + args[argIndex + 1]);
+            System.exit(-1);
+        }
+
+        convertTableSaveFile(partitions, outfile, infile);
+    }
+
+    /**
+     * Append the rows of the given partitions of infile to outfile. The file
+     * header is written first if outfile is empty, so the partitions of a
+     * table can be gathered from several save files into one output file.
+     */
+    public static void convertTableSaveFile(Integer[] partitions, final File outfile, final File infile)
+            throws IOException, InterruptedException
+    {
+        final boolean needsHeader = outfile.length() == 0;
+        final ExecutorService es =
+                CoreUtils.getListeningExecutorService("Columnar converter", CoreUtils.availableProcessors());
+        final FileOutputStream fos = new FileOutputStream(outfile, true);
+        try {
+            final TableSaveFile saveFile = new TableSaveFile(infile, 10, partitions);
+            try {
+                if (needsHeader) {
+                    fos.write(ColumnarFormat.getHeader(emptyTable(saveFile)));
+                }
+
+                // Bound the encoded row groups held in memory to a few per thread
+                final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<Future<byte[]>>();
+                final int maxPending = CoreUtils.availableProcessors() * 2;
+                while (saveFile.hasMoreChunks()) {
+                    final BBContainer c = saveFile.getNextChunk();
+                    if (c == null) {
+                        break;
+                    }
+                    pending.add(es.submit(new Callable<byte[]>() {
+                        @Override
+                        public byte[] call() {
+                            try {
+                                final VoltTable vt = PrivateVoltTableFactory.createVoltTableFromBuffer(c.b(), true);
+                                return ColumnarFormat.encodeRowGroup(vt);
+                            } finally {
+                                c.discard();
+                            }
+                        }
+                    }));
+                    if (pending.size() >= maxPending) {
+                        fos.write(getRowGroup(pending.poll()));
+                    }
+                }
+                while (!pending.isEmpty()) {
+                    fos.write(getRowGroup(pending.poll()));
+                }
+            } finally {
+                try {
+                    saveFile.close();
+                } finally {
+                    fos.getFD().sync();
+                }
+            }
+        } finally {
+            // Let queued tasks run so they return their chunks
+            es.shutdown();
+            es.awaitTermination(365, TimeUnit.DAYS);
+            fos.close();
+        }
+    }
+
+    private static byte[] getRowGroup(Future<byte[]> rowGroup) throws IOException, InterruptedException {
+        try {
+            return rowGroup.get();
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /*
+     * A table without rows with the schema of the save file, which chunks
+     * carry in front of their rows
+     */
+    private static VoltTable emptyTable(TableSaveFile saveFile) {
+        final ByteBuffer tableHeader = saveFile.getTableHeader().duplicate();
+        tableHeader.clear();
+        final ByteBuffer buf = ByteBuffer.allocate(tableHeader.remaining() + 4);
+        buf.put(tableHeader);
+        buf.putInt(0);
+        buf.flip();
+        return PrivateVoltTableFactory.createVoltTableFromBuffer(buf, true);
+    }
+}
@@ -30,6 +30,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -37,7 +38,9 @@ import java.util.Map;
  * Objects placed in the deque are stored in file segments that are up to 64 megabytes.
  * Segments only support appending objects. A segment will throw an IOException if an attempt
  * to insert an object that exceeds the remaining space is made. A segment can be used
- * for reading and writing, but not both at the same time.
+ * for reading and writing, but not both at the same time. Segments that are opened for
+ * reading only are memory mapped and entries are copied out of the mapping, so that
+ * no buffer handed to a reader outlives the mapping, which is unmapped when the segment is closed.
  */
 public class PBDRegularSegment extends PBDSegment {
     private static final VoltLogger LOG = new VoltLogger("HOST");
@@ -53,6 +56,10 @@ public class PBDRegularSegment extends PBDSegment {
 
     private DBBPool.BBContainer m_tmpHeaderBuf = null;
 
+    private boolean m_openForWrite = false;
+    // Read only mapping of the segment, created on the first poll and unmapped on close
+    private DBBPool.MBBContainer m_mapping = null;
+
     public PBDRegularSegment(Long index, File file) {
         super(file);
         m_index = index;
@@ -154,6 +161,7 @@ public class PBDRegularSegment extends PBDSegment {
         assert(m_ras == null);
         m_ras = new RandomAccessFile( m_file, forWrite ? "rw" : "r");
         m_fc = m_ras.getChannel();
+        m_openForWrite = forWrite;
         m_tmpHeaderBuf = DBBPool.allocateDirect(SEGMENT_HEADER_BYTES);
 
         if (emptyFile) {
@@ -230,11 +238,26 @@ public class PBDRegularSegment extends PBDSegment {
         } finally {
             m_ras = null;
             m_fc = null;
+            if (m_mapping != null) {
+                m_mapping.discard();
+                m_mapping = null;
+            }
             m_closed = true;
             reset();
         }
     }
 
+    /**
+     * The mapping of the segment file, or null if the segment is still open for write
+     * and has to be read through the channel.
+     */
+    private ByteBuffer mapping() throws IOException {
+        if (m_mapping == null && MMAP_READS && !m_openForWrite) {
+            m_mapping = DBBPool.wrapMBB(m_fc.map(FileChannel.MapMode.READ_ONLY, 0, m_fc.size()));
+        }
+        return m_mapping == null ? null : m_mapping.b();
+    }
+
     @Override
     public void sync() throws IOException {
         if (m_closed) throw new IOException("Segment closed");
@@ -265,39 +288,22 @@ public class PBDRegularSegment extends PBDSegment {
         if (m_closed) throw new IOException("Segment closed");
         final ByteBuffer buf = cont.b();
         final int remaining = buf.remaining();
-        if (remaining < 32 || !buf.isDirect()) compress = false;
+        if (remaining < MIN_COMPRESSIBLE_BYTES || !buf.isDirect()) compress = false;
         final int maxCompressedSize = (compress ? CompressionService.maxCompressedLength(remaining) : remaining) + OBJECT_HEADER_BYTES;
         if (remaining() < maxCompressedSize) return false;
 
-        m_syncedSinceLastEdit = false;
         DBBPool.BBContainer destBuf = cont;
 
         try {
-            m_tmpHeaderBuf.b().clear();
-
             if (compress) {
                 destBuf = DBBPool.allocateDirectAndPool(maxCompressedSize);
                 final int compressedSize = CompressionService.compressBuffer(buf, destBuf.b());
                 destBuf.b().limit(compressedSize);
-
-                m_tmpHeaderBuf.b().putInt(compressedSize);
-                m_tmpHeaderBuf.b().putInt(FLAG_COMPRESSED);
+                writeEntry(destBuf.b(), FLAG_COMPRESSED, remaining);
             } else {
                 destBuf = cont;
-                m_tmpHeaderBuf.b().putInt(remaining);
-                m_tmpHeaderBuf.b().putInt(NO_FLAGS);
+                writeEntry(destBuf.b(), NO_FLAGS, remaining);
             }
-
-            m_tmpHeaderBuf.b().flip();
-            while (m_tmpHeaderBuf.b().hasRemaining()) {
-                m_fc.write(m_tmpHeaderBuf.b());
-            }
-
-            while (destBuf.b().hasRemaining()) {
-                m_fc.write(destBuf.b());
-            }
-
-            incrementNumEntries(remaining);
         } finally {
             destBuf.discard();
             if (compress) {
@@ -308,6 +314,36 @@ public class PBDRegularSegment extends PBDSegment {
         return true;
     }
 
+    @Override
+    public boolean offerCompressed(DBBPool.BBContainer compressed, int uncompressedSize) throws IOException
+    {
+        if (m_closed) throw new IOException("Segment closed");
+        // Same bound as an object compressed by the segment itself
+        if (remaining() < CompressionService.maxCompressedLength(uncompressedSize) + OBJECT_HEADER_BYTES) return false;
+
+        writeEntry(compressed.b(), FLAG_COMPRESSED, uncompressedSize);
+        return true;
+    }
+
+    private void writeEntry(ByteBuffer data, int flags, int uncompressedSize) throws IOException
+    {
+        m_syncedSinceLastEdit = false;
+
+        m_tmpHeaderBuf.b().clear();
+        m_tmpHeaderBuf.b().putInt(data.remaining());
+        m_tmpHeaderBuf.b().putInt(flags);
+        m_tmpHeaderBuf.b().flip();
+        while (m_tmpHeaderBuf.b().hasRemaining()) {
+            m_fc.write(m_tmpHeaderBuf.b());
+        }
+
+        while (data.hasRemaining()) {
+            m_fc.write(data);
+        }
+
+        incrementNumEntries(uncompressedSize);
+    }
+
     @Override
     public int offer(DeferredSerialization ds) throws IOException
     {
@@ -333,6 +369,101 @@ public class PBDRegularSegment extends PBDSegment {
         }
     }
 
+    @Override
+    public File writeCompressedCopy() throws IOException {
+        final File copy = new VoltFile(m_file.getPath() + COMPRESSED_COPY_SUFFIX);
+        RandomAccessFile in = null;
+        RandomAccessFile out = null;
+        final DBBPool.BBContainer headerBuf = DBBPool.allocateDirect(OBJECT_HEADER_BYTES);
+        boolean smaller = false;
+        try {
+            in = new RandomAccessFile(m_file, "r");
+            out = new RandomAccessFile(copy, "rw");
+            final FileChannel inChannel = in.getChannel();
+            final FileChannel outChannel = out.getChannel();
+            final long inSize = inChannel.size();
+            if (inSize < SEGMENT_HEADER_BYTES) {
+                return null;
+            }
+
+            // The entry count and size don't change
+            final ByteBuffer header = headerBuf.b();
+            header.clear();
+            PBDUtils.readBufferFully(inChannel, header, COUNT_OFFSET);
+            PBDUtils.writeBuffer(outChannel, header, COUNT_OFFSET);
+            outChannel.position(SEGMENT_HEADER_BYTES);
+
+            long offset = SEGMENT_HEADER_BYTES;
+            while (offset + OBJECT_HEADER_BYTES <= inSize) {
+                header.clear();
+                PBDUtils.readBufferFully(inChannel, header, (int) offset);
+                final int length = header.getInt(0);
+                final int flags = header.getInt(4);
+                offset += OBJECT_HEADER_BYTES;
+                if (length < 1 || offset + length > inSize) {
+                    throw new IOException("Read an invalid length from " + m_file);
+                }
+
+                final boolean compress = (flags & FLAG_COMPRESSED) == 0 && length >= MIN_COMPRESSIBLE_BYTES;
+                final DBBPool.BBContainer entryBuf = DBBPool.allocateDirectAndPool(length);
+                final DBBPool.BBContainer destBuf = compress ?
+                        DBBPool.allocateDirectAndPool(CompressionService.maxCompressedLength(length)) : null;
+                try {
+                    PBDUtils.readBufferFully(inChannel, entryBuf.b(), (int) offset);
+                    offset += length;
+
+                    ByteBuffer data = entryBuf.b();
+                    int dataFlags = flags;
+                    if (compress) {
+                        final int compressedSize = CompressionService.compressBuffer(entryBuf.b(), destBuf.b());
+                        if (compressedSize < length) {
+                            destBuf.b().limit(compressedSize);
+                            data = destBuf.b();
+                            dataFlags |= FLAG_COMPRESSED;
+                        }
+                    }
+
+                    header.clear();
+                    header.putInt(data.remaining());
+                    header.putInt(dataFlags);
+                    header.flip();
+                    while (header.hasRemaining()) {
+                        outChannel.write(header);
+                    }
+                    while (data.hasRemaining()) {
+                        outChannel.write(data);
+                    }
+                } finally {
+                    entryBuf.discard();
+                    if (destBuf != null) {
+                        destBuf.discard();
+                    }
+                }
+            }
+
+            smaller = outChannel.size() < inSize;
+            if (smaller) {
+                outChannel.force(true);
+                return copy;
+            }
+            return null;
+        } finally {
+            headerBuf.discard();
+            try {
+                if (in != null) {
+                    in.close();
+                }
+            } finally {
+                if (out != null) {
+                    out.close();
+                }
+                if (!smaller) {
+                    copy.delete();
+                }
+            }
+        }
+    }
+
     @Override
     public int size() {
         return m_size;
@@ -395,6 +526,11 @@ public class PBDRegularSegment extends PBDSegment {
                 return null;
             }
 
+            final ByteBuffer mapping = mapping();
+            if (mapping != null) {
+                return pollMapped(mapping, factory);
+            }
+
             final long writePos = m_fc.position();
             m_fc.position(m_readOffset);
 
@@ -449,31 +585,75 @@ public class PBDRegularSegment extends PBDSegment {
                     retcont.b().flip();
                 }
 
-                m_bytesRead += uncompressedLen;
-                m_objectReadIndex++;
-
-                return new DBBPool.BBContainer(retcont.b()) {
-                    private boolean m_discarded = false;
-
-                    @Override
-                    public void discard() {
-                        checkDoubleFree();
-                        if (m_discarded) {
-                            LOG.error("PBD Container discarded more than once");
-                            return;
-                        }
-
-                        m_discarded = true;
-                        retcont.discard();
-                        m_discardCount++;
-                    }
-                };
+                return entryRead(retcont, uncompressedLen);
             } finally {
                 m_readOffset = m_fc.position();
                 m_fc.position(writePos);
             }
         }
 
+        private BBContainer pollMapped(ByteBuffer mapped, OutputContainerFactory factory) throws IOException {
+            if (m_readOffset + OBJECT_HEADER_BYTES > mapped.limit()) {
+                throw new EOFException();
+            }
+            final int length = mapped.getInt((int) m_readOffset);
+            final int flags = mapped.getInt((int) m_readOffset + 4);
+            final boolean compressed = (flags & FLAG_COMPRESSED) != 0;
+
+            if (length < 1) {
+                throw new IOException("Read an invalid length");
+            }
+            final int entryOffset = (int) m_readOffset + OBJECT_HEADER_BYTES;
+            if (entryOffset + length > mapped.limit()) {
+                throw new EOFException();
+            }
+
+            final ByteBuffer entry = mapped.duplicate();
+            entry.limit(entryOffset + length);
+            entry.position(entryOffset);
+
+            final DBBPool.BBContainer retcont;
+            final int uncompressedLen;
+            if (compressed) {
+                uncompressedLen = CompressionService.uncompressedLength(entry.duplicate());
+                retcont = factory.getContainer(uncompressedLen);
+                retcont.b().limit(uncompressedLen);
+                CompressionService.decompressBuffer(entry, retcont.b());
+            } else {
+                // Copy out, the mapping is unmapped on close regardless of outstanding containers
+                uncompressedLen = length;
+                retcont = factory.getContainer(length);
+                retcont.b().limit(length);
+                retcont.b().put(entry);
+                retcont.b().flip();
+            }
+
+            m_readOffset = entryOffset + length;
+            return entryRead(retcont, uncompressedLen);
+        }
+
+        private BBContainer entryRead(final BBContainer retcont, int uncompressedLen) {
+            m_bytesRead += uncompressedLen;
+            m_objectReadIndex++;
+
+            return new DBBPool.BBContainer(retcont.b()) {
+                private boolean m_discarded = false;
+
+                @Override
+                public void discard() {
+                    checkDoubleFree();
+                    if (m_discarded) {
+                        LOG.error("PBD Container discarded more than once");
+                        return;
+                    }
+
+                    m_discarded = true;
+                    retcont.discard();
+                    m_discardCount++;
+                }
+            };
+        }
+
         @Override
         public int uncompressedBytesToRead() {
             if (m_closed) throw new RuntimeException("Reader closed");
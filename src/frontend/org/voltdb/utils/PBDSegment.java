@@ -23,6 +23,7 @@ import org.voltcore.utils.DeferredSerialization;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 
 public abstract class PBDSegment {
@@ -107,6 +108,13 @@ public abstract class PBDSegment {
     public static final int CHUNK_SIZE = (1024 * 1024) * 64;
     static final int OBJECT_HEADER_BYTES = 8;
     static final int SEGMENT_HEADER_BYTES = 8;
+    // Objects smaller than this are always stored uncompressed, whichever way they are offered,
+    // since snappy can't shrink them by more than the cost of the compression
+    static final int MIN_COMPRESSIBLE_BYTES = 32;
+    // Segments that are no longer written to are memory mapped for reading
+    static final boolean MMAP_READS = Boolean.valueOf(System.getProperty("PBD_MMAP_READS", "true"));
+    // Suffix of the compressed copy of a segment while it is being written
+    static final String COMPRESSED_COPY_SUFFIX = ".compressing";
     protected final File m_file;
 
     protected boolean m_closed = true;
@@ -160,13 +168,51 @@ public abstract class PBDSegment {
 
     abstract boolean offer(DBBPool.BBContainer cont, boolean compress) throws IOException;
 
+    /**
+     * Store an object that was already compressed with {@link #compress(ByteBuffer)}.
+     * The container is not discarded, it remains owned by the caller.
+     * @return false if there is not enough space left in the segment
+     */
+    abstract boolean offerCompressed(DBBPool.BBContainer compressed, int uncompressedSize) throws IOException;
+
     abstract int offer(DeferredSerialization ds) throws IOException;
 
+    /**
+     * Write a copy of the segment file next to it in which every entry worth compressing
+     * is compressed. Entries keep their own header, so readers see the same entries
+     * at new offsets. Only the file is read, so this can run without holding the lock
+     * of the deque as long as the segment stays closed.
+     * @return the copy, or null if it would not be smaller than the segment
+     */
+    abstract File writeCompressedCopy() throws IOException;
+
     // TODO: javadoc
     abstract int size();
 
     abstract protected int writeTruncatedEntry(BinaryDeque.TruncatorResponse entry, int length) throws IOException;
 
+    /**
+     * Compress an object ahead of {@link #offerCompressed}, so that it can be done
+     * without holding the lock of the deque.
+     * @return the compressed object, or null if it is not direct or is smaller than
+     *         {@link #MIN_COMPRESSIBLE_BYTES}, the same objects {@link #offer} stores uncompressed
+     */
+    static DBBPool.BBContainer compress(ByteBuffer buf) throws IOException {
+        final int remaining = buf.remaining();
+        if (remaining < MIN_COMPRESSIBLE_BYTES || !buf.isDirect()) {
+            return null;
+        }
+        final DBBPool.BBContainer destBuf = DBBPool.allocateDirectAndPool(CompressionService.maxCompressedLength(remaining));
+        try {
+            final int compressedSize = CompressionService.compressBuffer(buf, destBuf.b());
+            destBuf.b().limit(compressedSize);
+        } catch (IOException e) {
+            destBuf.discard();
+            throw e;
+        }
+        return destBuf;
+    }
+
     /**
      * Parse the segment and truncate the file if necessary.
      * @param truncator    A caller-supplied truncator that decides where in the segment to truncate
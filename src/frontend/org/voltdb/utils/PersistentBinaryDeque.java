@@ -27,12 +27,17 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.regex.Pattern;
 
+import org.voltcore.logging.Level;
 import org.voltcore.logging.VoltLogger;
+import org.voltcore.utils.CoreUtils;
 import org.voltcore.utils.DBBPool;
 import org.voltcore.utils.DBBPool.BBContainer;
 import org.voltcore.utils.DeferredSerialization;
 import org.voltcore.utils.Pair;
+import org.voltcore.utils.RateLimitedLogger;
 import org.voltdb.EELibraryLoader;
 import org.voltdb.utils.BinaryDeque.TruncatorResponse.Status;
 import org.voltdb.utils.PBDSegment.PBDSegmentReader;
@@ -48,11 +53,20 @@ import com.google_voltpatches.common.base.Throwables;
  * a maximum size of 64 megabytes and then a new segment is created. The index starts at 0. Segments are deleted
  * once all objects from the segment have been polled and all the containers returned by poll have been discarded.
  * Push is implemented by creating new segments at the head of the deque containing the objects to be pushed.
+ * Segments that are no longer written to can optionally be rewritten in the background with every entry
+ * compressed, which shrinks the overflow directory when the readers fall behind.
  *
  */
 public class PersistentBinaryDeque implements BinaryDeque {
     private static final VoltLogger LOG = new VoltLogger("HOST");
 
+    // Compress the entries of segments that are rolled over, off by default
+    private static final boolean COMPRESS_SEGMENTS = Boolean.valueOf(System.getProperty("PBD_COMPRESS_SEGMENTS", "false"));
+    // Warn when the segments of a deque use more disk than this, 0 to never warn
+    private static final long DISK_USAGE_WARNING_BYTES = Long.getLong("PBD_DISK_USAGE_WARNING_MB", 0) * 1024 * 1024;
+    private static final ExecutorService s_segmentCompressor =
+            CoreUtils.getCachedSingleThreadExecutor("PBD Segment Compressor", 15000);
+
     public static class UnsafeOutputContainerFactory implements OutputContainerFactory {
         @Override
         public BBContainer getContainer(int minimumSize) {
@@ -77,7 +91,9 @@ public class PersistentBinaryDeque implements BinaryDeque {
 
     /**
      * Used to read entries from the PBD. Multiple readers may be active at the same time,
-     * but only one read or write may happen concurrently.
+     * but only one read or write may happen concurrently. Objects are compressed before
+     * an offer takes the lock, and segments that are no longer written to are read
+     * through a memory mapping, so a poll only holds the lock for a short while.
      */
     private class ReadCursor implements BinaryDequeReader {
         private final String m_cursorId;
@@ -254,6 +270,9 @@ public class PersistentBinaryDeque implements BinaryDeque {
     private final HashMap<String, ReadCursor> m_readCursors = new HashMap<>();
     private int m_numObjects;
     private int m_numDeleted;
+    private final RateLimitedLogger m_diskUsageWarning;
+    // Bumped by every truncation so that a segment compression started before it is dropped
+    private int m_truncations = 0;
 
     /**
      * Create a persistent binary deque with the specified nonce and storage
@@ -283,6 +302,9 @@ public class PersistentBinaryDeque implements BinaryDeque {
         m_path = path;
         m_nonce = nonce;
         m_usageSpecificLog = logger;
+        m_diskUsageWarning = new RateLimitedLogger(60 * 1000, logger, Level.WARN);
+        final Pattern compressedCopyName =
+                Pattern.compile(Pattern.quote(nonce) + "\\.-?\\d+\\.pbd" + Pattern.quote(PBDSegment.COMPRESSED_COPY_SUFFIX));
 
         if (!path.exists() || !path.canRead() || !path.canWrite() || !path.canExecute() || !path.isDirectory()) {
             throw new IOException(path + " is not usable ( !exists || !readable " +
@@ -297,6 +319,12 @@ public class PersistentBinaryDeque implements BinaryDeque {
 
                 @Override
                 public boolean accept(File pathname) {
+                    // Leftover of a segment compression that didn't finish
+                    if (compressedCopyName.matcher(pathname.getName()).matches()) {
+                        pathname.delete();
+                        return false;
+                    }
+
                     // PBD file names have three parts: nonce.seq.pbd
                     // nonce may contain '.', seq is a sequence number.
                     String[] parts = pathname.getName().split("\\.");
@@ -392,6 +420,12 @@ public class PersistentBinaryDeque implements BinaryDeque {
 
         m_numObjects = countNumObjects();
         assertions();
+
+        if (COMPRESS_SEGMENTS) {
+            for (PBDSegment segment : segments.values()) {
+                scheduleCompression(segment);
+            }
+        }
     }
 
     private int countNumObjects() throws IOException {
@@ -417,6 +451,7 @@ public class PersistentBinaryDeque implements BinaryDeque {
 
         // Close the last write segment for now, will reopen after truncation
         peekLastSegment().close();
+        m_truncations++;
 
         /*
          * Iterator all the objects in all the segments and pass them to the truncator
@@ -533,28 +568,60 @@ public class PersistentBinaryDeque implements BinaryDeque {
     }
 
     @Override
-    public synchronized void offer(BBContainer object) throws IOException {
+    public void offer(BBContainer object) throws IOException {
         offer(object, true);
     }
 
     @Override
-    public synchronized void offer(BBContainer object, boolean allowCompression) throws IOException {
-        assertions();
-        if (m_closed) {
-            throw new IOException("Closed");
+    public void offer(BBContainer object, boolean allowCompression) throws IOException {
+        // Compress before taking the lock so that cursors polling
+        // the deque don't wait behind the compression of the object
+        final int uncompressedSize = object.b().remaining();
+        BBContainer compressed = null;
+        if (allowCompression) {
+            try {
+                compressed = PBDSegment.compress(object.b());
+            } catch (IOException e) {
+                object.discard();
+                throw e;
+            }
         }
 
-        PBDSegment tail = peekLastSegment();
-        final boolean compress = object.b().isDirect() && allowCompression;
-        if (!tail.offer(object, compress)) {
-            tail = addSegment(tail);
-            final boolean success = tail.offer(object, compress);
-            if (!success) {
-                throw new IOException("Failed to offer object in PBD");
+        synchronized (this) {
+            assertions();
+            if (m_closed) {
+                if (compressed != null) {
+                    compressed.discard();
+                }
+                throw new IOException("Closed");
             }
+
+            PBDSegment tail = peekLastSegment();
+            if (compressed == null) {
+                if (!tail.offer(object, false)) {
+                    tail = addSegment(tail);
+                    final boolean success = tail.offer(object, false);
+                    if (!success) {
+                        throw new IOException("Failed to offer object in PBD");
+                    }
+                }
+            } else {
+                try {
+                    if (!tail.offerCompressed(compressed, uncompressedSize)) {
+                        tail = addSegment(tail);
+                        final boolean success = tail.offerCompressed(compressed, uncompressedSize);
+                        if (!success) {
+                            throw new IOException("Failed to offer object in PBD");
+                        }
+                    }
+                    object.discard();
+                } finally {
+                    compressed.discard();
+                }
+            }
+            m_numObjects++;
+            assertions();
         }
-        m_numObjects++;
-        assertions();
     }
 
     @Override
@@ -593,10 +660,106 @@ public class PersistentBinaryDeque implements BinaryDeque {
         if (m_usageSpecificLog.isDebugEnabled()) {
             m_usageSpecificLog.debug("Segment " + tail.file() + " has been created because of an offer");
         }
+        final PBDSegment previous = peekLastSegment();
         closeTailAndOffer(tail);
+        if (COMPRESS_SEGMENTS && previous != null) {
+            scheduleCompression(previous);
+        }
+        checkDiskUsage();
         return tail;
     }
 
+    private void checkDiskUsage() {
+        if (DISK_USAGE_WARNING_BYTES <= 0) {
+            return;
+        }
+        final long diskUsage = getDiskUsageBytes();
+        if (diskUsage > DISK_USAGE_WARNING_BYTES) {
+            m_diskUsageWarning.log(System.currentTimeMillis(), Level.WARN, null,
+                    "PBD %s in %s uses %d MB of disk in %d segments, more than the %d MB set by PBD_DISK_USAGE_WARNING_MB",
+                    m_nonce, m_path, diskUsage / (1024 * 1024), m_segments.size(),
+                    DISK_USAGE_WARNING_BYTES / (1024 * 1024));
+        }
+    }
+
+    @Override
+    public synchronized long getDiskUsageBytes() {
+        long size = 0;
+        for (PBDSegment segment : m_segments.values()) {
+            size += segment.file().length();
+        }
+        return size;
+    }
+
+    private void scheduleCompression(final PBDSegment segment) {
+        s_segmentCompressor.execute(new Runnable() {
+            @Override
+            public void run() {
+                compressSegment(segment);
+            }
+        });
+    }
+
+    /**
+     * Replace the file of a segment with a copy in which every entry is compressed.
+     * The copy is written without holding the lock, and only replaces the segment if
+     * no cursor opened the segment and the deque was not truncated in the meantime.
+     */
+    private void compressSegment(PBDSegment segment) {
+        final long length;
+        final int truncations;
+        synchronized (this) {
+            if (!isIdle(segment)) {
+                return;
+            }
+            length = segment.file().length();
+            truncations = m_truncations;
+        }
+
+        File copy = null;
+        try {
+            copy = segment.writeCompressedCopy();
+            if (copy == null) {
+                return;
+            }
+            synchronized (this) {
+                if (isIdle(segment) && m_truncations == truncations) {
+                    final long compressedLength = copy.length();
+                    if (!copy.renameTo(segment.file())) {
+                        throw new IOException("Unable to rename " + copy + " to " + segment.file());
+                    }
+                    copy = null;
+                    if (m_usageSpecificLog.isDebugEnabled()) {
+                        m_usageSpecificLog.debug("Segment " + segment.file() + " has been compressed from " +
+                                length + " to " + compressedLength + " bytes");
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOG.warn("Exception compressing PBD segment " + segment.file(), e);
+        } finally {
+            if (copy != null) {
+                copy.delete();
+            }
+        }
+    }
+
+    /**
+     * A segment that is closed, is not the write segment and that no cursor has opened
+     */
+    private boolean isIdle(PBDSegment segment) {
+        if (m_closed || m_segments.get(segment.segmentId()) != segment ||
+                segment == peekLastSegment() || !segment.isClosed()) {
+            return false;
+        }
+        for (ReadCursor cursor : m_readCursors.values()) {
+            if (segment.getReader(cursor.m_cursorId) != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private void closeAndDeleteSegment(PBDSegment segment) throws IOException {
         int toDelete = segment.getNumEntries();
         segment.closeAndDelete();
@@ -28,9 +28,11 @@ public class PosixAdvise {
     public static final boolean FALLOCATE_SUPPORTED;
     public static final boolean SYNC_FILE_RANGE_SUPPORTED;
     public static final boolean ENABLE_FADVISE_DONTNEED;
+    public static final boolean DIRECT_IO_SUPPORTED;
     static {
         SYNC_FILE_RANGE_SUPPORTED = System.getProperty("os.name").equalsIgnoreCase("linux") ;
         FALLOCATE_SUPPORTED = System.getProperty("os.name").equalsIgnoreCase("linux") ;
+        DIRECT_IO_SUPPORTED = System.getProperty("os.name").equalsIgnoreCase("linux") ;
         ENABLE_FADVISE_DONTNEED = Boolean.getBoolean("ENABLE_FADVISE_DONTNEED");
     }
 
@@ -87,4 +89,15 @@ public class PosixAdvise {
         final long filedescriptor = SharedSecrets.getJavaIOFileDescriptorAccess().get(fd);
         return sync_file_range(filedescriptor, offset, size, flags);
     }
+
+    /*
+     * Turn O_DIRECT on or off for an open file. While it is on the buffer address, file offset
+     * and length of every read and write must be aligned to the logical block size of the device.
+     * Returns 0 on success or the errno.
+     */
+    public static native long setDirectIO(long fd, boolean enable);
+    public static long setDirectIO(FileDescriptor fd, boolean enable) {
+        final long filedescriptor = SharedSecrets.getJavaIOFileDescriptorAccess().get(fd);
+        return setDirectIO(filedescriptor, enable);
+    }
 }
@@ -130,8 +130,8 @@ public class SnapshotConverter {
                     delimiter = ',';
                 } else if (type.equalsIgnoreCase("tsv")) {
                     delimiter = '\t';
-                } else {
-                    System.err.println("Error: --type must be one of CSV or TSV");
+                } else if (!type.equalsIgnoreCase("columnar")) {
+                    System.err.println("Error: --type must be one of CSV, TSV or COLUMNAR");
                     printHelpAndQuit(-1);
                 }
                 ii++;
@@ -166,6 +166,8 @@ public class SnapshotConverter {
         if (fail) {
             printHelpAndQuit(-1);
         }
+        final boolean columnar = type.equalsIgnoreCase("columnar");
+        final String extension = columnar ? "vcol" : type.toLowerCase();
 
         Map<String, Snapshot> snapshots = new TreeMap<String, Snapshot>();
         HashSet<String> snapshotNames = new HashSet<String>();
@@ -251,7 +253,7 @@ public class SnapshotConverter {
          */
         for (Map.Entry<String, Map<File, Set<Integer>>> entry : tableToFilesWithPartitions.entrySet()) {
             String tableName = entry.getKey();
-            File outfile = new File(outdir.getPath() + File.separator + tableName + "." + type.toLowerCase());
+            File outfile = new File(outdir.getPath() + File.separator + tableName + "." + extension);
             try {
                 if (!outfile.createNewFile()) {
                     System.err.println("Error: Failed to create output file "
@@ -275,7 +277,7 @@ public class SnapshotConverter {
          */
         for (Map.Entry<String, Map<File, Set<Integer>>> entry : tableToFilesWithPartitions.entrySet()) {
             String tableName = entry.getKey();
-            File outfile = new File(outdir.getPath() + File.separator + tableName + "." + type.toLowerCase());
+            File outfile = new File(outdir.getPath() + File.separator + tableName + "." + extension);
 
             Map<File, Set<Integer>> partitionsFromFile = entry.getValue();
             for (Map.Entry<File, Set<Integer>> e2 : partitionsFromFile.entrySet()) {
@@ -290,7 +292,11 @@ public class SnapshotConverter {
                     }
                 }
                 try {
-                    CSVTableSaveFile.convertTableSaveFile(delimiter, partitions, outfile, infile);
+                    if (columnar) {
+                        ColumnarTableSaveFile.convertTableSaveFile(partitions, outfile, infile);
+                    } else {
+                        CSVTableSaveFile.convertTableSaveFile(delimiter, partitions, outfile, infile);
+                    }
                 } catch (Exception e) {
                     System.err.println(e.getMessage());
                     System.err.println("Error: Failed to convert " + infile.getPath() + " to " + outfile.getPath());
@@ -306,7 +312,7 @@ public class SnapshotConverter {
     private static void printHelpAndQuit( int code) {
         System.out.println("Usage: snapshotconverter --help");
         System.out.println("snapshotconverter --dir dir1 --dir dir2 --dir dir3 " +
-                "--table table1 --table table2 --table table3 --type CSV|TSV --outdir dir snapshot_name --timezone GMT+0");
+                "--table table1 --table table2 --table table3 --type CSV|TSV|COLUMNAR --outdir dir snapshot_name --timezone GMT+0");
         System.exit(code);
     }
 }
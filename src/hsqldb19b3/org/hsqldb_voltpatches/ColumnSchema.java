@@ -311,12 +311,26 @@ public final class ColumnSchema extends ColumnBase implements SchemaObject {
 
         copy.setGeneratingExpression(generatingExpression);
         copy.setIdentity(sequence);
+        // A VoltDB extension to support dictionary-encoded columns.
+        copy.setDictionary(isDictionary);
+        // End of VoltDB extension
 
         return copy;
     }
 
     /************************* Volt DB Extensions *************************/
 
+    // Whether equal out-of-line values of this column are stored once.
+    private boolean isDictionary = false;
+
+    boolean isDictionary() {
+        return isDictionary;
+    }
+
+    void setDictionary(boolean isDictionary) {
+        this.isDictionary = isDictionary;
+    }
+
     /**
      * VoltDB added method to get a non-catalog-dependent
      * representation of this HSQLDB object.
@@ -350,6 +364,10 @@ public final class ColumnSchema extends ColumnBase implements SchemaObject {
             column.attributes.put("bytes", String.valueOf(ct.inBytes));
         }
 
+        if (isDictionary) {
+            column.attributes.put("dictionary", "true");
+        }
+
         // see if there is a default value for the column
         Expression exp = getDefaultExpression();
 
@@ -44,21 +44,34 @@ import org.hsqldb_voltpatches.types.Type;
  * @author Xin Jia
  */
 public class ExpressionWindowed extends Expression {
+    /**
+     * The window has the default frame, RANGE BETWEEN UNBOUNDED PRECEDING
+     * AND CURRENT ROW, which includes all the order by peers of the current row.
+     */
+    public static final int NO_ROWS_FRAME = -2;
+    /**
+     * The window has a ROWS frame starting at the first row of the partition.
+     */
+    public static final int UNBOUNDED_PRECEDING = -1;
+
     private List<Expression> m_partitionByList;
     private SortAndSlice     m_sortAndSlice;
     private boolean          m_isDistinctAggregate;
+    private int              m_rowsFramePreceding;
 
     ExpressionWindowed(int tokenT,
                        Expression aggExprs[],
                        boolean isDistinct,
                        SortAndSlice sortAndSlice,
-                       List<Expression> partitionByList) {
+                       List<Expression> partitionByList,
+                       int rowsFramePreceding) {
         super(ParserBase.getWindowedExpressionType(tokenT));
 
         nodes = aggExprs;
         m_isDistinctAggregate = isDistinct;
         m_partitionByList = partitionByList;
         m_sortAndSlice = sortAndSlice;
+        m_rowsFramePreceding = rowsFramePreceding;
         validateWindowedSyntax();
     }
 
@@ -74,6 +87,9 @@ public class ExpressionWindowed extends Expression {
             if (nodes.length != 0) {
                 throw Error.error("Windowed Aggregate " + OpTypes.aggregateName(opType) + " expects no arguments.", "", 0);
             }
+            if (hasRowsFrame()) {
+                throw Error.error("Windowed Aggregate " + OpTypes.aggregateName(opType) + " does not allow a window frame.", "", 0);
+            }
             break;
         case OpTypes.WINDOWED_COUNT:
         case OpTypes.WINDOWED_MIN:
@@ -83,6 +99,19 @@ public class ExpressionWindowed extends Expression {
         default:
             throw Error.error("Unsupported window function " + OpTypes.aggregateName(opType), "", 0);
         }
+        if (hasRowsFrame()
+                && (m_sortAndSlice == null || m_sortAndSlice.getOrderLength() == 0)) {
+            throw Error.error("A ROWS window frame requires an ORDER BY clause in the window.", "", 0);
+        }
+    }
+
+    /**
+     * Does this window have a ROWS frame?  If not it has the default
+     * frame, which contains all the rows up to the last order by peer
+     * of the current row.
+     */
+    public boolean hasRowsFrame() {
+        return m_rowsFramePreceding != NO_ROWS_FRAME;
     }
     @Override
     public Object getValue(Session session) {
@@ -195,6 +224,17 @@ public class ExpressionWindowed extends Expression {
                   .append(obOrderByExpression.isDescending() ? Tokens.T_DESC : Tokens.T_ASC);
             }
         }
+        if (hasRowsFrame()) {
+            sb.append(' ' + Tokens.T_ROWS + ' ' + Tokens.T_BETWEEN + ' ');
+            if (m_rowsFramePreceding == UNBOUNDED_PRECEDING) {
+                sb.append(Tokens.T_UNBOUNDED);
+            }
+            else {
+                sb.append(m_rowsFramePreceding);
+            }
+            sb.append(' ' + Tokens.T_PRECEDING + ' ' + Tokens.T_AND + ' '
+                      + Tokens.T_CURRENT + ' ' + Tokens.T_ROW);
+        }
         sb.append(")");
         return sb.toString();
     }
@@ -218,6 +258,9 @@ public class ExpressionWindowed extends Expression {
      *         <li>The other will contain a list of expressions and sort orders
      *             for the order by list, &lt;E3, ASC&gt;.</li>
      *       </ul>
+     *       If the window has a ROWS frame, the "winspec" child has a
+     *       "rowspreceding" attribute with the number of rows preceding the
+     *       current row in the frame, or -1 for UNBOUNDED PRECEDING.
      *    </li>
      *   <li>All other children are the arguments to the aggregate.  This
      *       would be <code>A+B</code> in the expression above.  Note that there are no
@@ -233,6 +276,9 @@ public class ExpressionWindowed extends Expression {
             throws HSQLParseException {
         VoltXMLElement winspec = new VoltXMLElement("winspec");
         exp.children.add(winspec);
+        if (hasRowsFrame()) {
+            winspec.attributes.put("rowspreceding", Integer.toString(m_rowsFramePreceding));
+        }
         if (m_partitionByList.size() > 0) {
             VoltXMLElement pxe = new VoltXMLElement("partitionbyList");
             winspec.children.add(pxe);
@@ -57,6 +57,7 @@ public class HSQLInterface {
     public static final String AUTO_GEN_CONSTRAINT_PREFIX = AUTO_GEN_IDX_PREFIX + "CT_";
     public static final String AUTO_GEN_PRIMARY_KEY_PREFIX = AUTO_GEN_IDX_PREFIX + "PK_";
     public static final String AUTO_GEN_CONSTRAINT_WRAPPER_PREFIX = AUTO_GEN_PREFIX + "CONSTRAINT_IDX_";
+    public static final String AUTO_GEN_MATVIEW_MINMAX_IDX_PREFIX = AUTO_GEN_IDX_PREFIX + "MATVIEW_MINMAX_";
 
     /**
      * The spacer to use for nested XML elements
@@ -2717,6 +2717,10 @@ public class ParserDDL extends ParserRoutine {
             typeObject = readTypeDefinition(true);
         }
 
+        // A VoltDB extension to support dictionary-encoded columns.
+        boolean isDictionary = readIfThis(Tokens.DICTIONARY);
+        // End of VoltDB extension
+
         if (isIdentity) {}
         else if (token.tokenType == Tokens.DEFAULT) {
             read();
@@ -2761,6 +2765,9 @@ public class ParserDDL extends ParserRoutine {
 
         ColumnSchema column = new ColumnSchema(hsqlName, typeObject,
                                                isNullable, false, defaultExpr);
+        // A VoltDB extension to support dictionary-encoded columns.
+        column.setDictionary(isDictionary);
+        // End of VoltDB extension
 
         readColumnConstraints(table, column, constraintList);
 
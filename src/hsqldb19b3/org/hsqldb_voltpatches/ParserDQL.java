@@ -1617,6 +1617,11 @@ public class ParserDQL extends ParserBase {
             readThis(Tokens.BY);
             sortAndSlice = XreadOrderBy();
         }
+
+        int rowsFramePreceding = ExpressionWindowed.NO_ROWS_FRAME;
+        if (token.tokenType == Tokens.ROWS || token.tokenType == Tokens.RANGE) {
+            rowsFramePreceding = readWindowFrame();
+        }
         readThis(Tokens.CLOSEBRACKET);
 
         // We don't really care about aggExpr any more.  It has the
@@ -1638,11 +1643,72 @@ public class ParserDQL extends ParserBase {
                                                                  nodes,
                                                                  isDistinct,
                                                                  sortAndSlice,
-                                                                 partitionByList);
+                                                                 partitionByList,
+                                                                 rowsFramePreceding);
 
         return windowedExpr;
     }
 
+    /**
+     * Parse a window frame clause.  We support frames which end at the
+     * current row, namely
+     * <pre>
+     *   ROWS  { UNBOUNDED PRECEDING | n PRECEDING | CURRENT ROW }
+     *   ROWS  BETWEEN { UNBOUNDED PRECEDING | n PRECEDING | CURRENT ROW } AND CURRENT ROW
+     *   RANGE UNBOUNDED PRECEDING
+     *   RANGE BETWEEN UNBOUNDED PRECEDING AND CURRENT ROW
+     * </pre>
+     * The RANGE frames are the same as the default frame, so they
+     * are not recorded.
+     *
+     * @return the number of rows preceding the current row in a ROWS
+     *         frame, ExpressionWindowed.UNBOUNDED_PRECEDING, or
+     *         ExpressionWindowed.NO_ROWS_FRAME for a RANGE frame.
+     */
+    private int readWindowFrame() {
+        boolean isRowsFrame = (token.tokenType == Tokens.ROWS);
+        read();
+
+        boolean isBetween = false;
+        if (token.tokenType == Tokens.BETWEEN) {
+            isBetween = true;
+            read();
+        }
+
+        int preceding;
+        if (token.tokenType == Tokens.UNBOUNDED) {
+            read();
+            readThis(Tokens.PRECEDING);
+            preceding = ExpressionWindowed.UNBOUNDED_PRECEDING;
+        }
+        else if (token.tokenType == Tokens.CURRENT) {
+            read();
+            readThis(Tokens.ROW);
+            preceding = 0;
+        }
+        else {
+            preceding = readInteger();
+            if (preceding < 0) {
+                throw Error.error("The number of rows preceding the current row in a window frame must not be negative.", "", -1);
+            }
+            readThis(Tokens.PRECEDING);
+        }
+
+        if (isBetween) {
+            readThis(Tokens.AND);
+            readThis(Tokens.CURRENT);
+            readThis(Tokens.ROW);
+        }
+
+        if ( ! isRowsFrame) {
+            if (preceding != ExpressionWindowed.UNBOUNDED_PRECEDING) {
+                throw Error.error("Only RANGE UNBOUNDED PRECEDING window frames are supported.  Use a ROWS frame for a sliding window.", "", -1);
+            }
+            return ExpressionWindowed.NO_ROWS_FRAME;
+        }
+        return preceding;
+    }
+
     //--------------------------------------
     // returns null
     // := <unsigned literal> | <general value specification>
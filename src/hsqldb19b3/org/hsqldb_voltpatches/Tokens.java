@@ -72,6 +72,9 @@ public class Tokens {
     // A VoltDB extension to support varchar column in bytes.
     static final String        T_BYTES            = "BYTES"; // For VoltDB
     // End of VoltDB extension
+    // A VoltDB extension to support dictionary-encoded columns.
+    static final String        T_DICTIONARY       = "DICTIONARY"; // For VoltDB
+    // End of VoltDB extension
     public static final String T_BLOB             = "BLOB";
     public static final String T_BOOLEAN          = "BOOLEAN";
     static final String        T_BOTH             = "BOTH";
@@ -1379,6 +1382,9 @@ public class Tokens {
     // A VoltDB extension to support varchar column in bytes.
     static final int        BYTES                 = 1010; // For VoltDB
     // End of VoltDB extension
+    // A VoltDB extension to support dictionary-encoded columns.
+    static final int        DICTIONARY            = 1011; // For VoltDB
+    // End of VoltDB extension
     static final int        CACHED                = 555;
     static final int        CASEWHEN              = 556;
     static final int        CHECKPOINT            = 557;
@@ -2000,6 +2006,9 @@ public class Tokens {
         commandSet.put(T_DEFAULTS, DEFAULTS);
         commandSet.put(T_DEFRAG, DEFRAG);
         commandSet.put(T_DESC, DESC);
+        // A VoltDB extension to support dictionary-encoded columns.
+        commandSet.put(T_DICTIONARY, DICTIONARY);        // For VoltDB
+        // End of VoltDB extension
         commandSet.put(T_DOMAIN, DOMAIN);
         commandSet.put(T_EXCLUDING, EXCLUDING);
         commandSet.put(T_EXPLAIN, EXPLAIN);
@@ -2152,6 +2161,10 @@ public class Tokens {
         commandSet.put(T_WEEK_OF_YEAR, WEEK_OF_YEAR);
         commandSet.put(T_WEEKDAY, WEEKDAY);
         // End of VoltDB extension
+        // A VoltDB extension to support ROWS window frames
+        commandSet.put(T_PRECEDING, PRECEDING);
+        commandSet.put(T_UNBOUNDED, UNBOUNDED);
+        // End of VoltDB extension
         commandSet.put(T_DAY_NAME, DAY_NAME);
         commandSet.put(T_MONTH_NAME, MONTH_NAME);
         commandSet.put(T_QUARTER, QUARTER);
@@ -33,6 +33,9 @@ import java.io.FileOutputStream;
 import java.io.File;
 import java.io.IOException;
 
+import org.voltdb.EELibraryLoader;
+import org.voltdb.utils.PosixAdvise;
+
 public class IOBench {
 
     public static final Object readyLock = new Object();
@@ -45,7 +48,10 @@ public class IOBench {
 
     public static ExecutorService m_es = Executors.newFixedThreadPool(16);
 
-    public static final ByteBuffer m_buffer = ByteBuffer.allocateDirect(2097152);
+    public static final ByteBuffer m_buffer = allocateAligned(2097152);
+
+    // Pass "direct" to write with O_DIRECT, for comparison with writes through the page cache
+    public static boolean directIO = false;
 
     public static final boolean extra_output = false;
 
@@ -53,6 +59,11 @@ public class IOBench {
      * @param args
      */
     public static void main(String[] args) {
+        directIO = args.length > 0 && args[0].equals("direct");
+        if (directIO && !EELibraryLoader.loadExecutionEngineLibrary(false)) {
+            System.err.println("Direct I/O needs the VoltDB native library");
+            System.exit(-1);
+        }
         try {
             while (true) {
                 runSerialTest();
@@ -66,7 +77,7 @@ public class IOBench {
     }
 
     public static void runParallelTest() throws IOException, InterruptedException {
-        System.out.println("Starting parallel test");
+        System.out.println("Starting parallel test" + (directIO ? " with direct I/O" : ""));
         final ArrayList<Future<?>> futures = new ArrayList<Future<?>>();
         synchronized (readyLock) {
 
@@ -100,6 +111,24 @@ public class IOBench {
         System.out.printf("Parallel test took %.1f seconds to write 4 gigs at a rate of %.2f\n", seconds, throughput);
     }
 
+    // O_DIRECT needs the buffer aligned to the block size of the device
+    private static ByteBuffer allocateAligned(int size) {
+        final ByteBuffer b = ByteBuffer.allocateDirect(size + 4096);
+        final long address = ((sun.nio.ch.DirectBuffer)b).address();
+        b.position((int)((4096 - address % 4096) % 4096));
+        b.limit(b.position() + size);
+        return b.slice();
+    }
+
+    private static void setDirectIO(FileOutputStream fos) throws IOException {
+        if (directIO) {
+            final long retval = PosixAdvise.setDirectIO(fos.getFD(), true);
+            if (retval != 0) {
+                throw new IOException("Unable to turn on direct I/O: " + retval);
+            }
+        }
+    }
+
     public static class Writer implements Callable<Object> {
         @Override
         public Object call() throws Exception {
@@ -109,6 +138,7 @@ public class IOBench {
                 final FileOutputStream fos = new FileOutputStream(f);
                 final FileChannel fc = fos.getChannel();
                 try {
+                    setDirectIO(fos);
                     synchronized (readyLock) {
                         readyThreads++;
                         readyLock.notify();
@@ -154,13 +184,14 @@ public class IOBench {
     }
 
     public static void runSerialTest() throws IOException {
-        System.out.println("Starting serial test");
+        System.out.println("Starting serial test" + (directIO ? " with direct I/O" : ""));
         final File f = File.createTempFile("foo", "bar", new File("/var/voltdb/"));
         f.deleteOnExit();
         try {
             final FileOutputStream fos = new FileOutputStream(f);
             final FileChannel fc = fos.getChannel();
             try {
+                setDirectIO(fos);
                 final long startTime = System.currentTimeMillis();
                 for (int ii = 0; ii < 2048; ii++) {
                     final int percentDone = (int)((ii / 2048.0) * 100.0);
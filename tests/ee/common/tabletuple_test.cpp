@@ -24,6 +24,7 @@
 #include "harness.h"
 #include "common/tabletuple.h"
 #include "common/ValueFactory.hpp"
+#include "common/SharedStringDictionary.h"
 #include "common/ThreadLocalPool.h"
 #include "common/TupleSchemaBuilder.h"
 #include "test_utils/ScopedTupleSchema.hpp"
@@ -156,6 +157,46 @@ TEST_F(TableTupleTest, ToJsonArray)
     nvalVisibleString.free();
 }
 
+TEST_F(TableTupleTest, DictionaryColumns)
+{
+    TupleSchemaBuilder builder(3);
+    builder.setColumnAtIndex(0, VALUE_TYPE_BIGINT);
+    builder.setColumnAtIndex(1, VALUE_TYPE_VARCHAR, 256);
+    builder.setColumnAtIndex(2, VALUE_TYPE_VARCHAR, 256);
+    builder.setColumnDictionaryAtIndex(1);
+    ScopedTupleSchema schema(builder.build());
+    EXPECT_TRUE(schema->getColumnInfo(1)->dictionary);
+    EXPECT_FALSE(schema->getColumnInfo(2)->dictionary);
+
+    SharedStringDictionary& dictionary = ThreadLocalPool::getSharedStringDictionary();
+    ASSERT_EQ(0, dictionary.size());
+
+    StandAloneTupleStorage storage1(schema.get());
+    StandAloneTupleStorage storage2(schema.get());
+    TableTuple tuple1 = storage1.tuple();
+    TableTuple tuple2 = storage2.tuple();
+
+    NValue name = ValueFactory::getStringValue("a string long enough to be stored out of line");
+    for (int i = 1; i < 3; ++i) {
+        tuple1.setNValueAllocateForObjectCopies(i, name, NULL);
+        tuple2.setNValueAllocateForObjectCopies(i, name, NULL);
+    }
+
+    // Both tuples refer to a single copy of the dictionary column's value.
+    EXPECT_EQ(1, dictionary.size());
+    EXPECT_EQ(0, tuple1.getNValue(1).compare(tuple2.getNValue(1)));
+    EXPECT_EQ(0, tuple1.getNValue(2).compare(tuple2.getNValue(2)));
+
+    // The value is only freed with its last reference.
+    tuple1.freeObjectColumns();
+    EXPECT_EQ(1, dictionary.size());
+    EXPECT_EQ(0, tuple2.getNValue(1).compare(name));
+    tuple2.freeObjectColumns();
+    EXPECT_EQ(0, dictionary.size());
+
+    name.free();
+}
+
 int main() {
     return TestSuite::globalInstance()->runAll();
 }
@@ -0,0 +1,708 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2017 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+#include "harness.h"
+
+#include "catalog/cluster.h"
+#include "catalog/table.h"
+#include "common/tabletuple.h"
+#include "common/ValueFactory.hpp"
+#include "indexes/tableindex.h"
+#include "plannodes/abstractplannode.h"
+#include "storage/persistenttable.h"
+#include "storage/temptable.h"
+#include "storage/tableutil.h"
+#include "test_utils/plan_testing_config.h"
+#include "test_utils/LoadTableFrom.hpp"
+#include "test_utils/plan_testing_baseclass.h"
+
+/*
+ * Index-only scans of the primary key index of R1, whose plans have the
+ * COVERING flag.
+ */
+
+namespace {
+const char *R1_ColumnNames[] = {
+    "ID",
+    "TINY",
+    "BIG",
+};
+
+
+const int NUM_TABLE_ROWS_R1 = 5;
+const int NUM_TABLE_COLS_R1 = 3;
+const int R1Data[NUM_TABLE_ROWS_R1 * NUM_TABLE_COLS_R1] = {
+      1,  1,  1,
+      2,  2,  2,
+      3,  3,  3,
+      4,  4,  4,
+      5,  5,  5,
+};
+
+
+
+const TableConfig R1Config = {
+    "R1",
+    R1_ColumnNames,
+    NUM_TABLE_ROWS_R1,
+    NUM_TABLE_COLS_R1,
+    R1Data
+};
+
+
+const TableConfig *allTables[] = {
+    &R1Config,
+
+};
+
+const int NUM_OUTPUT_ROWS_TEST_COVERING = 3;
+const int NUM_OUTPUT_COLS_TEST_COVERING = 1;
+const int outputTable_test_covering[NUM_OUTPUT_ROWS_TEST_COVERING * NUM_OUTPUT_COLS_TEST_COVERING] = {
+      2,
+      3,
+      4,
+};
+
+const int NUM_OUTPUT_ROWS_TEST_COVERING_EQ = 1;
+const int NUM_OUTPUT_COLS_TEST_COVERING_EQ = 1;
+const int outputTable_test_covering_eq[NUM_OUTPUT_ROWS_TEST_COVERING_EQ * NUM_OUTPUT_COLS_TEST_COVERING_EQ] = {
+      3,
+};
+
+
+
+TestConfig allTests[2] = {
+    {
+        // SQL Statement
+        "select ID from R1 where ID >= 2 and ID <= 4 order by ID;",
+        // Plan String
+        "{\n"
+        "    \"EXECUTE_LIST\": [\n"
+        "        2,\n"
+        "        1\n"
+        "    ],\n"
+        "    \"PLAN_NODES\": [\n"
+        "        {\n"
+        "            \"CHILDREN_IDS\": [2],\n"
+        "            \"ID\": 1,\n"
+        "            \"PLAN_NODE_TYPE\": \"SEND\"\n"
+        "        },\n"
+        "        {\n"
+        "            \"COMPARE_NOTDISTINCT\": [false],\n"
+        "            \"COVERING\": true,\n"
+        "            \"END_EXPRESSION\": {\n"
+        "                \"LEFT\": {\n"
+        "                    \"COLUMN_IDX\": 0,\n"
+        "                    \"TYPE\": 32,\n"
+        "                    \"VALUE_TYPE\": 5\n"
+        "                },\n"
+        "                \"RIGHT\": {\n"
+        "                    \"ISNULL\": false,\n"
+        "                    \"TYPE\": 30,\n"
+        "                    \"VALUE\": 4,\n"
+        "                    \"VALUE_TYPE\": 5\n"
+        "                },\n"
+        "                \"TYPE\": 14,\n"
+        "                \"VALUE_TYPE\": 23\n"
+        "            },\n"
+        "            \"ID\": 2,\n"
+        "            \"INLINE_NODES\": [{\n"
+        "                \"ID\": 3,\n"
+        "                \"OUTPUT_SCHEMA\": [{\n"
+        "                    \"COLUMN_NAME\": \"ID\",\n"
+        "                    \"EXPRESSION\": {\n"
+        "                        \"COLUMN_IDX\": 0,\n"
+        "                        \"TYPE\": 32,\n"
+        "                        \"VALUE_TYPE\": 5\n"
+        "                    }\n"
+        "                }],\n"
+        "                \"PLAN_NODE_TYPE\": \"PROJECTION\"\n"
+        "            }],\n"
+        "            \"LOOKUP_TYPE\": \"GTE\",\n"
+        "            \"PLAN_NODE_TYPE\": \"INDEXSCAN\",\n"
+        "            \"SEARCHKEY_EXPRESSIONS\": [{\n"
+        "                \"ISNULL\": false,\n"
+        "                \"TYPE\": 30,\n"
+        "                \"VALUE\": 2,\n"
+        "                \"VALUE_TYPE\": 5\n"
+        "            }],\n"
+        "            \"SKIP_NULL_PREDICATE\": {\n"
+        "                \"LEFT\": {\n"
+        "                    \"COLUMN_IDX\": 0,\n"
+        "                    \"TYPE\": 32,\n"
+        "                    \"VALUE_TYPE\": 5\n"
+        "                },\n"
+        "                \"TYPE\": 9,\n"
+        "                \"VALUE_TYPE\": 23\n"
+        "            },\n"
+        "            \"SORT_DIRECTION\": \"ASC\",\n"
+        "            \"TARGET_INDEX_NAME\": \"VOLTDB_AUTOGEN_IDX_PK_R1_ID\",\n"
+        "            \"TARGET_TABLE_ALIAS\": \"R1\",\n"
+        "            \"TARGET_TABLE_NAME\": \"R1\"\n"
+        "        }\n"
+        "    ]\n"
+        "}",
+        NUM_OUTPUT_ROWS_TEST_COVERING,
+        NUM_OUTPUT_COLS_TEST_COVERING,
+        outputTable_test_covering
+    },
+    {
+        // SQL Statement
+        "select ID from R1 where ID = 3;",
+        // Plan String
+        "{\n"
+        "    \"EXECUTE_LIST\": [\n"
+        "        2,\n"
+        "        1\n"
+        "    ],\n"
+        "    \"PLAN_NODES\": [\n"
+        "        {\n"
+        "            \"CHILDREN_IDS\": [2],\n"
+        "            \"ID\": 1,\n"
+        "            \"PLAN_NODE_TYPE\": \"SEND\"\n"
+        "        },\n"
+        "        {\n"
+        "            \"COMPARE_NOTDISTINCT\": [false],\n"
+        "            \"COVERING\": true,\n"
+        "            \"END_EXPRESSION\": {\n"
+        "                \"LEFT\": {\n"
+        "                    \"COLUMN_IDX\": 0,\n"
+        "                    \"TYPE\": 32,\n"
+        "                    \"VALUE_TYPE\": 5\n"
+        "                },\n"
+        "                \"RIGHT\": {\n"
+        "                    \"ISNULL\": false,\n"
+        "                    \"TYPE\": 30,\n"
+        "                    \"VALUE\": 3,\n"
+        "                    \"VALUE_TYPE\": 5\n"
+        "                },\n"
+        "                \"TYPE\": 10,\n"
+        "                \"VALUE_TYPE\": 23\n"
+        "            },\n"
+        "            \"ID\": 2,\n"
+        "            \"INLINE_NODES\": [{\n"
+        "                \"ID\": 3,\n"
+        "                \"OUTPUT_SCHEMA\": [{\n"
+        "                    \"COLUMN_NAME\": \"ID\",\n"
+        "                    \"EXPRESSION\": {\n"
+        "                        \"COLUMN_IDX\": 0,\n"
+        "                        \"TYPE\": 32,\n"
+        "                        \"VALUE_TYPE\": 5\n"
+        "                    }\n"
+        "                }],\n"
+        "                \"PLAN_NODE_TYPE\": \"PROJECTION\"\n"
+        "            }],\n"
+        "            \"LOOKUP_TYPE\": \"EQ\",\n"
+        "            \"PLAN_NODE_TYPE\": \"INDEXSCAN\",\n"
+        "            \"SEARCHKEY_EXPRESSIONS\": [{\n"
+        "                \"ISNULL\": false,\n"
+        "                \"TYPE\": 30,\n"
+        "                \"VALUE\": 3,\n"
+        "                \"VALUE_TYPE\": 5\n"
+        "            }],\n"
+        "            \"SORT_DIRECTION\": \"INVALID\",\n"
+        "            \"TARGET_INDEX_NAME\": \"VOLTDB_AUTOGEN_IDX_PK_R1_ID\",\n"
+        "            \"TARGET_TABLE_ALIAS\": \"R1\",\n"
+        "            \"TARGET_TABLE_NAME\": \"R1\"\n"
+        "        }\n"
+        "    ]\n"
+        "}",
+        NUM_OUTPUT_ROWS_TEST_COVERING_EQ,
+        NUM_OUTPUT_COLS_TEST_COVERING_EQ,
+        outputTable_test_covering_eq
+    },
+};
+
+}
+
+class IndexScanCoveringTest : public PlanTestingBaseClass<EngineTestTopend> {
+public:
+    /*
+     * This constructor lets us set the global random seed for the
+     * random number generator.  It would be better to have a seed
+     * just for this test.  But that is not easily done.
+     */
+    IndexScanCoveringTest(uint32_t randomSeed = (unsigned int)time(NULL)) {
+        initialize(m_PartitionByExecutorDB, randomSeed);
+    }
+
+    ~IndexScanCoveringTest() { }
+
+    /*
+     * Execute a fragment again in the same engine, whose results go to
+     * the start of the result buffer again.
+     */
+    void executeAndValidate(fragmentId_t fragmentId, const char *plan,
+                            const int *answer, int nRows, int nCols) {
+        m_engine->resetReusedResultOutputBuffer();
+        executeFragment(fragmentId, plan);
+        validateResult(answer, nRows, nCols);
+    }
+
+    /*
+     * The tuple of R1 with the given ID, found through its primary key index.
+     */
+    voltdb::TableTuple findR1Tuple(int id) {
+        voltdb::PersistentTable *table = getPersistentTableAndId("R1", NULL);
+        voltdb::TableIndex *pkey = table->primaryKeyIndex();
+        voltdb::StandAloneTupleStorage keyStorage(pkey->getKeySchema());
+        voltdb::TableTuple searchKey = keyStorage.tuple();
+        searchKey.setNValue(0, voltdb::ValueFactory::getIntegerValue(id));
+        voltdb::IndexCursor cursor(pkey->getTupleSchema());
+        EXPECT_TRUE(pkey->moveToKey(&searchKey, cursor));
+        return pkey->nextValueAtKey(cursor);
+    }
+
+    void setPendingDelete(voltdb::TableTuple &tuple, bool pendingDelete) {
+        if (pendingDelete) {
+            tuple.setPendingDeleteTrue();
+        }
+        else {
+            tuple.setPendingDeleteFalse();
+        }
+    }
+protected:
+    static DBConfig         m_PartitionByExecutorDB;
+};
+
+/*
+ * The range scan and the lookup read ID from the entries of the primary
+ * key index alone.
+ */
+TEST_F(IndexScanCoveringTest, RangeScan) {
+    executeTest(allTests[0]);
+}
+
+TEST_F(IndexScanCoveringTest, EqualityLookup) {
+    executeTest(allTests[1]);
+}
+
+/*
+ * An update marks the old tuple pending delete while views are maintained,
+ * and only takes it out of the indexes whose keys change.  An index-only
+ * scan of one of the other indexes must still skip it.
+ */
+TEST_F(IndexScanCoveringTest, SkipsPendingDeleteTuples) {
+    voltdb::TableTuple target = findR1Tuple(3);
+    setPendingDelete(target, true);
+
+    const int rangeWithoutTarget[] = {
+        2,
+        4,
+    };
+    executeAndValidate(100, allTests[0].m_planString, rangeWithoutTarget, 2, 1);
+    executeAndValidate(101, allTests[1].m_planString, NULL, 0, 1);
+
+    setPendingDelete(target, false);
+    executeAndValidate(100, allTests[0].m_planString,
+                       outputTable_test_covering, NUM_OUTPUT_ROWS_TEST_COVERING, NUM_OUTPUT_COLS_TEST_COVERING);
+    executeAndValidate(101, allTests[1].m_planString,
+                       outputTable_test_covering_eq, NUM_OUTPUT_ROWS_TEST_COVERING_EQ, NUM_OUTPUT_COLS_TEST_COVERING_EQ);
+}
+
+DBConfig IndexScanCoveringTest::m_PartitionByExecutorDB =
+
+{
+    //
+    // DDL.
+    //
+    "drop table T if exists;\n"
+    "drop table AAA if exists;\n"
+    "drop table BBB if exists;\n"
+    "drop table R1 if exists;\n"
+    "\n"
+    "CREATE TABLE T (\n"
+    "  A INTEGER,\n"
+    "  B INTEGER,\n"
+    "  C INTEGER\n"
+    ");\n"
+    "\n"
+    "CREATE TABLE R1 (\n"
+    "  ID INTEGER NOT NULL,\n"
+    "  TINY INTEGER NOT NULL,\n"
+    "  BIG INTEGER NOT NULL,\n"
+    "  PRIMARY KEY (ID)\n"
+    ");\n"
+    "\n"
+    "create table AAA (\n"
+    "  A integer,\n"
+    "  B integer,\n"
+    "  C integer\n"
+    " );\n"
+    " \n"
+    " create table BBB (\n"
+    "  A integer,\n"
+    "  B integer,\n"
+    "  C integer\n"
+    " );\n"
+    " \n"
+    "-- Order By Table, from the order by suite.\n"
+    "--\n"
+    "CREATE TABLE O1 (\n"
+    " PKEY          INTEGER NOT NULL,\n"
+    " A_INT         INTEGER,\n"
+    " PRIMARY KEY (PKEY)\n"
+    ");\n"
+    "\n"
+    "PARTITION TABLE O1 ON COLUMN PKEY;\n"
+    "CREATE INDEX IDX_O1_A_INT_PKEY on O1 (A_INT, PKEY);\n"
+    "",
+    //
+    // Catalog String
+    //
+    "add / clusters cluster\n"
+    "set /clusters#cluster localepoch 0\n"
+    "set $PREV securityEnabled false\n"
+    "set $PREV httpdportno 0\n"
+    "set $PREV jsonapi false\n"
+    "set $PREV networkpartition false\n"
+    "set $PREV heartbeatTimeout 0\n"
+    "set $PREV useddlschema false\n"
+    "set $PREV drConsumerEnabled false\n"
+    "set $PREV drProducerEnabled false\n"
+    "set $PREV drRole \"\"\n"
+    "set $PREV drClusterId 0\n"
+    "set $PREV drProducerPort 0\n"
+    "set $PREV drMasterHost \"\"\n"
+    "set $PREV drFlushInterval 0\n"
+    "add /clusters#cluster databases database\n"
+    "set /clusters#cluster/databases#database schema \"eJy1UkFyhDAMu/c1wZFtfN2U/P9JlVkKdIBd9tDJJMNgOZKsGFyse5HisMHEmqkUhRQLM57qo4VXh9f6+LJTOIZcn7VIro9aVOoVB6oKFIMCs3rKETQsTmTkLimTOzAlCg5VkbZU5LJSD5Ui8Zpy1rmSBnC8AhN6SuNfZVf7pSMmkXG/g6zBcd1noD5iv6lcZp4H8ZF6Z6Wx2LPKCNQGBqDnYe+nylCmRJozmD9TvajUQ6W8J16ezD8RXweKvgWq28AO614EZOhP5Nsb2uvAVi1xaiEvA790fL5CHUlMKzxXCdo3Q9Zt2szuZLad7aT5AeGp3Yc=\"\n"
+    "set $PREV isActiveActiveDRed false\n"
+    "set $PREV securityprovider \"\"\n"
+    "add /clusters#cluster/databases#database groups administrator\n"
+    "set /clusters#cluster/databases#database/groups#administrator admin true\n"
+    "set $PREV defaultproc true\n"
+    "set $PREV defaultprocread true\n"
+    "set $PREV sql true\n"
+    "set $PREV sqlread true\n"
+    "set $PREV allproc true\n"
+    "add /clusters#cluster/databases#database groups user\n"
+    "set /clusters#cluster/databases#database/groups#user admin false\n"
+    "set $PREV defaultproc true\n"
+    "set $PREV defaultprocread true\n"
+    "set $PREV sql true\n"
+    "set $PREV sqlread true\n"
+    "set $PREV allproc true\n"
+    "add /clusters#cluster/databases#database tables AAA\n"
+    "set /clusters#cluster/databases#database/tables#AAA isreplicated true\n"
+    "set $PREV partitioncolumn null\n"
+    "set $PREV estimatedtuplecount 0\n"
+    "set $PREV materializer null\n"
+    "set $PREV signature \"AAA|iii\"\n"
+    "set $PREV tuplelimit 2147483647\n"
+    "set $PREV isDRed false\n"
+    "set $PREV ttlcolumn null\n"
+    "set $PREV ttlseconds 0\n"
+    "set $PREV ttlbatchsize 0\n"
+    "add /clusters#cluster/databases#database/tables#AAA columns A\n"
+    "set /clusters#cluster/databases#database/tables#AAA/columns#A index 0\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable true\n"
+    "set $PREV name \"A\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "set $PREV dictionary false\n"
+    "add /clusters#cluster/databases#database/tables#AAA columns B\n"
+    "set /clusters#cluster/databases#database/tables#AAA/columns#B index 1\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable true\n"
+    "set $PREV name \"B\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "set $PREV dictionary false\n"
+    "add /clusters#cluster/databases#database/tables#AAA columns C\n"
+    "set /clusters#cluster/databases#database/tables#AAA/columns#C index 2\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable true\n"
+    "set $PREV name \"C\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "set $PREV dictionary false\n"
+    "add /clusters#cluster/databases#database tables BBB\n"
+    "set /clusters#cluster/databases#database/tables#BBB isreplicated true\n"
+    "set $PREV partitioncolumn null\n"
+    "set $PREV estimatedtuplecount 0\n"
+    "set $PREV materializer null\n"
+    "set $PREV signature \"BBB|iii\"\n"
+    "set $PREV tuplelimit 2147483647\n"
+    "set $PREV isDRed false\n"
+    "set $PREV ttlcolumn null\n"
+    "set $PREV ttlseconds 0\n"
+    "set $PREV ttlbatchsize 0\n"
+    "add /clusters#cluster/databases#database/tables#BBB columns A\n"
+    "set /clusters#cluster/databases#database/tables#BBB/columns#A index 0\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable true\n"
+    "set $PREV name \"A\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "set $PREV dictionary false\n"
+    "add /clusters#cluster/databases#database/tables#BBB columns B\n"
+    "set /clusters#cluster/databases#database/tables#BBB/columns#B index 1\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable true\n"
+    "set $PREV name \"B\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "set $PREV dictionary false\n"
+    "add /clusters#cluster/databases#database/tables#BBB columns C\n"
+    "set /clusters#cluster/databases#database/tables#BBB/columns#C index 2\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable true\n"
+    "set $PREV name \"C\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "set $PREV dictionary false\n"
+    "add /clusters#cluster/databases#database tables O1\n"
+    "set /clusters#cluster/databases#database/tables#O1 isreplicated false\n"
+    "set $PREV partitioncolumn /clusters#cluster/databases#database/tables#O1/columns#PKEY\n"
+    "set $PREV estimatedtuplecount 0\n"
+    "set $PREV materializer null\n"
+    "set $PREV signature \"O1|ii\"\n"
+    "set $PREV tuplelimit 2147483647\n"
+    "set $PREV isDRed false\n"
+    "set $PREV ttlcolumn null\n"
+    "set $PREV ttlseconds 0\n"
+    "set $PREV ttlbatchsize 0\n"
+    "add /clusters#cluster/databases#database/tables#O1 columns A_INT\n"
+    "set /clusters#cluster/databases#database/tables#O1/columns#A_INT index 1\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable true\n"
+    "set $PREV name \"A_INT\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "set $PREV dictionary false\n"
+    "add /clusters#cluster/databases#database/tables#O1 columns PKEY\n"
+    "set /clusters#cluster/databases#database/tables#O1/columns#PKEY index 0\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable false\n"
+    "set $PREV name \"PKEY\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "set $PREV dictionary false\n"
+    "add /clusters#cluster/databases#database/tables#O1 indexes IDX_O1_A_INT_PKEY\n"
+    "set /clusters#cluster/databases#database/tables#O1/indexes#IDX_O1_A_INT_PKEY unique false\n"
+    "set $PREV assumeUnique false\n"
+    "set $PREV countable true\n"
+    "set $PREV type 1\n"
+    "set $PREV expressionsjson \"\"\n"
+    "set $PREV predicatejson \"\"\n"
+    "add /clusters#cluster/databases#database/tables#O1/indexes#IDX_O1_A_INT_PKEY columns A_INT\n"
+    "set /clusters#cluster/databases#database/tables#O1/indexes#IDX_O1_A_INT_PKEY/columns#A_INT index 0\n"
+    "set $PREV column /clusters#cluster/databases#database/tables#O1/columns#A_INT\n"
+    "add /clusters#cluster/databases#database/tables#O1/indexes#IDX_O1_A_INT_PKEY columns PKEY\n"
+    "set /clusters#cluster/databases#database/tables#O1/indexes#IDX_O1_A_INT_PKEY/columns#PKEY index 1\n"
+    "set $PREV column /clusters#cluster/databases#database/tables#O1/columns#PKEY\n"
+    "add /clusters#cluster/databases#database/tables#O1 indexes VOLTDB_AUTOGEN_IDX_PK_O1_PKEY\n"
+    "set /clusters#cluster/databases#database/tables#O1/indexes#VOLTDB_AUTOGEN_IDX_PK_O1_PKEY unique true\n"
+    "set $PREV assumeUnique false\n"
+    "set $PREV countable true\n"
+    "set $PREV type 1\n"
+    "set $PREV expressionsjson \"\"\n"
+    "set $PREV predicatejson \"\"\n"
+    "add /clusters#cluster/databases#database/tables#O1/indexes#VOLTDB_AUTOGEN_IDX_PK_O1_PKEY columns PKEY\n"
+    "set /clusters#cluster/databases#database/tables#O1/indexes#VOLTDB_AUTOGEN_IDX_PK_O1_PKEY/columns#PKEY index 0\n"
+    "set $PREV column /clusters#cluster/databases#database/tables#O1/columns#PKEY\n"
+    "add /clusters#cluster/databases#database/tables#O1 constraints VOLTDB_AUTOGEN_IDX_PK_O1_PKEY\n"
+    "set /clusters#cluster/databases#database/tables#O1/constraints#VOLTDB_AUTOGEN_IDX_PK_O1_PKEY type 4\n"
+    "set $PREV oncommit \"\"\n"
+    "set $PREV index /clusters#cluster/databases#database/tables#O1/indexes#VOLTDB_AUTOGEN_IDX_PK_O1_PKEY\n"
+    "set $PREV foreignkeytable null\n"
+    "add /clusters#cluster/databases#database tables R1\n"
+    "set /clusters#cluster/databases#database/tables#R1 isreplicated true\n"
+    "set $PREV partitioncolumn null\n"
+    "set $PREV estimatedtuplecount 0\n"
+    "set $PREV materializer null\n"
+    "set $PREV signature \"R1|iii\"\n"
+    "set $PREV tuplelimit 2147483647\n"
+    "set $PREV isDRed false\n"
+    "set $PREV ttlcolumn null\n"
+    "set $PREV ttlseconds 0\n"
+    "set $PREV ttlbatchsize 0\n"
+    "add /clusters#cluster/databases#database/tables#R1 columns BIG\n"
+    "set /clusters#cluster/databases#database/tables#R1/columns#BIG index 2\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable false\n"
+    "set $PREV name \"BIG\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "set $PREV dictionary false\n"
+    "add /clusters#cluster/databases#database/tables#R1 columns ID\n"
+    "set /clusters#cluster/databases#database/tables#R1/columns#ID index 0\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable false\n"
+    "set $PREV name \"ID\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "set $PREV dictionary false\n"
+    "add /clusters#cluster/databases#database/tables#R1 columns TINY\n"
+    "set /clusters#cluster/databases#database/tables#R1/columns#TINY index 1\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable false\n"
+    "set $PREV name \"TINY\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "set $PREV dictionary false\n"
+    "add /clusters#cluster/databases#database/tables#R1 indexes VOLTDB_AUTOGEN_IDX_PK_R1_ID\n"
+    "set /clusters#cluster/databases#database/tables#R1/indexes#VOLTDB_AUTOGEN_IDX_PK_R1_ID unique true\n"
+    "set $PREV assumeUnique false\n"
+    "set $PREV countable true\n"
+    "set $PREV type 1\n"
+    "set $PREV expressionsjson \"\"\n"
+    "set $PREV predicatejson \"\"\n"
+    "add /clusters#cluster/databases#database/tables#R1/indexes#VOLTDB_AUTOGEN_IDX_PK_R1_ID columns ID\n"
+    "set /clusters#cluster/databases#database/tables#R1/indexes#VOLTDB_AUTOGEN_IDX_PK_R1_ID/columns#ID index 0\n"
+    "set $PREV column /clusters#cluster/databases#database/tables#R1/columns#ID\n"
+    "add /clusters#cluster/databases#database/tables#R1 constraints VOLTDB_AUTOGEN_IDX_PK_R1_ID\n"
+    "set /clusters#cluster/databases#database/tables#R1/constraints#VOLTDB_AUTOGEN_IDX_PK_R1_ID type 4\n"
+    "set $PREV oncommit \"\"\n"
+    "set $PREV index /clusters#cluster/databases#database/tables#R1/indexes#VOLTDB_AUTOGEN_IDX_PK_R1_ID\n"
+    "set $PREV foreignkeytable null\n"
+    "add /clusters#cluster/databases#database tables T\n"
+    "set /clusters#cluster/databases#database/tables#T isreplicated true\n"
+    "set $PREV partitioncolumn null\n"
+    "set $PREV estimatedtuplecount 0\n"
+    "set $PREV materializer null\n"
+    "set $PREV signature \"T|iii\"\n"
+    "set $PREV tuplelimit 2147483647\n"
+    "set $PREV isDRed false\n"
+    "set $PREV ttlcolumn null\n"
+    "set $PREV ttlseconds 0\n"
+    "set $PREV ttlbatchsize 0\n"
+    "add /clusters#cluster/databases#database/tables#T columns A\n"
+    "set /clusters#cluster/databases#database/tables#T/columns#A index 0\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable true\n"
+    "set $PREV name \"A\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "set $PREV dictionary false\n"
+    "add /clusters#cluster/databases#database/tables#T columns B\n"
+    "set /clusters#cluster/databases#database/tables#T/columns#B index 1\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable true\n"
+    "set $PREV name \"B\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "set $PREV dictionary false\n"
+    "add /clusters#cluster/databases#database/tables#T columns C\n"
+    "set /clusters#cluster/databases#database/tables#T/columns#C index 2\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable true\n"
+    "set $PREV name \"C\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "set $PREV dictionary false\n"
+    "add /clusters#cluster/databases#database procedures testplanseegenerator\n"
+    "set /clusters#cluster/databases#database/procedures#testplanseegenerator classname \"\"\n"
+    "set $PREV readonly false\n"
+    "set $PREV singlepartition false\n"
+    "set $PREV everysite false\n"
+    "set $PREV systemproc false\n"
+    "set $PREV defaultproc false\n"
+    "set $PREV hasjava false\n"
+    "set $PREV hasseqscans false\n"
+    "set $PREV language \"\"\n"
+    "set $PREV partitiontable null\n"
+    "set $PREV partitioncolumn null\n"
+    "set $PREV partitionparameter 0\n"
+    "set $PREV allowedInShutdown false\n"
+    "",
+    1,
+    allTables
+};
+
+
+int main() {
+     return TestSuite::globalInstance()->runAll();
+}
@@ -0,0 +1,949 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2017 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+#include "harness.h"
+
+#include "catalog/cluster.h"
+#include "catalog/table.h"
+#include "plannodes/abstractplannode.h"
+#include "storage/persistenttable.h"
+#include "storage/temptable.h"
+#include "storage/tableutil.h"
+#include "test_utils/plan_testing_config.h"
+#include "test_utils/LoadTableFrom.hpp"
+#include "test_utils/plan_testing_baseclass.h"
+
+/*
+ * Nested loop joins of AAA and BBB on C, which the planner gives
+ * semi-join keys.  Most outer tuples have no match in BBB.
+ */
+
+namespace {
+const char *AAA_ColumnNames[] = {
+    "A",
+    "B",
+    "C",
+};
+const char *BBB_ColumnNames[] = {
+    "A",
+    "B",
+    "C",
+};
+
+
+const int NUM_TABLE_ROWS_AAA = 6;
+const int NUM_TABLE_COLS_AAA = 3;
+const int AAAData[NUM_TABLE_ROWS_AAA * NUM_TABLE_COLS_AAA] = {
+      1,  1,  1,
+      2,  2,  2,
+      3,  3,  3,
+      4,  4,  4,
+      5,  5,  5,
+      6,  6,  6,
+};
+
+const int NUM_TABLE_ROWS_BBB = 3;
+const int NUM_TABLE_COLS_BBB = 3;
+const int BBBData[NUM_TABLE_ROWS_BBB * NUM_TABLE_COLS_BBB] = {
+     10, 10,  2,
+     50, 50,  5,
+     51, 51,  5,
+};
+
+
+
+const TableConfig AAAConfig = {
+    "AAA",
+    AAA_ColumnNames,
+    NUM_TABLE_ROWS_AAA,
+    NUM_TABLE_COLS_AAA,
+    AAAData
+};
+const TableConfig BBBConfig = {
+    "BBB",
+    BBB_ColumnNames,
+    NUM_TABLE_ROWS_BBB,
+    NUM_TABLE_COLS_BBB,
+    BBBData
+};
+
+
+const TableConfig *allTables[] = {
+    &AAAConfig,
+    &BBBConfig,
+
+};
+
+const int NUM_OUTPUT_ROWS_TEST_JOIN = 3;
+const int NUM_OUTPUT_COLS_TEST_JOIN = 2;
+const int outputTable_test_join[NUM_OUTPUT_ROWS_TEST_JOIN * NUM_OUTPUT_COLS_TEST_JOIN] = {
+      2, 10,
+      5, 50,
+      5, 51,
+};
+
+const int NUM_OUTPUT_ROWS_TEST_ANTI_JOIN = 4;
+const int NUM_OUTPUT_COLS_TEST_ANTI_JOIN = 1;
+const int outputTable_test_anti_join[NUM_OUTPUT_ROWS_TEST_ANTI_JOIN * NUM_OUTPUT_COLS_TEST_ANTI_JOIN] = {
+      1,
+      3,
+      4,
+      6,
+};
+
+
+
+TestConfig allTests[2] = {
+    {
+        // SQL Statement
+        "select AAA.A, BBB.A from AAA join BBB on AAA.C = BBB.C order by AAA.A, BBB.A;",
+        // Plan String
+        "{\n"
+        "    \"EXECUTE_LIST\": [\n"
+        "        5,\n"
+        "        7,\n"
+        "        4,\n"
+        "        3,\n"
+        "        2,\n"
+        "        1\n"
+        "    ],\n"
+        "    \"PLAN_NODES\": [\n"
+        "        {\n"
+        "            \"CHILDREN_IDS\": [2],\n"
+        "            \"ID\": 1,\n"
+        "            \"PLAN_NODE_TYPE\": \"SEND\"\n"
+        "        },\n"
+        "        {\n"
+        "            \"CHILDREN_IDS\": [3],\n"
+        "            \"ID\": 2,\n"
+        "            \"OUTPUT_SCHEMA\": [\n"
+        "                {\n"
+        "                    \"COLUMN_NAME\": \"A\",\n"
+        "                    \"EXPRESSION\": {\n"
+        "                        \"COLUMN_IDX\": 0,\n"
+        "                        \"TYPE\": 32,\n"
+        "                        \"VALUE_TYPE\": 5\n"
+        "                    }\n"
+        "                },\n"
+        "                {\n"
+        "                    \"COLUMN_NAME\": \"A\",\n"
+        "                    \"EXPRESSION\": {\n"
+        "                        \"COLUMN_IDX\": 2,\n"
+        "                        \"TYPE\": 32,\n"
+        "                        \"VALUE_TYPE\": 5\n"
+        "                    }\n"
+        "                }\n"
+        "            ],\n"
+        "            \"PLAN_NODE_TYPE\": \"PROJECTION\"\n"
+        "        },\n"
+        "        {\n"
+        "            \"CHILDREN_IDS\": [4],\n"
+        "            \"ID\": 3,\n"
+        "            \"PLAN_NODE_TYPE\": \"ORDERBY\",\n"
+        "            \"SORT_COLUMNS\": [\n"
+        "                {\n"
+        "                    \"SORT_DIRECTION\": \"ASC\",\n"
+        "                    \"SORT_EXPRESSION\": {\n"
+        "                        \"COLUMN_IDX\": 0,\n"
+        "                        \"TYPE\": 32,\n"
+        "                        \"VALUE_TYPE\": 5\n"
+        "                    }\n"
+        "                },\n"
+        "                {\n"
+        "                    \"SORT_DIRECTION\": \"ASC\",\n"
+        "                    \"SORT_EXPRESSION\": {\n"
+        "                        \"COLUMN_IDX\": 2,\n"
+        "                        \"TYPE\": 32,\n"
+        "                        \"VALUE_TYPE\": 5\n"
+        "                    }\n"
+        "                }\n"
+        "            ]\n"
+        "        },\n"
+        "        {\n"
+        "            \"CHILDREN_IDS\": [\n"
+        "                5,\n"
+        "                7\n"
+        "            ],\n"
+        "            \"ID\": 4,\n"
+        "            \"JOIN_PREDICATE\": {\n"
+        "                \"LEFT\": {\n"
+        "                    \"COLUMN_IDX\": 1,\n"
+        "                    \"TABLE_IDX\": 1,\n"
+        "                    \"TYPE\": 32,\n"
+        "                    \"VALUE_TYPE\": 5\n"
+        "                },\n"
+        "                \"RIGHT\": {\n"
+        "                    \"COLUMN_IDX\": 1,\n"
+        "                    \"TYPE\": 32,\n"
+        "                    \"VALUE_TYPE\": 5\n"
+        "                },\n"
+        "                \"TYPE\": 10,\n"
+        "                \"VALUE_TYPE\": 23\n"
+        "            },\n"
+        "            \"JOIN_TYPE\": \"INNER\",\n"
+        "            \"OUTPUT_SCHEMA\": [\n"
+        "                {\n"
+        "                    \"COLUMN_NAME\": \"A\",\n"
+        "                    \"EXPRESSION\": {\n"
+        "                        \"COLUMN_IDX\": 0,\n"
+        "                        \"TYPE\": 32,\n"
+        "                        \"VALUE_TYPE\": 5\n"
+        "                    }\n"
+        "                },\n"
+        "                {\n"
+        "                    \"COLUMN_NAME\": \"C\",\n"
+        "                    \"EXPRESSION\": {\n"
+        "                        \"COLUMN_IDX\": 1,\n"
+        "                        \"TYPE\": 32,\n"
+        "                        \"VALUE_TYPE\": 5\n"
+        "                    }\n"
+        "                },\n"
+        "                {\n"
+        "                    \"COLUMN_NAME\": \"A\",\n"
+        "                    \"EXPRESSION\": {\n"
+        "                        \"COLUMN_IDX\": 0,\n"
+        "                        \"TYPE\": 32,\n"
+        "                        \"VALUE_TYPE\": 5\n"
+        "                    }\n"
+        "                },\n"
+        "                {\n"
+        "                    \"COLUMN_NAME\": \"C\",\n"
+        "                    \"EXPRESSION\": {\n"
+        "                        \"COLUMN_IDX\": 1,\n"
+        "                        \"TYPE\": 32,\n"
+        "                        \"VALUE_TYPE\": 5\n"
+        "                    }\n"
+        "                }\n"
+        "            ],\n"
+        "            \"PLAN_NODE_TYPE\": \"NESTLOOP\",\n"
+        "            \"PRE_JOIN_PREDICATE\": null,\n"
+        "            \"SEMIJOIN_INNER_KEYS\": [{\n"
+        "                \"COLUMN_IDX\": 1,\n"
+        "                \"TABLE_IDX\": 1,\n"
+        "                \"TYPE\": 32,\n"
+        "                \"VALUE_TYPE\": 5\n"
+        "            }],\n"
+        "            \"SEMIJOIN_OUTER_KEYS\": [{\n"
+        "                \"COLUMN_IDX\": 1,\n"
+        "                \"TYPE\": 32,\n"
+        "                \"VALUE_TYPE\": 5\n"
+        "            }],\n"
+        "            \"WHERE_PREDICATE\": null\n"
+        "        },\n"
+        "        {\n"
+        "            \"ID\": 5,\n"
+        "            \"INLINE_NODES\": [{\n"
+        "                \"ID\": 6,\n"
+        "                \"OUTPUT_SCHEMA\": [\n"
+        "                    {\n"
+        "                        \"COLUMN_NAME\": \"A\",\n"
+        "                        \"EXPRESSION\": {\n"
+        "                            \"COLUMN_IDX\": 0,\n"
+        "                            \"TYPE\": 32,\n"
+        "                            \"VALUE_TYPE\": 5\n"
+        "                        }\n"
+        "                    },\n"
+        "                    {\n"
+        "                        \"COLUMN_NAME\": \"C\",\n"
+        "                        \"EXPRESSION\": {\n"
+        "                            \"COLUMN_IDX\": 2,\n"
+        "                            \"TYPE\": 32,\n"
+        "                            \"VALUE_TYPE\": 5\n"
+        "                        }\n"
+        "                    }\n"
+        "                ],\n"
+        "                \"PLAN_NODE_TYPE\": \"PROJECTION\"\n"
+        "            }],\n"
+        "            \"PLAN_NODE_TYPE\": \"SEQSCAN\",\n"
+        "            \"TARGET_TABLE_ALIAS\": \"AAA\",\n"
+        "            \"TARGET_TABLE_NAME\": \"AAA\"\n"
+        "        },\n"
+        "        {\n"
+        "            \"ID\": 7,\n"
+        "            \"INLINE_NODES\": [{\n"
+        "                \"ID\": 8,\n"
+        "                \"OUTPUT_SCHEMA\": [\n"
+        "                    {\n"
+        "                        \"COLUMN_NAME\": \"A\",\n"
+        "                        \"EXPRESSION\": {\n"
+        "                            \"COLUMN_IDX\": 0,\n"
+        "                            \"TYPE\": 32,\n"
+        "                            \"VALUE_TYPE\": 5\n"
+        "                        }\n"
+        "                    },\n"
+        "                    {\n"
+        "                        \"COLUMN_NAME\": \"C\",\n"
+        "                        \"EXPRESSION\": {\n"
+        "                            \"COLUMN_IDX\": 2,\n"
+        "                            \"TYPE\": 32,\n"
+        "                            \"VALUE_TYPE\": 5\n"
+        "                        }\n"
+        "                    }\n"
+        "                ],\n"
+        "                \"PLAN_NODE_TYPE\": \"PROJECTION\"\n"
+        "            }],\n"
+        "            \"PLAN_NODE_TYPE\": \"SEQSCAN\",\n"
+        "            \"TARGET_TABLE_ALIAS\": \"BBB\",\n"
+        "            \"TARGET_TABLE_NAME\": \"BBB\"\n"
+        "        }\n"
+        "    ]\n"
+        "}",
+        NUM_OUTPUT_ROWS_TEST_JOIN,
+        NUM_OUTPUT_COLS_TEST_JOIN,
+        outputTable_test_join
+    },
+    {
+        // SQL Statement
+        "select AAA.A from AAA left join BBB on AAA.C = BBB.C where BBB.C is null order by AAA.A;",
+        // Plan String
+        "{\n"
+        "    \"EXECUTE_LIST\": [\n"
+        "        5,\n"
+        "        7,\n"
+        "        4,\n"
+        "        3,\n"
+        "        2,\n"
+        "        1\n"
+        "    ],\n"
+        "    \"PLAN_NODES\": [\n"
+        "        {\n"
+        "            \"CHILDREN_IDS\": [2],\n"
+        "            \"ID\": 1,\n"
+        "            \"PLAN_NODE_TYPE\": \"SEND\"\n"
+        "        },\n"
+        "        {\n"
+        "            \"CHILDREN_IDS\": [3],\n"
+        "            \"ID\": 2,\n"
+        "            \"OUTPUT_SCHEMA\": [{\n"
+        "                \"COLUMN_NAME\": \"A\",\n"
+        "                \"EXPRESSION\": {\n"
+        "                    \"COLUMN_IDX\": 0,\n"
+        "                    \"TYPE\": 32,\n"
+        "                    \"VALUE_TYPE\": 5\n"
+        "                }\n"
+        "            }],\n"
+        "            \"PLAN_NODE_TYPE\": \"PROJECTION\"\n"
+        "        },\n"
+        "        {\n"
+        "            \"CHILDREN_IDS\": [4],\n"
+        "            \"ID\": 3,\n"
+        "            \"PLAN_NODE_TYPE\": \"ORDERBY\",\n"
+        "            \"SORT_COLUMNS\": [{\n"
+        "                \"SORT_DIRECTION\": \"ASC\",\n"
+        "                \"SORT_EXPRESSION\": {\n"
+        "                    \"COLUMN_IDX\": 0,\n"
+        "                    \"TYPE\": 32,\n"
+        "                    \"VALUE_TYPE\": 5\n"
+        "                }\n"
+        "            }]\n"
+        "        },\n"
+        "        {\n"
+        "            \"CHILDREN_IDS\": [\n"
+        "                5,\n"
+        "                7\n"
+        "            ],\n"
+        "            \"ID\": 4,\n"
+        "            \"JOIN_PREDICATE\": {\n"
+        "                \"LEFT\": {\n"
+        "                    \"COLUMN_IDX\": 0,\n"
+        "                    \"TABLE_IDX\": 1,\n"
+        "                    \"TYPE\": 32,\n"
+        "                    \"VALUE_TYPE\": 5\n"
+        "                },\n"
+        "                \"RIGHT\": {\n"
+        "                    \"COLUMN_IDX\": 1,\n"
+        "                    \"TYPE\": 32,\n"
+        "                    \"VALUE_TYPE\": 5\n"
+        "                },\n"
+        "                \"TYPE\": 10,\n"
+        "                \"VALUE_TYPE\": 23\n"
+        "            },\n"
+        "            \"JOIN_TYPE\": \"LEFT\",\n"
+        "            \"OUTPUT_SCHEMA\": [\n"
+        "                {\n"
+        "                    \"COLUMN_NAME\": \"A\",\n"
+        "                    \"EXPRESSION\": {\n"
+        "                        \"COLUMN_IDX\": 0,\n"
+        "                        \"TYPE\": 32,\n"
+        "                        \"VALUE_TYPE\": 5\n"
+        "                    }\n"
+        "                },\n"
+        "                {\n"
+        "                    \"COLUMN_NAME\": \"C\",\n"
+        "                    \"EXPRESSION\": {\n"
+        "                        \"COLUMN_IDX\": 1,\n"
+        "                        \"TYPE\": 32,\n"
+        "                        \"VALUE_TYPE\": 5\n"
+        "                    }\n"
+        "                },\n"
+        "                {\n"
+        "                    \"COLUMN_NAME\": \"C\",\n"
+        "                    \"EXPRESSION\": {\n"
+        "                        \"COLUMN_IDX\": 0,\n"
+        "                        \"TYPE\": 32,\n"
+        "                        \"VALUE_TYPE\": 5\n"
+        "                    }\n"
+        "                }\n"
+        "            ],\n"
+        "            \"PLAN_NODE_TYPE\": \"NESTLOOP\",\n"
+        "            \"PRE_JOIN_PREDICATE\": null,\n"
+        "            \"SEMIJOIN_INNER_KEYS\": [{\n"
+        "                \"COLUMN_IDX\": 0,\n"
+        "                \"TABLE_IDX\": 1,\n"
+        "                \"TYPE\": 32,\n"
+        "                \"VALUE_TYPE\": 5\n"
+        "            }],\n"
+        "            \"SEMIJOIN_OUTER_KEYS\": [{\n"
+        "                \"COLUMN_IDX\": 1,\n"
+        "                \"TYPE\": 32,\n"
+        "                \"VALUE_TYPE\": 5\n"
+        "            }],\n"
+        "            \"WHERE_PREDICATE\": {\n"
+        "                \"LEFT\": {\n"
+        "                    \"COLUMN_IDX\": 0,\n"
+        "                    \"TABLE_IDX\": 1,\n"
+        "                    \"TYPE\": 32,\n"
+        "                    \"VALUE_TYPE\": 5\n"
+        "                },\n"
+        "                \"TYPE\": 9,\n"
+        "                \"VALUE_TYPE\": 23\n"
+        "            }\n"
+        "        },\n"
+        "        {\n"
+        "            \"ID\": 5,\n"
+        "            \"INLINE_NODES\": [{\n"
+        "                \"ID\": 6,\n"
+        "                \"OUTPUT_SCHEMA\": [\n"
+        "                    {\n"
+        "                        \"COLUMN_NAME\": \"A\",\n"
+        "                        \"EXPRESSION\": {\n"
+        "                            \"COLUMN_IDX\": 0,\n"
+        "                            \"TYPE\": 32,\n"
+        "                            \"VALUE_TYPE\": 5\n"
+        "                        }\n"
+        "                    },\n"
+        "                    {\n"
+        "                        \"COLUMN_NAME\": \"C\",\n"
+        "                        \"EXPRESSION\": {\n"
+        "                            \"COLUMN_IDX\": 2,\n"
+        "                            \"TYPE\": 32,\n"
+        "                            \"VALUE_TYPE\": 5\n"
+        "                        }\n"
+        "                    }\n"
+        "                ],\n"
+        "                \"PLAN_NODE_TYPE\": \"PROJECTION\"\n"
+        "            }],\n"
+        "            \"PLAN_NODE_TYPE\": \"SEQSCAN\",\n"
+        "            \"TARGET_TABLE_ALIAS\": \"AAA\",\n"
+        "            \"TARGET_TABLE_NAME\": \"AAA\"\n"
+        "        },\n"
+        "        {\n"
+        "            \"ID\": 7,\n"
+        "            \"INLINE_NODES\": [{\n"
+        "                \"ID\": 8,\n"
+        "                \"OUTPUT_SCHEMA\": [{\n"
+        "                    \"COLUMN_NAME\": \"C\",\n"
+        "                    \"EXPRESSION\": {\n"
+        "                        \"COLUMN_IDX\": 2,\n"
+        "                        \"TYPE\": 32,\n"
+        "                        \"VALUE_TYPE\": 5\n"
+        "                    }\n"
+        "                }],\n"
+        "                \"PLAN_NODE_TYPE\": \"PROJECTION\"\n"
+        "            }],\n"
+        "            \"PLAN_NODE_TYPE\": \"SEQSCAN\",\n"
+        "            \"TARGET_TABLE_ALIAS\": \"BBB\",\n"
+        "            \"TARGET_TABLE_NAME\": \"BBB\"\n"
+        "        }\n"
+        "    ]\n"
+        "}",
+        NUM_OUTPUT_ROWS_TEST_ANTI_JOIN,
+        NUM_OUTPUT_COLS_TEST_ANTI_JOIN,
+        outputTable_test_anti_join
+    },
+};
+
+}
+
+class NestLoopSemiJoinTest : public PlanTestingBaseClass<EngineTestTopend> {
+public:
+    /*
+     * This constructor lets us set the global random seed for the
+     * random number generator.  It would be better to have a seed
+     * just for this test.  But that is not easily done.
+     */
+    NestLoopSemiJoinTest(uint32_t randomSeed = (unsigned int)time(NULL)) {
+        initialize(m_PartitionByExecutorDB, randomSeed);
+    }
+
+    ~NestLoopSemiJoinTest() { }
+
+    /*
+     * Execute a fragment again in the same engine, whose results go to
+     * the start of the result buffer again.
+     */
+    void executeAndValidate(fragmentId_t fragmentId, const char *plan,
+                            const int *answer, int nRows, int nCols) {
+        m_engine->resetReusedResultOutputBuffer();
+        executeFragment(fragmentId, plan);
+        validateResult(answer, nRows, nCols);
+    }
+protected:
+    static DBConfig         m_PartitionByExecutorDB;
+};
+
+/*
+ * The outer tuples whose key is not in BBB are skipped by the semi-join
+ * filter of the inner keys, the others are still joined with every match.
+ */
+TEST_F(NestLoopSemiJoinTest, JoinSkipsUnmatchedOuterTuples) {
+    executeTest(allTests[0]);
+}
+
+/*
+ * A left join keeps the outer tuples the filter skipped, with NULLs for
+ * the inner columns.
+ */
+TEST_F(NestLoopSemiJoinTest, AntiJoinKeepsUnmatchedOuterTuples) {
+    executeTest(allTests[1]);
+}
+
+/*
+ * The filter is kept with the cached fragment as long as BBB does not
+ * change, and is built again once it does.
+ */
+TEST_F(NestLoopSemiJoinTest, FilterIsRebuiltWhenInnerTableChanges) {
+    const fragmentId_t joinFragment = 100;
+    const fragmentId_t antiJoinFragment = 101;
+    for (int ii = 0; ii < 2; ++ii) {
+        executeAndValidate(joinFragment, allTests[0].m_planString,
+                           outputTable_test_join, NUM_OUTPUT_ROWS_TEST_JOIN, NUM_OUTPUT_COLS_TEST_JOIN);
+        executeAndValidate(antiJoinFragment, allTests[1].m_planString,
+                           outputTable_test_anti_join, NUM_OUTPUT_ROWS_TEST_ANTI_JOIN, NUM_OUTPUT_COLS_TEST_ANTI_JOIN);
+    }
+
+    const int newBBBRow[] = { 30, 30, 3 };
+    initializeTableOfInt("BBB", NULL, NULL, 1, 3, newBBBRow);
+
+    const int joinAfterInsert[] = {
+        2, 10,
+        3, 30,
+        5, 50,
+        5, 51,
+    };
+    executeAndValidate(joinFragment, allTests[0].m_planString, joinAfterInsert, 4, 2);
+
+    const int antiJoinAfterInsert[] = {
+        1,
+        4,
+        6,
+    };
+    executeAndValidate(antiJoinFragment, allTests[1].m_planString, antiJoinAfterInsert, 3, 1);
+}
+
+DBConfig NestLoopSemiJoinTest::m_PartitionByExecutorDB =
+
+{
+    //
+    // DDL.
+    //
+    "drop table T if exists;\n"
+    "drop table AAA if exists;\n"
+    "drop table BBB if exists;\n"
+    "drop table R1 if exists;\n"
+    "\n"
+    "CREATE TABLE T (\n"
+    "  A INTEGER,\n"
+    "  B INTEGER,\n"
+    "  C INTEGER\n"
+    ");\n"
+    "\n"
+    "CREATE TABLE R1 (\n"
+    "  ID INTEGER NOT NULL,\n"
+    "  TINY INTEGER NOT NULL,\n"
+    "  BIG INTEGER NOT NULL,\n"
+    "  PRIMARY KEY (ID)\n"
+    ");\n"
+    "\n"
+    "create table AAA (\n"
+    "  A integer,\n"
+    "  B integer,\n"
+    "  C integer\n"
+    " );\n"
+    " \n"
+    " create table BBB (\n"
+    "  A integer,\n"
+    "  B integer,\n"
+    "  C integer\n"
+    " );\n"
+    " \n"
+    "-- Order By Table, from the order by suite.\n"
+    "--\n"
+    "CREATE TABLE O1 (\n"
+    " PKEY          INTEGER NOT NULL,\n"
+    " A_INT         INTEGER,\n"
+    " PRIMARY KEY (PKEY)\n"
+    ");\n"
+    "\n"
+    "PARTITION TABLE O1 ON COLUMN PKEY;\n"
+    "CREATE INDEX IDX_O1_A_INT_PKEY on O1 (A_INT, PKEY);\n"
+    "",
+    //
+    // Catalog String
+    //
+    "add / clusters cluster\n"
+    "set /clusters#cluster localepoch 0\n"
+    "set $PREV securityEnabled false\n"
+    "set $PREV httpdportno 0\n"
+    "set $PREV jsonapi false\n"
+    "set $PREV networkpartition false\n"
+    "set $PREV heartbeatTimeout 0\n"
+    "set $PREV useddlschema false\n"
+    "set $PREV drConsumerEnabled false\n"
+    "set $PREV drProducerEnabled false\n"
+    "set $PREV drRole \"\"\n"
+    "set $PREV drClusterId 0\n"
+    "set $PREV drProducerPort 0\n"
+    "set $PREV drMasterHost \"\"\n"
+    "set $PREV drFlushInterval 0\n"
+    "add /clusters#cluster databases database\n"
+    "set /clusters#cluster/databases#database schema \"eJy1UkFyhDAMu/c1wZFtfN2U/P9JlVkKdIBd9tDJJMNgOZKsGFyse5HisMHEmqkUhRQLM57qo4VXh9f6+LJTOIZcn7VIro9aVOoVB6oKFIMCs3rKETQsTmTkLimTOzAlCg5VkbZU5LJSD5Ui8Zpy1rmSBnC8AhN6SuNfZVf7pSMmkXG/g6zBcd1noD5iv6lcZp4H8ZF6Z6Wx2LPKCNQGBqDnYe+nylCmRJozmD9TvajUQ6W8J16ezD8RXweKvgWq28AO614EZOhP5Nsb2uvAVi1xaiEvA790fL5CHUlMKzxXCdo3Q9Zt2szuZLad7aT5AeGp3Yc=\"\n"
+    "set $PREV isActiveActiveDRed false\n"
+    "set $PREV securityprovider \"\"\n"
+    "add /clusters#cluster/databases#database groups administrator\n"
+    "set /clusters#cluster/databases#database/groups#administrator admin true\n"
+    "set $PREV defaultproc true\n"
+    "set $PREV defaultprocread true\n"
+    "set $PREV sql true\n"
+    "set $PREV sqlread true\n"
+    "set $PREV allproc true\n"
+    "add /clusters#cluster/databases#database groups user\n"
+    "set /clusters#cluster/databases#database/groups#user admin false\n"
+    "set $PREV defaultproc true\n"
+    "set $PREV defaultprocread true\n"
+    "set $PREV sql true\n"
+    "set $PREV sqlread true\n"
+    "set $PREV allproc true\n"
+    "add /clusters#cluster/databases#database tables AAA\n"
+    "set /clusters#cluster/databases#database/tables#AAA isreplicated true\n"
+    "set $PREV partitioncolumn null\n"
+    "set $PREV estimatedtuplecount 0\n"
+    "set $PREV materializer null\n"
+    "set $PREV signature \"AAA|iii\"\n"
+    "set $PREV tuplelimit 2147483647\n"
+    "set $PREV isDRed false\n"
+    "set $PREV ttlcolumn null\n"
+    "set $PREV ttlseconds 0\n"
+    "set $PREV ttlbatchsize 0\n"
+    "add /clusters#cluster/databases#database/tables#AAA columns A\n"
+    "set /clusters#cluster/databases#database/tables#AAA/columns#A index 0\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable true\n"
+    "set $PREV name \"A\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "set $PREV dictionary false\n"
+    "add /clusters#cluster/databases#database/tables#AAA columns B\n"
+    "set /clusters#cluster/databases#database/tables#AAA/columns#B index 1\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable true\n"
+    "set $PREV name \"B\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "set $PREV dictionary false\n"
+    "add /clusters#cluster/databases#database/tables#AAA columns C\n"
+    "set /clusters#cluster/databases#database/tables#AAA/columns#C index 2\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable true\n"
+    "set $PREV name \"C\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "set $PREV dictionary false\n"
+    "add /clusters#cluster/databases#database tables BBB\n"
+    "set /clusters#cluster/databases#database/tables#BBB isreplicated true\n"
+    "set $PREV partitioncolumn null\n"
+    "set $PREV estimatedtuplecount 0\n"
+    "set $PREV materializer null\n"
+    "set $PREV signature \"BBB|iii\"\n"
+    "set $PREV tuplelimit 2147483647\n"
+    "set $PREV isDRed false\n"
+    "set $PREV ttlcolumn null\n"
+    "set $PREV ttlseconds 0\n"
+    "set $PREV ttlbatchsize 0\n"
+    "add /clusters#cluster/databases#database/tables#BBB columns A\n"
+    "set /clusters#cluster/databases#database/tables#BBB/columns#A index 0\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable true\n"
+    "set $PREV name \"A\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "set $PREV dictionary false\n"
+    "add /clusters#cluster/databases#database/tables#BBB columns B\n"
+    "set /clusters#cluster/databases#database/tables#BBB/columns#B index 1\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable true\n"
+    "set $PREV name \"B\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "set $PREV dictionary false\n"
+    "add /clusters#cluster/databases#database/tables#BBB columns C\n"
+    "set /clusters#cluster/databases#database/tables#BBB/columns#C index 2\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable true\n"
+    "set $PREV name \"C\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "set $PREV dictionary false\n"
+    "add /clusters#cluster/databases#database tables O1\n"
+    "set /clusters#cluster/databases#database/tables#O1 isreplicated false\n"
+    "set $PREV partitioncolumn /clusters#cluster/databases#database/tables#O1/columns#PKEY\n"
+    "set $PREV estimatedtuplecount 0\n"
+    "set $PREV materializer null\n"
+    "set $PREV signature \"O1|ii\"\n"
+    "set $PREV tuplelimit 2147483647\n"
+    "set $PREV isDRed false\n"
+    "set $PREV ttlcolumn null\n"
+    "set $PREV ttlseconds 0\n"
+    "set $PREV ttlbatchsize 0\n"
+    "add /clusters#cluster/databases#database/tables#O1 columns A_INT\n"
+    "set /clusters#cluster/databases#database/tables#O1/columns#A_INT index 1\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable true\n"
+    "set $PREV name \"A_INT\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "set $PREV dictionary false\n"
+    "add /clusters#cluster/databases#database/tables#O1 columns PKEY\n"
+    "set /clusters#cluster/databases#database/tables#O1/columns#PKEY index 0\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable false\n"
+    "set $PREV name \"PKEY\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "set $PREV dictionary false\n"
+    "add /clusters#cluster/databases#database/tables#O1 indexes IDX_O1_A_INT_PKEY\n"
+    "set /clusters#cluster/databases#database/tables#O1/indexes#IDX_O1_A_INT_PKEY unique false\n"
+    "set $PREV assumeUnique false\n"
+    "set $PREV countable true\n"
+    "set $PREV type 1\n"
+    "set $PREV expressionsjson \"\"\n"
+    "set $PREV predicatejson \"\"\n"
+    "add /clusters#cluster/databases#database/tables#O1/indexes#IDX_O1_A_INT_PKEY columns A_INT\n"
+    "set /clusters#cluster/databases#database/tables#O1/indexes#IDX_O1_A_INT_PKEY/columns#A_INT index 0\n"
+    "set $PREV column /clusters#cluster/databases#database/tables#O1/columns#A_INT\n"
+    "add /clusters#cluster/databases#database/tables#O1/indexes#IDX_O1_A_INT_PKEY columns PKEY\n"
+    "set /clusters#cluster/databases#database/tables#O1/indexes#IDX_O1_A_INT_PKEY/columns#PKEY index 1\n"
+    "set $PREV column /clusters#cluster/databases#database/tables#O1/columns#PKEY\n"
+    "add /clusters#cluster/databases#database/tables#O1 indexes VOLTDB_AUTOGEN_IDX_PK_O1_PKEY\n"
+    "set /clusters#cluster/databases#database/tables#O1/indexes#VOLTDB_AUTOGEN_IDX_PK_O1_PKEY unique true\n"
+    "set $PREV assumeUnique false\n"
+    "set $PREV countable true\n"
+    "set $PREV type 1\n"
+    "set $PREV expressionsjson \"\"\n"
+    "set $PREV predicatejson \"\"\n"
+    "add /clusters#cluster/databases#database/tables#O1/indexes#VOLTDB_AUTOGEN_IDX_PK_O1_PKEY columns PKEY\n"
+    "set /clusters#cluster/databases#database/tables#O1/indexes#VOLTDB_AUTOGEN_IDX_PK_O1_PKEY/columns#PKEY index 0\n"
+    "set $PREV column /clusters#cluster/databases#database/tables#O1/columns#PKEY\n"
+    "add /clusters#cluster/databases#database/tables#O1 constraints VOLTDB_AUTOGEN_IDX_PK_O1_PKEY\n"
+    "set /clusters#cluster/databases#database/tables#O1/constraints#VOLTDB_AUTOGEN_IDX_PK_O1_PKEY type 4\n"
+    "set $PREV oncommit \"\"\n"
+    "set $PREV index /clusters#cluster/databases#database/tables#O1/indexes#VOLTDB_AUTOGEN_IDX_PK_O1_PKEY\n"
+    "set $PREV foreignkeytable null\n"
+    "add /clusters#cluster/databases#database tables R1\n"
+    "set /clusters#cluster/databases#database/tables#R1 isreplicated true\n"
+    "set $PREV partitioncolumn null\n"
+    "set $PREV estimatedtuplecount 0\n"
+    "set $PREV materializer null\n"
+    "set $PREV signature \"R1|iii\"\n"
+    "set $PREV tuplelimit 2147483647\n"
+    "set $PREV isDRed false\n"
+    "set $PREV ttlcolumn null\n"
+    "set $PREV ttlseconds 0\n"
+    "set $PREV ttlbatchsize 0\n"
+    "add /clusters#cluster/databases#database/tables#R1 columns BIG\n"
+    "set /clusters#cluster/databases#database/tables#R1/columns#BIG index 2\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable false\n"
+    "set $PREV name \"BIG\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "set $PREV dictionary false\n"
+    "add /clusters#cluster/databases#database/tables#R1 columns ID\n"
+    "set /clusters#cluster/databases#database/tables#R1/columns#ID index 0\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable false\n"
+    "set $PREV name \"ID\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "set $PREV dictionary false\n"
+    "add /clusters#cluster/databases#database/tables#R1 columns TINY\n"
+    "set /clusters#cluster/databases#database/tables#R1/columns#TINY index 1\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable false\n"
+    "set $PREV name \"TINY\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "set $PREV dictionary false\n"
+    "add /clusters#cluster/databases#database/tables#R1 indexes VOLTDB_AUTOGEN_IDX_PK_R1_ID\n"
+    "set /clusters#cluster/databases#database/tables#R1/indexes#VOLTDB_AUTOGEN_IDX_PK_R1_ID unique true\n"
+    "set $PREV assumeUnique false\n"
+    "set $PREV countable true\n"
+    "set $PREV type 1\n"
+    "set $PREV expressionsjson \"\"\n"
+    "set $PREV predicatejson \"\"\n"
+    "add /clusters#cluster/databases#database/tables#R1/indexes#VOLTDB_AUTOGEN_IDX_PK_R1_ID columns ID\n"
+    "set /clusters#cluster/databases#database/tables#R1/indexes#VOLTDB_AUTOGEN_IDX_PK_R1_ID/columns#ID index 0\n"
+    "set $PREV column /clusters#cluster/databases#database/tables#R1/columns#ID\n"
+    "add /clusters#cluster/databases#database/tables#R1 constraints VOLTDB_AUTOGEN_IDX_PK_R1_ID\n"
+    "set /clusters#cluster/databases#database/tables#R1/constraints#VOLTDB_AUTOGEN_IDX_PK_R1_ID type 4\n"
+    "set $PREV oncommit \"\"\n"
+    "set $PREV index /clusters#cluster/databases#database/tables#R1/indexes#VOLTDB_AUTOGEN_IDX_PK_R1_ID\n"
+    "set $PREV foreignkeytable null\n"
+    "add /clusters#cluster/databases#database tables T\n"
+    "set /clusters#cluster/databases#database/tables#T isreplicated true\n"
+    "set $PREV partitioncolumn null\n"
+    "set $PREV estimatedtuplecount 0\n"
+    "set $PREV materializer null\n"
+    "set $PREV signature \"T|iii\"\n"
+    "set $PREV tuplelimit 2147483647\n"
+    "set $PREV isDRed false\n"
+    "set $PREV ttlcolumn null\n"
+    "set $PREV ttlseconds 0\n"
+    "set $PREV ttlbatchsize 0\n"
+    "add /clusters#cluster/databases#database/tables#T columns A\n"
+    "set /clusters#cluster/databases#database/tables#T/columns#A index 0\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable true\n"
+    "set $PREV name \"A\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "set $PREV dictionary false\n"
+    "add /clusters#cluster/databases#database/tables#T columns B\n"
+    "set /clusters#cluster/databases#database/tables#T/columns#B index 1\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable true\n"
+    "set $PREV name \"B\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "set $PREV dictionary false\n"
+    "add /clusters#cluster/databases#database/tables#T columns C\n"
+    "set /clusters#cluster/databases#database/tables#T/columns#C index 2\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable true\n"
+    "set $PREV name \"C\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "set $PREV dictionary false\n"
+    "add /clusters#cluster/databases#database procedures testplanseegenerator\n"
+    "set /clusters#cluster/databases#database/procedures#testplanseegenerator classname \"\"\n"
+    "set $PREV readonly false\n"
+    "set $PREV singlepartition false\n"
+    "set $PREV everysite false\n"
+    "set $PREV systemproc false\n"
+    "set $PREV defaultproc false\n"
+    "set $PREV hasjava false\n"
+    "set $PREV hasseqscans false\n"
+    "set $PREV language \"\"\n"
+    "set $PREV partitiontable null\n"
+    "set $PREV partitioncolumn null\n"
+    "set $PREV partitionparameter 0\n"
+    "set $PREV allowedInShutdown false\n"
+    "",
+    2,
+    allTables
+};
+
+
+int main() {
+     return TestSuite::globalInstance()->runAll();
+}
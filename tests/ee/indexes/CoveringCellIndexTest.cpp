@@ -530,10 +530,10 @@ TEST_F(CoveringCellIndexTest, Simple) {
     tempTuple.setNValue(GEOG_COL_INDEX, polygonWktToNval("polygon((0 0, 5 0, 0 5, 0 0))"));
     table->insertTuple(tempTuple);
 
-    // This number is always 1440000, regardless of number of indexed
-    // polygons... suspicious.  Maybe it's only considering block
-    // allocations?
-    ASSERT_EQ(ccIndex->getMemoryEstimate(), 1440000);
+    // This number is always 4194228, regardless of number of indexed
+    // polygons, because it only counts the node blocks of the two
+    // maps, each of which fills a 2MB large page.
+    ASSERT_EQ(ccIndex->getMemoryEstimate(), 4194228);
 
     // The size of the index in terms of indexed polygons.
     ASSERT_EQ(ccIndex->getSize(), 3);
@@ -747,6 +747,180 @@ TEST_F(IndexTest, IntsMulti) {
     delete[] searchkey.address();
 }
 
+TEST_F(IndexTest, RadixTreeUnique) {
+    vector<int> column_indices;
+    vector<ValueType> column_types;
+    column_indices.push_back(4);
+    column_types.push_back(VALUE_TYPE_BIGINT);
+    init("rxu",
+         ADAPTIVE_RADIX_TREE_INDEX,
+         column_indices,
+         column_types,
+         true);
+
+    TableIndex* index = table->index("rxu");
+    EXPECT_TRUE(index != NULL);
+    EXPECT_EQ(std::string("AdaptiveRadixTreeIndex"), index->getTypeName());
+    EXPECT_EQ(NUM_OF_TUPLES, index->getSize());
+
+    IndexCursor indexCursor(index->getTupleSchema());
+    TableTuple tuple(table->schema());
+    vector<ValueType> keyColumnTypes(1, VALUE_TYPE_BIGINT);
+    vector<int32_t> keyColumnLengths(1, NValue::getTupleStorageSize(VALUE_TYPE_BIGINT));
+    vector<bool> keyColumnAllowNull(1, true);
+    TupleSchema* keySchema =
+        TupleSchema::createTupleSchemaForTest(keyColumnTypes,
+                                       keyColumnLengths,
+                                       keyColumnAllowNull);
+    TableTuple searchkey(keySchema);
+    searchkey.move(new char[searchkey.tupleLength()]);
+
+    // point lookup
+    searchkey.setNValue(0, ValueFactory::getBigIntValue(550));
+    EXPECT_TRUE(index->moveToKey(&searchkey, indexCursor));
+    tuple = index->nextValueAtKey(indexCursor);
+    EXPECT_FALSE(tuple.isNullTuple());
+    EXPECT_TRUE(ValueFactory::getBigIntValue(50).op_equals(tuple.getNValue(0)).isTrue());
+    EXPECT_TRUE(index->nextValueAtKey(indexCursor).isNullTuple());
+    EXPECT_TRUE(index->hasKey(&searchkey));
+
+    searchkey.setNValue(0, ValueFactory::getBigIntValue(551));
+    EXPECT_FALSE(index->moveToKey(&searchkey, indexCursor));
+    EXPECT_TRUE(index->nextValueAtKey(indexCursor).isNullTuple());
+    EXPECT_FALSE(index->hasKey(&searchkey));
+
+    // range scans
+    index->moveToKeyOrGreater(&searchkey, indexCursor);
+    tuple = index->nextValue(indexCursor);
+    EXPECT_TRUE(ValueFactory::getBigIntValue(51).op_equals(tuple.getNValue(0)).isTrue());
+    tuple = index->nextValue(indexCursor);
+    EXPECT_TRUE(ValueFactory::getBigIntValue(52).op_equals(tuple.getNValue(0)).isTrue());
+
+    searchkey.setNValue(0, ValueFactory::getBigIntValue(550));
+    EXPECT_FALSE(index->moveToGreaterThanKey(&searchkey, indexCursor));
+    tuple = index->nextValue(indexCursor);
+    EXPECT_TRUE(ValueFactory::getBigIntValue(51).op_equals(tuple.getNValue(0)).isTrue());
+
+    index->moveToLessThanKey(&searchkey, indexCursor);
+    tuple = index->nextValue(indexCursor);
+    EXPECT_TRUE(ValueFactory::getBigIntValue(49).op_equals(tuple.getNValue(0)).isTrue());
+    tuple = index->nextValue(indexCursor);
+    EXPECT_TRUE(ValueFactory::getBigIntValue(48).op_equals(tuple.getNValue(0)).isTrue());
+
+    // ordered iteration in both directions
+    index->moveToEnd(true, indexCursor);
+    int64_t expected = 1;
+    while ( ! (tuple = index->nextValue(indexCursor)).isNullTuple()) {
+        EXPECT_TRUE(ValueFactory::getBigIntValue(expected).op_equals(tuple.getNValue(0)).isTrue());
+        ++expected;
+    }
+    EXPECT_EQ(NUM_OF_TUPLES + 1, expected);
+    index->moveToEnd(false, indexCursor);
+    while ( ! (tuple = index->nextValue(indexCursor)).isNullTuple()) {
+        --expected;
+        EXPECT_TRUE(ValueFactory::getBigIntValue(expected).op_equals(tuple.getNValue(0)).isTrue());
+    }
+    EXPECT_EQ(1, expected);
+
+    // rank
+    searchkey.setNValue(0, ValueFactory::getBigIntValue(550));
+    EXPECT_EQ(50, index->getCounterGET(&searchkey, false, indexCursor));
+    EXPECT_EQ(50, index->getCounterLET(&searchkey, false, indexCursor));
+    searchkey.setNValue(0, ValueFactory::getBigIntValue(551));
+    EXPECT_EQ(51, index->getCounterGET(&searchkey, false, indexCursor));
+    EXPECT_EQ(50, index->getCounterLET(&searchkey, false, indexCursor));
+
+    // unique constraint
+    TableTuple &tmptuple = table->tempTuple();
+    tmptuple.setNValue(0, ValueFactory::getBigIntValue(5000));
+    tmptuple.setNValue(1, ValueFactory::getBigIntValue(0));
+    tmptuple.setNValue(2, ValueFactory::getBigIntValue(0));
+    tmptuple.setNValue(3, ValueFactory::getBigIntValue(0));
+    tmptuple.setNValue(4, ValueFactory::getBigIntValue(550));
+    bool exceptionThrown = false;
+    try
+    {
+        EXPECT_EQ(false, table->insertTuple(tmptuple));
+    }
+    catch (SerializableEEException &e)
+    {
+        exceptionThrown = true;
+    }
+    EXPECT_TRUE(exceptionThrown);
+    EXPECT_EQ(NUM_OF_TUPLES, index->getSize());
+
+    TupleSchema::freeTupleSchema(keySchema);
+    delete[] searchkey.address();
+}
+
+TEST_F(IndexTest, RadixTreeMulti) {
+    vector<int> column_indices;
+    vector<ValueType> column_types;
+    column_indices.push_back(2);
+    column_types.push_back(VALUE_TYPE_BIGINT);
+    init("rxm",
+         ADAPTIVE_RADIX_TREE_INDEX,
+         column_indices,
+         column_types,
+         false);
+
+    TableIndex* index = table->index("rxm");
+    EXPECT_TRUE(index != NULL);
+    EXPECT_EQ(NUM_OF_TUPLES, index->getSize());
+
+    IndexCursor indexCursor(index->getTupleSchema());
+    TableTuple tuple(table->schema());
+    vector<ValueType> keyColumnTypes(1, VALUE_TYPE_BIGINT);
+    vector<int32_t> keyColumnLengths(1, NValue::getTupleStorageSize(VALUE_TYPE_BIGINT));
+    vector<bool> keyColumnAllowNull(1, true);
+    TupleSchema* keySchema =
+        TupleSchema::createTupleSchemaForTest(keyColumnTypes,
+                                       keyColumnLengths,
+                                       keyColumnAllowNull);
+    TableTuple searchkey(keySchema);
+    searchkey.move(new char[searchkey.tupleLength()]);
+
+    // every tuple with column 2 == 1
+    searchkey.setNValue(0, ValueFactory::getBigIntValue(1));
+    EXPECT_TRUE(index->moveToKey(&searchkey, indexCursor));
+    int count = 0;
+    while ( ! (tuple = index->nextValueAtKey(indexCursor)).isNullTuple()) {
+        EXPECT_TRUE(ValueFactory::getBigIntValue(1).op_equals(tuple.getNValue(2)).isTrue());
+        ++count;
+    }
+    EXPECT_EQ(334, count);
+
+    // then the ones with column 2 == 2
+    EXPECT_TRUE(index->advanceToNextKey(indexCursor));
+    count = 0;
+    while ( ! (tuple = index->nextValueAtKey(indexCursor)).isNullTuple()) {
+        EXPECT_TRUE(ValueFactory::getBigIntValue(2).op_equals(tuple.getNValue(2)).isTrue());
+        ++count;
+    }
+    EXPECT_EQ(333, count);
+    EXPECT_FALSE(index->advanceToNextKey(indexCursor));
+
+    EXPECT_FALSE(index->moveToGreaterThanKey(&searchkey, indexCursor));
+    tuple = index->nextValue(indexCursor);
+    EXPECT_TRUE(ValueFactory::getBigIntValue(2).op_equals(tuple.getNValue(2)).isTrue());
+
+    // rank of the first and last entries with a key
+    EXPECT_EQ(334, index->getCounterGET(&searchkey, false, indexCursor));
+    EXPECT_EQ(667, index->getCounterGET(&searchkey, true, indexCursor));
+    EXPECT_EQ(667, index->getCounterLET(&searchkey, true, indexCursor));
+
+    // delete a tuple by its address
+    searchkey.setNValue(0, ValueFactory::getBigIntValue(0));
+    EXPECT_TRUE(index->moveToKey(&searchkey, indexCursor));
+    tuple = index->nextValueAtKey(indexCursor);
+    table->deleteTuple(tuple, true);
+    EXPECT_EQ(NUM_OF_TUPLES - 1, index->getSize());
+    EXPECT_EQ(332, index->getCounterLET(&searchkey, true, indexCursor));
+
+    TupleSchema::freeTupleSchema(keySchema);
+    delete[] searchkey.address();
+}
+
 TEST_F(IndexTest, TupleKeyUnique) {
 
     // make a tuple with the index key schema
@@ -1056,6 +1230,59 @@ TEST_F(IndexTest, ReentrantHashUnique) {
     delete[] searchkey.address();
 }
 
+TEST_F(IndexTest, OpenHashUnique) {
+    vector<int> ixm_column_indices;
+    vector<ValueType> ixm_column_types;
+    ixm_column_indices.push_back(4);
+    ixm_column_indices.push_back(2);
+    ixm_column_types.push_back(VALUE_TYPE_BIGINT);
+    ixm_column_types.push_back(VALUE_TYPE_BIGINT);
+    // The open-addressing table is only used for hash indexes named for it
+    init("ixh1_openhash",
+         HASH_TABLE_INDEX,
+         ixm_column_indices,
+         ixm_column_types,
+         true);
+
+    TableIndex* index = table->index("ixh1_openhash");
+    EXPECT_TRUE(index != NULL);
+    EXPECT_EQ(std::string("OpenAddressingHashUniqueIndex"), index->getTypeName());
+    IndexCursor indexCursor(index->getTupleSchema());
+
+    TableTuple tuple(table->schema());
+    vector<ValueType> keyColumnTypes(2, VALUE_TYPE_BIGINT);
+    vector<int32_t>keyColumnLengths(2, NValue::getTupleStorageSize(VALUE_TYPE_BIGINT));
+    vector<bool> keyColumnAllowNull(2, true);
+    TupleSchema* keySchema =
+        TupleSchema::createTupleSchemaForTest(keyColumnTypes,
+                                       keyColumnLengths,
+                                       keyColumnAllowNull);
+    TableTuple searchkey(keySchema);
+    searchkey.move(new char[searchkey.tupleLength()]);
+
+    searchkey.setNValue(0, ValueFactory::getBigIntValue(static_cast<int64_t>(550)));
+    searchkey.setNValue(1, ValueFactory::getBigIntValue(static_cast<int64_t>(2)));
+    EXPECT_TRUE(index->moveToKey(&searchkey, indexCursor));
+    tuple = index->nextValueAtKey(indexCursor);
+    EXPECT_FALSE(tuple.isNullTuple());
+    EXPECT_TRUE(ValueFactory::getBigIntValue(50).op_equals(tuple.getNValue(0)).isTrue());
+    EXPECT_TRUE(index->nextValueAtKey(indexCursor).isNullTuple());
+
+    // Every row can be found, and is gone once deleted
+    EXPECT_EQ(static_cast<size_t>(table->activeTupleCount()), index->getSize());
+    EXPECT_TRUE(index->exists(&tuple));
+    index->deleteEntry(&tuple);
+    EXPECT_FALSE(index->exists(&tuple));
+    EXPECT_FALSE(index->moveToKey(&searchkey, indexCursor));
+    EXPECT_EQ(static_cast<size_t>(table->activeTupleCount() - 1), index->getSize());
+
+    searchkey.setNValue(1, ValueFactory::getBigIntValue(static_cast<int64_t>(1)));
+    EXPECT_FALSE(index->moveToKey(&searchkey, indexCursor));
+
+    TupleSchema::freeTupleSchema(keySchema);
+    delete[] searchkey.address();
+}
+
 TEST_F(IndexTest, ReentrantHashMultiple) {
     vector<int> ixm_column_indices;
     vector<ValueType> ixm_column_types;
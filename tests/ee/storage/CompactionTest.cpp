@@ -370,6 +370,55 @@ TEST_F(CompactionTest, BasicCompaction) {
     ASSERT_EQ( m_table->activeTupleCount(), 0);
 }
 
+TEST_F(CompactionTest, BudgetedCompaction) {
+    initTable();
+#ifdef MEMCHECK
+    int tupleCount = 1000;
+#else
+    int tupleCount = 645260;
+#endif
+    addRandomUniqueTuples( m_table, tupleCount);
+
+    voltdb::TableIndex *pkeyIndex = m_table->primaryKeyIndex();
+    TableTuple key(pkeyIndex->getKeySchema());
+    boost::scoped_array<char> backingStore(new char[pkeyIndex->getKeySchema()->tupleLength()]);
+    key.moveNoHeader(backingStore.get());
+    IndexCursor indexCursor(pkeyIndex->getTupleSchema());
+
+    for (int ii = 0; ii < tupleCount; ii += 2) {
+        key.setNValue(0, ValueFactory::getIntegerValue(ii));
+        ASSERT_TRUE(pkeyIndex->moveToKey(&key, indexCursor));
+        TableTuple tuple = pkeyIndex->nextValueAtKey(indexCursor);
+        m_table->deleteTuple(tuple, true);
+    }
+    ASSERT_EQ(0, m_table->compactionReclaimedBytes());
+
+    // Compact in slices of 1ms until the table is dense enough,
+    // which ends with the same blocks as a forced compaction.
+    int slices = 1;
+    while (m_table->doBudgetedCompaction(1000)) {
+        slices++;
+        ASSERT_TRUE(slices < 10000);
+    }
+    ASSERT_FALSE(m_table->doBudgetedCompaction(1000));
+#ifdef MEMCHECK
+    ASSERT_EQ( m_table->m_data.size(), 500);
+#else
+    ASSERT_EQ( m_table->m_data.size(), 13);
+#endif
+    ASSERT_TRUE(m_table->compactionReclaimedBytes() > 0);
+    ASSERT_EQ(0, m_table->compactionReclaimedBytes() % m_table->getTableAllocationSize());
+    ASSERT_TRUE(m_table->maxCompactionPauseMicros() > 0);
+
+    ASSERT_EQ(tupleCount / 2, m_table->activeTupleCount());
+    for (int ii = 1; ii < tupleCount; ii += 2) {
+        key.setNValue(0, ValueFactory::getIntegerValue(ii));
+        ASSERT_TRUE(pkeyIndex->moveToKey(&key, indexCursor));
+        TableTuple tuple = pkeyIndex->nextValueAtKey(indexCursor);
+        ASSERT_EQ(ii, ValuePeeker::peekAsInteger(tuple.getNValue(0)));
+    }
+}
+
 TEST_F(CompactionTest, CompactionWithCopyOnWrite) {
     initTable();
 #ifdef MEMCHECK
@@ -0,0 +1,167 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2017 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+/*
+ * Sequential scans and index probes over a persistent table, whose tuple
+ * blocks and index nodes are allocated with and without the huge page and
+ * NUMA advice of LargePageAllocator.  Run it once with each setting, e.g.
+ *   LargePageTableBenchmark 10000000 5 1
+ *   LargePageTableBenchmark 10000000 5 0
+ */
+
+#include "harness.h"
+
+#include "common/LargePageAllocator.h"
+#include "common/TupleSchema.h"
+#include "common/ValueFactory.hpp"
+#include "common/ValuePeeker.hpp"
+#include "common/types.h"
+#include "execution/VoltDBEngine.h"
+#include "indexes/tableindex.h"
+#include "indexes/tableindexfactory.h"
+#include "storage/persistenttable.h"
+#include "storage/tablefactory.h"
+#include "storage/tableiterator.h"
+
+#include <algorithm>
+#include <cstdio>
+#include <cstdlib>
+#include <string>
+#include <sys/time.h>
+#include <vector>
+
+using namespace voltdb;
+
+static int64_t getMicrosNow() {
+    timeval tv;
+    gettimeofday(&tv, NULL);
+    return tv.tv_sec * 1000000 + tv.tv_usec;
+}
+
+static PersistentTable* createTable() {
+    std::vector<std::string> columnNames;
+    std::vector<ValueType> columnTypes;
+    std::vector<int32_t> columnLengths;
+    std::vector<bool> columnAllowNull;
+    // An integer key, and some filler so that a tuple is about a cache line.
+    for (int i = 0; i < 8; i++) {
+        char name[16];
+        snprintf(name, sizeof(name), "C%d", i);
+        columnNames.push_back(name);
+        columnTypes.push_back(VALUE_TYPE_BIGINT);
+        columnLengths.push_back(NValue::getTupleStorageSize(VALUE_TYPE_BIGINT));
+        columnAllowNull.push_back(false);
+    }
+    TupleSchema* schema = TupleSchema::createTupleSchemaForTest(columnTypes, columnLengths, columnAllowNull);
+
+    char signature[20] = {};
+    PersistentTable* table = dynamic_cast<PersistentTable*>(
+            TableFactory::getPersistentTable(0, "BENCH", schema, columnNames, signature));
+
+    std::vector<int> keyColumns(1, 0);
+    TableIndexScheme scheme("BENCH_PK", BALANCED_TREE_INDEX, keyColumns,
+                            TableIndex::simplyIndexColumns(), true, false, schema);
+    TableIndex* pkey = TableIndexFactory::getInstance(scheme);
+    table->addIndex(pkey);
+    table->setPrimaryKeyIndex(pkey);
+    return table;
+}
+
+static void run(int rows, int repeat) {
+    VoltDBEngine engine;
+    engine.initialize(1, 1, 0, 0, "", 0, 1024, DEFAULT_TEMP_TABLE_MEMORY, false);
+    int partitionCount = 1;
+    engine.updateHashinator(HASHINATOR_LEGACY, (char*)&partitionCount, NULL, 0);
+    engine.setUndoToken(0);
+
+    PersistentTable* table = createTable();
+
+    // Insert in a random key order, so that probes of neighbouring keys
+    // land on different pages.
+    std::vector<int64_t> keys(rows);
+    for (int i = 0; i < rows; i++) {
+        keys[i] = i;
+    }
+    srand(1);
+    for (int i = rows - 1; i > 0; i--) {
+        std::swap(keys[i], keys[rand() % (i + 1)]);
+    }
+    int64_t start = getMicrosNow();
+    TableTuple tuple = table->tempTuple();
+    for (int i = 0; i < rows; i++) {
+        for (int col = 0; col < 8; col++) {
+            tuple.setNValue(col, ValueFactory::getBigIntValue(keys[i] + col));
+        }
+        table->insertPersistentTuple(tuple, false);
+    }
+    printf("INSERT of %d rows took %ld microseconds\n", rows, (long)(getMicrosNow() - start));
+
+    int64_t sum = 0;
+    start = getMicrosNow();
+    for (int r = 0; r < repeat; r++) {
+        TableIterator iter = table->iterator();
+        TableTuple scanned(table->schema());
+        while (iter.next(scanned)) {
+            sum += ValuePeeker::peekBigInt(scanned.getNValue(1));
+        }
+    }
+    printf("SEQ SCAN took %ld microseconds per scan\n", (long)((getMicrosNow() - start) / repeat));
+
+    TableIndex* index = table->primaryKeyIndex();
+    TableTuple searchKey(index->getKeySchema());
+    searchKey.move(new char[searchKey.tupleLength()]);
+    IndexCursor cursor(index->getTupleSchema());
+    std::vector<int64_t> probes(keys);
+    for (int i = rows - 1; i > 0; i--) {
+        std::swap(probes[i], probes[rand() % (i + 1)]);
+    }
+    start = getMicrosNow();
+    for (int r = 0; r < repeat; r++) {
+        for (int i = 0; i < rows; i++) {
+            searchKey.setNValue(0, ValueFactory::getBigIntValue(probes[i]));
+            if (index->moveToKey(&searchKey, cursor)) {
+                sum += ValuePeeker::peekBigInt(index->nextValueAtKey(cursor).getNValue(1));
+            }
+        }
+    }
+    printf("INDEX PROBE took %ld nanoseconds per probe (checksum %ld)\n",
+           (long)((getMicrosNow() - start) * 1000 / ((int64_t)repeat * rows)), (long)sum);
+    delete[] searchKey.address();
+
+    table->decrementRefcount();
+}
+
+int main(int argc, char* argv[]) {
+    if (argc < 4) {
+        printf("To run a benchmark, execute %s with command line arguments "
+               "(rows<int>, repeat<int>, largePages<0, 1>)\n", argv[0]);
+        return 0;
+    }
+    int rows = std::atoi(argv[1]);
+    int repeat = std::max(1, std::atoi(argv[2]));
+    bool useLargePages = std::atoi(argv[3]) != 0;
+    LargePageAllocator::setAdviceEnabled(useLargePages);
+    printf("rows = %d, repeat = %d, largePages = %s\n", rows, repeat, useLargePages ? "enabled" : "disabled");
+    run(rows, repeat);
+    return 0;
+}
@@ -23,7 +23,10 @@
 
 #include "harness.h"
 
+#include "common/SharedStringDictionary.h"
+#include "common/ThreadLocalPool.h"
 #include "common/TupleSchema.h"
+#include "common/TupleSchemaBuilder.h"
 #include "common/types.h"
 #include "common/ValueFactory.hpp"
 #include "execution/VoltDBEngine.h"
@@ -32,6 +35,7 @@
 #include "storage/DRTupleStream.h"
 #include "storage/persistenttable.h"
 #include "storage/tablefactory.h"
+#include "storage/tableiterator.h"
 #include "storage/tableutil.h"
 
 #include <boost/foreach.hpp>
@@ -343,6 +347,62 @@ TEST_F(PersistentTableMemStatsTest, DeleteAndUndoTest) {
     //delete [] tuple.address();
 }
 
+TEST_F(PersistentTableMemStatsTest, DictionaryColumnTest) {
+    // Column 1 shares its values, column 2 does not.
+    TupleSchemaBuilder builder(3);
+    builder.setColumnAtIndex(0, VALUE_TYPE_TINYINT);
+    builder.setColumnAtIndex(1, VALUE_TYPE_VARCHAR, 300);
+    builder.setColumnAtIndex(2, VALUE_TYPE_VARCHAR, 100);
+    builder.setColumnDictionaryAtIndex(1);
+    m_tableSchema = builder.build();
+    m_table = dynamic_cast<PersistentTable*>(
+        TableFactory::getPersistentTable(0, "Foo", m_tableSchema, m_columnNames, signature));
+    ASSERT_EQ(0, m_table->nonInlinedMemorySize());
+
+    m_engine->setUndoToken(INT64_MIN + 2);
+    m_engine->updateExecutorContextUndoQuantumForTest();
+
+    NValue shared = ValueFactory::getStringValue("a value that all of the rows have in common");
+    NValue unshared = ValueFactory::getStringValue("a value that every row has a copy of");
+    TableTuple tempTuple = m_table->tempTuple();
+    for (int i = 0; i < 3; ++i) {
+        tempTuple.setNValue(0, ValueFactory::getTinyIntValue(static_cast<int8_t>(i)));
+        tempTuple.setNValue(1, shared);
+        tempTuple.setNValue(2, unshared);
+        m_table->insertTuple(tempTuple);
+    }
+    m_engine->releaseUndoToken(INT64_MIN + 2);
+    ASSERT_EQ(1, ThreadLocalPool::getSharedStringDictionary().size());
+
+    // The shared value is counted once, the other one for each row.
+    TableTuple tuple(m_tableSchema);
+    TableIterator iter = m_table->iterator();
+    ASSERT_TRUE(iter.next(tuple));
+    const StringRef* sref = tuple.getNValue(1).getSharedObject();
+    ASSERT_TRUE(sref != NULL);
+    ASSERT_TRUE(tuple.getNValue(2).getSharedObject() == NULL);
+    int64_t sharedBytes = sref->getAllocatedSize();
+    int64_t unsharedBytes = tuple.getNValue(2).getAllocationSizeForObject();
+    ASSERT_EQ(sharedBytes + 3 * unsharedBytes, m_table->nonInlinedMemorySize());
+
+    // Deleting a row only frees the shared value along with its last row.
+    m_engine->setUndoToken(INT64_MIN + 3);
+    m_engine->updateExecutorContextUndoQuantumForTest();
+    m_table->deleteTuple(tuple, true);
+    m_engine->releaseUndoToken(INT64_MIN + 3);
+    ASSERT_EQ(sharedBytes + 2 * unsharedBytes, m_table->nonInlinedMemorySize());
+
+    m_engine->setUndoToken(INT64_MIN + 4);
+    m_engine->updateExecutorContextUndoQuantumForTest();
+    m_table->deleteAllTuples(true);
+    m_engine->releaseUndoToken(INT64_MIN + 4);
+    ASSERT_EQ(0, m_table->nonInlinedMemorySize());
+    ASSERT_EQ(0, ThreadLocalPool::getSharedStringDictionary().size());
+
+    shared.free();
+    unshared.free();
+}
+
 int main() {
     return TestSuite::globalInstance()->runAll();
 }
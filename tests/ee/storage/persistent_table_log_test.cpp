@@ -288,6 +288,135 @@ TEST_F(PersistentTableLogTest, LoadTableThenReleaseTest) {
     ASSERT_TRUE(m_table->activeTupleCount() == (int64_t)1000);
 }
 
+TEST_F(PersistentTableLogTest, LoadTableWithSecondaryIndexThenUndoTest) {
+    initTable();
+    std::vector<int> secondaryColumns(1, 2);
+    voltdb::TableIndexScheme secondaryScheme("secondaryIndex",
+                                             BALANCED_TREE_INDEX,
+                                             secondaryColumns,
+                                             TableIndex::simplyIndexColumns(),
+                                             false, false, m_tableSchema);
+    TableIndex *secondaryIndex = TableIndexFactory::getInstance(secondaryScheme);
+    m_table->addIndex(secondaryIndex);
+    tableutil::addRandomTuples(m_table, 100);
+
+    CopySerializeOutput serialize_out;
+    m_table->serializeTo(serialize_out);
+
+    m_engine->setUndoToken(INT64_MIN + 2);
+    // this next line is a testing hack until engine data is
+    // de-duplicated with executorcontext data
+    m_engine->updateExecutorContextUndoQuantumForTest();
+
+    // Loading the same rows again rejects every one of them on the primary key.
+    std::vector<char> violationBuffer(1024 * 1024);
+    ReferenceSerializeOutput violations(&violationBuffer[0], violationBuffer.size());
+    ReferenceSerializeInputBE serialize_in(serialize_out.data() + sizeof(int32_t), serialize_out.size() - sizeof(int32_t));
+    m_table->loadTuplesFrom(serialize_in, NULL, &violations);
+
+    ReferenceSerializeInputBE violations_in(violations.data(), violations.size());
+    ASSERT_TRUE(violations_in.readInt() > 0);
+    ASSERT_EQ(100, m_table->activeTupleCount());
+    ASSERT_EQ(100, m_table->primaryKeyIndex()->getSize());
+    ASSERT_EQ(100, secondaryIndex->getSize());
+
+    // Once the table is emptied the rows reload into an empty secondary
+    // index, which is built bottom-up from the sorted batch.
+    voltdb::TableTuple tuple(m_tableSchema);
+    tableutil::getRandomTuple(m_table, tuple);
+    voltdb::TableTuple tupleBackup(m_tableSchema);
+    tupleBackup.move(new char[tupleBackup.tupleLength()]);
+    tupleBackup.copyForPersistentInsert(tuple);
+    StackCleaner cleaner(tupleBackup);
+
+    m_table->deleteAllTuples(true);
+    m_engine->releaseUndoToken(INT64_MIN + 2);
+    ASSERT_EQ(0, secondaryIndex->getSize());
+
+    m_engine->setUndoToken(INT64_MIN + 3);
+    m_engine->updateExecutorContextUndoQuantumForTest();
+    ReferenceSerializeInputBE reload_in(serialize_out.data() + sizeof(int32_t), serialize_out.size() - sizeof(int32_t));
+    m_table->loadTuplesFrom(reload_in, NULL, NULL);
+    ASSERT_EQ(100, m_table->activeTupleCount());
+    ASSERT_EQ(100, secondaryIndex->getSize());
+    ASSERT_FALSE(m_table->lookupTupleForUndo(tupleBackup).isNullTuple());
+
+    m_engine->undoUndoToken(INT64_MIN + 3);
+
+    ASSERT_TRUE(m_table->lookupTupleForUndo(tupleBackup).isNullTuple());
+    ASSERT_EQ(0, m_table->activeTupleCount());
+    ASSERT_EQ(0, m_table->primaryKeyIndex()->getSize());
+    ASSERT_EQ(0, secondaryIndex->getSize());
+}
+
+TEST_F(PersistentTableLogTest, LoadTableIntoPopulatedSecondaryIndexThenUndoTest) {
+    initTable();
+    std::vector<int> secondaryColumns(1, 2);
+    voltdb::TableIndexScheme secondaryScheme("secondaryIndex",
+                                             BALANCED_TREE_INDEX,
+                                             secondaryColumns,
+                                             TableIndex::simplyIndexColumns(),
+                                             false, false, m_tableSchema);
+    TableIndex *secondaryIndex = TableIndexFactory::getInstance(secondaryScheme);
+    m_table->addIndex(secondaryIndex);
+
+    // Keep a batch of rows to load, then fill the table with other rows.
+    tableutil::addRandomTuples(m_table, 500);
+    CopySerializeOutput serialize_out;
+    m_table->serializeTo(serialize_out);
+    m_engine->setUndoToken(INT64_MIN + 2);
+    m_engine->updateExecutorContextUndoQuantumForTest();
+    m_table->deleteAllTuples(true);
+    m_engine->releaseUndoToken(INT64_MIN + 2);
+    tableutil::addRandomTuples(m_table, 1000);
+    ASSERT_EQ(1000, secondaryIndex->getSize());
+
+    // The batch is merged into the secondary index that already holds rows.
+    m_engine->setUndoToken(INT64_MIN + 3);
+    m_engine->updateExecutorContextUndoQuantumForTest();
+    std::vector<char> violationBuffer(1024 * 1024);
+    ReferenceSerializeOutput violations(&violationBuffer[0], violationBuffer.size());
+    ReferenceSerializeInputBE serialize_in(serialize_out.data() + sizeof(int32_t), serialize_out.size() - sizeof(int32_t));
+    m_table->loadTuplesFrom(serialize_in, NULL, &violations);
+
+    int64_t loadedCount = m_table->activeTupleCount();
+    ASSERT_TRUE(loadedCount > 1000);
+    ASSERT_EQ(loadedCount, m_table->primaryKeyIndex()->getSize());
+    ASSERT_EQ(loadedCount, secondaryIndex->getSize());
+
+    voltdb::TableTuple tuple(m_tableSchema);
+    TableIterator iterator = m_table->iterator();
+    while (iterator.next(tuple)) {
+        ASSERT_TRUE(secondaryIndex->exists(&tuple));
+    }
+
+    IndexCursor cursor(secondaryIndex->getTupleSchema());
+    secondaryIndex->moveToEnd(true, cursor);
+    int64_t scannedCount = 0;
+    NValue previous = NValue::getNullValue(VALUE_TYPE_INTEGER);
+    for (TableTuple indexed = secondaryIndex->nextValue(cursor);
+         ! indexed.isNullTuple();
+         indexed = secondaryIndex->nextValue(cursor)) {
+        NValue current = indexed.getNValue(2);
+        if (scannedCount > 0) {
+            ASSERT_TRUE(previous.compare(current) <= 0);
+        }
+        previous = current;
+        ++scannedCount;
+    }
+    ASSERT_EQ(loadedCount, scannedCount);
+
+    m_engine->undoUndoToken(INT64_MIN + 3);
+
+    ASSERT_EQ(1000, m_table->activeTupleCount());
+    ASSERT_EQ(1000, m_table->primaryKeyIndex()->getSize());
+    ASSERT_EQ(1000, secondaryIndex->getSize());
+    iterator = m_table->iterator();
+    while (iterator.next(tuple)) {
+        ASSERT_TRUE(secondaryIndex->exists(&tuple));
+    }
+}
+
 TEST_F(PersistentTableLogTest, InsertUpdateThenUndoOneTest) {
     initTable();
     tableutil::addRandomTuples(m_table, 1);
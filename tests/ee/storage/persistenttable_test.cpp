@@ -219,6 +219,104 @@ protected:
         return payload;
     }
 
+    // S expires rows through the index on TS, U has no such index.
+    static const std::string& ttlCatalogPayload() {
+        static const std::string payload(
+            "add / clusters cluster\n"
+            "set /clusters#cluster localepoch 1199145600\n"
+            "add /clusters#cluster databases database\n"
+            "set /clusters#cluster/databases#database schema \"eJwDAAAAAAE=\"\n"
+            "add /clusters#cluster/databases#database tables S\n"
+            "set /clusters#cluster/databases#database/tables#S isreplicated true\n"
+            "set $PREV partitioncolumn null\n"
+            "set $PREV estimatedtuplecount 0\n"
+            "set $PREV materializer null\n"
+            "set $PREV signature \"S|bp\"\n"
+            "set $PREV tuplelimit 2147483647\n"
+            "set $PREV isDRed false\n"
+            "set $PREV ttlseconds 60\n"
+            "set $PREV ttlbatchsize 2\n"
+            "add /clusters#cluster/databases#database/tables#S columns PK\n"
+            "set /clusters#cluster/databases#database/tables#S/columns#PK index 0\n"
+            "set $PREV type 6\n"
+            "set $PREV size 8\n"
+            "set $PREV nullable false\n"
+            "set $PREV name \"PK\"\n"
+            "set $PREV defaultvalue null\n"
+            "set $PREV defaulttype 0\n"
+            "set $PREV matview null\n"
+            "set $PREV aggregatetype 0\n"
+            "set $PREV matviewsource null\n"
+            "set $PREV inbytes false\n"
+            "add /clusters#cluster/databases#database/tables#S columns TS\n"
+            "set /clusters#cluster/databases#database/tables#S/columns#TS index 1\n"
+            "set $PREV type 11\n"
+            "set $PREV size 8\n"
+            "set $PREV nullable true\n"
+            "set $PREV name \"TS\"\n"
+            "set $PREV defaultvalue null\n"
+            "set $PREV defaulttype 0\n"
+            "set $PREV matview null\n"
+            "set $PREV aggregatetype 0\n"
+            "set $PREV matviewsource null\n"
+            "set $PREV inbytes false\n"
+            "set /clusters#cluster/databases#database/tables#S ttlcolumn /clusters#cluster/databases#database/tables#S/columns#TS\n"
+            "add /clusters#cluster/databases#database/tables#S indexes IDX_S_TS\n"
+            "set /clusters#cluster/databases#database/tables#S/indexes#IDX_S_TS unique false\n"
+            "set $PREV assumeUnique false\n"
+            "set $PREV countable true\n"
+            "set $PREV type 1\n"
+            "set $PREV expressionsjson \"\"\n"
+            "set $PREV predicatejson \"\"\n"
+            "add /clusters#cluster/databases#database/tables#S/indexes#IDX_S_TS columns TS\n"
+            "set /clusters#cluster/databases#database/tables#S/indexes#IDX_S_TS/columns#TS index 0\n"
+            "set $PREV column /clusters#cluster/databases#database/tables#S/columns#TS\n"
+            "add /clusters#cluster/databases#database tables U\n"
+            "set /clusters#cluster/databases#database/tables#U isreplicated true\n"
+            "set $PREV partitioncolumn null\n"
+            "set $PREV estimatedtuplecount 0\n"
+            "set $PREV materializer null\n"
+            "set $PREV signature \"U|bp\"\n"
+            "set $PREV tuplelimit 2147483647\n"
+            "set $PREV isDRed false\n"
+            "set $PREV ttlseconds 60\n"
+            "set $PREV ttlbatchsize 2\n"
+            "add /clusters#cluster/databases#database/tables#U columns PK\n"
+            "set /clusters#cluster/databases#database/tables#U/columns#PK index 0\n"
+            "set $PREV type 6\n"
+            "set $PREV size 8\n"
+            "set $PREV nullable false\n"
+            "set $PREV name \"PK\"\n"
+            "set $PREV defaultvalue null\n"
+            "set $PREV defaulttype 0\n"
+            "set $PREV matview null\n"
+            "set $PREV aggregatetype 0\n"
+            "set $PREV matviewsource null\n"
+            "set $PREV inbytes false\n"
+            "add /clusters#cluster/databases#database/tables#U columns TS\n"
+            "set /clusters#cluster/databases#database/tables#U/columns#TS index 1\n"
+            "set $PREV type 11\n"
+            "set $PREV size 8\n"
+            "set $PREV nullable true\n"
+            "set $PREV name \"TS\"\n"
+            "set $PREV defaultvalue null\n"
+            "set $PREV defaulttype 0\n"
+            "set $PREV matview null\n"
+            "set $PREV aggregatetype 0\n"
+            "set $PREV matviewsource null\n"
+            "set $PREV inbytes false\n"
+            "set /clusters#cluster/databases#database/tables#U ttlcolumn /clusters#cluster/databases#database/tables#U/columns#TS\n"
+            "");
+        return payload;
+    }
+
+    void insertTimestampedTuple(PersistentTable* table, int64_t pk, NValue timestamp) {
+        TableTuple &tuple = table->tempTuple();
+        tuple.setNValue(0, ValueFactory::getBigIntValue(pk));
+        tuple.setNValue(1, timestamp);
+        table->insertTuple(tuple);
+    }
+
     void validateCounts(size_t nIndexes, PersistentTable* table, PersistentTable* dupTable,
                         size_t nTuples, size_t nDupTuples) {
         validateCounts(table, nTuples, nIndexes);
@@ -785,6 +883,101 @@ TEST_F(PersistentTableTest, SwapTablesTest) {
     rollback();
 }
 
+/*
+ * Rows whose timestamp is more than the time to live old are deleted at most
+ * a batch at a time, oldest first, and rows with a NULL timestamp never expire.
+ */
+TEST_F(PersistentTableTest, ExpireRowsTest) {
+    VoltDBEngine* engine = getEngine();
+    engine->loadCatalog(0, ttlCatalogPayload());
+    const int64_t ttlMicros = 60 * 1000000LL;
+    PersistentTable *table = dynamic_cast<PersistentTable*>(engine->getTableByName("S"));
+    ASSERT_NE(NULL, table);
+    ASSERT_TRUE(table->hasTimeToLive());
+
+    beginWork();
+    insertTimestampedTuple(table, 6, NValue::getNullValue(voltdb::VALUE_TYPE_TIMESTAMP));
+    for (int i = 1; i <= 5; ++i) {
+        insertTimestampedTuple(table, i, ValueFactory::getTimestampValue(i * 1000));
+    }
+    commit();
+
+    // Rows 1 to 3 are expired, but only a batch of 2 goes at once.
+    beginWork();
+    ASSERT_EQ(2, table->expireRows(ttlMicros + 3500));
+    commit();
+    ASSERT_EQ(4, table->activeTupleCount());
+    ASSERT_EQ(2, table->ttlRowsExpired());
+    ASSERT_EQ(1, table->ttlBacklog());
+
+    // A rolled back batch puts the rows back.
+    beginWork();
+    ASSERT_EQ(2, table->expireRows(ttlMicros + 10000));
+    rollback();
+    ASSERT_EQ(4, table->activeTupleCount());
+
+    beginWork();
+    ASSERT_EQ(2, table->expireRows(ttlMicros + 10000));
+    ASSERT_EQ(1, table->ttlBacklog());
+    ASSERT_EQ(1, table->expireRows(ttlMicros + 10000));
+    ASSERT_EQ(0, table->ttlBacklog());
+    ASSERT_EQ(0, table->expireRows(ttlMicros + 10000));
+    commit();
+
+    // Only the row with a NULL timestamp is left.
+    ASSERT_EQ(1, table->activeTupleCount());
+}
+
+/*
+ * The backlog counts the expired rows left after a batch up to the batch
+ * size, so a batch never looks at more than two batches of rows.
+ */
+TEST_F(PersistentTableTest, ExpireRowsBacklogIsCappedTest) {
+    VoltDBEngine* engine = getEngine();
+    engine->loadCatalog(0, ttlCatalogPayload());
+    const int64_t ttlMicros = 60 * 1000000LL;
+    PersistentTable *table = dynamic_cast<PersistentTable*>(engine->getTableByName("S"));
+    ASSERT_NE(NULL, table);
+
+    beginWork();
+    for (int i = 1; i <= 10; ++i) {
+        insertTimestampedTuple(table, i, ValueFactory::getTimestampValue(i * 1000));
+    }
+    commit();
+
+    beginWork();
+    ASSERT_EQ(2, table->expireRows(ttlMicros + 20000));
+    ASSERT_EQ(2, table->ttlBacklog());
+    ASSERT_EQ(2, table->expireRows(ttlMicros + 7500));
+    ASSERT_EQ(2, table->ttlBacklog());
+    ASSERT_EQ(2, table->expireRows(ttlMicros + 7500));
+    ASSERT_EQ(1, table->ttlBacklog());
+    commit();
+    ASSERT_EQ(4, table->activeTupleCount());
+}
+
+/*
+ * A table without an ordered index led by its TTL column is never scanned
+ * for expired rows.
+ */
+TEST_F(PersistentTableTest, ExpireRowsWithoutIndexTest) {
+    VoltDBEngine* engine = getEngine();
+    engine->loadCatalog(0, ttlCatalogPayload());
+    const int64_t ttlMicros = 60 * 1000000LL;
+    PersistentTable *table = dynamic_cast<PersistentTable*>(engine->getTableByName("U"));
+    ASSERT_NE(NULL, table);
+    ASSERT_TRUE(table->hasTimeToLive());
+
+    beginWork();
+    for (int i = 1; i <= 5; ++i) {
+        insertTimestampedTuple(table, i, ValueFactory::getTimestampValue(i * 1000));
+    }
+    ASSERT_EQ(0, table->expireRows(ttlMicros + 10000));
+    commit();
+    ASSERT_EQ(5, table->activeTupleCount());
+    ASSERT_EQ(0, table->ttlBacklog());
+}
+
 int main() {
     return TestSuite::globalInstance()->runAll();
 }
@@ -31,6 +31,7 @@
 #include <boost/unordered_map.hpp>
 #include "harness.h"
 #include "structures/CompactingHashTable.h"
+#include "structures/OpenAddressingHashTable.h"
 #include "common/FixUnusedAssertHack.h"
 
 using namespace voltdb;
@@ -275,6 +276,76 @@ TEST_F(CompactingHashTest, ShrinkAndGrowUnique) {
     volt.verify();
 }
 
+TEST_F(CompactingHashTest, OpenAddressingShrinkAndGrow) {
+    const int ITERATIONS = 10000;
+
+    voltdb::OpenAddressingHashTable<uint64_t,uint64_t> volt;
+    size_t emptyBytes = volt.bytesAllocated();
+
+    for (uint64_t i = 0; i < ITERATIONS; i++)
+        ASSERT_TRUE(volt.insert(i, i) == NULL);
+    for (uint64_t i = 0; i < ITERATIONS; i++) {
+        const uint64_t *conflict = volt.insert(i, i + 1);
+        ASSERT_TRUE(conflict != NULL);
+        ASSERT_EQ(i, *conflict);
+    }
+
+    ASSERT_TRUE(volt.verify());
+    ASSERT_EQ(ITERATIONS, volt.size());
+    ASSERT_TRUE(volt.bytesAllocated() > emptyBytes);
+
+    for (uint64_t i = 0; i < ITERATIONS; i += 2)
+        ASSERT_TRUE(volt.erase(i));
+    ASSERT_TRUE(volt.verify());
+    for (uint64_t i = 0; i < ITERATIONS; i++) {
+        uint64_t *value = volt.find(i);
+        ASSERT_EQ(i % 2 == 1, value != NULL);
+        if (value != NULL) {
+            ASSERT_EQ(i, *value);
+        }
+    }
+
+    // Removing all of the entries gives the memory back.
+    for (uint64_t i = 1; i < ITERATIONS; i += 2)
+        ASSERT_TRUE(volt.erase(i));
+    ASSERT_FALSE(volt.erase(1));
+    ASSERT_TRUE(volt.verify());
+    ASSERT_EQ(0, volt.size());
+    ASSERT_EQ(emptyBytes, volt.bytesAllocated());
+}
+
+TEST_F(CompactingHashTest, OpenAddressingFuzz) {
+    voltdb::OpenAddressingHashTable<int64_t,int64_t> volt;
+    boost::unordered_map<int64_t,int64_t> boost;
+
+    for (int i = 0; i < 100000; i++) {
+        int64_t key = randomValue(5000);
+        switch (rand() % 3) {
+        case 0: {
+            bool present = boost.find(key) != boost.end();
+            ASSERT_EQ(present, volt.insert(key, key * 3) != NULL);
+            if ( ! present) {
+                boost[key] = key * 3;
+            }
+            break;
+        }
+        case 1:
+            ASSERT_EQ(boost.erase(key) == 1, volt.erase(key));
+            break;
+        default: {
+            int64_t *value = volt.find(key);
+            boost::unordered_map<int64_t,int64_t>::iterator iter = boost.find(key);
+            ASSERT_EQ(iter != boost.end(), value != NULL);
+            if (value != NULL) {
+                ASSERT_EQ(iter->second, *value);
+            }
+        }
+        }
+        ASSERT_EQ(boost.size(), volt.size());
+    }
+    ASSERT_TRUE(volt.verify());
+}
+
 TEST_F(CompactingHashTest, ShrinkAndGrowMulti) {
     const int ITERATIONS = 10000;
 
@@ -31,8 +31,11 @@
 #include "boost/unordered_map.hpp"
 
 #include "harness.h"
+#include "common/LargePageAllocator.h"
 #include "structures/CompactingMap.h"
 #include "structures/CompactingHashTable.h"
+#include "structures/AdaptiveRadixTree.h"
+#include "structures/OpenAddressingHashTable.h"
 
 using namespace voltdb;
 using namespace std;
@@ -62,7 +65,7 @@ int64_t getMicrosNow () {
 }
 #define PRINT_FREQUENCY 100
 #define WARM_UP 50
-#define MAXSCALE 10000000
+#define MAXSCALE 100000000
 
 int VEC[MAXSCALE] = {};
 
@@ -79,6 +82,8 @@ int* getRandomValues(int size, int max) {
 #define VoltHash 2
 #define STLMap 3
 #define BoostUnorderedMap 4
+#define VoltRadix 5
+#define VoltOpenHash 6
 std::string mapCategoryToString(int mapCategory) {
     switch(mapCategory) {
     case VoltMap:
@@ -89,11 +94,27 @@ std::string mapCategoryToString(int mapCategory) {
         return "STLMap";
     case BoostUnorderedMap:
         return "BoostUnorderedMap";
+    case VoltRadix:
+        return "VoltRadix";
+    case VoltOpenHash:
+        return "VoltOpenHash";
     default:
         return "invalid";
     }
 }
 
+// Radix tree keys are the big-endian bytes of the value with its sign bit
+// flipped, so that they compare like the signed values.
+typedef voltdb::AdaptiveRadixTree<sizeof(int)> RadixTree;
+inline const uint8_t* radixKey(int val, uint8_t* key) {
+    uint32_t bits = static_cast<uint32_t>(val) ^ 0x80000000U;
+    key[0] = static_cast<uint8_t>(bits >> 24);
+    key[1] = static_cast<uint8_t>(bits >> 16);
+    key[2] = static_cast<uint8_t>(bits >> 8);
+    key[3] = static_cast<uint8_t>(bits);
+    return key;
+}
+
 class BenchmarkRecorder {
 public:
     BenchmarkRecorder(int mapCategory) {
@@ -135,7 +156,8 @@ private:
 
 void resultPrinter(std::string name, int scale,
         BenchmarkRecorder benVoltMap, BenchmarkRecorder benStl,
-        BenchmarkRecorder benBoost, BenchmarkRecorder benVoltHash) {
+        BenchmarkRecorder benBoost, BenchmarkRecorder benVoltHash,
+        BenchmarkRecorder benVoltRadix, BenchmarkRecorder benVoltOpenHash) {
     std::cout << "Benchmark: " << name << ", scale size " << scale << "\n";
 
     std::vector<BenchmarkRecorder> result;
@@ -143,6 +165,8 @@ void resultPrinter(std::string name, int scale,
     result.push_back(benStl);
     result.push_back(benBoost);
     result.push_back(benVoltHash);
+    result.push_back(benVoltRadix);
+    result.push_back(benVoltOpenHash);
 
     for (int i = 0; i < result.size(); i++) {
         BenchmarkRecorder ben = result[i];
@@ -168,7 +192,9 @@ void BenchmarkRun(
         bool runVoltMap,
         bool runStlMap,
         bool runBoostMap,
-        bool runVoltHash) {
+        bool runVoltHash,
+        bool runVoltRadix,
+        bool runVoltOpenHash) {
     int BIGGEST_VAL = DATA_SCALE;
     int ITERATIONS = DATA_SCALE / 10; // for 10% LOOK UP and DELETE
 
@@ -185,6 +211,8 @@ void BenchmarkRun(
             "runStlMap = %s\n"
             "runBoostMap = %s\n"
             "runVoltHash = %s\n"
+            "runVoltRadix = %s\n"
+            "runVoltOpenHash = %s\n"
             "=============\n",
             DATA_SCALE,
             SLEEP_IN_SECONDS,
@@ -196,7 +224,9 @@ void BenchmarkRun(
             interpret(runVoltMap),
             interpret(runStlMap),
             interpret(runBoostMap),
-            interpret(runVoltHash)
+            interpret(runVoltHash),
+            interpret(runVoltRadix),
+            interpret(runVoltOpenHash)
     );
 
     string str;
@@ -209,12 +239,19 @@ void BenchmarkRun(
 
     boost::unordered_multimap<int, int> boostMap;
     voltdb::CompactingHashTable<int,int> voltHash(false);
+    // ordered like the tree map, but with unique keys
+    RadixTree voltRadix;
+    uint8_t radixKeyBytes[sizeof(int)];
+    // unique keys, like the radix tree
+    voltdb::OpenAddressingHashTable<int,int> voltOpenHash;
 
     // Iterators
     voltdb::CompactingMap<NormalKeyValuePair<int, int>, IntComparator, false>::iterator iter_volt_map;
     std::multimap<int, int>::const_iterator iter_stl;
     boost::unordered_multimap<int,int>::iterator iter_boost_map;
     voltdb::CompactingHashTable<int,int>::iterator iter_volt_hash;
+    RadixTree::Leaf* iter_volt_radix;
+    int* iter_volt_open_hash;
 
     //
     // INSERT the data
@@ -223,7 +260,8 @@ void BenchmarkRun(
     sleep(SLEEP_IN_SECONDS);
 
     {
-        BenchmarkRecorder benVoltMap(VoltMap), benStl(STLMap), benBoost(BoostUnorderedMap), benVoltHash(VoltHash);
+        BenchmarkRecorder benVoltMap(VoltMap), benStl(STLMap), benBoost(BoostUnorderedMap), benVoltHash(VoltHash),
+                benVoltRadix(VoltRadix), benVoltOpenHash(VoltOpenHash);
         if (runVoltMap) {
             benVoltMap.start();
             for (int i = 0; i < DATA_SCALE; i++) {
@@ -260,14 +298,33 @@ void BenchmarkRun(
             benVoltHash.stop();
         }
 
-        resultPrinter("INSERT", DATA_SCALE, benVoltMap, benStl, benBoost, benVoltHash);
+        if (runVoltRadix) {
+            benVoltRadix.start();
+            for (int i = 0; i < DATA_SCALE; i++) {
+                int val = input[i];
+                voltRadix.insert(radixKey(val, radixKeyBytes), &input[i]);
+            }
+            benVoltRadix.stop();
+        }
+
+        if (runVoltOpenHash) {
+            benVoltOpenHash.start();
+            for (int i = 0; i < DATA_SCALE; i++) {
+                int val = input[i];
+                voltOpenHash.insert(val, val);
+            }
+            benVoltOpenHash.stop();
+        }
+
+        resultPrinter("INSERT", DATA_SCALE, benVoltMap, benStl, benBoost, benVoltHash, benVoltRadix, benVoltOpenHash);
     }
 
     //
     // SCAN
     //
     if (runScan) {
-        BenchmarkRecorder benVoltMap(VoltMap), benStl(STLMap), benBoost(BoostUnorderedMap), benVoltHash(VoltHash);
+        BenchmarkRecorder benVoltMap(VoltMap), benStl(STLMap), benBoost(BoostUnorderedMap), benVoltHash(VoltHash),
+                benVoltRadix(VoltRadix), benVoltOpenHash(VoltOpenHash);
 
         printf("Preparing to run SCAN benchmark in %d seconds...\n", SLEEP_IN_SECONDS);
         sleep(SLEEP_IN_SECONDS);
@@ -280,6 +337,7 @@ void BenchmarkRun(
             if (i == WARM_UP) {
                 benVoltMap.reset();
                 benStl.reset();
+                benVoltRadix.reset();
                 printf("Finish warm up...\n");
             }
 
@@ -300,15 +358,25 @@ void BenchmarkRun(
                 }
                 benStl.stop();
             }
+
+            if (runVoltRadix) {
+                iter_volt_radix = voltRadix.first();
+                benVoltRadix.start();
+                while(iter_volt_radix != NULL) {
+                    iter_volt_radix = iter_volt_radix->next;
+                }
+                benVoltRadix.stop();
+            }
         }
-        resultPrinter("SCAN", DATA_SCALE, benVoltMap, benStl, benBoost, benVoltHash);
+        resultPrinter("SCAN", DATA_SCALE, benVoltMap, benStl, benBoost, benVoltHash, benVoltRadix, benVoltOpenHash);
     }
 
     //
     // SCAN WITHOUT END CHECK
     //
     if (runScanNoEndCheck) {
-        BenchmarkRecorder benVoltMap(VoltMap), benStl(STLMap), benBoost(BoostUnorderedMap), benVoltHash(VoltHash);
+        BenchmarkRecorder benVoltMap(VoltMap), benStl(STLMap), benBoost(BoostUnorderedMap), benVoltHash(VoltHash),
+                benVoltRadix(VoltRadix), benVoltOpenHash(VoltOpenHash);
         printf("Preparing to run Scan benchmark without END() function call in %d seconds...\n", SLEEP_IN_SECONDS);
         sleep(SLEEP_IN_SECONDS);
 
@@ -317,6 +385,7 @@ void BenchmarkRun(
             if (i == WARM_UP) {
                 benVoltMap.reset();
                 benStl.reset();
+                benVoltRadix.reset();
                 printf("Finish warm up...\n");
             }
 
@@ -338,8 +407,19 @@ void BenchmarkRun(
                 }
                 benStl.stop();
             }
+
+            // The radix tree drops duplicate keys, so it may hold fewer entries.
+            if (runVoltRadix) {
+                iter_volt_radix = voltRadix.first();
+                int64_t radixSize = voltRadix.size();
+                benVoltRadix.start();
+                for (int64_t i = 0; i < radixSize; i++) {
+                    iter_volt_radix = iter_volt_radix->next;
+                }
+                benVoltRadix.stop();
+            }
         }
-        resultPrinter("SCAN without END() factor", DATA_SCALE, benVoltMap, benStl, benBoost, benVoltHash);
+        resultPrinter("SCAN without END() factor", DATA_SCALE, benVoltMap, benStl, benBoost, benVoltHash, benVoltRadix, benVoltOpenHash);
     }
 
 
@@ -347,7 +427,8 @@ void BenchmarkRun(
     // LOOKUP
     //
     if (runLookup) {
-        BenchmarkRecorder benVoltMap(VoltMap), benStl(STLMap), benBoost(BoostUnorderedMap), benVoltHash(VoltHash);
+        BenchmarkRecorder benVoltMap(VoltMap), benStl(STLMap), benBoost(BoostUnorderedMap), benVoltHash(VoltHash),
+                benVoltRadix(VoltRadix), benVoltOpenHash(VoltOpenHash);
         int* keys = getRandomValues(ITERATIONS, BIGGEST_VAL);
 
         printf("Preparing to run LOOKUP benchmark in %d seconds...\n", SLEEP_IN_SECONDS);
@@ -360,6 +441,8 @@ void BenchmarkRun(
                 benStl.reset();
                 benBoost.reset();
                 benVoltHash.reset();
+                benVoltRadix.reset();
+                benVoltOpenHash.reset();
                 printf("Finish warm up...\n");
             }
 
@@ -381,6 +464,15 @@ void BenchmarkRun(
                 benStl.stop();
             }
 
+            if (runVoltRadix) {
+                benVoltRadix.start();
+                for (int i = 0; i< ITERATIONS; i++) {
+                    int val = keys[i];
+                    iter_volt_radix = voltRadix.find(radixKey(val, radixKeyBytes));
+                }
+                benVoltRadix.stop();
+            }
+
             if (runBoostMap) {
                 benBoost.start();
                 for (int i = 0; i < DATA_SCALE; i++) {
@@ -398,15 +490,25 @@ void BenchmarkRun(
                 }
                 benVoltHash.stop();
             }
+
+            if (runVoltOpenHash) {
+                benVoltOpenHash.start();
+                for (int i = 0; i < DATA_SCALE; i++) {
+                    int val = input[i];
+                    iter_volt_open_hash = voltOpenHash.find(val);
+                }
+                benVoltOpenHash.stop();
+            }
         }
-        resultPrinter("LOOKUP", ITERATIONS, benVoltMap, benStl, benBoost, benVoltHash);
+        resultPrinter("LOOKUP", ITERATIONS, benVoltMap, benStl, benBoost, benVoltHash, benVoltRadix, benVoltOpenHash);
     }
 
     //
     // DELETE
     //
     if (runDelete) {
-        BenchmarkRecorder benVoltMap(VoltMap), benStl(STLMap), benBoost(BoostUnorderedMap), benVoltHash(VoltHash);
+        BenchmarkRecorder benVoltMap(VoltMap), benStl(STLMap), benBoost(BoostUnorderedMap), benVoltHash(VoltHash),
+                benVoltRadix(VoltRadix), benVoltOpenHash(VoltOpenHash);
         int* deletes = getRandomValues(ITERATIONS, BIGGEST_VAL);
         printf("Preparing to run DELETE benchmark in %d seconds...\n", SLEEP_IN_SECONDS);
         sleep(SLEEP_IN_SECONDS);
@@ -429,6 +531,15 @@ void BenchmarkRun(
             benStl.stop();
         }
 
+        if (runVoltRadix) {
+            benVoltRadix.start();
+            for (int i = 0; i< ITERATIONS; i++) {
+                int val = deletes[i];
+                voltRadix.erase(radixKey(val, radixKeyBytes));
+            }
+            benVoltRadix.stop();
+        }
+
         if (runBoostMap) {
             benBoost.start();
             for (int i = 0; i < DATA_SCALE; i++) {
@@ -447,7 +558,16 @@ void BenchmarkRun(
             benVoltHash.stop();
         }
 
-        resultPrinter("DELETE", ITERATIONS, benVoltMap, benStl, benBoost, benVoltHash);
+        if (runVoltOpenHash) {
+            benVoltOpenHash.start();
+            for (int i = 0; i < DATA_SCALE; i++) {
+                int val = input[i];
+                voltOpenHash.erase(val);
+            }
+            benVoltOpenHash.stop();
+        }
+
+        resultPrinter("DELETE", ITERATIONS, benVoltMap, benStl, benBoost, benVoltHash, benVoltRadix, benVoltOpenHash);
     }
 
     // still holds the data before the destructor gets called
@@ -474,9 +594,25 @@ void BenchmarkRunWrapper(int DATA_SCALE, int SLEEP_IN_SECONDS, int READON_OPS_RE
     if (len > ++i) runBoostMap = params.at(i);
     if (len > ++i) runVoltHash = params.at(i);
 
+    // Compare index probes and scans with and without huge page and NUMA
+    // advice for the node and bucket blocks.
+    bool useLargePages = true;
+    if (len > ++i) useLargePages = params.at(i);
+    LargePageAllocator::setAdviceEnabled(useLargePages);
+    printf("largePages = %s\n", interpret(useLargePages));
+
+    // Compare the radix tree with the tree map as an ordered index.
+    bool runVoltRadix = false;
+    if (len > ++i) runVoltRadix = params.at(i);
+
+    // Compare the open-addressing hash table with the chained one, e.g. at
+    // data scales of 1M, 10M and 100M for point lookups and inserts.
+    bool runVoltOpenHash = false;
+    if (len > ++i) runVoltOpenHash = params.at(i);
+
     BenchmarkRun(DATA_SCALE, SLEEP_IN_SECONDS, READON_OPS_REPEAT,
             runScan, runScanNoEndCheck, runLookup, runDelete,
-            runVoltMap, runStlMap, runBoostMap, runVoltHash);
+            runVoltMap, runStlMap, runBoostMap, runVoltHash, runVoltRadix, runVoltOpenHash);
 }
 
 bool isTrue(char* arg) {
@@ -505,7 +641,10 @@ int main(int argc, char *argv[]) {
                 "runVoltMap<0, 1>, "
                 "runStlMap<0, 1>, "
                 "runBoostMap<0, 1>, "
-                "runVoltHash<0, 1>)\n",
+                "runVoltHash<0, 1>, "
+                "largePages<0, 1>, "
+                "runVoltRadix<0, 1>, "
+                "runVoltOpenHash<0, 1>)\n",
                 argv[0]);
         return 0;
     }
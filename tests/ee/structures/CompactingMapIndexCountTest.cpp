@@ -23,6 +23,7 @@
 
 #include <iostream>
 #include <map>
+#include <vector>
 #include <algorithm>
 #include <cstdlib>
 #include <cstdio>
@@ -511,6 +512,94 @@ TEST_F(CompactingMapTest, RandomMultiRank) {
     ASSERT_TRUE(volt.verifyRank());
 }
 
+TEST_F(CompactingMapTest, InsertSortedRank) {
+    typedef voltdb::CompactingMap<NormalKeyValuePair<int, int>, IntComparator, true> MapType;
+    const int sizes[] = { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 15, 16, 17, 100, 1023, 1024, 1025, 10000 };
+
+    for (int s = 0; s < sizeof(sizes) / sizeof(sizes[0]); s++) {
+        int size = sizes[s];
+        std::vector<NormalKeyValuePair<int, int> > entries;
+        for (int val = 0; val < size; val++) {
+            entries.push_back(NormalKeyValuePair<int, int>(val * 2, val));
+        }
+
+        MapType volt(true, IntComparator());
+        if (size > 0) {
+            volt.insertSorted(&entries[0], size);
+        }
+        ASSERT_EQ(size, volt.size());
+        ASSERT_TRUE(volt.verify());
+        ASSERT_TRUE(volt.verifyRank());
+
+        int val = 0;
+        for (MapType::iterator volti = volt.begin(); !volti.isEnd(); volti.moveNext()) {
+            ASSERT_EQ(val * 2, volti.key());
+            ASSERT_EQ(val, volti.value());
+            ASSERT_EQ(val + 1, volt.rankAsc(val * 2));
+            val++;
+        }
+        ASSERT_EQ(size, val);
+
+        // The built tree must stay balanced through later inserts and deletes.
+        for (int val = 0; val < size; val++) {
+            ASSERT_TRUE(volt.insert(std::pair<int,int>(val * 2 + 1, val)));
+        }
+        for (int val = 0; val < size; val += 2) {
+            ASSERT_TRUE(volt.erase(val * 2));
+        }
+        ASSERT_TRUE(volt.verify());
+        ASSERT_TRUE(volt.verifyRank());
+    }
+}
+
+TEST_F(CompactingMapTest, MergeSorted) {
+    typedef voltdb::CompactingMap<NormalKeyValuePair<int, int>, IntComparator, false> MapType;
+    const int sizes[] = { 0, 1, 2, 3, 7, 16, 17, 100, 1025, 10000 };
+
+    for (int s = 0; s < sizeof(sizes) / sizeof(sizes[0]); s++) {
+        for (int b = 0; b < sizeof(sizes) / sizeof(sizes[0]); b++) {
+            int size = sizes[s];
+            int batch = sizes[b];
+            // Even keys are in the map. The batch holds every key, so its even
+            // keys repeat existing ones and must land after them.
+            MapType volt(false, IntComparator());
+            for (int val = 0; val < size; val++) {
+                ASSERT_TRUE(volt.insert(std::pair<int,int>(val * 2, val)));
+            }
+            std::vector<NormalKeyValuePair<int, int> > entries;
+            for (int val = 0; val < batch; val++) {
+                entries.push_back(NormalKeyValuePair<int, int>(val, -1 - val));
+            }
+            volt.mergeSorted(entries.empty() ? NULL : &entries[0], batch);
+            ASSERT_EQ(size + batch, volt.size());
+            ASSERT_TRUE(volt.verify());
+
+            std::multimap<int, int> stl;
+            for (int val = 0; val < size; val++) {
+                stl.insert(std::pair<int, int>(val * 2, val));
+            }
+            for (int val = 0; val < batch; val++) {
+                stl.insert(std::pair<int, int>(entries[val].getKey(), entries[val].getValue()));
+            }
+            std::multimap<int, int>::const_iterator stli = stl.begin();
+            for (MapType::iterator volti = volt.begin(); !volti.isEnd(); volti.moveNext(), ++stli) {
+                ASSERT_EQ(stli->first, volti.key());
+                ASSERT_EQ(stli->second, volti.value());
+            }
+            ASSERT_TRUE(stli == stl.end());
+
+            // The rebuilt tree must stay balanced through later inserts and deletes.
+            for (int val = 0; val < size; val++) {
+                volt.insert(std::pair<int,int>(val * 2 + 1, val));
+            }
+            for (int val = 0; val < size; val += 2) {
+                ASSERT_TRUE(volt.erase(val * 2));
+            }
+            ASSERT_TRUE(volt.verify());
+        }
+    }
+}
+
 int main() {
     return TestSuite::globalInstance()->runAll();
 }
@@ -21,6 +21,7 @@
  * OTHER DEALINGS IN THE SOFTWARE.
  */
 
+#include "common/LargePageAllocator.h"
 #include "structures/CompactingPool.h"
 
 #include "harness.h"
@@ -113,6 +114,58 @@ TEST_F(CompactingPoolTest, bytes_allocated_test)
     }
 }
 
+TEST_F(CompactingPoolTest, large_page_blocks)
+{
+    const size_t largePage = LargePageAllocator::LARGE_PAGE_SIZE;
+
+    // Big blocks start on a large page boundary and are fully usable.
+    size_t bigSize = largePage + largePage / 2;
+    char* big = static_cast<char*>(LargePageAllocator::allocate(bigSize));
+    EXPECT_EQ(0, reinterpret_cast<uintptr_t>(big) % largePage);
+    memset(big, 1, bigSize);
+    EXPECT_EQ(1, big[bigSize - 1]);
+    LargePageAllocator::free(big, bigSize);
+
+    // Without the advice they are still usable, just not aligned.
+    LargePageAllocator::setAdviceEnabled(false);
+    big = static_cast<char*>(LargePageAllocator::allocate(bigSize));
+    memset(big, 2, bigSize);
+    EXPECT_EQ(2, big[0]);
+    LargePageAllocator::free(big, bigSize);
+    LargePageAllocator::setAdviceEnabled(true);
+
+    char* small = static_cast<char*>(LargePageAllocator::allocate(100));
+    memset(small, 3, 100);
+    LargePageAllocator::free(small, 100);
+
+    // A pool whose buffers are larger than a large page.
+    int32_t size = 1024 * 1024;
+    int32_t num_elements = 3;
+    CompactingPool dut(size, num_elements);
+    char* elems[num_elements + 1];
+    for (int i = 0; i <= num_elements; i++) {
+        elems[i] = reinterpret_cast<char*>(dut.malloc(&(elems[i])));
+        memset(elems[i], i, size);
+    }
+    EXPECT_EQ((size + CompactingPool::FIXED_OVERHEAD_PER_ENTRY()) * num_elements * 2,
+            dut.getBytesAllocated());
+    dut.free(elems[0]);
+    EXPECT_EQ(num_elements, *reinterpret_cast<int8_t*>(elems[0]));
+    for (int i = 0; i < num_elements; i++) {
+        dut.free(elems[0]);
+    }
+    EXPECT_EQ(0, dut.getBytesAllocated());
+
+    // Buffers sized for a large page fill it without spilling into a second one.
+    const int32_t sizes[] = { 1, 8, 24, 100, 4096, 65536, 1024 * 1024 };
+    for (int i = 0; i < sizeof(sizes) / sizeof(sizes[0]); i++) {
+        size_t entrySize = sizes[i] + CompactingPool::FIXED_OVERHEAD_PER_ENTRY();
+        size_t perPage = CompactingPool::elementsPerLargePage(sizes[i]);
+        EXPECT_TRUE(perPage * entrySize + sizeof(void*) <= largePage);
+        EXPECT_TRUE((perPage + 1) * entrySize + sizeof(void*) > largePage);
+    }
+}
+
 int main() {
     return TestSuite::globalInstance()->runAll();
 }
@@ -0,0 +1,272 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2017 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package org.voltdb;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.voltcore.utils.DBBPool;
+import org.voltcore.utils.DBBPool.BBContainer;
+import org.voltdb.sysprocs.saverestore.TableSaveFile;
+import org.voltdb.utils.VoltFile;
+
+import com.google_voltpatches.common.util.concurrent.Callables;
+
+public class TestDefaultSnapshotDataTarget {
+
+    private static final File TEST_DIR = new File("/tmp/" + System.getProperty("user.name") + "/snapshotdatatarget");
+    private static final int PARTITION_ID = 3;
+
+    private final Random m_random = new Random(0);
+
+    @Before
+    public void setUp() throws Exception {
+        EELibraryLoader.loadExecutionEngineLibrary(true);
+        if (TEST_DIR.exists()) {
+            VoltFile.recursivelyDelete(TEST_DIR);
+        }
+        TEST_DIR.mkdirs();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        DefaultSnapshotDataTarget.m_directIOForTest = false;
+        DefaultSnapshotDataTarget.m_simulateBlockedWrite = null;
+        VoltFile.recursivelyDelete(TEST_DIR);
+    }
+
+    private DefaultSnapshotDataTarget createTarget(File file) throws Exception {
+        VoltTable schema = new VoltTable(new VoltTable.ColumnInfo("ID", VoltType.BIGINT));
+        return new DefaultSnapshotDataTarget(file, 0, "cluster", "database", "T", 8, false,
+                Arrays.asList(PARTITION_ID), schema, 1L, System.currentTimeMillis());
+    }
+
+    /**
+     * A tuple buffer as a site hands it over, the partition id followed by the data
+     */
+    private static BBContainer chunk(byte[] data) {
+        BBContainer c = DBBPool.allocateDirect(4 + data.length);
+        c.b().putInt(PARTITION_ID).put(data).flip();
+        return c;
+    }
+
+    private byte[] randomData(int length) {
+        byte[] data = new byte[length];
+        // Runs of repeated bytes, so the chunks compress
+        for (int ii = 0; ii < length; ii += 64) {
+            Arrays.fill(data, ii, Math.min(length, ii + 64), (byte)m_random.nextInt());
+        }
+        return data;
+    }
+
+    private List<byte[]> writeChunks(DefaultSnapshotDataTarget target, int count) throws Exception {
+        List<byte[]> written = new ArrayList<byte[]>();
+        List<Future<?>> writes = new ArrayList<Future<?>>();
+        for (int ii = 0; ii < count; ii++) {
+            // Lengths that don't line up with the direct I/O block size
+            byte[] data = randomData(1 + m_random.nextInt(SnapshotSiteProcessor.m_snapshotBufferLength - 5));
+            written.add(data);
+            writes.add(target.write(Callables.returning(chunk(data)), 0));
+        }
+        for (Future<?> write : writes) {
+            write.get();
+        }
+        return written;
+    }
+
+    private static void assertChunksRead(File file, List<byte[]> written) throws Exception {
+        TableSaveFile saveFile = new TableSaveFile(new FileInputStream(file), 1, null);
+        try {
+            assertTrue(saveFile.getCompleted());
+            final int headerLength = saveFile.getTableHeader().capacity();
+            for (byte[] expected : written) {
+                BBContainer c = saveFile.getNextChunk();
+                assertNotNull(c);
+                try {
+                    assertEquals(PARTITION_ID, ((TableSaveFile.Container)c).partitionId);
+                    ByteBuffer b = c.b();
+                    b.position(headerLength);
+                    byte[] actual = new byte[b.remaining()];
+                    b.get(actual);
+                    assertArrayEquals(expected, actual);
+                } finally {
+                    c.discard();
+                }
+            }
+            assertNull(saveFile.getNextChunk());
+        } finally {
+            saveFile.close();
+        }
+    }
+
+    @Test
+    public void testHeaderIsOnDiskAfterConstruction() throws Exception {
+        File file = new File(TEST_DIR, "T.vpt");
+        DefaultSnapshotDataTarget target = createTarget(file);
+        try {
+            // Readable as an unfinished file before any chunk is written
+            TableSaveFile saveFile = new TableSaveFile(new FileInputStream(file), 1, null);
+            try {
+                assertEquals("T", saveFile.getTableName());
+                assertFalse(saveFile.getCompleted());
+                assertArrayEquals(new int[] { PARTITION_ID }, saveFile.getPartitionIds());
+            } finally {
+                saveFile.close();
+            }
+        } finally {
+            target.close();
+        }
+        assertChunksRead(file, new ArrayList<byte[]>());
+    }
+
+    @Test
+    public void testChunksReadBack() throws Exception {
+        File file = new File(TEST_DIR, "T.vpt");
+        DefaultSnapshotDataTarget target = createTarget(file);
+        List<byte[]> written;
+        try {
+            written = writeChunks(target, 10);
+        } finally {
+            target.close();
+        }
+        assertChunksRead(file, written);
+    }
+
+    @Test
+    public void testChunksReadBackWithDirectIO() throws Exception {
+        DefaultSnapshotDataTarget.m_directIOForTest = true;
+        List<File> files = new ArrayList<File>();
+        List<List<byte[]>> written = new ArrayList<List<byte[]>>();
+        // More files than staging buffers, the rest go through the page cache
+        List<DefaultSnapshotDataTarget> targets = new ArrayList<DefaultSnapshotDataTarget>();
+        for (int ii = 0; ii <= DefaultSnapshotDataTarget.SNAPSHOT_DIRECT_IO_MAX_BUFFERS; ii++) {
+            File file = new File(TEST_DIR, "T" + ii + ".vpt");
+            files.add(file);
+            targets.add(createTarget(file));
+        }
+        try {
+            for (DefaultSnapshotDataTarget target : targets) {
+                written.add(writeChunks(target, 3));
+            }
+        } finally {
+            for (DefaultSnapshotDataTarget target : targets) {
+                target.close();
+            }
+        }
+        for (int ii = 0; ii < files.size(); ii++) {
+            assertChunksRead(files.get(ii), written.get(ii));
+        }
+
+        // Every staging buffer went back to the pool
+        List<BBContainer> buffers = new ArrayList<BBContainer>();
+        try {
+            for (int ii = 0; ii < DefaultSnapshotDataTarget.SNAPSHOT_DIRECT_IO_MAX_BUFFERS; ii++) {
+                BBContainer c = DefaultSnapshotDataTarget.takeDirectIOBuffer();
+                assertNotNull(c);
+                buffers.add(c);
+            }
+        } finally {
+            for (BBContainer c : buffers) {
+                DefaultSnapshotDataTarget.returnDirectIOBuffer(c);
+            }
+        }
+    }
+
+    @Test
+    public void testDirectIOBufferPoolIsBounded() throws Exception {
+        List<BBContainer> buffers = new ArrayList<BBContainer>();
+        try {
+            for (int ii = 0; ii < DefaultSnapshotDataTarget.SNAPSHOT_DIRECT_IO_MAX_BUFFERS; ii++) {
+                BBContainer c = DefaultSnapshotDataTarget.takeDirectIOBuffer();
+                assertNotNull(c);
+                assertEquals(DefaultSnapshotDataTarget.SNAPSHOT_DIRECT_IO_BUFFER_BYTES,
+                             DefaultSnapshotDataTarget.alignedDirectIOBuffer(c).capacity());
+                buffers.add(c);
+            }
+            assertNull(DefaultSnapshotDataTarget.takeDirectIOBuffer());
+
+            DefaultSnapshotDataTarget.returnDirectIOBuffer(buffers.remove(0));
+            BBContainer c = DefaultSnapshotDataTarget.takeDirectIOBuffer();
+            assertNotNull(c);
+            buffers.add(c);
+        } finally {
+            for (BBContainer c : buffers) {
+                DefaultSnapshotDataTarget.returnDirectIOBuffer(c);
+            }
+        }
+    }
+
+    @Test
+    public void testBytesInFlightAreBounded() throws Exception {
+        File file = new File(TEST_DIR, "T.vpt");
+        final DefaultSnapshotDataTarget target = createTarget(file);
+        final CountDownLatch blockedWrite = new CountDownLatch(1);
+        DefaultSnapshotDataTarget.m_simulateBlockedWrite = blockedWrite;
+        final byte[] data = randomData(SnapshotSiteProcessor.m_snapshotBufferLength - 4);
+        final int chunksAllowed = DefaultSnapshotDataTarget.SNAPSHOT_MAX_BYTES_IN_FLIGHT / (data.length + 4);
+        final AtomicInteger chunksQueued = new AtomicInteger();
+        Thread writer = new Thread() {
+            @Override
+            public void run() {
+                for (int ii = 0; ii <= chunksAllowed; ii++) {
+                    target.write(Callables.returning(chunk(data)), 0);
+                    chunksQueued.incrementAndGet();
+                }
+            }
+        };
+        try {
+            writer.start();
+            while (!DefaultSnapshotDataTarget.m_bytesAllowedInFlight.hasQueuedThreads()) {
+                Thread.sleep(10);
+            }
+            assertEquals(chunksAllowed, chunksQueued.get());
+        } finally {
+            blockedWrite.countDown();
+            writer.join();
+            target.close();
+        }
+        assertEquals(chunksAllowed + 1, chunksQueued.get());
+        assertEquals(DefaultSnapshotDataTarget.SNAPSHOT_MAX_BYTES_IN_FLIGHT,
+                     DefaultSnapshotDataTarget.m_bytesAllowedInFlight.availablePermits());
+    }
+}
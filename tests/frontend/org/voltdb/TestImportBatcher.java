@@ -0,0 +1,369 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2017 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.voltdb.catalog.Catalog;
+import org.voltdb.catalog.Column;
+import org.voltdb.catalog.Database;
+import org.voltdb.catalog.Table;
+import org.voltdb.client.ClientResponse;
+import org.voltdb.client.ProcedureCallback;
+import org.voltdb.importer.AbstractImporter;
+import org.voltdb.importer.ImporterStatsCollector;
+
+public class TestImportBatcher {
+
+    private static final int PARTITION_COUNT = 4;
+
+    /**
+     * One procedure call the batcher made, with the callback the server would answer
+     */
+    static class Call {
+        final String m_proc;
+        final Object[] m_params;
+        final ProcedureCallback m_callback;
+
+        Call(String proc, Object[] params, ProcedureCallback callback) {
+            m_proc = proc;
+            m_params = params;
+            m_callback = callback;
+        }
+
+        VoltTable table() {
+            return (VoltTable) m_params[m_params.length - 1];
+        }
+
+        void respond(byte status) throws Exception {
+            m_callback.clientCallback(new ClientResponseImpl(status, new VoltTable[0], null));
+        }
+    }
+
+    /**
+     * Records the calls instead of creating transactions
+     */
+    static class RecordingHandler extends InternalConnectionHandler {
+        final LinkedBlockingQueue<Call> m_calls = new LinkedBlockingQueue<Call>();
+        volatile boolean m_rejectBulkLoads = false;
+        volatile boolean m_rejectRows = false;
+
+        RecordingHandler() {
+            super(null, null);
+        }
+
+        @Override
+        public boolean callProcedure(InternalConnectionContext caller, InternalConnectionStatsCollector statsCollector,
+                ProcedureCallback procCallback, String proc, Object... fieldList) {
+            final boolean bulk = proc.startsWith("@Load");
+            if ((bulk && m_rejectBulkLoads) || (!bulk && m_rejectRows)) {
+                return false;
+            }
+            m_calls.add(new Call(proc, fieldList, procCallback));
+            return true;
+        }
+
+        Call next() throws InterruptedException {
+            return m_calls.poll(10, TimeUnit.SECONDS);
+        }
+    }
+
+    static class RowCallback implements ProcedureCallback {
+        final LinkedBlockingQueue<ClientResponse> m_responses = new LinkedBlockingQueue<ClientResponse>();
+
+        @Override
+        public void clientCallback(ClientResponse response) {
+            m_responses.add(response);
+        }
+
+        byte status() throws InterruptedException {
+            ClientResponse response = m_responses.poll(10, TimeUnit.SECONDS);
+            assertNotNull(response);
+            return response.getStatus();
+        }
+    }
+
+    static class TestImporter extends AbstractImporter {
+        @Override
+        public String getName() {
+            return "TestImporter";
+        }
+
+        @Override
+        public URI getResourceID() {
+            return URI.create("test://importer");
+        }
+
+        @Override
+        protected void accept() {
+        }
+
+        @Override
+        protected void stop() {
+        }
+    }
+
+    private Database m_database;
+    private RecordingHandler m_handler;
+    private ImportBatcherImpl m_batcher;
+
+    @Before
+    public void setUp() {
+        TheHashinator.initialize(TheHashinator.getConfiguredHashinatorClass(),
+                TheHashinator.getConfigureBytes(PARTITION_COUNT));
+        Catalog catalog = new Catalog();
+        catalog.execute("add / clusters cluster");
+        catalog.execute("add /clusters#cluster databases database");
+        m_database = catalog.getClusters().get("cluster").getDatabases().get("database");
+        addTable("PARTITIONED", false);
+        addTable("REPLICATED", true);
+        m_handler = new RecordingHandler();
+    }
+
+    @After
+    public void tearDown() {
+        if (m_batcher != null) {
+            m_batcher.close();
+        }
+    }
+
+    private void addTable(String name, boolean replicated) {
+        Table table = m_database.getTables().add(name);
+        table.setIsreplicated(replicated);
+        Column id = table.getColumns().add("ID");
+        id.setIndex(0);
+        id.setType(VoltType.BIGINT.getValue());
+        Column value = table.getColumns().add("VALUE");
+        value.setIndex(1);
+        value.setType(VoltType.STRING.getValue());
+        if (!replicated) {
+            table.setPartitioncolumn(id);
+        }
+    }
+
+    private ImportBatcherImpl batcher(String table, int batchSize, long maxLatencyMillis) {
+        m_batcher = new ImportBatcherImpl(new TestImporter(), new ImporterStatsCollector(0), m_handler,
+                table + ".insert", m_database.getTables().get(table), false, batchSize, maxLatencyMillis);
+        return m_batcher;
+    }
+
+    private static int partitionOf(long id) {
+        return TheHashinator.getPartitionForParameter(VoltType.BIGINT, id);
+    }
+
+    /**
+     * Ids of the given count that all hash to the given partition
+     */
+    private static List<Long> idsOfPartition(int partition, int count) {
+        List<Long> ids = new ArrayList<Long>();
+        for (long id = 0; ids.size() < count; id++) {
+            if (partitionOf(id) == partition) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    @Test
+    public void testGroupsRowsByPartition() throws Exception {
+        final int batchSize = 5;
+        ImportBatcherImpl batcher = batcher("PARTITIONED", batchSize, TimeUnit.HOURS.toMillis(1));
+
+        // Interleave the rows of every partition, only full batches may be sent
+        List<List<Long>> idsByPartition = new ArrayList<List<Long>>();
+        for (int partition = 0; partition < PARTITION_COUNT; partition++) {
+            idsByPartition.add(idsOfPartition(partition, batchSize));
+        }
+        for (int i = 0; i < batchSize; i++) {
+            for (int partition = 0; partition < PARTITION_COUNT; partition++) {
+                assertTrue(batcher.add(new Object[] { idsByPartition.get(partition).get(i), "row" }, null));
+            }
+        }
+
+        Set<Integer> partitions = new HashSet<Integer>();
+        for (int i = 0; i < PARTITION_COUNT; i++) {
+            Call call = m_handler.next();
+            assertNotNull(call);
+            assertEquals("@LoadSinglepartitionTable", call.m_proc);
+            assertEquals("PARTITIONED", call.m_params[1]);
+            assertEquals((byte) 0, call.m_params[2]);
+
+            VoltTable table = call.table();
+            assertEquals(batchSize, table.getRowCount());
+            int partition = -1;
+            while (table.advanceRow()) {
+                long id = table.getLong(0);
+                if (partition == -1) {
+                    partition = partitionOf(id);
+                }
+                assertEquals(partition, partitionOf(id));
+            }
+            // The partitioning value routes the load to the partition of the rows
+            assertTrue(Arrays.equals(VoltType.valueToBytes(idsByPartition.get(partition).get(0)),
+                    (byte[]) call.m_params[0]));
+            assertTrue(partitions.add(partition));
+        }
+        assertTrue(m_handler.m_calls.isEmpty());
+    }
+
+    @Test
+    public void testFlushesOnSize() throws Exception {
+        ImportBatcherImpl batcher = batcher("PARTITIONED", 3, TimeUnit.HOURS.toMillis(1));
+        List<Long> ids = idsOfPartition(1, 4);
+
+        batcher.add(new Object[] { ids.get(0), "a" }, null);
+        batcher.add(new Object[] { ids.get(1), "b" }, null);
+        assertTrue(m_handler.m_calls.isEmpty());
+        batcher.add(new Object[] { ids.get(2), "c" }, null);
+        assertEquals(3, m_handler.next().table().getRowCount());
+
+        // The next row starts a new batch that only an explicit flush sends
+        batcher.add(new Object[] { ids.get(3), "d" }, null);
+        assertTrue(m_handler.m_calls.isEmpty());
+        batcher.flush();
+        assertEquals(1, m_handler.next().table().getRowCount());
+    }
+
+    @Test
+    public void testFlushesOnLatency() throws Exception {
+        ImportBatcherImpl batcher = batcher("PARTITIONED", 1000, 50);
+        final long start = System.nanoTime();
+        batcher.add(new Object[] { 1L, "a" }, null);
+
+        Call call = m_handler.next();
+        assertNotNull(call);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(1, call.table().getRowCount());
+    }
+
+    @Test
+    public void testReplicatedTableLoadsAllPartitions() throws Exception {
+        ImportBatcherImpl batcher = batcher("REPLICATED", 2, TimeUnit.HOURS.toMillis(1));
+        batcher.add(new Object[] { 1L, "a" }, null);
+        batcher.add(new Object[] { 2L, "b" }, null);
+
+        Call call = m_handler.next();
+        assertEquals("@LoadMultipartitionTable", call.m_proc);
+        assertEquals("REPLICATED", call.m_params[0]);
+        assertEquals(2, call.table().getRowCount());
+    }
+
+    @Test
+    public void testEveryRowCallbackGetsTheResponse() throws Exception {
+        ImportBatcherImpl batcher = batcher("PARTITIONED", 3, TimeUnit.HOURS.toMillis(1));
+        List<Long> ids = idsOfPartition(2, 3);
+        List<RowCallback> callbacks = new ArrayList<RowCallback>();
+        for (long id : ids) {
+            RowCallback callback = new RowCallback();
+            callbacks.add(callback);
+            batcher.add(new Object[] { id, "x" }, callback);
+        }
+
+        m_handler.next().respond(ClientResponse.SUCCESS);
+        for (RowCallback callback : callbacks) {
+            assertEquals(ClientResponse.SUCCESS, callback.status());
+        }
+        assertTrue(m_handler.m_calls.isEmpty());
+    }
+
+    @Test
+    public void testRetriesRowsOfFailedLoad() throws Exception {
+        ImportBatcherImpl batcher = batcher("PARTITIONED", 3, TimeUnit.HOURS.toMillis(1));
+        List<Long> ids = idsOfPartition(0, 3);
+        List<RowCallback> callbacks = new ArrayList<RowCallback>();
+        for (long id : ids) {
+            RowCallback callback = new RowCallback();
+            callbacks.add(callback);
+            batcher.add(new Object[] { id, "x" + id }, callback);
+        }
+
+        // A constraint violation fails the whole load, every row is then invoked on its own
+        m_handler.next().respond(ClientResponse.GRACEFUL_FAILURE);
+        for (int i = 0; i < ids.size(); i++) {
+            Call call = m_handler.next();
+            assertNotNull(call);
+            assertEquals("PARTITIONED.insert", call.m_proc);
+            assertEquals(ids.get(i), call.m_params[0]);
+            assertEquals("x" + ids.get(i), call.m_params[1]);
+            assertTrue(call.m_callback == callbacks.get(i));
+            call.respond(i == 1 ? ClientResponse.GRACEFUL_FAILURE : ClientResponse.SUCCESS);
+        }
+        assertEquals(ClientResponse.SUCCESS, callbacks.get(0).status());
+        assertEquals(ClientResponse.GRACEFUL_FAILURE, callbacks.get(1).status());
+        assertEquals(ClientResponse.SUCCESS, callbacks.get(2).status());
+    }
+
+    @Test
+    public void testRetriesRowsOfRejectedLoad() throws Exception {
+        ImportBatcherImpl batcher = batcher("PARTITIONED", 2, TimeUnit.HOURS.toMillis(1));
+        m_handler.m_rejectBulkLoads = true;
+        List<Long> ids = idsOfPartition(3, 2);
+        batcher.add(new Object[] { ids.get(0), "a" }, null);
+        batcher.add(new Object[] { ids.get(1), "b" }, null);
+
+        assertEquals("PARTITIONED.insert", m_handler.next().m_proc);
+        assertEquals("PARTITIONED.insert", m_handler.next().m_proc);
+    }
+
+    @Test
+    public void testFailsRowsThatCanNotBeRetried() throws Exception {
+        ImportBatcherImpl batcher = batcher("PARTITIONED", 2, TimeUnit.HOURS.toMillis(1));
+        List<Long> ids = idsOfPartition(1, 2);
+        RowCallback first = new RowCallback();
+        RowCallback second = new RowCallback();
+        batcher.add(new Object[] { ids.get(0), "a" }, first);
+        batcher.add(new Object[] { ids.get(1), "b" }, second);
+
+        // The rows must still be answered so the importer can commit past them
+        m_handler.m_rejectRows = true;
+        m_handler.next().respond(ClientResponse.UNEXPECTED_FAILURE);
+        assertEquals(ClientResponse.GRACEFUL_FAILURE, first.status());
+        assertEquals(ClientResponse.GRACEFUL_FAILURE, second.status());
+    }
+
+    @Test
+    public void testRejectsRowsNotMatchingTheTable() throws Exception {
+        ImportBatcherImpl batcher = batcher("PARTITIONED", 2, TimeUnit.HOURS.toMillis(1));
+        assertFalse(batcher.add(new Object[] { 1L }, null));
+        assertFalse(batcher.add(new Object[] { "not a number", "a" }, null));
+        batcher.flush();
+        assertNull(m_handler.m_calls.poll(100, TimeUnit.MILLISECONDS));
+    }
+}
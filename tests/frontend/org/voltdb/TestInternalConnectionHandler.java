@@ -0,0 +1,109 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2017 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.voltdb.AuthSystem.AuthUser;
+import org.voltdb.catalog.Procedure;
+import org.voltdb.client.ProcedureCallback;
+
+public class TestInternalConnectionHandler {
+
+    private static final int PARTITION_COUNT = 8;
+
+    /**
+     * Remembers the partition of the last transaction instead of running it
+     */
+    static class PartitionRecorder extends InternalClientResponseAdapter {
+        int m_partition = Integer.MIN_VALUE;
+
+        PartitionRecorder() {
+            super(1);
+        }
+
+        @Override
+        public boolean createTransaction(InternalAdapterTaskAttributes kattrs, String procName, Procedure catProc,
+                ProcedureCallback proccb, InternalConnectionStatsCollector statsCollector,
+                StoredProcedureInvocation task, AuthUser user, int partition, long nowNanos) {
+            m_partition = partition;
+            return true;
+        }
+    }
+
+    static class Caller implements InternalConnectionContext {
+        @Override
+        public String getName() {
+            return "TestCaller";
+        }
+
+        @Override
+        public void setBackPressure(boolean hasBackPressure) {
+        }
+    }
+
+    private MockVoltDB m_volt;
+
+    @Before
+    public void setUp() {
+        // The legacy hashinator hashes integers and byte arrays differently
+        TheHashinator.initialize(LegacyHashinator.class, LegacyHashinator.getConfigureBytes(PARTITION_COUNT));
+        m_volt = new MockVoltDB();
+        m_volt.addTable("T", false);
+        m_volt.addColumnToTable("T", "NAME", VoltType.STRING, false, "", VoltType.STRING);
+        m_volt.addColumnToTable("T", "ID", VoltType.INTEGER, false, "0", VoltType.INTEGER);
+        m_volt.getTable("T").setPartitioncolumn(m_volt.getTable("T").getColumns().get("ID"));
+        VoltDB.replaceVoltDBInstanceForTest(m_volt);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        m_volt.shutdown(null);
+    }
+
+    @Test
+    public void testLoadSinglepartitionTableRoutesByPartitionColumn() throws Exception {
+        PartitionRecorder adapter = new PartitionRecorder();
+        InternalConnectionHandler handler = new InternalConnectionHandler(adapter, null);
+        VoltTable rows = new VoltTable(new VoltTable.ColumnInfo("NAME", VoltType.STRING),
+                                       new VoltTable.ColumnInfo("ID", VoltType.INTEGER));
+
+        Set<Integer> partitions = new HashSet<Integer>();
+        for (int id = 0; id < 100; id++) {
+            // The partitioning value is hashed as the INTEGER column it comes from, not as VARBINARY
+            assertTrue(handler.callProcedure(new Caller(), null, (ProcedureCallback) null, "@LoadSinglepartitionTable",
+                    VoltType.valueToBytes(id), "T", (byte) 0, rows));
+            assertEquals(TheHashinator.getPartitionForParameter(VoltType.INTEGER, id), adapter.m_partition);
+            partitions.add(adapter.m_partition);
+        }
+        assertEquals(PARTITION_COUNT, partitions.size());
+    }
+}
@@ -0,0 +1,93 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2017 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.voltdb;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class TestSnapshotCodec extends TestCase {
+
+    private static ByteBuffer getChunk(int length) {
+        // Repeated runs of random bytes so every codec has something to find
+        Random r = new Random(length);
+        ByteBuffer chunk = ByteBuffer.allocateDirect(length);
+        byte run[] = new byte[64];
+        while (chunk.hasRemaining()) {
+            r.nextBytes(run);
+            for (int ii = 0; ii < 4 && chunk.hasRemaining(); ii++) {
+                chunk.put(run, 0, Math.min(run.length, chunk.remaining()));
+            }
+        }
+        chunk.flip();
+        return chunk;
+    }
+
+    public void testRoundTrip() throws Exception {
+        ByteBuffer chunk = getChunk(1024 * 512);
+        for (SnapshotCodec codec : SnapshotCodec.values()) {
+            ByteBuffer compressed = ByteBuffer.allocateDirect(codec.maxCompressedLength(chunk.remaining()) + 16);
+            // Snapshot chunks are compressed behind their header
+            compressed.position(16);
+            int length = codec.compress(chunk.duplicate(), compressed, codec.getDefaultLevel());
+            assertEquals(16, compressed.position());
+            assertEquals(16 + length, compressed.limit());
+            assertTrue(codec.toString(), length < chunk.remaining());
+            assertEquals(chunk.remaining(), codec.uncompressedLength(compressed));
+
+            ByteBuffer uncompressed = ByteBuffer.allocateDirect(chunk.remaining() + 8);
+            uncompressed.position(8);
+            assertEquals(chunk.remaining(), codec.decompress(compressed, uncompressed));
+            assertEquals(8, uncompressed.position());
+            assertEquals(chunk, uncompressed);
+        }
+    }
+
+    public void testHighCompressionLevels() throws Exception {
+        ByteBuffer chunk = getChunk(1024 * 64);
+        for (SnapshotCodec codec : new SnapshotCodec[] { SnapshotCodec.LZ4, SnapshotCodec.DEFLATE }) {
+            ByteBuffer compressed = ByteBuffer.allocateDirect(codec.maxCompressedLength(chunk.remaining()));
+            codec.compress(chunk.duplicate(), compressed, 1);
+            ByteBuffer uncompressed = ByteBuffer.allocateDirect(chunk.remaining());
+            codec.decompress(compressed, uncompressed);
+            assertEquals(chunk, uncompressed);
+        }
+    }
+
+    public void testLevelsAndNames() {
+        assertTrue(SnapshotCodec.SNAPPY.isValidLevel(SnapshotCodec.SNAPPY.getDefaultLevel()));
+        assertFalse(SnapshotCodec.SNAPPY.isValidLevel(5));
+        assertTrue(SnapshotCodec.DEFLATE.isValidLevel(9));
+        assertFalse(SnapshotCodec.DEFLATE.isValidLevel(10));
+        assertFalse(SnapshotCodec.LZ4.isValidLevel(-2));
+
+        assertEquals(SnapshotCodec.LZ4, SnapshotCodec.getEnumIgnoreCase("lz4"));
+        assertEquals(2, SnapshotCodec.SNAPPY.getFormatVersion());
+        assertEquals(3, SnapshotCodec.DEFLATE.getFormatVersion());
+        try {
+            SnapshotCodec.getEnumIgnoreCase("zstd");
+            fail();
+        } catch (IllegalArgumentException expected) {}
+    }
+}
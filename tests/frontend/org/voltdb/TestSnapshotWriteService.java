@@ -0,0 +1,179 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2017 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.voltdb;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+
+import org.voltcore.utils.DBBPool;
+import org.voltcore.utils.DBBPool.BBContainer;
+import org.voltdb.sysprocs.saverestore.TableSaveFile;
+import org.voltdb.utils.VoltFile;
+
+import com.google_voltpatches.common.util.concurrent.Callables;
+import com.google_voltpatches.common.util.concurrent.ListeningExecutorService;
+
+public class TestSnapshotWriteService extends TestCase {
+
+    private static final int PARTITION_ID = 3;
+
+    private final List<File> m_dirs = new ArrayList<File>();
+
+    /*
+     * A directory on tmpfs and one on the disk backing the temp dir, or just
+     * the latter if they are the same filesystem
+     */
+    private List<File> createDirs() throws Exception {
+        File disk = new File(System.getProperty("java.io.tmpdir"),
+                System.getProperty("user.name") + "-snapshotwriteservice");
+        VoltFile.recursivelyDelete(disk);
+        assertTrue(disk.mkdirs());
+        m_dirs.add(disk);
+        File shm = new File("/dev/shm");
+        if (shm.isDirectory() && !Files.getFileStore(shm.toPath()).equals(Files.getFileStore(disk.toPath()))) {
+            File memory = new File(shm, System.getProperty("user.name") + "-snapshotwriteservice");
+            VoltFile.recursivelyDelete(memory);
+            assertTrue(memory.mkdirs());
+            m_dirs.add(memory);
+        }
+        return m_dirs;
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        SnapshotWriteService.m_perFileSystemForTest = false;
+        for (File dir : m_dirs) {
+            VoltFile.recursivelyDelete(dir);
+        }
+    }
+
+    public void testWritersAreSharedUpToTheLimit() throws Exception {
+        File dir = new File(System.getProperty("java.io.tmpdir"));
+        int repeats = 0;
+        ListeningExecutorService first = SnapshotWriteService.writerFor(new File(dir, "a.vpt"), false);
+        for (int ii = 0; ii < SnapshotWriteService.SNAPSHOT_WRITE_THREADS * 2; ii++) {
+            ListeningExecutorService writer = SnapshotWriteService.writerFor(new File(dir, ii + ".vpt"), false);
+            assertNotNull(writer);
+            if (writer == first) {
+                repeats++;
+            }
+        }
+        // Every writer is handed out again once they all exist
+        assertTrue(repeats > 0);
+    }
+
+    public void testOneWriterPerFileSystem() throws Exception {
+        List<File> dirs = createDirs();
+        List<ListeningExecutorService> writers = new ArrayList<ListeningExecutorService>();
+        for (File dir : dirs) {
+            File first = new File(dir, "first.vpt");
+            File second = new File(dir, "second.vpt");
+            assertTrue(first.createNewFile());
+            assertTrue(second.createNewFile());
+            ListeningExecutorService writer = SnapshotWriteService.writerFor(first, true);
+            // All the files of one filesystem share its writer
+            assertSame(writer, SnapshotWriteService.writerFor(second, true));
+            assertSame(writer, SnapshotWriteService.writerFor(first, true));
+            assertFalse(writers.contains(writer));
+            writers.add(writer);
+        }
+        // A file whose filesystem can't be found falls back to a shared writer
+        assertNotNull(SnapshotWriteService.writerFor(new File(dirs.get(0), "missing/missing.vpt"), true));
+    }
+
+    public void testWritesToOneFileStayInOrder() throws Exception {
+        EELibraryLoader.loadExecutionEngineLibrary(true);
+        SnapshotWriteService.m_perFileSystemForTest = true;
+        final int chunks = 20;
+        VoltTable schema = new VoltTable(new VoltTable.ColumnInfo("ID", VoltType.BIGINT));
+        List<File> files = new ArrayList<File>();
+        List<DefaultSnapshotDataTarget> targets = new ArrayList<DefaultSnapshotDataTarget>();
+        for (File dir : createDirs()) {
+            for (int ii = 0; ii < 2; ii++) {
+                File file = new File(dir, "nonce-T" + ii + "-host_0.vpt");
+                files.add(file);
+                targets.add(new DefaultSnapshotDataTarget(file, 0, "cluster", "database", "T" + ii, 8, false,
+                        Arrays.asList(PARTITION_ID), schema, 1L, System.currentTimeMillis()));
+            }
+        }
+
+        // Interleave the chunks of all the files, each chunk holds its sequence number
+        List<Future<?>> writes = new ArrayList<Future<?>>();
+        for (int ii = 0; ii < chunks; ii++) {
+            for (DefaultSnapshotDataTarget target : targets) {
+                BBContainer c = DBBPool.allocateDirect(4 + 64 * 1024);
+                c.b().putInt(PARTITION_ID).putInt(ii);
+                while (c.b().hasRemaining()) {
+                    c.b().put((byte)ii);
+                }
+                c.b().flip();
+                writes.add(target.write(Callables.returning(c), 0));
+            }
+        }
+        for (Future<?> write : writes) {
+            write.get();
+        }
+        for (DefaultSnapshotDataTarget target : targets) {
+            target.close();
+        }
+
+        for (File file : files) {
+            TableSaveFile saveFile = new TableSaveFile(file, 1, null);
+            try {
+                final int headerLength = saveFile.getTableHeader().capacity();
+                for (int ii = 0; ii < chunks; ii++) {
+                    BBContainer c = saveFile.getNextChunk();
+                    assertNotNull(c);
+                    try {
+                        ByteBuffer b = c.b();
+                        assertEquals(ii, b.getInt(headerLength));
+                    } finally {
+                        c.discard();
+                    }
+                }
+                assertNull(saveFile.getNextChunk());
+            } finally {
+                saveFile.close();
+            }
+        }
+    }
+
+    public void testWriteMetrics() throws Exception {
+        int depth = SnapshotWriteService.queueDepth();
+        SnapshotWriteService.writeQueued();
+        SnapshotWriteService.writeQueued();
+        assertEquals(depth + 2, SnapshotWriteService.queueDepth());
+        Thread.sleep(10);
+        SnapshotWriteService.writeCompleted(1024 * 1024);
+        SnapshotWriteService.writeCompleted(1024 * 1024);
+        assertEquals(depth, SnapshotWriteService.queueDepth());
+        assertTrue(SnapshotWriteService.throughput() > 0);
+    }
+}
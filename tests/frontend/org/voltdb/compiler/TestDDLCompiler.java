@@ -45,6 +45,7 @@ import org.voltdb.catalog.IndexRef;
 import org.voltdb.catalog.MaterializedViewInfo;
 import org.voltdb.catalog.Table;
 import org.voltdb.compilereport.TableAnnotation;
+import org.voltdb.utils.CatalogSchemaTools;
 import org.voltdb.utils.CatalogUtil;
 
 public class TestDDLCompiler extends TestCase {
@@ -562,6 +563,94 @@ public class TestDDLCompiler extends TestCase {
         jarOut.delete();
     }
 
+    public void testMinMaxViewHiddenIndex() {
+        File jarOut = new File("minMaxViewHiddenIndex.jar");
+        jarOut.deleteOnExit();
+
+        String schema =
+                "CREATE TABLE T (D1 INTEGER, D2 INTEGER, D3 INTEGER, VAL1 INTEGER, VAL2 VARCHAR(10));\n" +
+                "CREATE VIEW VT1 (V_D1, CNT, MIN_VAL1, MAX_VAL2) " +
+                "AS SELECT D1, COUNT(*), MIN(VAL1), MAX(VAL2) " +
+                "FROM T " +
+                "GROUP BY D1;\n" +
+                // Shares the index on D1, VAL1 with VT1.
+                "CREATE VIEW VT2 (V_D1, CNT, MAX_VAL1) " +
+                "AS SELECT D1, COUNT(*), MAX(VAL1) " +
+                "FROM T WHERE D2 > 0 " +
+                "GROUP BY D1;\n" +
+                // Hidden index on D1 + D2, ABS(D3), VAL1 + D2.
+                "CREATE VIEW VT3 (V_D1_D2, V_D3, CNT, MAX_VAL1_D2) " +
+                "AS SELECT D1 + D2, ABS(D3), COUNT(*), MAX(VAL1 + D2) " +
+                "FROM T " +
+                "GROUP BY D1 + D2, ABS(D3);\n" +
+                "CREATE STREAM S PARTITION ON COLUMN D1 (D1 INTEGER NOT NULL, VAL1 INTEGER);\n" +
+                "CREATE VIEW VS (D1, CNT, MAX_VAL1) " +
+                "AS SELECT D1, COUNT(*), MAX(VAL1) " +
+                "FROM S " +
+                "GROUP BY D1;\n";
+
+        // Without asking for them there are no hidden indexes, and every view warns.
+        VoltCompiler compiler = new VoltCompiler(false);
+        assertTrue(compiler.compileDDLString(schema, jarOut.getPath()));
+        assertEquals(0, compiler.getCatalogDatabase().getTables().get("T").getIndexes().size());
+        assertEquals(4, countWarnings(compiler, "No index found to support UPDATE and DELETE"));
+
+        MaterializedViewProcessor.ADD_MINMAX_INDEXES = true;
+        try {
+            compiler = new VoltCompiler(false);
+            assertTrue(compiler.compileDDLString(schema, jarOut.getPath()));
+        }
+        finally {
+            MaterializedViewProcessor.ADD_MINMAX_INDEXES = false;
+        }
+        // Only the view on the stream still warns.
+        assertEquals(1, countWarnings(compiler, "No index found to support UPDATE and DELETE"));
+        int added = 0;
+        for (VoltCompiler.Feedback fb : compiler.m_infos) {
+            if (fb.getMessage().contains("Added hidden index")) {
+                added++;
+            }
+        }
+        assertEquals(3, added);
+
+        CatalogMap<Table> tables = compiler.getCatalogDatabase().getTables();
+        Table t = tables.get("T");
+        CatalogMap<MaterializedViewInfo> views = t.getViews();
+        assertIndexSelectionResult( views.get("VT1").getIndexforminmax(),
+                "VOLTDB_AUTOGEN_IDX_MATVIEW_MINMAX_VT1_0", "VOLTDB_AUTOGEN_IDX_MATVIEW_MINMAX_VT1_1" );
+        assertIndexSelectionResult( views.get("VT2").getIndexforminmax(),
+                "VOLTDB_AUTOGEN_IDX_MATVIEW_MINMAX_VT1_0" );
+        assertIndexSelectionResult( views.get("VT3").getIndexforminmax(),
+                "VOLTDB_AUTOGEN_IDX_MATVIEW_MINMAX_VT3_0" );
+        assertEquals(3, t.getIndexes().size());
+        assertEquals(0, tables.get("S").getIndexes().size());
+        // The columns of the index expressions D1 + D2, ABS(D3), VAL1 + D2
+        assertEquals(4, t.getIndexes().get("VOLTDB_AUTOGEN_IDX_MATVIEW_MINMAX_VT3_0").getColumns().size());
+        try {
+            assertTrue(MaterializedViewProcessor.isMinMaxRefreshedByIndexLookup(views.get("VT3"), "0"));
+        }
+        catch (Exception e) {
+            fail(e.toString());
+        }
+
+        // The hidden indexes are not part of the canonical DDL.
+        String canonical = CatalogSchemaTools.toSchema(new StringBuilder(), t, null, false, null, null);
+        assertFalse(canonical.contains(HSQLInterface.AUTO_GEN_MATVIEW_MINMAX_IDX_PREFIX));
+
+        // cleanup after the test
+        jarOut.delete();
+    }
+
+    private static int countWarnings(VoltCompiler compiler, String prefix) {
+        int count = 0;
+        for (VoltCompiler.Feedback fb : compiler.m_warnings) {
+            if (fb.getMessage().startsWith(prefix)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     public void testCreateStream() {
         File jarOut = new File("createStream.jar");
         jarOut.deleteOnExit();
@@ -64,6 +64,7 @@ import org.voltdb.planner.PlanningErrorException;
 import org.voltdb.types.GeographyValue;
 import org.voltdb.types.IndexType;
 import org.voltdb.utils.BuildDirectoryUtils;
+import org.voltdb.utils.CatalogSchemaTools;
 import org.voltdb.utils.CatalogUtil;
 import org.voltdb.utils.MiscUtils;
 
@@ -477,6 +478,55 @@ public class TestVoltCompiler extends TestCase {
         checkDDLErrorMessage(schema2, error2);
     }
 
+    public void testDictionaryColumns() throws IOException {
+        String schema1 =
+            "create table books (cash integer default 23, " +
+            "title varchar(100) dictionary not null, " +
+            "cover varbinary(200) dictionary, " +
+            "code varchar(4) dictionary, " +
+            "author varchar(100), PRIMARY KEY(cash));";
+
+        VoltCompiler compiler = new VoltCompiler(false);
+        assertTrue(compileDDL(schema1, compiler));
+
+        // A short column is stored inline, so the keyword has no effect.
+        assertEquals(1, compiler.m_warnings.size());
+        String expectedMsg = "DICTIONARY has no effect on column CODE in table BOOKS, " +
+                "because its values are stored inline in each row.";
+        assertEquals(expectedMsg, compiler.m_warnings.get(0).getMessage());
+
+        Database db = compiler.getCatalog().getClusters().get("cluster").getDatabases().get("database");
+        Table books = db.getTables().get("BOOKS");
+        assertTrue(books.getColumns().get("TITLE").getDictionary());
+        assertFalse(books.getColumns().get("TITLE").getNullable());
+        assertTrue(books.getColumns().get("COVER").getDictionary());
+        assertTrue(books.getColumns().get("CODE").getDictionary());
+        assertFalse(books.getColumns().get("AUTHOR").getDictionary());
+        assertFalse(books.getColumns().get("CASH").getDictionary());
+
+        // The canonical DDL keeps the keyword.
+        String canonical = CatalogSchemaTools.toSchema(new StringBuilder(), books, null, false, null, null);
+        assertTrue(canonical.contains("TITLE varchar(100) DICTIONARY"));
+        assertTrue(canonical.contains("COVER varbinary(200) DICTIONARY"));
+        assertFalse(canonical.contains("AUTHOR varchar(100) DICTIONARY"));
+
+        String schema2 =
+            "create table books (cash integer dictionary, PRIMARY KEY(cash));";
+        String error2 = "DICTIONARY column CASH in table BOOKS has type integer, " +
+                "but only VARCHAR and VARBINARY columns can be DICTIONARY columns.";
+        checkDDLErrorMessage(schema2, error2);
+
+        // DICTIONARY is not a reserved word, existing schemas may use it as a name.
+        String schema3 =
+            "create table dictionary (dictionary varchar(100) dictionary, " +
+            "word varchar(100) not null, PRIMARY KEY(word));" +
+            "create index dictionary on dictionary (dictionary);";
+        compiler = new VoltCompiler(false);
+        assertTrue(compileDDL(schema3, compiler));
+        db = compiler.getCatalog().getClusters().get("cluster").getDatabases().get("database");
+        assertTrue(db.getTables().get("DICTIONARY").getColumns().get("DICTIONARY").getDictionary());
+    }
+
     public void testNullablePartitionColumn() throws IOException {
         String schema =
             "create table books (cash integer default 23, title varchar(3) default 'foo', PRIMARY KEY(cash));" +
@@ -1346,6 +1396,14 @@ public class TestVoltCompiler extends TestCase {
                             Pair.of("create table t ( goodvanilla integer not null ); create unique index myhash on t ( goodvanilla );",
                                     IndexType.HASH_TABLE),
                             Pair.of("create table t ( goodhash integer not null primary key );",
+                                    IndexType.BALANCED_TREE),
+                            // A radix tree index is requested by name in the same way,
+                            // and it needs integer columns.
+                            Pair.of("create table t ( goodvanilla integer not null ); create index myradix on t ( goodvanilla );",
+                                    IndexType.ADAPTIVE_RADIX_TREE),
+                            Pair.of("create table t ( goodvanilla bigint not null, constraint good_radix primary key ( goodvanilla ) );",
+                                    IndexType.ADAPTIVE_RADIX_TREE),
+                            Pair.of("create table t ( goodvanilla integer not null ); create index my_radix_tree on t ( goodvanilla );",
                                     IndexType.BALANCED_TREE)
         );
         String[] failing = {
@@ -1357,7 +1415,9 @@ public class TestVoltCompiler extends TestCase {
                 "create table t ( badzotzname varchar(256) not null, constraint badhashconstraint primary key ( badzotzname ) );",
                 // If any of the columns are non-hashable, the index is
                 // not hashable.
-                "create table t ( fld1 integer, fld2 varchar(256), constraint badhashconstraint primary key ( fld1, fld2 ) );"
+                "create table t ( fld1 integer, fld2 varchar(256), constraint badhashconstraint primary key ( fld1, fld2 ) );",
+                // Radix tree indexes only support integer columns.
+                "create table t ( fld1 integer, fld2 varchar(256), constraint badradixconstraint primary key ( fld1, fld2 ) );"
         };
         for (Pair<String, IndexType> cmdPair : passing) {
             // See if we can actually create the table.
@@ -3483,6 +3543,111 @@ public class TestVoltCompiler extends TestCase {
                 );
     }
 
+    public void testGoodTTLTable() throws Exception {
+        Database db;
+        String schema = "create table sessions (id integer not null, last_seen timestamp not null);\n" +
+                        "create index sessions_last_seen on sessions (last_seen);\n" +
+                        "partition table sessions on column id;";
+
+        db = goodDDLAgainstSimpleSchema(
+                schema,
+                "ttl table sessions on column last_seen 30;"
+                );
+        Table sessions = db.getTables().getIgnoreCase("sessions");
+        assertEquals("LAST_SEEN", sessions.getTtlcolumn().getTypeName());
+        assertEquals(30, sessions.getTtlseconds());
+        assertEquals(1000, sessions.getTtlbatchsize());
+
+        db = goodDDLAgainstSimpleSchema(
+                schema,
+                "TTL TABLE SESSIONS ON COLUMN LAST_SEEN 2 HOURS BATCH_SIZE 50;"
+                );
+        sessions = db.getTables().getIgnoreCase("sessions");
+        assertEquals(7200, sessions.getTtlseconds());
+        assertEquals(50, sessions.getTtlbatchsize());
+
+        // TTL statement is order sensitive
+        db = goodDDLAgainstSimpleSchema(
+                schema,
+                "ttl table sessions on column last_seen 1 days;",
+                "ttl table sessions disable;"
+                );
+        assertNull(db.getTables().getIgnoreCase("sessions").getTtlcolumn());
+
+        // Dropping the column drops the time to live
+        db = goodDDLAgainstSimpleSchema(
+                schema,
+                "ttl table sessions on column last_seen 10 minutes;",
+                "alter table sessions drop column last_seen cascade;"
+                );
+        assertNull(db.getTables().getIgnoreCase("sessions").getTtlcolumn());
+    }
+
+    public void testBadTTLTable() throws Exception {
+        String schema = "create table sessions (id integer not null, last_seen timestamp, name varchar(16));\n" +
+                        "create index sessions_last_seen on sessions (last_seen);\n";
+
+        badDDLAgainstSimpleSchema(".+\\sttl, table non_existant was not present in the catalog.*",
+                "ttl table non_existant on column last_seen 10;"
+                );
+
+        badDDLAgainstSimpleSchema(".*Invalid TTL statement: column NOPE does not exist in table SESSIONS.*",
+                schema,
+                "ttl table sessions on column nope 10;"
+                );
+
+        badDDLAgainstSimpleSchema(".*column NAME of table SESSIONS must be of type TIMESTAMP.*",
+                schema,
+                "ttl table sessions on column name 10;"
+                );
+
+        badDDLAgainstSimpleSchema(".+time to live for table sessions must be between 1 and.*",
+                schema,
+                "ttl table sessions on column last_seen 0;"
+                );
+
+        badDDLAgainstSimpleSchema(".+time to live for table sessions must be between 1 and.*",
+                schema,
+                "ttl table sessions on column last_seen 100000 days;"
+                );
+
+        badDDLAgainstSimpleSchema(".+Invalid TTL statement: table user_stream is a stream.*",
+                "create stream user_stream (id integer not null, last_seen timestamp);",
+                "ttl table user_stream on column last_seen 10;"
+                );
+
+        badDDLAgainstSimpleSchema(".+Invalid TTL TABLE statement.*",
+                schema,
+                "ttl table sessions on column last_seen;"
+                );
+
+        badDDLAgainstSimpleSchema(".+Invalid TTL TABLE statement.*",
+                schema,
+                "ttl table sessions on column last_seen 10 weeks;"
+                );
+
+        badDDLAgainstSimpleSchema(".+time to live for table sessions must be between 1 and.*",
+                schema,
+                "ttl table sessions on column last_seen 99999999999999999999999 seconds;"
+                );
+
+        badDDLAgainstSimpleSchema(".+time to live for table sessions must be between 1 and.*",
+                schema,
+                "ttl table sessions on column last_seen 9223372036854775807 days;"
+                );
+
+        badDDLAgainstSimpleSchema(".+BATCH_SIZE for table sessions must be a positive integer.*",
+                schema,
+                "ttl table sessions on column last_seen 10 batch_size 99999999999999999999999;"
+                );
+
+        badDDLAgainstSimpleSchema(".+table SESSIONS needs a tree index whose first column is TTL column LAST_SEEN.*",
+                "create table sessions (id integer not null, last_seen timestamp);\n" +
+                "create index sessions_id_last_seen on sessions (id, last_seen);\n",
+                "ttl table sessions on column last_seen 10;"
+                );
+    }
+
     public void testCompileFromDDL() throws IOException {
         String schema1 =
                 "create table table1r_el " +
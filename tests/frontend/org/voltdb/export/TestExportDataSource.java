@@ -0,0 +1,267 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2017 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.export;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.voltcore.utils.DBBPool.BBContainer;
+import org.voltdb.MockVoltDB;
+import org.voltdb.VoltDB;
+import org.voltdb.VoltTable;
+import org.voltdb.VoltTable.ColumnInfo;
+import org.voltdb.VoltType;
+import org.voltdb.catalog.Table;
+import org.voltdb.utils.VoltFile;
+
+import com.google_voltpatches.common.util.concurrent.ListenableFuture;
+
+public class TestExportDataSource {
+
+    private static final File TEST_DIR = new File("/tmp/" + System.getProperty("user.name") + "/exportdatasource");
+    private static final int ROWS_PER_BLOCK = 2;
+    private static final int ROW_BYTES = 16;
+    private static final int BLOCK_BYTES = ROWS_PER_BLOCK * (4 + ROW_BYTES);
+
+    private MockVoltDB m_volt;
+    private ExportDataSource m_source;
+    private long m_nextUso = 0;
+
+    @Before
+    public void setUp() throws Exception {
+        if (TEST_DIR.exists()) {
+            VoltFile.recursivelyDelete(TEST_DIR);
+        }
+        TEST_DIR.mkdirs();
+        m_volt = new MockVoltDB();
+        m_volt.addTable("T", false);
+        m_volt.addColumnToTable("T", "ID", VoltType.INTEGER, false, "0", VoltType.INTEGER);
+        VoltDB.replaceVoltDBInstanceForTest(m_volt);
+
+        Table table = m_volt.getTable("T");
+        m_source = new ExportDataSource(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }, "database", table.getTypeName(), 1, table.getSignature(), 0L,
+        table.getColumns(), null, TEST_DIR.getAbsolutePath());
+        // Only the master polls past the last ack
+        m_source.setMaster();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        m_source.closeAndDelete().get();
+        m_volt.shutdown(null);
+        VoltFile.recursivelyDelete(TEST_DIR);
+    }
+
+    /*
+     * A block as pushed by the EE, header space followed by length prefixed rows
+     */
+    private void pushBlock() {
+        ByteBuffer buf = ByteBuffer.allocateDirect(StreamBlock.HEADER_SIZE + BLOCK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buf.position(StreamBlock.HEADER_SIZE);
+        for (int ii = 0; ii < ROWS_PER_BLOCK; ii++) {
+            buf.putInt(ROW_BYTES);
+            buf.position(buf.position() + ROW_BYTES);
+        }
+        // The USO header is written in the default byte order
+        buf.clear();
+        buf.order(ByteOrder.BIG_ENDIAN);
+        m_source.pushExportBuffer(m_nextUso, buf, false, false);
+        m_nextUso += BLOCK_BYTES;
+    }
+
+    /*
+     * Tasks run in order on the executor of the source, so once a sync is done
+     * everything submitted before it is done as well
+     */
+    private void drainExecutor() throws Exception {
+        m_source.sync(true).get();
+    }
+
+    private static int column(ExportStats stats, String name) {
+        final List<ColumnInfo> columns = stats.getColumnSchema();
+        return new VoltTable(columns.toArray(new ColumnInfo[columns.size()])).getColumnIndex(name);
+    }
+
+    private BBContainer poll() throws Exception {
+        return m_source.poll().get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testAcksWaitForOldestOutstandingBlock() throws Exception {
+        for (int ii = 0; ii < 3; ii++) {
+            pushBlock();
+        }
+        BBContainer first = poll();
+        BBContainer second = poll();
+        BBContainer third = poll();
+        drainExecutor();
+        assertEquals(3, m_source.getOutstandingPollCount());
+
+        // Later blocks finished first can't be acked before the first one
+        third.discard();
+        second.discard();
+        drainExecutor();
+        assertEquals(0, m_source.getTuplesAcked());
+        assertEquals(3, m_source.getOutstandingPollCount());
+        assertTrue(m_source.getLagMillis() >= 0);
+
+        first.discard();
+        drainExecutor();
+        assertEquals(3 * ROWS_PER_BLOCK, m_source.getTuplesAcked());
+        assertEquals(0, m_source.getOutstandingPollCount());
+        assertEquals(0, m_source.getLagMillis());
+        assertEquals(0, m_source.getBytesInMemory());
+    }
+
+    @Test
+    public void testCancelledPollDoesNotHoldBackAcks() throws Exception {
+        // Nothing to poll yet, so the poll waits for the next push
+        ListenableFuture<BBContainer> cancelled = m_source.poll();
+        drainExecutor();
+        assertTrue(cancelled.cancel(false));
+
+        pushBlock();
+        drainExecutor();
+        assertEquals(0, m_source.getOutstandingPollCount());
+
+        // The block that could not be handed out is polled again
+        BBContainer cont = poll();
+        assertEquals(BLOCK_BYTES, cont.b().remaining());
+        cont.discard();
+        drainExecutor();
+        assertEquals(ROWS_PER_BLOCK, m_source.getTuplesAcked());
+        assertEquals(0, m_source.getOutstandingPollCount());
+    }
+
+    @Test
+    public void testNewMasterForgetsOutstandingPolls() throws Exception {
+        pushBlock();
+        pushBlock();
+        BBContainer first = poll();
+        drainExecutor();
+        assertEquals(1, m_source.getOutstandingPollCount());
+
+        // The processor that polled the block is replaced by the one started on mastership
+        m_source.setOnMastership(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+        m_source.acceptMastership();
+        drainExecutor();
+        assertEquals(0, m_source.getOutstandingPollCount());
+        first.discard();
+        drainExecutor();
+        assertEquals(0, m_source.getTuplesAcked());
+    }
+
+    @Test
+    public void testPushTimesAreBoundedWithoutProcessor() throws Exception {
+        for (int ii = 0; ii < ExportDataSource.MAX_TRACKED_PUSHES + 10; ii++) {
+            pushBlock();
+        }
+        drainExecutor();
+        assertEquals(ExportDataSource.MAX_TRACKED_PUSHES, m_source.getTrackedPushCount());
+
+        // Acking everything still clears the lag
+        for (int ii = 0; ii < ExportDataSource.MAX_TRACKED_PUSHES + 10; ii++) {
+            poll().discard();
+        }
+        drainExecutor();
+        assertEquals(0, m_source.getTrackedPushCount());
+        assertEquals(0, m_source.getLagMillis());
+    }
+
+    @Test
+    public void testPollPrefetchesBlocksFromOverflow() throws Exception {
+        final int blocks = ExportDataSource.EXPORT_PREFETCH_BLOCKS + 4;
+        for (int ii = 0; ii < blocks; ii++) {
+            pushBlock();
+        }
+        drainExecutor();
+        // Only the first two blocks are kept in memory, the rest overflow to disk
+        assertEquals(2 * BLOCK_BYTES, m_source.getBytesInMemory());
+
+        BBContainer cont = poll();
+        drainExecutor();
+        assertEquals((1 + ExportDataSource.EXPORT_PREFETCH_BLOCKS) * BLOCK_BYTES, m_source.getBytesInMemory());
+        cont.discard();
+        drainExecutor();
+    }
+
+    @Test
+    public void testExportStatistics() throws Exception {
+        ExportStats stats = new ExportStats() {
+            @Override
+            protected List<ExportDataSource> getDataSources() {
+                return new ArrayList<ExportDataSource>(Arrays.asList(m_source));
+            }
+        };
+
+        pushBlock();
+        pushBlock();
+        BBContainer first = poll();
+        drainExecutor();
+
+        Object[][] rows = stats.getStatsRows(false, System.currentTimeMillis());
+        assertEquals(1, rows.length);
+        Object[] row = rows[0];
+        assertEquals(1, row[column(stats, "PARTITION_ID")]);
+        assertEquals("T", row[column(stats, "SOURCE")]);
+        assertEquals(0L, row[column(stats, "TUPLES_ACKED")]);
+        assertTrue((Long) row[column(stats, "LAG_MILLIS")] >= 0);
+        assertEquals((long) (2 * BLOCK_BYTES), row[column(stats, "BYTES_IN_MEMORY")]);
+
+        first.discard();
+        drainExecutor();
+        rows = stats.getStatsRows(false, System.currentTimeMillis());
+        row = rows[0];
+        assertEquals((long) ROWS_PER_BLOCK, row[column(stats, "TUPLES_ACKED")]);
+        assertEquals((long) BLOCK_BYTES, row[column(stats, "BYTES_IN_MEMORY")]);
+
+        // Interval statistics only count the rows acked since the last interval
+        stats.getStatsRows(true, System.currentTimeMillis());
+        BBContainer second = poll();
+        second.discard();
+        drainExecutor();
+        rows = stats.getStatsRows(true, System.currentTimeMillis());
+        assertEquals((long) ROWS_PER_BLOCK, rows[0][column(stats, "TUPLES_ACKED")]);
+        assertEquals(0L, rows[0][column(stats, "LAG_MILLIS")]);
+    }
+}
@@ -0,0 +1,124 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2017 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.iv2;
+
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.voltcore.messaging.Mailbox;
+import org.voltdb.ParameterSet;
+import org.voltdb.StoredProcedureInvocation;
+import org.voltdb.messaging.Iv2InitiateTaskMessage;
+
+public class TestMpScheduler extends TestCase
+{
+    static final String MockMPName = "MOCKMP";
+    static final long mpi_hsid = 11223344l;
+    static final List<Long> buddyHSIds = Arrays.asList(101l, 102l, 103l);
+
+    MpRoSitePool m_MPpool;
+    MpScheduler m_dut;
+
+    @Override
+    public void setUp()
+    {
+        Mailbox mbox = mock(Mailbox.class);
+        when(mbox.getHSId()).thenReturn(mpi_hsid);
+        m_MPpool = mock(MpRoSitePool.class);
+        when(m_MPpool.canAcceptWork()).thenReturn(true);
+
+        m_dut = new MpScheduler(MpInitiator.MP_INIT_PID, buddyHSIds, mock(SiteTaskerQueue.class));
+        m_dut.setMailbox(mbox);
+        m_dut.setMpRoSitePool(m_MPpool);
+        m_dut.setLeaderState(true);
+    }
+
+    private Iv2InitiateTaskMessage createReadMsg(long txnId)
+    {
+        StoredProcedureInvocation spi = mock(StoredProcedureInvocation.class);
+        when(spi.getProcName()).thenReturn(MockMPName);
+        when(spi.getParams()).thenReturn(mock(ParameterSet.class));
+        Iv2InitiateTaskMessage msg =
+            new Iv2InitiateTaskMessage(mpi_hsid, // initHSID
+                                       Long.MIN_VALUE, // coordHSID
+                                       Long.MIN_VALUE, // truncationHandle
+                                       txnId,     // txnId
+                                       UniqueIdGenerator.makeIdFromComponents(System.currentTimeMillis(), 0, 0), // uniqueID
+                                       true, // readonly
+                                       false, // single-part
+                                       spi, // invocation
+                                       Long.MAX_VALUE, // client interface handle
+                                       Long.MAX_VALUE, // connectionId
+                                       false); // isForReplay
+        return msg;
+    }
+
+    // The buddy sites, in order, that the MP reads handed to the pool so far
+    // were given to run their coordinator fragments.
+    private List<Long> buddiesOfStartedReads()
+    {
+        ArrayList<Long> buddies = new ArrayList<Long>();
+        ArgumentCaptor<TransactionTask> tasks = ArgumentCaptor.forClass(TransactionTask.class);
+        verify(m_MPpool, atLeastOnce()).doWork(anyLong(), tasks.capture());
+        for (TransactionTask task : tasks.getAllValues()) {
+            buddies.add(((MpTransactionState)task.getTransactionState()).m_buddyHSId);
+        }
+        return buddies;
+    }
+
+    // Consecutive MP reads borrow each of the local sites in turn
+    @Test
+    public void testInitiateRotatesBuddy()
+    {
+        TxnEgo txnId = TxnEgo.makeZero(MpInitiator.MP_INIT_PID);
+        for (int i = 0; i < 4; i++) {
+            txnId = txnId.makeNext();
+            m_dut.handleIv2InitiateTaskMessage(createReadMsg(txnId.getTxnId()));
+        }
+        assertEquals(Arrays.asList(101l, 102l, 103l, 101l), buddiesOfStartedReads());
+    }
+
+    // Restarted MP reads borrow each of the local sites in turn as well
+    @Test
+    public void testRepairRotatesBuddy()
+    {
+        TxnEgo txnId = TxnEgo.makeZero(MpInitiator.MP_INIT_PID);
+        for (int i = 0; i < 4; i++) {
+            txnId = txnId.makeNext();
+            m_dut.handleMessageRepair(new ArrayList<Long>(), createReadMsg(txnId.getTxnId()));
+        }
+        assertEquals(Arrays.asList(101l, 102l, 103l, 101l), buddiesOfStartedReads());
+    }
+}
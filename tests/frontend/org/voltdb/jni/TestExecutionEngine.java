@@ -23,8 +23,10 @@
 
 package org.voltdb.jni;
 
+import java.io.File;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -33,8 +35,11 @@ import junit.framework.TestCase;
 import org.voltcore.messaging.RecoveryMessageType;
 import org.voltcore.utils.DBBPool;
 import org.voltcore.utils.DBBPool.BBContainer;
+import org.voltcore.utils.Pair;
+import org.voltdb.DefaultSnapshotDataTarget;
 import org.voltdb.LegacyHashinator;
 import org.voltdb.PrivateVoltTableFactory;
+import org.voltdb.SnapshotSiteProcessor;
 import org.voltdb.StatsSelector;
 import org.voltdb.TableStreamType;
 import org.voltdb.TheHashinator.HashinatorConfig;
@@ -47,6 +52,9 @@ import org.voltdb.catalog.Catalog;
 import org.voltdb.exceptions.EEException;
 import org.voltdb.expressions.HashRangeExpressionBuilder;
 import org.voltdb.sysprocs.saverestore.SnapshotPredicates;
+import org.voltdb.utils.CatalogUtil;
+
+import com.google_voltpatches.common.util.concurrent.Callables;
 
 /**
  * Tests native execution engine JNI interface.
@@ -236,6 +244,50 @@ public class TestExecutionEngine extends TestCase {
         }
     }
 
+    public void testContentDigestMatchesSnapshotRows() throws Exception {
+        sourceEngine.loadCatalog( 0, m_catalog.serialize());
+
+        int WAREHOUSE_TABLEID = warehouseTableId(m_catalog);
+        int STOCK_TABLEID = stockTableId(m_catalog);
+        assertEquals(0, sourceEngine.tableContentDigest(STOCK_TABLEID));
+
+        loadTestTables( sourceEngine, m_catalog);
+        final long digest = sourceEngine.tableContentDigest(STOCK_TABLEID);
+        assertTrue(digest != 0);
+        assertTrue(digest != sourceEngine.tableContentDigest(WAREHOUSE_TABLEID));
+
+        // The digest the snapshot data target computes over the streamed rows is the same
+        File file = File.createTempFile("TestExecutionEngine", ".vpt");
+        try {
+            DefaultSnapshotDataTarget target = new DefaultSnapshotDataTarget(file, 0, "cluster", "database",
+                    "STOCK", 1, false, Arrays.asList(0),
+                    CatalogUtil.getVoltTable(m_catalog.getClusters().get("cluster").getDatabases().get("database")
+                            .getTables().get("STOCK")),
+                    1L, System.currentTimeMillis());
+            target.trackContentDigest();
+            sourceEngine.activateTableStream(STOCK_TABLEID, TableStreamType.SNAPSHOT, Long.MAX_VALUE,
+                                             new SnapshotPredicates(-1).toBytes());
+            long remaining;
+            do {
+                BBContainer container = DBBPool.allocateDirect(SnapshotSiteProcessor.m_snapshotBufferLength);
+                Pair<Long, int[]> serialized = sourceEngine.tableStreamSerializeMore(STOCK_TABLEID,
+                        TableStreamType.SNAPSHOT, Arrays.asList(container));
+                remaining = serialized.getFirst();
+                if (serialized.getSecond()[0] > 0) {
+                    container.b().limit(serialized.getSecond()[0]);
+                    container.b().position(0);
+                    target.write(Callables.returning(container), STOCK_TABLEID).get();
+                } else {
+                    container.discard();
+                }
+            } while (remaining > 0);
+            target.close();
+            assertEquals(Long.valueOf(digest), target.getContentDigest());
+        } finally {
+            file.delete();
+        }
+    }
+
     private int warehouseTableId(Catalog catalog) {
         return catalog.getClusters().get("cluster").getDatabases().get("database").getTables().get("WAREHOUSE").getRelativeIndex();
     }
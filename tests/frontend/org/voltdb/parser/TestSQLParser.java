@@ -67,6 +67,9 @@ public class TestSQLParser extends TestCase {
         assertTrue(SQLParser.appearsToBeValidDDLBatch(
                 "set abc=123;"));
 
+        assertTrue(SQLParser.appearsToBeValidDDLBatch(
+                "ttl table t on column ts 10 minutes;"));
+
         // Now test multiple statements and comments...
 
         assertTrue(SQLParser.appearsToBeValidDDLBatch(
@@ -795,6 +795,121 @@ public class EEPlanTestGenerator extends PlannerTestCase {
         generateTests("executors", "TestWindowedRank", rankDB);
     }
 
+    public void testGeneratedWindowedFramePlan() throws Exception {
+        TableConfig TConfig = new TableConfig("T",
+                                                new String[] {"A", "B", "C"},
+                                                new int[][] {
+                                                    // A   B     C
+                                                    //-------------
+                                                    {  1,  5,    1},
+                                                    {  1,  3,    2},
+                                                    {  1,  8,    3},
+                                                    {  1,  1,    4},
+                                                    {  1,  6,    5},
+                                                    //--------------------------------------
+                                                    {  2,  4,    1},
+                                                    {  2,  7,    2},
+                                                    {  2,  2,    3},
+                                                });
+        DBConfig frameDB = new DBConfig(getClass(),
+                                   EEPlanTestGenerator.class.getResource(DDL_FILENAME),
+                                   getCatalogString(),
+                                   TConfig);
+        // The frames are ordered by C, which is unique in each partition,
+        // so which rows are in a frame does not depend on the sort.
+        frameDB.addTest(new TestConfig("test_sum_rows_preceding",
+                                  "select A, C, sum(B) over (partition by A order by C rows 2 preceding) as R from T ORDER BY A, C;",
+                                  new int[][] {
+                                  // A   C    R
+                                  //--------------------------------------
+                                  {  1,  1,   5},
+                                  {  1,  2,   8},
+                                  {  1,  3,  16},
+                                  {  1,  4,  12},
+                                  {  1,  5,  15},
+                                  //--------------------------------------
+                                  {  2,  1,   4},
+                                  {  2,  2,  11},
+                                  {  2,  3,  13},
+        }));
+        frameDB.addTest(new TestConfig("test_sum_rows_unbounded_preceding",
+                                  "select A, C, sum(B) over (partition by A order by C rows unbounded preceding) as R from T ORDER BY A, C;",
+                                  new int[][] {
+                                  // A   C    R
+                                  //--------------------------------------
+                                  {  1,  1,   5},
+                                  {  1,  2,   8},
+                                  {  1,  3,  16},
+                                  {  1,  4,  17},
+                                  {  1,  5,  23},
+                                  //--------------------------------------
+                                  {  2,  1,   4},
+                                  {  2,  2,  11},
+                                  {  2,  3,  13},
+        }));
+        frameDB.addTest(new TestConfig("test_sum_rows_current_row",
+                                  "select A, C, sum(B) over (partition by A order by C rows current row) as R from T ORDER BY A, C;",
+                                  new int[][] {
+                                  // A   C    R
+                                  //--------------------------------------
+                                  {  1,  1,   5},
+                                  {  1,  2,   3},
+                                  {  1,  3,   8},
+                                  {  1,  4,   1},
+                                  {  1,  5,   6},
+                                  //--------------------------------------
+                                  {  2,  1,   4},
+                                  {  2,  2,   7},
+                                  {  2,  3,   2},
+        }));
+        frameDB.addTest(new TestConfig("test_count_rows_between",
+                                  "select A, C, count(B) over (partition by A order by C rows between 1 preceding and current row) as R from T ORDER BY A, C;",
+                                  new int[][] {
+                                  // A   C    R
+                                  //--------------------------------------
+                                  {  1,  1,   1},
+                                  {  1,  2,   2},
+                                  {  1,  3,   2},
+                                  {  1,  4,   2},
+                                  {  1,  5,   2},
+                                  //--------------------------------------
+                                  {  2,  1,   1},
+                                  {  2,  2,   2},
+                                  {  2,  3,   2},
+        }));
+        frameDB.addTest(new TestConfig("test_min_rows_between",
+                                  "select A, C, min(B) over (partition by A order by C rows between 1 preceding and current row) as R from T ORDER BY A, C;",
+                                  new int[][] {
+                                  // A   C    R
+                                  //--------------------------------------
+                                  {  1,  1,   5},
+                                  {  1,  2,   3},
+                                  {  1,  3,   3},
+                                  {  1,  4,   1},
+                                  {  1,  5,   1},
+                                  //--------------------------------------
+                                  {  2,  1,   4},
+                                  {  2,  2,   4},
+                                  {  2,  3,   2},
+        }));
+        frameDB.addTest(new TestConfig("test_max_rows_preceding",
+                                  "select A, C, max(B) over (partition by A order by C rows 2 preceding) as R from T ORDER BY A, C;",
+                                  new int[][] {
+                                  // A   C    R
+                                  //--------------------------------------
+                                  {  1,  1,   5},
+                                  {  1,  2,   5},
+                                  {  1,  3,   8},
+                                  {  1,  4,   8},
+                                  {  1,  5,   8},
+                                  //--------------------------------------
+                                  {  2,  1,   4},
+                                  {  2,  2,   7},
+                                  {  2,  3,   7},
+        }));
+        generateTests("executors", "TestWindowedFrames", frameDB);
+    }
+
     @Override
     protected void tearDown() throws Exception {
         super.tearDown();
@@ -138,4 +138,40 @@ public class TestIndexCoveringPlans extends PlannerTestCase {
         assertTrue(pn instanceof IndexScanPlanNode);
     }
 
+    public void testIndexOnlyScan()
+    {
+        // Every column read is in COVER2_TREE, so the scan never
+        // needs to read the table's tuples.
+        IndexScanPlanNode ispn = compileToIndexScan("select a, b from t where a = ? and b < ?;");
+        assertEquals("COVER2_TREE", ispn.getTargetIndexName());
+        assertTrue(ispn.isCoveringIndexScan());
+        assertTrue(ispn.toJSONString().contains("\"COVERING\":true"));
+
+        // Aggregates over indexed columns are covered too.
+        ispn = compileToIndexScan("select max(b) from t where a = ? and b < ?;");
+        assertTrue(ispn.isCoveringIndexScan());
+
+        // Filtering or projecting a column outside the index needs the tuple.
+        ispn = compileToIndexScan("select a, e from t where a = ? and b < ?;");
+        assertFalse(ispn.isCoveringIndexScan());
+        assertFalse(ispn.toJSONString().contains("COVERING"));
+
+        ispn = compileToIndexScan("select a from t where a = ? and b < ? and e > 0;");
+        assertFalse(ispn.isCoveringIndexScan());
+
+        // Selecting all the columns is never covered by a narrower index.
+        ispn = compileToIndexScan("select * from t where a = ? and b < ?;");
+        assertFalse(ispn.isCoveringIndexScan());
+    }
+
+    private IndexScanPlanNode compileToIndexScan(String sql)
+    {
+        AbstractPlanNode pn = compile(sql);
+        while (pn != null && ! (pn instanceof IndexScanPlanNode)) {
+            pn = (pn.getChildCount() > 0) ? pn.getChild(0) : null;
+        }
+        assertTrue(pn instanceof IndexScanPlanNode);
+        return (IndexScanPlanNode)pn;
+    }
+
 }
@@ -23,6 +23,7 @@
 
 package org.voltdb.planner;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
@@ -1316,6 +1317,54 @@ public class TestPlansJoin extends PlannerTestCase {
                 ExpressionType.VALUE_TUPLE, ExpressionType.VALUE_TUPLE);
     }
 
+    public void testSemiJoinFilterKeys() {
+        String query;
+        AbstractPlanNode pn;
+        NestLoopPlanNode nlj;
+        List<AbstractExpression> outerKeys;
+        List<AbstractExpression> innerKeys;
+
+        // Equalities between the outer and inner tables are keys,
+        // with the outer side first whatever the order in the query.
+        // R1.C + R1.D is a BIGINT, so it can't be hashed like R2.C.
+        query = "SELECT * FROM R1 JOIN R2 ON R2.A = R1.A AND R1.C + R1.D = R2.C AND R1.D > R2.C";
+        pn = compileToTopDownTree(query, 5, PlanNodeType.SEND,
+                PlanNodeType.PROJECTION,
+                PlanNodeType.NESTLOOP,
+                PlanNodeType.SEQSCAN,
+                PlanNodeType.SEQSCAN);
+        nlj = (NestLoopPlanNode) followAssertedLeftChain(pn,
+                PlanNodeType.SEND,
+                PlanNodeType.PROJECTION,
+                PlanNodeType.NESTLOOP);
+        outerKeys = new ArrayList<>();
+        innerKeys = new ArrayList<>();
+        nlj.findSemiJoinKeys(outerKeys, innerKeys);
+        assertEquals(1, outerKeys.size());
+        assertEquals(1, innerKeys.size());
+        assertEquals(ExpressionType.VALUE_TUPLE, outerKeys.get(0).getExpressionType());
+        assertEquals(0, ((TupleValueExpression) outerKeys.get(0)).getTableIndex());
+        assertEquals(1, ((TupleValueExpression) innerKeys.get(0)).getTableIndex());
+        assertTrue(nlj.toJSONString().contains("SEMIJOIN_OUTER_KEYS"));
+
+        // No equalities, no keys.
+        query = "SELECT * FROM R1 JOIN R2 ON R1.A > R2.A";
+        pn = compileToTopDownTree(query, 5, PlanNodeType.SEND,
+                PlanNodeType.PROJECTION,
+                PlanNodeType.NESTLOOP,
+                PlanNodeType.SEQSCAN,
+                PlanNodeType.SEQSCAN);
+        nlj = (NestLoopPlanNode) followAssertedLeftChain(pn,
+                PlanNodeType.SEND,
+                PlanNodeType.PROJECTION,
+                PlanNodeType.NESTLOOP);
+        outerKeys = new ArrayList<>();
+        innerKeys = new ArrayList<>();
+        nlj.findSemiJoinKeys(outerKeys, innerKeys);
+        assertTrue(outerKeys.isEmpty());
+        assertFalse(nlj.toJSONString().contains("SEMIJOIN_OUTER_KEYS"));
+    }
+
     public void testDistributedInnerJoin() {
         for (JoinOp joinOp : JoinOp.JOIN_OPS) {
             perJoinOpTestDistributedInnerJoin(joinOp);
@@ -193,6 +193,23 @@ public class TestPlansOrderBy extends PlannerTestCase {
         validateIndexedBruteForcePlan("SELECT * FROM Tmanykeys ORDER BY T_D2");
     }
 
+    public void testOrderByLimitIsTopN() {
+        AbstractPlanNode pn = compile("SELECT * FROM Tnokey ORDER BY T_D2 LIMIT 10");
+        List<AbstractPlanNode> orderBys = pn.findAllNodesOfType(PlanNodeType.ORDERBY);
+        assertEquals(1, orderBys.size());
+        OrderByPlanNode obpn = (OrderByPlanNode) orderBys.get(0);
+        assertNotNull(obpn.getInlinePlanNode(PlanNodeType.LIMIT));
+        assertTrue(obpn.isTopN());
+        assertTrue(obpn.toJSONString().contains("\"TOP_N\":true"));
+
+        pn = compile("SELECT * FROM Tnokey ORDER BY T_D2");
+        orderBys = pn.findAllNodesOfType(PlanNodeType.ORDERBY);
+        assertEquals(1, orderBys.size());
+        obpn = (OrderByPlanNode) orderBys.get(0);
+        assertFalse(obpn.isTopN());
+        assertFalse(obpn.toJSONString().contains("TOP_N"));
+    }
+
     public void testOrderByNLIJ()
     {
         validatePlan("SELECT Tnokey.T_D1, T.T_D0, T.T_D1 from Tnokey, T " +
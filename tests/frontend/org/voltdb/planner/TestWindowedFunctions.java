@@ -47,6 +47,7 @@ import java.util.List;
 
 import org.voltdb.expressions.AbstractExpression;
 import org.voltdb.expressions.TupleValueExpression;
+import org.voltdb.expressions.WindowFunctionExpression;
 import org.voltdb.plannodes.AbstractPlanNode;
 import org.voltdb.plannodes.NestLoopPlanNode;
 import org.voltdb.plannodes.NodeSchema;
@@ -541,6 +542,53 @@ public class TestWindowedFunctions extends PlannerTestCase {
         failToCompile("SELECT COUNT(DISTINCT A+B) OVER (PARTITION BY A ORDER BY B) AS ARANK FROM AAA",
                       "DISTINCT is not allowed in window functions.");
     }
+    public void testRowsFrame() {
+        String windowedQuery;
+
+        windowedQuery = "SELECT A, SUM(B) OVER (PARTITION BY A ORDER BY C ROWS BETWEEN 2 PRECEDING AND CURRENT ROW) FROM AAA;";
+        validateRowsFrame(windowedQuery, 2);
+
+        windowedQuery = "SELECT A, MIN(B) OVER (PARTITION BY A ORDER BY C ROWS 3 PRECEDING) FROM AAA;";
+        validateRowsFrame(windowedQuery, 3);
+
+        windowedQuery = "SELECT A, MAX(B) OVER (ORDER BY C ROWS CURRENT ROW) FROM AAA;";
+        validateRowsFrame(windowedQuery, 0);
+
+        windowedQuery = "SELECT A, COUNT(*) OVER (PARTITION BY A ORDER BY C ROWS UNBOUNDED PRECEDING) FROM AAA;";
+        validateRowsFrame(windowedQuery, WindowFunctionExpression.UNBOUNDED_PRECEDING);
+
+        // The RANGE frame which is the same as the default frame
+        // is accepted, but it's not a ROWS frame.
+        windowedQuery = "SELECT A, SUM(B) OVER (PARTITION BY A ORDER BY C RANGE BETWEEN UNBOUNDED PRECEDING AND CURRENT ROW) FROM AAA;";
+        validateRowsFrame(windowedQuery, WindowFunctionExpression.NO_ROWS_FRAME);
+
+        windowedQuery = "SELECT A, SUM(B) OVER (PARTITION BY A ORDER BY C ROWS 5 PRECEDING) FROM AAA;";
+        String explainPlanText = compile(windowedQuery).toExplainPlanString();
+        String expected = "AGGREGATE_WINDOWED_SUM() over ROWS 5 PRECEDING";
+        assertTrue("Expected to find \"" + expected + "\" in explain plan text, but did not:\n"
+                + explainPlanText, explainPlanText.contains(expected));
+    }
+
+    private void validateRowsFrame(String windowedQuery, int rowsPreceding) {
+        AbstractPlanNode node = compile(windowedQuery);
+        while (node != null && ! (node instanceof WindowFunctionPlanNode)) {
+            node = (node.getChildCount() > 0) ? node.getChild(0) : null;
+        }
+        assertNotNull(node);
+        WindowFunctionPlanNode pbPlanNode = (WindowFunctionPlanNode)node;
+        assertEquals(rowsPreceding != WindowFunctionExpression.NO_ROWS_FRAME, pbPlanNode.hasRowsFrame());
+        assertEquals(rowsPreceding, pbPlanNode.getRowsFramePreceding());
+    }
+
+    public void testRowsFrameFailures() {
+        failToCompile("SELECT RANK() OVER (PARTITION BY A ORDER BY B ROWS 2 PRECEDING) FROM AAA;",
+                      "does not allow a window frame");
+        failToCompile("SELECT SUM(B) OVER (PARTITION BY A ROWS 2 PRECEDING) FROM AAA;",
+                      "A ROWS window frame requires an ORDER BY clause in the window.");
+        failToCompile("SELECT SUM(B) OVER (PARTITION BY A ORDER BY C RANGE 2 PRECEDING) FROM AAA;",
+                      "Only RANGE UNBOUNDED PRECEDING window frames are supported.");
+    }
+
     public void testExplainPlanText() {
         String windowedQuery = "SELECT RANK() OVER (PARTITION BY A ORDER BY B DESC) FROM AAA;";
         AbstractPlanNode plan = compile(windowedQuery);
@@ -54,7 +54,7 @@ public class TestEmptySchema extends RegressionSuite
 
         // Even running should be an improvement (ENG-4645), but do something just to be sure
         // Also, check to be sure we get a full schema for the table and index stats
-        ColumnInfo[] expectedSchema = new ColumnInfo[13];
+        ColumnInfo[] expectedSchema = new ColumnInfo[19];
         expectedSchema[0] = new ColumnInfo("TIMESTAMP", VoltType.BIGINT);
         expectedSchema[1] = new ColumnInfo("HOST_ID", VoltType.INTEGER);
         expectedSchema[2] = new ColumnInfo("HOSTNAME", VoltType.STRING);
@@ -68,6 +68,12 @@ public class TestEmptySchema extends RegressionSuite
         expectedSchema[10] = new ColumnInfo("STRING_DATA_MEMORY", VoltType.BIGINT);
         expectedSchema[11] = new ColumnInfo("TUPLE_LIMIT", VoltType.INTEGER);
         expectedSchema[12] = new ColumnInfo("PERCENT_FULL", VoltType.INTEGER);
+        expectedSchema[13] = new ColumnInfo("COMPACTION_RECLAIMED_MEMORY", VoltType.BIGINT);
+        expectedSchema[14] = new ColumnInfo("COMPACTION_MAX_PAUSE", VoltType.BIGINT);
+        expectedSchema[15] = new ColumnInfo("MINMAX_FALLBACKS", VoltType.BIGINT);
+        expectedSchema[16] = new ColumnInfo("MINMAX_FALLBACK_SCANS", VoltType.BIGINT);
+        expectedSchema[17] = new ColumnInfo("TTL_ROWS_EXPIRED", VoltType.BIGINT);
+        expectedSchema[18] = new ColumnInfo("TTL_BACKLOG", VoltType.BIGINT);
         VoltTable expectedTable = new VoltTable(expectedSchema);
 
         VoltTable[] results = client.callProcedure("@Statistics", "TABLE", 0).getResults();
@@ -0,0 +1,198 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2017 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.voltdb.sysprocs.saverestore;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.voltdb.utils.VoltFile;
+
+import junit.framework.TestCase;
+
+public class TestIncrementalSnapshotTracker extends TestCase {
+
+    private static final File TEST_DIR =
+            new File("/tmp/" + System.getProperty("user.name") + "/incrementalsnapshottracker");
+
+    private File m_dir;
+    private File m_stateFile;
+    private File m_fileA;
+    private File m_fileB;
+
+    private static Map<Integer, Long> stamps(long... values) {
+        Map<Integer, Long> stamps = new HashMap<Integer, Long>();
+        for (int ii = 0; ii < values.length; ii++) {
+            stamps.put(ii, values[ii]);
+        }
+        return stamps;
+    }
+
+    private File getBaseFile(String tableName, Map<Integer, Long> changeStamps) {
+        return IncrementalSnapshotTracker.getBaseFile(m_stateFile, tableName, changeStamps, null);
+    }
+
+    private void recordTableFile(long txnId, String tableName, File file, Map<Integer, Long> changeStamps) {
+        IncrementalSnapshotTracker.recordTableFile(txnId, m_stateFile, tableName, file, changeStamps, false);
+    }
+
+    @Override
+    public void setUp() throws Exception {
+        IncrementalSnapshotTracker.clear();
+        if (TEST_DIR.exists()) {
+            VoltFile.recursivelyDelete(TEST_DIR);
+        }
+        m_dir = new File(TEST_DIR, "snapshots");
+        assertTrue(m_dir.mkdirs());
+        m_stateFile = IncrementalSnapshotTracker.getStateFile(m_dir.getPath(), 0);
+        m_fileA = new File(m_dir, "A.vpt");
+        m_fileB = new File(m_dir, "B.vpt");
+        assertTrue(m_fileA.createNewFile());
+        assertTrue(m_fileB.createNewFile());
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        IncrementalSnapshotTracker.clear();
+        VoltFile.recursivelyDelete(TEST_DIR);
+    }
+
+    public void testBaseOnlyAfterSuccess() {
+        recordTableFile(1, "A", m_fileA, stamps(10, 20));
+        assertNull(getBaseFile("A", stamps(10, 20)));
+
+        IncrementalSnapshotTracker.completeSnapshot(1, false);
+        assertNull(getBaseFile("A", stamps(10, 20)));
+
+        recordTableFile(2, "A", m_fileA, stamps(10, 20));
+        IncrementalSnapshotTracker.completeSnapshot(2, true);
+        assertEquals(m_fileA, getBaseFile("A", stamps(10, 20)));
+    }
+
+    public void testChangedTable() {
+        recordTableFile(1, "A", m_fileA, stamps(10, 20));
+        IncrementalSnapshotTracker.completeSnapshot(1, true);
+
+        // Any partition moving, or a different set of partitions, needs a full write
+        assertNull(getBaseFile("A", stamps(10, 21)));
+        assertNull(getBaseFile("A", stamps(10)));
+        assertNull(getBaseFile("B", stamps(10, 20)));
+    }
+
+    public void testLaterSnapshotReplacesBase() throws Exception {
+        recordTableFile(1, "A", m_fileA, stamps(10));
+        recordTableFile(1, "B", m_fileB, stamps(30));
+        IncrementalSnapshotTracker.completeSnapshot(1, true);
+
+        // Only A was written again, B keeps its base
+        File newFileA = new File(m_dir, "A.vpt.new");
+        assertTrue(newFileA.createNewFile());
+        recordTableFile(2, "A", newFileA, stamps(11));
+        recordTableFile(2, "B", m_fileB, stamps(30));
+        // Completion of an unrelated snapshot is ignored
+        IncrementalSnapshotTracker.completeSnapshot(3, true);
+        assertEquals(m_fileA, getBaseFile("A", stamps(10)));
+
+        IncrementalSnapshotTracker.completeSnapshot(2, true);
+        assertNull(getBaseFile("A", stamps(10)));
+        assertEquals(newFileA, getBaseFile("A", stamps(11)));
+        assertEquals(m_fileB, getBaseFile("B", stamps(30)));
+    }
+
+    public void testDeletedBase() {
+        recordTableFile(1, "A", m_fileA, stamps(10));
+        IncrementalSnapshotTracker.completeSnapshot(1, true);
+        assertTrue(m_fileA.delete());
+        assertNull(getBaseFile("A", stamps(10)));
+    }
+
+    public void testRestartMatchesByDigest() {
+        recordTableFile(1, "A", m_fileA, stamps(10, 20));
+        IncrementalSnapshotTracker.recordContentDigest(1, "A", 42L);
+        // No digest, B can't be matched after a restart
+        recordTableFile(1, "B", m_fileB, stamps(30, 40));
+        IncrementalSnapshotTracker.completeSnapshot(1, true);
+        assertFalse(IncrementalSnapshotTracker.needsContentDigest(m_stateFile, "A"));
+        assertTrue(m_stateFile.exists());
+
+        // Simulate a restart, the change stamps start over
+        IncrementalSnapshotTracker.clear();
+        assertTrue(IncrementalSnapshotTracker.needsContentDigest(m_stateFile, "A"));
+        assertFalse(IncrementalSnapshotTracker.needsContentDigest(m_stateFile, "B"));
+
+        // Stamps that happen to repeat are not trusted
+        assertNull(getBaseFile("A", stamps(10, 20)));
+        assertNull(IncrementalSnapshotTracker.getBaseFile(m_stateFile, "B", stamps(30, 40), stamps(0, 0)));
+        // The file holds the rows of all the local partitions
+        assertNull(IncrementalSnapshotTracker.getBaseFile(m_stateFile, "A", stamps(1, 1), stamps(41, 2)));
+        assertNull(IncrementalSnapshotTracker.getBaseFile(m_stateFile, "A", stamps(1), stamps(42)));
+        assertEquals(m_fileA, IncrementalSnapshotTracker.getBaseFile(m_stateFile, "A", stamps(1, 1), stamps(40, 2)));
+
+        // A file naming the base keeps its digest, and from now on it is matched by stamps
+        IncrementalSnapshotTracker.recordTableFile(2, m_stateFile, "A", m_fileA, stamps(1, 1), false);
+        IncrementalSnapshotTracker.completeSnapshot(2, true);
+        assertFalse(IncrementalSnapshotTracker.needsContentDigest(m_stateFile, "A"));
+        assertEquals(m_fileA, getBaseFile("A", stamps(1, 1)));
+
+        IncrementalSnapshotTracker.clear();
+        assertEquals(m_fileA, IncrementalSnapshotTracker.getBaseFile(m_stateFile, "A", stamps(5, 5), stamps(2, 40)));
+    }
+
+    public void testReplicatedMatchesEveryCopy() {
+        IncrementalSnapshotTracker.recordTableFile(1, m_stateFile, "A", m_fileA, stamps(10, 10), true);
+        IncrementalSnapshotTracker.recordContentDigest(1, "A", 7L);
+        IncrementalSnapshotTracker.completeSnapshot(1, true);
+        IncrementalSnapshotTracker.clear();
+
+        assertNull(IncrementalSnapshotTracker.getBaseFile(m_stateFile, "A", stamps(1, 1), stamps(7, 8)));
+        assertEquals(m_fileA, IncrementalSnapshotTracker.getBaseFile(m_stateFile, "A", stamps(1, 1), stamps(7, 7)));
+    }
+
+    public void testStateFileMovesWithDirectory() {
+        recordTableFile(1, "A", m_fileA, stamps(10));
+        IncrementalSnapshotTracker.recordContentDigest(1, "A", 42L);
+        IncrementalSnapshotTracker.completeSnapshot(1, true);
+        IncrementalSnapshotTracker.clear();
+
+        File movedDir = new File(TEST_DIR, "moved");
+        assertTrue(m_dir.renameTo(movedDir));
+        File movedStateFile = IncrementalSnapshotTracker.getStateFile(movedDir.getPath(), 0);
+        assertEquals(new File(movedDir, m_fileA.getName()).getAbsoluteFile(),
+                IncrementalSnapshotTracker.getBaseFile(movedStateFile, "A", stamps(1), stamps(42)));
+    }
+
+    public void testDigestIgnoresRowOrder() {
+        ByteBuffer rows = ByteBuffer.allocate(24);
+        rows.putInt(4).putLong(1).putInt(4).putLong(2).flip();
+        long forward = IncrementalSnapshotTracker.addRowToDigest(0, rows, 0, 12);
+        forward = IncrementalSnapshotTracker.addRowToDigest(forward, rows, 12, 12);
+        long backward = IncrementalSnapshotTracker.addRowToDigest(0, rows, 12, 12);
+        backward = IncrementalSnapshotTracker.addRowToDigest(backward, rows, 0, 12);
+        assertEquals(forward, backward);
+        // A different set of rows has a different digest
+        long twice = IncrementalSnapshotTracker.addRowToDigest(0, rows, 0, 12);
+        twice = IncrementalSnapshotTracker.addRowToDigest(twice, rows, 0, 12);
+        assertTrue(forward != twice);
+    }
+}
@@ -0,0 +1,254 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2017 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.voltdb.sysprocs.saverestore;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.Future;
+
+import org.voltcore.utils.DBBPool;
+import org.voltcore.utils.DBBPool.BBContainer;
+import org.voltdb.DefaultSnapshotDataTarget;
+import org.voltdb.EELibraryLoader;
+import org.voltdb.SnapshotCodec;
+import org.voltdb.SnapshotSiteProcessor;
+import org.voltdb.VoltTable;
+import org.voltdb.VoltType;
+import org.voltdb.utils.VoltFile;
+
+import com.google_voltpatches.common.util.concurrent.Callables;
+
+import junit.framework.TestCase;
+
+public class TestTableSaveFile extends TestCase {
+
+    private static final File TEST_DIR = new File("/tmp/" + System.getProperty("user.name") + "/tablesavefile");
+    private static final int PARTITION_ID = 5;
+
+    private final Random m_random = new Random(0);
+
+    @Override
+    public void setUp() throws Exception {
+        EELibraryLoader.loadExecutionEngineLibrary(true);
+        if (TEST_DIR.exists()) {
+            VoltFile.recursivelyDelete(TEST_DIR);
+        }
+        TEST_DIR.mkdirs();
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        VoltFile.recursivelyDelete(TEST_DIR);
+    }
+
+    /**
+     * Write a table file with the given number of chunks and return their contents
+     */
+    private List<byte[]> writeTableFile(File file, String tableName, int chunks) throws Exception {
+        VoltTable schema = new VoltTable(new VoltTable.ColumnInfo("ID", VoltType.BIGINT));
+        DefaultSnapshotDataTarget target = new DefaultSnapshotDataTarget(file, 0, "cluster", "database",
+                tableName, 8, false, Arrays.asList(PARTITION_ID), schema, 1L, System.currentTimeMillis());
+        List<byte[]> written = new ArrayList<byte[]>();
+        try {
+            List<Future<?>> writes = new ArrayList<Future<?>>();
+            for (int ii = 0; ii < chunks; ii++) {
+                byte[] data = new byte[SnapshotSiteProcessor.m_snapshotBufferLength / 2 + m_random.nextInt(1024)];
+                for (int jj = 0; jj < data.length; jj += 32) {
+                    Arrays.fill(data, jj, Math.min(data.length, jj + 32), (byte)m_random.nextInt());
+                }
+                written.add(data);
+                BBContainer c = DBBPool.allocateDirect(4 + data.length);
+                c.b().putInt(PARTITION_ID).put(data).flip();
+                writes.add(target.write(Callables.returning(c), 0));
+            }
+            for (Future<?> write : writes) {
+                write.get();
+            }
+        } finally {
+            target.close();
+        }
+        return written;
+    }
+
+    private static void readChunks(TableSaveFile saveFile, List<byte[]> written) throws Exception {
+        final int headerLength = saveFile.getTableHeader().capacity();
+        for (byte[] expected : written) {
+            BBContainer c = saveFile.getNextChunk();
+            assertNotNull(c);
+            try {
+                ByteBuffer b = c.b();
+                b.position(headerLength);
+                byte[] actual = new byte[b.remaining()];
+                b.get(actual);
+                assertTrue(Arrays.equals(expected, actual));
+            } finally {
+                c.discard();
+            }
+        }
+        assertNull(saveFile.getNextChunk());
+    }
+
+    public void testReadAheadGrowsWhileConsumerWaits() throws Exception {
+        File file = new File(TEST_DIR, "nonce-T-host_0.vpt");
+        List<byte[]> written = writeTableFile(file, "T", 40);
+
+        TableSaveFile saveFile = new TableSaveFile(new FileInputStream(file), 1, null);
+        try {
+            readChunks(saveFile, written);
+            assertTrue(saveFile.getReadAheadChunks() > 1);
+            assertTrue(TableSaveFile.m_sharedReadAheadChunks.availablePermits() <
+                       TableSaveFile.MAX_SHARED_READ_AHEAD_CHUNKS);
+        } finally {
+            saveFile.close();
+        }
+        // The extra read ahead goes back to the shared budget
+        assertEquals(TableSaveFile.MAX_SHARED_READ_AHEAD_CHUNKS,
+                     TableSaveFile.m_sharedReadAheadChunks.availablePermits());
+    }
+
+    public void testReadAheadStaysWithinSharedBudget() throws Exception {
+        File file = new File(TEST_DIR, "nonce-T-host_0.vpt");
+        List<byte[]> written = writeTableFile(file, "T", 40);
+
+        // Other files have taken the whole budget
+        final int drained = TableSaveFile.m_sharedReadAheadChunks.drainPermits();
+        try {
+            TableSaveFile saveFile = new TableSaveFile(new FileInputStream(file), 1, null);
+            try {
+                readChunks(saveFile, written);
+                assertEquals(1, saveFile.getReadAheadChunks());
+            } finally {
+                saveFile.close();
+            }
+            assertEquals(0, TableSaveFile.m_sharedReadAheadChunks.availablePermits());
+        } finally {
+            TableSaveFile.m_sharedReadAheadChunks.release(drained);
+        }
+    }
+
+    public void testConcurrentValidation() throws Exception {
+        final int tables = 12;
+        for (int ii = 0; ii < tables; ii++) {
+            writeTableFile(new File(TEST_DIR, "nonce-T" + ii + "-host_0.vpt"), "T" + ii, 4);
+        }
+        // Damage the data of the last chunk of one file
+        RandomAccessFile damaged = new RandomAccessFile(new File(TEST_DIR, "nonce-T7-host_0.vpt"), "rw");
+        try {
+            damaged.seek(damaged.length() - 100);
+            int b = damaged.read();
+            damaged.seek(damaged.length() - 100);
+            damaged.write(b ^ 0xff);
+        } finally {
+            damaged.close();
+        }
+
+        TreeMap<String, SnapshotUtil.Snapshot> snapshots = new TreeMap<String, SnapshotUtil.Snapshot>();
+        SnapshotUtil.retrieveSnapshotFiles(TEST_DIR, snapshots, new SnapshotUtil.SnapshotFilter(), true,
+                                           SnapshotPathType.SNAP_PATH, null);
+        assertEquals(1, snapshots.size());
+        SnapshotUtil.Snapshot snapshot = snapshots.get("nonce");
+        assertEquals(1L, snapshot.getTxnId());
+        assertEquals(tables, snapshot.m_tableFiles.size());
+        for (int ii = 0; ii < tables; ii++) {
+            SnapshotUtil.TableFiles tableFiles = snapshot.m_tableFiles.get("T" + ii);
+            assertEquals(1, tableFiles.m_files.size());
+            assertEquals("nonce-T" + ii + "-host_0.vpt", tableFiles.m_files.get(0).getName());
+            assertTrue(tableFiles.m_completed.get(0));
+            if (ii == 7) {
+                assertTrue(tableFiles.m_validPartitionIds.get(0).isEmpty());
+                assertEquals(new HashSet<Integer>(Arrays.asList(PARTITION_ID)),
+                             tableFiles.m_corruptParititionIds.get(0));
+            } else {
+                assertEquals(new HashSet<Integer>(Arrays.asList(PARTITION_ID)),
+                             tableFiles.m_validPartitionIds.get(0));
+                assertTrue(tableFiles.m_corruptParititionIds.get(0).isEmpty());
+            }
+        }
+        assertEquals(TableSaveFile.MAX_SHARED_READ_AHEAD_CHUNKS,
+                     TableSaveFile.m_sharedReadAheadChunks.availablePermits());
+    }
+
+    public void testReferenceFileRestoresBaseRows() throws Exception {
+        File root = new File(TEST_DIR, "root");
+        File first = new File(root, "first");
+        File second = new File(root, "second");
+        assertTrue(first.mkdirs());
+        assertTrue(second.mkdirs());
+        File baseFile = new File(first, "first-T-host_0.vpt");
+        List<byte[]> written = writeTableFile(baseFile, "T", 3);
+
+        // An incremental snapshot that left the table out names the base file
+        File referenceFile = new File(second, "second-T-host_0.vpt");
+        VoltTable schema = new VoltTable(new VoltTable.ColumnInfo("ID", VoltType.BIGINT));
+        new DefaultSnapshotDataTarget(referenceFile, 0, "cluster", "database", "T", 8, false,
+                Arrays.asList(PARTITION_ID), schema, 2L, System.currentTimeMillis(),
+                SnapshotCodec.SNAPPY, SnapshotCodec.SNAPPY.getDefaultLevel(), baseFile).close();
+        assertTrue(referenceFile.length() < baseFile.length());
+
+        TableSaveFile saveFile = new TableSaveFile(referenceFile, 1, null);
+        try {
+            assertNotNull(saveFile.getBase());
+            assertEquals(2L, saveFile.getTxnId());
+            assertTrue(saveFile.getCompleted());
+            readChunks(saveFile, written);
+        } finally {
+            saveFile.close();
+        }
+
+        // The scan done before a restore finds the rows valid
+        TreeMap<String, SnapshotUtil.Snapshot> snapshots = new TreeMap<String, SnapshotUtil.Snapshot>();
+        SnapshotUtil.retrieveSnapshotFiles(second, snapshots, new SnapshotUtil.SnapshotFilter(), true,
+                                           SnapshotPathType.SNAP_PATH, null);
+        SnapshotUtil.TableFiles tableFiles = snapshots.get("second").m_tableFiles.get("T");
+        assertEquals(new HashSet<Integer>(Arrays.asList(PARTITION_ID)), tableFiles.m_validPartitionIds.get(0));
+
+        // The base is named relative to the reference, so the snapshots can be moved together
+        File moved = new File(TEST_DIR, "moved");
+        assertTrue(root.renameTo(moved));
+        saveFile = new TableSaveFile(new File(moved, "second/second-T-host_0.vpt"), 1, null);
+        try {
+            readChunks(saveFile, written);
+        } finally {
+            saveFile.close();
+        }
+
+        // Without the path of the reference there is nothing to resolve the base against
+        FileInputStream fis = new FileInputStream(new File(moved, "second/second-T-host_0.vpt"));
+        try {
+            new TableSaveFile(fis, 1, null);
+            fail();
+        } catch (IOException expected) {
+        } finally {
+            fis.close();
+        }
+    }
+}
@@ -218,6 +218,38 @@ public class TestCatalogUtil extends TestCase {
         assertFalse(db.getSnapshotschedule().isEmpty());
         assertTrue(db.getSnapshotschedule().get("default").getEnabled());
         assertEquals(10, db.getSnapshotschedule().get("default").getRetain());
+        assertEquals("", db.getSnapshotschedule().get("default").getCompression());
+    }
+
+    public void testAutoSnapshotCompression() throws Exception
+    {
+        final String depLz4 =
+            "<?xml version='1.0' encoding='UTF-8' standalone='no'?>" +
+            "<deployment>" +
+            "   <cluster hostcount='3' kfactor='1' sitesperhost='2'/>" +
+            "   <paths><voltdbroot path=\"/tmp/" + System.getProperty("user.name") + "\" /></paths>" +
+            "   <snapshot frequency=\"5s\" retain=\"10\" prefix=\"pref2\" compression=\"lz4\"/>" +
+            "</deployment>";
+
+        final String depBogus =
+            "<?xml version='1.0' encoding='UTF-8' standalone='no'?>" +
+            "<deployment>" +
+            "   <cluster hostcount='3' kfactor='1' sitesperhost='2'/>" +
+            "   <paths><voltdbroot path=\"/tmp/" + System.getProperty("user.name") + "\" /></paths>" +
+            "   <snapshot frequency=\"5s\" retain=\"10\" prefix=\"pref2\" compression=\"bogus\"/>" +
+            "</deployment>";
+
+        final File tmpDepLz4 = VoltProjectBuilder.writeStringToTempFile(depLz4);
+        CatalogUtil.compileDeployment(catalog, tmpDepLz4.getPath(), false);
+        Database db = catalog.getClusters().get("cluster").getDatabases().get("database");
+        assertEquals("LZ4", db.getSnapshotschedule().get("default").getCompression());
+
+        // An unknown codec falls back to the default one
+        setUp();
+        final File tmpDepBogus = VoltProjectBuilder.writeStringToTempFile(depBogus);
+        CatalogUtil.compileDeployment(catalog, tmpDepBogus.getPath(), false);
+        db = catalog.getClusters().get("cluster").getDatabases().get("database");
+        assertEquals("SNAPPY", db.getSnapshotschedule().get("default").getCompression());
     }
 
     public void testSecurityEnabledFlag() throws Exception
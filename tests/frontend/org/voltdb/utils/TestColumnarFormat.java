@@ -0,0 +1,154 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2017 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.utils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.voltdb.VoltTable;
+import org.voltdb.VoltType;
+import org.voltdb.types.GeographyPointValue;
+import org.voltdb.types.TimestampType;
+
+public class TestColumnarFormat extends TestCase {
+
+    private static VoltTable createTable() {
+        return new VoltTable(
+                new VoltTable.ColumnInfo("ID", VoltType.BIGINT),
+                new VoltTable.ColumnInfo("SMALL", VoltType.SMALLINT),
+                new VoltTable.ColumnInfo("TS", VoltType.TIMESTAMP),
+                new VoltTable.ColumnInfo("PRICE", VoltType.FLOAT),
+                new VoltTable.ColumnInfo("AMOUNT", VoltType.DECIMAL),
+                new VoltTable.ColumnInfo("CITY", VoltType.STRING),
+                new VoltTable.ColumnInfo("NOTE", VoltType.STRING),
+                new VoltTable.ColumnInfo("BLOB", VoltType.VARBINARY),
+                new VoltTable.ColumnInfo("LOC", VoltType.GEOGRAPHY_POINT));
+    }
+
+    private static final String CITIES[] = new String[] { "Boston", "Bedford", "Zürich" };
+
+    private static VoltTable fillTable(int rows) {
+        Random r = new Random(42);
+        VoltTable vt = createTable();
+        for (int ii = 0; ii < rows; ii++) {
+            vt.addRow(1000L + ii,
+                      ii % 7 == 0 ? null : (short)r.nextInt(100),
+                      new TimestampType(1500000000000000L + ii * 1000L),
+                      r.nextDouble(),
+                      new BigDecimal(r.nextInt(100000)).movePointLeft(2),
+                      CITIES[ii % CITIES.length],
+                      ii % 3 == 0 ? null : "note " + r.nextInt(),
+                      new byte[] { (byte)ii, (byte)(ii >> 8) },
+                      new GeographyPointValue(ii % 180 - 90, ii % 90));
+        }
+        return vt;
+    }
+
+    private static ByteBuffer encodeFile(VoltTable... groups) {
+        byte header[] = ColumnarFormat.getHeader(groups[0]);
+        int length = header.length;
+        byte encoded[][] = new byte[groups.length][];
+        for (int ii = 0; ii < groups.length; ii++) {
+            encoded[ii] = ColumnarFormat.encodeRowGroup(groups[ii]);
+            length += encoded[ii].length;
+        }
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        buf.put(header);
+        for (byte group[] : encoded) {
+            buf.put(group);
+        }
+        buf.flip();
+        return buf;
+    }
+
+    public void testRoundTrip() throws IOException {
+        VoltTable first = fillTable(1000);
+        VoltTable second = fillTable(10);
+        ByteBuffer buf = encodeFile(first, second);
+
+        VoltTable schema = ColumnarFormat.readHeader(buf);
+        assertEquals(0, schema.getRowCount());
+        assertEquals(first.getColumnCount(), schema.getColumnCount());
+        for (int ii = 0; ii < schema.getColumnCount(); ii++) {
+            assertEquals(first.getColumnName(ii), schema.getColumnName(ii));
+            assertEquals(first.getColumnType(ii), schema.getColumnType(ii));
+        }
+
+        assertTrue(first.hasSameContents(ColumnarFormat.decodeRowGroup(buf, schema)));
+        assertTrue(second.hasSameContents(ColumnarFormat.decodeRowGroup(buf, schema)));
+        assertFalse(buf.hasRemaining());
+    }
+
+    public void testStatsAndEncodings() throws IOException {
+        VoltTable vt = fillTable(1000);
+        ByteBuffer buf = encodeFile(vt);
+        VoltTable schema = ColumnarFormat.readHeader(buf);
+        ColumnarFormat.ColumnStats stats[] = ColumnarFormat.readRowGroupStats(buf, schema);
+        assertFalse(buf.hasRemaining());
+
+        // Sequential keys and timestamps compress as deltas
+        assertEquals(ColumnarFormat.Encoding.DELTA, stats[0].m_encoding);
+        assertEquals(1000L, stats[0].m_min);
+        assertEquals(1999L, stats[0].m_max);
+        assertEquals(0, stats[0].m_nullCount);
+        assertEquals(ColumnarFormat.Encoding.DELTA, stats[2].m_encoding);
+        assertEquals(1500000000000000L, stats[2].m_min);
+        assertEquals(1500000000999000L, stats[2].m_max);
+
+        assertEquals(143, stats[1].m_nullCount);
+
+        // Few distinct cities use a dictionary, unique notes do not
+        assertEquals(ColumnarFormat.Encoding.DICTIONARY, stats[5].m_encoding);
+        assertEquals("Bedford", stats[5].m_min);
+        assertEquals("Zürich", stats[5].m_max);
+        assertEquals(ColumnarFormat.Encoding.PLAIN, stats[6].m_encoding);
+        assertEquals(334, stats[6].m_nullCount);
+
+        // No ordering for points
+        assertNull(stats[8].m_min);
+        assertNull(stats[8].m_max);
+    }
+
+    public void testEmptyAndAllNull() throws IOException {
+        VoltTable empty = createTable();
+        VoltTable nulls = createTable();
+        nulls.addRow(null, null, null, null, null, null, null, null, null);
+        ByteBuffer buf = encodeFile(empty, nulls);
+        VoltTable schema = ColumnarFormat.readHeader(buf);
+
+        assertEquals(0, ColumnarFormat.decodeRowGroup(buf, schema).getRowCount());
+        int position = buf.position();
+        assertTrue(nulls.hasSameContents(ColumnarFormat.decodeRowGroup(buf, schema)));
+
+        buf.position(position);
+        for (ColumnarFormat.ColumnStats stats : ColumnarFormat.readRowGroupStats(buf, schema)) {
+            assertEquals(1, stats.m_nullCount);
+            assertNull(stats.m_min);
+        }
+    }
+}
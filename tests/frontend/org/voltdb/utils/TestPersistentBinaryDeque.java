@@ -647,6 +647,136 @@ public class TestPersistentBinaryDeque {
         assertTrue(names.first().equals("pbd_nonce.3.pbd"));
     }
 
+    @Test
+    public void testOfferUncompressedCloseThenReopen() throws Exception {
+        System.out.println("Running testOfferUncompressedCloseThenReopen");
+        //Make it create two full segments of uncompressed objects
+        for (int ii = 0; ii < 96; ii++) {
+            m_pbd.offer(defaultContainer(), false);
+        }
+        m_pbd.sync();
+        m_pbd.close();
+
+        //The segments are now closed, so they are read through a mapping
+        m_pbd = new PersistentBinaryDeque( TEST_NONCE, TEST_DIR, logger );
+        BinaryDequeReader reader = m_pbd.openForRead(CURSOR_ID);
+
+        ByteBuffer defaultBuffer = defaultBuffer();
+        for (int ii = 0; ii < 96; ii++) {
+            defaultBuffer.clear();
+            BBContainer retval = reader.poll(PersistentBinaryDeque.UNSAFE_CONTAINER_FACTORY);
+            assertTrue(defaultBuffer.equals(retval.b()));
+            retval.discard();
+        }
+        assertNull(reader.poll(PersistentBinaryDeque.UNSAFE_CONTAINER_FACTORY));
+
+        //Expect just the current write segment
+        TreeSet<String> names = getSortedDirectoryListing();
+        assertEquals( 1, names.size());
+    }
+
+    @Test
+    public void testSegmentCompressedCopy() throws Exception {
+        System.out.println("Running testSegmentCompressedCopy");
+        PBDSegment segment = new PBDRegularSegment(100L, new File(TEST_DIR, "compressed.100.pbd"));
+        segment.openForWrite(true);
+        for (int ii = 0; ii < 10; ii++) {
+            assertTrue(segment.offer(DBBPool.wrapBB(getFilledSmallBuffer(ii)), false));
+        }
+        segment.close();
+        final long length = segment.file().length();
+
+        File copy = segment.writeCompressedCopy();
+        assertNotNull(copy);
+        assertTrue(copy.length() < length);
+        assertTrue(copy.renameTo(segment.file()));
+
+        assertEquals(10, segment.getNumEntries());
+        PBDSegment.PBDSegmentReader reader = segment.openForRead(CURSOR_ID);
+        for (int ii = 0; ii < 10; ii++) {
+            BBContainer cont = reader.poll(PersistentBinaryDeque.UNSAFE_CONTAINER_FACTORY);
+            assertEquals(getFilledSmallBuffer(ii), cont.b());
+            cont.discard();
+        }
+        assertFalse(reader.hasMoreEntries());
+        segment.closeAndDelete();
+    }
+
+    @Test
+    public void testDiskUsage() throws Exception {
+        System.out.println("Running testDiskUsage");
+        long empty = m_pbd.getDiskUsageBytes();
+        for (int ii = 0; ii < 96; ii++) {
+            m_pbd.offer(defaultContainer(), false);
+        }
+        long diskUsage = 0;
+        for (File f : TEST_DIR.listFiles()) {
+            diskUsage += f.length();
+        }
+        assertEquals(diskUsage, m_pbd.getDiskUsageBytes());
+        assertTrue(diskUsage > empty);
+    }
+
+    @Test
+    public void testMappedEntriesOutliveSegmentClose() throws Exception {
+        System.out.println("Running testMappedEntriesOutliveSegmentClose");
+        for (int ii = 0; ii < 96; ii++) {
+            m_pbd.offer(defaultContainer(), false);
+        }
+        m_pbd.sync();
+        m_pbd.close();
+
+        m_pbd = new PersistentBinaryDeque( TEST_NONCE, TEST_DIR, logger );
+        BinaryDequeReader reader = m_pbd.openForRead(CURSOR_ID);
+        BBContainer retval = reader.poll(PersistentBinaryDeque.UNSAFE_CONTAINER_FACTORY);
+
+        //Closing the deque unmaps the segment, the polled entry must not point into the mapping
+        m_pbd.close();
+        ByteBuffer defaultBuffer = defaultBuffer();
+        assertTrue(defaultBuffer.equals(retval.b()));
+        retval.discard();
+        m_pbd = null;
+    }
+
+    @Test
+    public void testObjectsBelowCompressionThresholdAreStoredUncompressed() throws Exception {
+        System.out.println("Running testObjectsBelowCompressionThresholdAreStoredUncompressed");
+        final int small = PBDSegment.MIN_COMPRESSIBLE_BYTES - 1;
+        BBContainer smallCont = DBBPool.allocateDirect(small);
+        assertNull(PBDSegment.compress(smallCont.b()));
+        BBContainer bigCont = DBBPool.allocateDirect(PBDSegment.MIN_COMPRESSIBLE_BYTES);
+        BBContainer compressed = PBDSegment.compress(bigCont.b());
+        assertNotNull(compressed);
+        compressed.discard();
+        bigCont.discard();
+        smallCont.discard();
+
+        for (int ii = 0; ii < 10; ii++) {
+            BBContainer cont = DBBPool.allocateDirect(small);
+            while (cont.b().hasRemaining()) {
+                cont.b().put((byte) ii);
+            }
+            cont.b().flip();
+            m_pbd.offer(cont, true);
+        }
+        m_pbd.sync();
+
+        //Every object is written with just its header, even though compression was allowed
+        File segment = new File(TEST_DIR, getSortedDirectoryListing().first());
+        assertEquals(PBDSegment.SEGMENT_HEADER_BYTES + 10 * (PBDSegment.OBJECT_HEADER_BYTES + small), segment.length());
+
+        BinaryDequeReader reader = m_pbd.openForRead(CURSOR_ID);
+        for (int ii = 0; ii < 10; ii++) {
+            BBContainer retval = reader.poll(PersistentBinaryDeque.UNSAFE_CONTAINER_FACTORY);
+            assertEquals(small, retval.b().remaining());
+            while (retval.b().hasRemaining()) {
+                assertEquals((byte) ii, retval.b().get());
+            }
+            retval.discard();
+        }
+        assertNull(reader.poll(PersistentBinaryDeque.UNSAFE_CONTAINER_FACTORY));
+    }
+
     @Test
     public void testInvalidDirectory() throws Exception {
         System.out.println("Running testInvalidDirectory");